@@ -1,12 +1,26 @@
 package de.uni_hannover.se.pdfzensor;
 
+import de.uni_hannover.se.pdfzensor.batch.BatchCensor;
+import de.uni_hannover.se.pdfzensor.batch.ChunkedCensor;
+import de.uni_hannover.se.pdfzensor.batch.Outcome;
+import de.uni_hannover.se.pdfzensor.batch.SplitCensor;
+import de.uni_hannover.se.pdfzensor.batch.SpoolWatcher;
 import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
 import de.uni_hannover.se.pdfzensor.config.CLErrorMessageHandler;
 import de.uni_hannover.se.pdfzensor.config.CLHelp;
 import de.uni_hannover.se.pdfzensor.config.Settings;
 import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.server.CensorServer;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import de.uni_hannover.se.pdfzensor.utils.MappedFile;
+import de.uni_hannover.se.pdfzensor.utils.MemoryMonitor;
+import de.uni_hannover.se.pdfzensor.writer.DocumentWriter;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
 import org.jetbrains.annotations.NotNull;
@@ -14,7 +28,9 @@ import org.jetbrains.annotations.Nullable;
 import picocli.CommandLine;
 
 import javax.security.sasl.AuthenticationException;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Objects;
@@ -24,6 +40,11 @@ import java.util.Objects;
  */
 public class App {
 	public static final String ROOT_DIR = System.getProperty("user.home") + "/.config/pdf-zensor/";
+	/**
+	 * The exit code if censoring took longer than {@link Settings#getTimeout()} (or in batch mode: if all pdf-files
+	 * that failed did so for that reason). It is the same as the one of the <code>timeout</code> command.
+	 */
+	public static final int TIMEOUT_EXIT_CODE = 124;
 	
 	private static Logger logger;
 	
@@ -35,19 +56,23 @@ public class App {
 	 * @param file     the file to open.
 	 * @param password the password that should be used for the initial try. May be <code>null</code>.
 	 * @param tries    the maximum amount of prompts given to the user for providing the correct password.
+	 * @param memory   the memory usage setting that should be used to buffer the pdf-file.
+	 * @param mapped   true if the pdf-file should be mapped into memory (see {@link MappedFile}).
 	 * @return the opened pdf-file.
 	 * @throws IOException             if an I/O error occurs.
 	 * @throws AuthenticationException if the user failed to authenticate within <code>tries</code> attempts.
 	 */
 	@SuppressWarnings("squid:S106")// we explicitly want to print to stdout here instead of logging
 	@NotNull
-	private static PDDocument open(@NotNull File file, @Nullable String password, int tries) throws IOException {
+	private static PDDocument open(@NotNull File file, @Nullable String password, int tries,
+								   @NotNull MemoryUsageSetting memory, boolean mapped) throws IOException {
 		Objects.requireNonNull(file);
 		password = Objects.requireNonNullElse(password, "");
 		try (var reader = IOUtils.lineIterator(System.in, Charset.defaultCharset())) {
 			for (int i = 0; i <= tries; i++) {
 				try {
-					var doc = PDDocument.load(file, password);
+					var doc = mapped ? MappedFile.load(file, password, memory) :
+							  PDDocument.load(file, password, memory);
 					doc.setAllSecurityToBeRemoved(true);
 					return doc;
 				} catch (InvalidPasswordException e) {
@@ -63,7 +88,48 @@ public class App {
 	}
 	
 	/**
-	 * Creates the {@link Settings}, {@link PDFCensor} and {@link PDFProcessor}.
+	 * Loads the (possibly password protected) pdf-file from stdin using the provided password. The pdf-file is buffered
+	 * according to the provided memory usage setting as the stream can not be read randomly.
+	 *
+	 * @param password the password that should be used to decrypt the pdf-file. May be <code>null</code>.
+	 * @param memory   the memory usage setting that should be used to buffer the pdf-file.
+	 * @return the opened pdf-file.
+	 * @throws IOException if an I/O error occurs or the password is incorrect.
+	 */
+	@NotNull
+	private static PDDocument openStdin(@Nullable String password, @NotNull MemoryUsageSetting memory)
+			throws IOException {
+		var doc = PDDocument.load(new CloseShieldInputStream(System.in), Objects.requireNonNullElse(password, ""),
+								  memory);
+		doc.setAllSecurityToBeRemoved(true);
+		return doc;
+	}
+	
+	/**
+	 * Writes the pdf-file to stdout. Stdout is flushed but stays open.
+	 *
+	 * @param doc      the pdf-file that should be written.
+	 * @param settings the settings specifying how the pdf-file should be written.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void saveStdout(@NotNull PDDocument doc, @NotNull Settings settings) throws IOException {
+		DocumentWriter.save(doc, new BufferedOutputStream(new CloseShieldOutputStream(System.out)), settings);
+		System.out.flush();
+	}
+	
+	/**
+	 * Creates the {@link Settings}, {@link PDFCensor} and {@link PDFProcessor}. In batch mode the inputs are censored
+	 * by a {@link BatchCensor} instead and a summary of the outcomes is printed. If any of them failed the exit code is
+	 * 1 ({@link #TIMEOUT_EXIT_CODE} if all of those timed out). If a server port was specified, a {@link CensorServer}
+	 * is started that runs until the JVM is shut down. If a directory should be watched, a {@link SpoolWatcher} watches
+	 * it until the JVM is shut down. If the pdf-file should be split into chunks, it is censored by a {@link
+	 * ChunkedCensor}. If the output should be split into part files, it is censored by a {@link SplitCensor}, which
+	 * deletes the parts written so far if censoring fails. If censoring takes longer than {@link Settings#getTimeout()}
+	 * it is aborted, nothing is written and the exit code is {@link #TIMEOUT_EXIT_CODE}. The pdf-file is buffered
+	 * according to {@link Settings#getMemoryUsageSetting()} and the peak heap and scratch usage is logged.
+	 * <br>
+	 * The pdf-file may be read from stdin and written to stdout (see {@link Settings#STANDARD_STREAM}). In that case
+	 * the user is never prompted for a password.
 	 *
 	 * @param args Arguments given by the user via CL-input.
 	 */
@@ -73,18 +139,71 @@ public class App {
 			if (!CLHelp.printStandardHelpOptionsIfRequested(args)) {
 				final var settings = new Settings(args);
 				logger = Logging.getLogger();
+				if (settings.getServerPort() != null) {
+					final var server = new CensorServer(settings);
+					Runtime.getRuntime().addShutdownHook(new Thread(server::close, "Censor-Server-Shutdown"));
+					server.start();
+					System.out.println("Listening on http://localhost:" + server.getPort() + "/censor");
+					return;
+				}
+				if (settings.getWatchDir() != null) {
+					final var watcher = new SpoolWatcher(settings);
+					Runtime.getRuntime().addShutdownHook(new Thread(watcher::close, "Spool-Watcher-Shutdown"));
+					watcher.run();
+					return;
+				}
+				if (settings.isBatch()) {
+					final var batch = new BatchCensor(settings);
+					final var outcomes = batch.run();
+					BatchCensor.writeSummary(outcomes, System.out);
+					batch.writeUtilisation(System.out);
+					if (!outcomes.stream().allMatch(Outcome::isSuccess)) {
+						final var timedOut = outcomes.stream().allMatch(o -> o.isSuccess() || o.isTimedOut());
+						System.exit(timedOut ? TIMEOUT_EXIT_CODE : 1);
+					}
+					return;
+				}
+				if (settings.getChunkPages() != null) {
+					try (var out = settings.isOutputStdout() ?
+								   new BufferedOutputStream(new CloseShieldOutputStream(System.out)) :
+								   new BufferedOutputStream(new FileOutputStream(settings.getOutput()))) {
+						new ChunkedCensor(settings).censor(settings.getInput(), out);
+					}
+					return;
+				}
+				if (settings.getSplitPages() != null) {
+					final var monitor = new MemoryMonitor(settings.getScratchDir());
+					final var censor = new SplitCensor(settings);
+					final var parts = censor.censor(settings.getInput(), settings.getOutput(), monitor);
+					logger.info("Wrote {} parts, {}", parts.size(), monitor);
+					return;
+				}
 				final var censor = new PDFCensor(settings);
-				final var processor = new PDFProcessor(censor);
-				final var tries = settings.getNoInteraction() ? 0 : 3;
-				try (final var doc = open(settings.getInput(), settings.getPassword(), tries)) {
-					processor.process(doc);
-					doc.save(settings.getOutput());
+				final var processor = new PDFProcessor(censor, settings);
+				// stdin and stdout are used for the pdf-files and thus can not be used to prompt for a password
+				final var streamed = settings.isInputStdin() || settings.isOutputStdout();
+				final var tries = settings.getNoInteraction() || streamed ? 0 : 3;
+				final var monitor = new MemoryMonitor(settings.getScratchDir());
+				try (final var doc = settings.isInputStdin() ?
+									 openStdin(settings.getPassword(), settings.getMemoryUsageSetting()) :
+									 open(settings.getInput(), settings.getPassword(), tries,
+										  settings.getMemoryUsageSetting(), settings.isMemoryMapped())) {
+					processor.process(doc, new Deadline(settings.getTimeout()));
+					if (settings.isOutputStdout())
+						saveStdout(doc, settings);
+					else DocumentWriter.save(doc, settings.getOutput(), settings);
+					monitor.sampleScratch();
 				}
+				logger.info("{}", monitor);
 			}
 		} catch (CommandLine.ParameterException ex) {
 			CLErrorMessageHandler handler = new CLErrorMessageHandler();
 			Objects.requireNonNullElseGet(logger, Logging::getLogger).error("An error occurred", ex);
 			System.exit(handler.handleParseException(ex, args));
+		} catch (AbortedException e) {
+			System.err.println(e.getMessage());
+			Objects.requireNonNullElseGet(logger, Logging::getLogger).error("Censoring was aborted", e);
+			System.exit(e.isTimeout() ? TIMEOUT_EXIT_CODE : -1);
 		} catch (Exception e) {
 			System.err.println(e.getMessage());
 			Objects.requireNonNullElseGet(logger, Logging::getLogger).error("An error occurred", e);
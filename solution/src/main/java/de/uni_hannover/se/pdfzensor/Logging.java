@@ -25,7 +25,9 @@ import java.util.Objects;
  * #deinit()} method to the outside. Internally it is responsible for initializing and setting up the underlying logging
  * system. If the Log-Level of the Root-Logger should be set, {@link #init(Level)} has to be called with the appropriate
  * level <b>before</b> any call to {@link #getLogger()} is made.
- * <b>Not thread-safe</b>
+ * <br>
+ * Logging is thread-safe: the logging is initialized only once, by the first call to {@link #init(Level)} (or {@link
+ * #getLogger()}), even if several threads call it concurrently. Later calls do not change its configuration.
  */
 public final class Logging {
 	
@@ -38,9 +40,9 @@ public final class Logging {
 	private static final String LOG_FILE = App.ROOT_DIR + "log.log";
 	/** Log files with a file size (in KBs) meeting or exceeding this value will be overwritten. */
 	private static final int LOG_FILE_SIZE_KB = 1024;
-	/** Stores the context that is currently initialized. */
+	/** Stores the context that is currently initialized. Volatile as it is checked without holding the lock. */
 	@Nullable
-	private static LoggerContext context = null;
+	private static volatile LoggerContext context = null;
 	/** The level of the console logger. */
 	@SuppressWarnings("FieldCanBeLocal")// the field is retrieved via introspection in the tests
 	@Nullable
@@ -79,6 +81,18 @@ public final class Logging {
 	 */
 	public static void init(@NotNull final Level consoleLogLevel) {
 		if (context != null) return;
+		synchronized (Logging.class) {
+			if (context == null)
+				initContext(consoleLogLevel);
+		}
+	}
+	
+	/**
+	 * Initializes the logging context and configures it. Has to be called while holding the lock of {@link Logging}.
+	 *
+	 * @param consoleLogLevel Levels less specific than {@code consoleLogLevel} will be filtered from console logging.
+	 */
+	private static void initContext(@NotNull final Level consoleLogLevel) {
 		var builder = ConfigurationBuilderFactory.newConfigurationBuilder();
 		builder.setStatusLevel(Level.ERROR)
 			   .setConfigurationName("DefaultConfig");
@@ -90,7 +104,7 @@ public final class Logging {
 	}
 	
 	/** Deinitializes the current logging-context. Does nothing if none is initialized. */
-	public static void deinit() {
+	public static synchronized void deinit() {
 		Configurator.shutdown(context);
 		context = null;
 	}
@@ -98,7 +112,7 @@ public final class Logging {
 	/**
 	 * Creates a new console appender of the specified name using the provided configuration builder. The console
 	 * appender is created with the given log level and a PatternLayout set to the pattern {@code %d [%t] %-5level:
-	 * %msg%n%throwable}.
+	 * %msg%n%throwable}. It logs to stderr, such that stdout stays free for the censored pdf-file.
 	 * <br>
 	 * The appender is automatically added to the build-configuration.
 	 *
@@ -118,6 +132,7 @@ public final class Logging {
 		Objects.requireNonNull(logLevel);
 		consoleLevel = logLevel;
 		var appender = builder.newAppender(name, "CONSOLE")
+							  .addAttribute("target", "SYSTEM_ERR")
 							  .add(builder.newFilter("ThresholdFilter", Result.ACCEPT, Result.DENY)
 										  .addAttribute("level", consoleLevel))
 							  .add(builder.newLayout("PatternLayout")
@@ -0,0 +1,563 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import de.uni_hannover.se.pdfzensor.utils.MappedFile;
+import de.uni_hannover.se.pdfzensor.utils.MemoryMonitor;
+import de.uni_hannover.se.pdfzensor.writer.DocumentWriter;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The BatchCensor censors all inputs of one {@link Settings} instance using pools of worker threads. The settings (and
+ * with them the configuration and the compiled expressions) are shared by all workers, while each censoring worker
+ * creates its own {@link PDFCensor} and {@link PDFProcessor} once and reuses them for all pdf-files it censors.
+ * <br>
+ * The pdf-files are admitted by a {@link MemoryBudget} before they are loaded, such that pdf-files censored concurrently
+ * do not exceed {@link Settings#getMemoryBudget()} together.
+ * <br>
+ * If {@link Settings#getManifest()} is set, the outcome of each pdf-file is recorded in a {@link Manifest} once it was
+ * saved, and when {@link Settings#isResume() resuming} the pdf-files the manifest records as censored are skipped.
+ * <br>
+ * If {@link Settings#getCacheDir()} is set, pdf-files censored before with the same settings are copied from the
+ * {@link ResultCache} without being loaded, and the others are stored in it once they were saved. Encrypted pdf-files
+ * are never stored in the cache nor recorded in glyph sidecars, as neither depends on the password.
+ * <br>
+ * If {@link Settings#isGlyphSidecar()} is set, the glyphs of each censored pdf-file are recorded in a {@link
+ * GlyphSidecar} next to it. A pdf-file whose output and sidecar are still those of a previous run with the same glyph
+ * fingerprint (see {@link Settings#getGlyphFingerprint()}) is not loaded again: Its previous output is loaded instead,
+ * its censor bars are redrawn with the current expressions, and it is only written again if any of them changed.
+ * <br>
+ * Since a batch runs unattended, encrypted pdf-files are opened with the specified password only and the user is never
+ * prompted.
+ */
+public final class BatchCensor {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	
+	/** The settings that should be applied to each pdf-file of the batch. */
+	@NotNull
+	private final Settings settings;
+	/** The censor of the current worker thread. Created on first use. */
+	@NotNull
+	private final ThreadLocal<PDFCensor> censor;
+	/** The processor of the current worker thread, which censors using {@link #censor}. Created on first use. */
+	@NotNull
+	private final ThreadLocal<PDFProcessor> processor;
+	/** Admits the pdf-files before they are loaded such that they stay within the memory budget together. */
+	@NotNull
+	private final MemoryBudget budget;
+	/** The cache of the censored pdf-files. Null if they should not be cached. */
+	@Nullable
+	private final ResultCache cache;
+	/** The glyph fingerprint of the settings if glyph sidecars are written, null otherwise. */
+	@Nullable
+	private final String glyphFingerprint;
+	/** The number of pdf-files whose censor bars were redrawn from their glyph sidecar. */
+	@NotNull
+	private final AtomicLong redrawn = new AtomicLong();
+	/** The number of pages rewritten since their censor bars changed when they were redrawn. */
+	@NotNull
+	private final AtomicLong rewrittenPages = new AtomicLong();
+	/** The stages of the last {@link #run()}. Empty until the first run. */
+	@NotNull
+	private List<Stage<Job>> stages = List.of();
+	/** The time (in nanoseconds) the last {@link #run()} took. */
+	private long wallNanos = 0;
+	/** Tracks the peak heap and scratch usage since the last {@link #run()} started. */
+	@NotNull
+	private volatile MemoryMonitor monitor;
+	/** The manifest the outcomes of the current {@link #run()} are recorded in. Null if there is none. */
+	@Nullable
+	private volatile Manifest manifest = null;
+	
+	/**
+	 * Creates a new BatchCensor for the provided settings.
+	 *
+	 * @param settings the settings that should be applied to each of their inputs. May not be null.
+	 * @throws NullPointerException     if settings is null.
+	 * @throws IllegalArgumentException if the cache directory could not be created.
+	 */
+	public BatchCensor(@NotNull Settings settings) {
+		this.settings = Objects.requireNonNull(settings);
+		this.censor = ThreadLocal.withInitial(() -> new PDFCensor(settings));
+		this.processor = ThreadLocal.withInitial(() -> new PDFProcessor(censor.get(), settings));
+		this.budget = new MemoryBudget(settings);
+		final var cacheDir = settings.getCacheDir();
+		this.cache = cacheDir == null ? null :
+					 new ResultCache(cacheDir, settings.getCacheSize(), settings.getFingerprint());
+		this.glyphFingerprint = settings.isGlyphSidecar() ? settings.getGlyphFingerprint() : null;
+		this.monitor = new MemoryMonitor(settings.getScratchDir());
+	}
+	
+	/**
+	 * Censors all inputs of the settings and waits for them to finish. A failure to censor one pdf-file does not affect
+	 * the others.
+	 * <br>
+	 * Loading, censoring and saving the pdf-files are pipelined: {@link Settings#getLoadThreads()} threads load the
+	 * pdf-files and hand them off to {@link Settings#getThreads()} threads censoring them, which in turn hand them off
+	 * to {@link Settings#getSaveThreads()} threads saving them. That way I/O and CPU-bound work overlap. A stage blocks
+	 * while the next one has a pdf-file waiting for each of its threads, which limits the number of pdf-files in
+	 * memory.
+	 *
+	 * @return the outcomes in the order of the inputs.
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the workers.
+	 * @throws IOException          if the manifest could not be read or opened.
+	 */
+	@NotNull
+	public List<Outcome> run() throws InterruptedException, IOException {
+		final var file = settings.getManifest();
+		if (file == null)
+			return runPipeline();
+		try (var m = new Manifest(file, settings.isResume())) {
+			manifest = m;
+			return runPipeline();
+		} finally {
+			manifest = null;
+		}
+	}
+	
+	/**
+	 * Runs the stages of the pipeline (see {@link #run()}) and skips the pdf-files completed according to the
+	 * {@link #manifest}.
+	 *
+	 * @return the outcomes in the order of the inputs.
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the workers.
+	 */
+	@NotNull
+	private List<Outcome> runPipeline() throws InterruptedException {
+		final var inputs = settings.getInputs();
+		final var outcomes = new Outcome[inputs.length];
+		final var poison = new Job(-1, new File(""), new File(""));
+		final var loadThreads = threads(settings.getLoadThreads(), inputs.length);
+		final var censorThreads = threads(settings.getThreads(), inputs.length);
+		final var saveThreads = threads(settings.getSaveThreads(), inputs.length);
+		final var load = new Stage<>("Load", loadThreads, loadThreads, poison, this::load);
+		final var censor = new Stage<>("Censor", censorThreads, censorThreads, poison, this::censor);
+		final var save = new Stage<>("Save", saveThreads, saveThreads, poison,
+									 (Job job) -> outcomes[job.index] = save(job));
+		load.then(censor).then(save);
+		stages = List.of(load, censor, save);
+		LOGGER.info("Censoring {} files using {} load, {} censor and {} save threads", inputs.length, loadThreads,
+					censorThreads, saveThreads);
+		monitor = new MemoryMonitor(settings.getScratchDir());
+		final var start = System.nanoTime();
+		stages.forEach(Stage::start);
+		try {
+			var skipped = 0;
+			for (var i = 0; i < inputs.length; i++) {
+				final var output = settings.getOutput(inputs[i]);
+				if (manifest != null && manifest.isCompleted(inputs[i])) {
+					outcomes[i] = Outcome.skipped(inputs[i], output);
+					skipped++;
+				} else load.put(new Job(i, inputs[i], output));
+			}
+			if (skipped > 0)
+				LOGGER.info("Skipped {} files censored by a previous run", skipped);
+			load.finish();
+			for (var stage : stages)
+				stage.join();
+		} catch (InterruptedException e) {
+			stages.forEach(Stage::interrupt);
+			throw e;
+		} finally {
+			wallNanos = System.nanoTime() - start;
+		}
+		for (var stage : stages)
+			LOGGER.info("{} stage: {} threads, {}% busy", stage, stage.getThreads(),
+						Math.round(100 * stage.getUtilisation(wallNanos)));
+		return Arrays.asList(outcomes);
+	}
+	
+	/**
+	 * Returns the number of threads a stage should use for the provided number of jobs.
+	 *
+	 * @param threads the number of threads specified for the stage.
+	 * @param jobs    the number of jobs.
+	 * @return the number of threads limited to the number of jobs, but at least 1.
+	 */
+	@Contract(pure = true)
+	private static int threads(int threads, int jobs) {
+		return Math.max(1, Math.min(threads, jobs));
+	}
+	
+	/**
+	 * Censors the provided pdf-file using the processor of the current thread and writes it into the provided output.
+	 * May be called concurrently by different threads.
+	 *
+	 * @param input  the pdf-file that should be censored.
+	 * @param output the file the censored pdf-file should be written into. Missing directories are created.
+	 * @return the outcome of censoring the pdf-file. Never throws, failures are recorded in the outcome.
+	 */
+	@NotNull
+	Outcome censor(@NotNull File input, @NotNull File output) {
+		final var job = new Job(0, input, output);
+		load(job);
+		censor(job);
+		return save(job);
+	}
+	
+	/**
+	 * Waits until the pdf-file of the job is admitted by the {@link #budget} and loads it. The user is never prompted
+	 * for a password. If the outcomes are recorded in a manifest, the pdf-files are cached or glyph sidecars are
+	 * written, the hash of the pdf-file is computed first, and a pdf-file found in the cache is copied into the output
+	 * instead of being loaded. If the output has a valid glyph sidecar, the output is loaded instead of the pdf-file.
+	 * The time spent waiting for the admission does not count towards the time of the job.
+	 *
+	 * @param job the job whose pdf-file should be loaded.
+	 */
+	private void load(@NotNull Job job) {
+		final var start = System.nanoTime();
+		var waited = 0L;
+		try {
+			if (manifest != null || cache != null || glyphFingerprint != null) {
+				job.size = job.input.length();
+				job.modified = job.input.lastModified();
+				job.hash = Manifest.hash(job.input);
+			}
+			if (cache != null && cache.restore(Objects.requireNonNull(job.hash), job.output)) {
+				job.cached = true;
+				return;
+			}
+			if (glyphFingerprint != null) {
+				job.sidecar = readSidecar(job.output, Objects.requireNonNull(job.hash), glyphFingerprint);
+				job.redraw = job.sidecar != null;
+			}
+			final var source = job.redraw ? job.output : job.input;
+			final var admitting = System.nanoTime();
+			job.admission = budget.admit(source.length());
+			waited = System.nanoTime() - admitting;
+			// the output was decrypted when it was censored and is replaced once redrawn, so it is never mapped
+			final var password = job.redraw ? "" : Objects.requireNonNullElse(settings.getPassword(), "");
+			final var memory = job.admission.getMemoryUsageSetting();
+			job.doc = settings.isMemoryMapped() && !job.redraw ? MappedFile.load(source, password, memory) :
+					  PDDocument.load(source, password, memory);
+			job.encrypted = job.doc.isEncrypted();
+			job.doc.setAllSecurityToBeRemoved(true);
+			job.admission.setPages(job.doc.getNumberOfPages());
+		} catch (Exception e) {
+			if (e instanceof InterruptedException)
+				Thread.currentThread().interrupt();
+			job.error = e;
+		} finally {
+			job.nanos += System.nanoTime() - start - waited;
+		}
+	}
+	
+	/**
+	 * Reads the glyph sidecar of the output if it is still valid: It has to belong to the current output and input and
+	 * have been recorded with the same glyph fingerprint. An unreadable sidecar is ignored.
+	 *
+	 * @param output      the output the sidecar belongs to.
+	 * @param hash        the hash of the input.
+	 * @param fingerprint the glyph fingerprint of the settings.
+	 * @return the sidecar or null if there is no valid one.
+	 */
+	@Nullable
+	private static GlyphSidecar readSidecar(@NotNull File output, @NotNull String hash, @NotNull String fingerprint) {
+		final var file = GlyphSidecar.fileOf(output);
+		if (!file.isFile() || !output.isFile())
+			return null;
+		try {
+			final var sidecar = GlyphSidecar.read(file);
+			if (sidecar.getInputHash().equals(hash) && sidecar.getFingerprint().equals(fingerprint) &&
+				sidecar.getOutputHash().equals(Manifest.hash(output)))
+				return sidecar;
+			LOGGER.debug("The glyph sidecar of {} is outdated", output);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read the glyph sidecar of {}", output, e);
+		}
+		return null;
+	}
+	
+	/**
+	 * Censors the pdf-file of the job using the processor of the current thread or redraws its censor bars from its
+	 * glyph sidecar. Does nothing if the job failed or was copied from the cache. The censoring is aborted once it
+	 * takes longer than {@link Settings#getTimeout()} or the thread is interrupted.
+	 *
+	 * @param job the job whose pdf-file should be censored.
+	 */
+	private void censor(@NotNull Job job) {
+		if (job.error != null || job.cached)
+			return;
+		final var start = System.nanoTime();
+		try {
+			final var deadline = new Deadline(settings.getTimeout());
+			if (job.redraw) {
+				job.changedPages = censor.get().redrawCensorBars(Objects.requireNonNull(job.doc),
+																 Objects.requireNonNull(job.sidecar), deadline);
+			} else {
+				processor.get().process(Objects.requireNonNull(job.doc), deadline);
+				job.sidecar = censor.get().getSidecar();
+			}
+		} catch (Exception e) {
+			job.error = e;
+		} finally {
+			job.nanos += System.nanoTime() - start;
+		}
+	}
+	
+	/**
+	 * Saves the pdf-file of the job into its output, writes its glyph sidecar and stores it in the cache (unless the
+	 * job failed or was copied from the cache), closes it and releases its admission. A pdf-file whose censor bars were
+	 * redrawn replaces its output only if any of them changed. The outcome is recorded in the manifest if there is one.
+	 *
+	 * @param job the job whose pdf-file should be saved.
+	 * @return the outcome of the job.
+	 */
+	@NotNull
+	private Outcome save(@NotNull Job job) {
+		final var start = System.nanoTime();
+		try (var doc = job.doc) {
+			if (job.error == null && !job.cached) {
+				final var dir = job.output.getAbsoluteFile().getParentFile();
+				if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+					throw new IOException("The output directory " + dir + " could not be created.");
+				if (!job.redraw) {
+					DocumentWriter.save(Objects.requireNonNull(doc), job.output, settings);
+					writeSidecar(job);
+				} else if (job.changedPages > 0) {
+					replaceOutput(Objects.requireNonNull(doc), job.output);
+					writeSidecar(job);
+				}
+				monitor.sampleScratch();
+				store(job);
+			}
+		} catch (Exception e) {
+			job.error = ObjectUtils.defaultIfNull(job.error, e);
+		}
+		if (job.cached)
+			LOGGER.debug("Copied {} from the cache", job.input);
+		if (job.redraw && job.error == null) {
+			redrawn.incrementAndGet();
+			rewrittenPages.addAndGet(job.changedPages);
+			LOGGER.debug("Redrew {} from its glyph sidecar, {} pages changed", job.input, job.changedPages);
+		}
+		if (job.admission != null)
+			job.admission.close();
+		if (job.error != null)
+			LOGGER.error("Failed to censor {}", job.input, job.error);
+		job.nanos += System.nanoTime() - start;
+		final var outcome = new Outcome(job.input, job.output, job.error, job.nanos / 1_000_000);
+		LOGGER.info("{}", outcome);
+		final var m = manifest;
+		if (m != null) {
+			try {
+				m.record(outcome, job.hash, job.size, job.modified);
+			} catch (IOException e) {
+				LOGGER.error("Failed to record {} in the manifest", job.input, e);
+			}
+		}
+		return outcome;
+	}
+	
+	/**
+	 * Saves the document into a temporary file next to the output and moves it over the output once it was saved,
+	 * since the document was loaded from the output and may still be read from it while it is saved.
+	 *
+	 * @param doc    the document that should be saved.
+	 * @param output the output the document was loaded from.
+	 * @throws IOException if the document could not be saved or moved.
+	 */
+	private void replaceOutput(@NotNull PDDocument doc, @NotNull File output) throws IOException {
+		final var target = output.getAbsoluteFile().toPath();
+		final var temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			DocumentWriter.save(doc, temp.toFile(), settings);
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Writes the glyph sidecar of the job next to its saved pdf-file if one was recorded and the pdf-file was not
+	 * encrypted. A failure is logged only, as the pdf-file was censored nonetheless and the next run merely censors it
+	 * from scratch.
+	 *
+	 * @param job the job whose pdf-file was saved.
+	 */
+	private static void writeSidecar(@NotNull Job job) {
+		final var sidecar = job.sidecar;
+		// the sidecar would allow redrawing the output without the password (see Settings#getFingerprint())
+		if (sidecar == null || job.encrypted)
+			return;
+		try {
+			sidecar.setInputHash(Objects.requireNonNull(job.hash));
+			sidecar.setOutputHash(Manifest.hash(job.output));
+			sidecar.write(GlyphSidecar.fileOf(job.output));
+		} catch (IOException e) {
+			LOGGER.warn("Failed to write the glyph sidecar of {}", job.output, e);
+		}
+	}
+	
+	/**
+	 * Stores the saved pdf-file of the job in the cache if there is one and the pdf-file was not encrypted. A failure
+	 * is logged only, as the pdf-file was censored nonetheless.
+	 *
+	 * @param job the job whose pdf-file was saved.
+	 */
+	private void store(@NotNull Job job) {
+		// a hit would return the output without the password (see Settings#getFingerprint())
+		if (cache == null || job.encrypted)
+			return;
+		try {
+			cache.store(Objects.requireNonNull(job.hash), job.output);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to store {} in the cache", job.input, e);
+		}
+	}
+	
+	/**
+	 * Returns the cache of the censored pdf-files.
+	 *
+	 * @return the cache or null if the censored pdf-files are not cached.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	ResultCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * @return the number of pdf-files whose censor bars were redrawn from their glyph sidecar.
+	 */
+	@Contract(pure = true)
+	long getRedrawn() {
+		return redrawn.get();
+	}
+	
+	/**
+	 * @return the number of pages rewritten since their censor bars changed when they were redrawn.
+	 */
+	@Contract(pure = true)
+	long getRewrittenPages() {
+		return rewrittenPages.get();
+	}
+	
+	/**
+	 * Writes the utilisation of the stages of the last {@link #run()} to the stream: the number of threads of each
+	 * stage and the share of the time they were working instead of waiting. The stage with the highest utilisation is
+	 * the bottleneck and should get more threads. Followed by the peak heap and scratch usage (see {@link
+	 * MemoryMonitor}).
+	 *
+	 * @param out the stream the utilisation should be written to. May not be null.
+	 */
+	public void writeUtilisation(@NotNull PrintStream out) {
+		Objects.requireNonNull(out);
+		for (var stage : stages)
+			out.printf("%-6s %3d threads %5.1f%% busy%n", stage, stage.getThreads(),
+					   100 * stage.getUtilisation(wallNanos));
+		out.println(monitor);
+		if (cache != null)
+			out.printf("Cache: %d hits, %d misses%n", cache.getHits(), cache.getMisses());
+		if (glyphFingerprint != null)
+			out.printf("Glyph sidecars: %d pdf-files redrawn, %d pages rewritten%n", redrawn.get(),
+					   rewrittenPages.get());
+	}
+	
+	/** A pdf-file passing through the stages of the pipeline. */
+	private static final class Job {
+		/** The index of the pdf-file in the inputs. */
+		private final int index;
+		/** The pdf-file that should be censored. */
+		@NotNull
+		private final File input;
+		/** The file the censored pdf-file should be written into. */
+		@NotNull
+		private final File output;
+		/**
+		 * The time (in nanoseconds) the stages spent working on the job. Waiting in the queues of the stages or for the
+		 * admission by the memory budget is not included.
+		 */
+		private long nanos = 0;
+		/** The loaded pdf-file. Null until it was loaded. */
+		@Nullable
+		private PDDocument doc = null;
+		/** The admission of the pdf-file by the memory budget. Null until it was admitted. */
+		@Nullable
+		private MemoryBudget.Admission admission = null;
+		/** The hash of the pdf-file (see {@link Manifest#hash(File)}). Null unless it is needed. */
+		@Nullable
+		private String hash = null;
+		/** The size of the pdf-file in bytes taken before it was hashed or -1 if it was not hashed. */
+		private long size = -1;
+		/** The modification time of the pdf-file taken before it was hashed or -1 if it was not hashed. */
+		private long modified = -1;
+		/** True if the loaded pdf-file was encrypted, in which case it is neither cached nor recorded in a sidecar. */
+		private boolean encrypted = false;
+		/** True if the censored pdf-file was copied from the cache instead of being loaded. */
+		private boolean cached = false;
+		/** The glyph sidecar recorded when censoring or read to redraw. Null if there is none. */
+		@Nullable
+		private GlyphSidecar sidecar = null;
+		/** True if the previous output was loaded to redraw its censor bars from {@link #sidecar}. */
+		private boolean redraw = false;
+		/** The number of pages whose censor bars changed when they were redrawn. */
+		private int changedPages = 0;
+		/** The first error that occurred while working on the job. Null if none occurred. */
+		@Nullable
+		private Exception error = null;
+		
+		/**
+		 * Creates a new job.
+		 *
+		 * @param index  the index of the pdf-file in the inputs.
+		 * @param input  the pdf-file that should be censored.
+		 * @param output the file the censored pdf-file should be written into.
+		 */
+		Job(int index, @NotNull File input, @NotNull File output) {
+			this.index = index;
+			this.input = input;
+			this.output = output;
+		}
+	}
+	
+	/**
+	 * Writes a summary of the provided outcomes to the stream: one line per outcome (see {@link Outcome#toString()})
+	 * followed by the number of succeeded (and of those skipped), failed (and of those timed out) pdf-files and the
+	 * total time spent censoring them (see {@link Outcome#getMillis()}).
+	 *
+	 * @param outcomes the outcomes that should be summarized. May not be null.
+	 * @param out      the stream the summary should be written to. May not be null.
+	 */
+	public static void writeSummary(@NotNull List<Outcome> outcomes, @NotNull PrintStream out) {
+		Objects.requireNonNull(out);
+		var succeeded = 0;
+		var skipped = 0;
+		var timedOut = 0;
+		var millis = 0L;
+		for (var outcome : Objects.requireNonNull(outcomes)) {
+			out.println(outcome);
+			succeeded += outcome.isSuccess() ? 1 : 0;
+			skipped += outcome.isSkipped() ? 1 : 0;
+			timedOut += outcome.isTimedOut() ? 1 : 0;
+			millis += outcome.getMillis();
+		}
+		out.printf("%d succeeded (%d skipped), %d failed (%d timed out), %d ms total%n", succeeded, skipped,
+				   outcomes.size() - succeeded, timedOut, millis);
+	}
+}
@@ -0,0 +1,259 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import de.uni_hannover.se.pdfzensor.utils.MappedFile;
+import de.uni_hannover.se.pdfzensor.writer.DocumentWriter;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.multipdf.PDFCloneUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * The ChunkedCensor censors a single (large) pdf-file in parallel. The page range is split into chunks of {@link
+ * Settings#getChunkPages()} pages that are censored by up to {@link Settings#getThreads()} threads. Each chunk is
+ * censored in its own, independently loaded {@link PDDocument} by its own {@link PDFCensor}, as neither of them may be
+ * used by multiple threads at once. Afterwards the censored pages of all chunks are reassembled in their original order
+ * into the document of the first chunk.
+ * <br>
+ * The censored pages of a chunk are copied into the document of the first chunk (together with the content of their
+ * streams) as soon as the chunks before it were reassembled, and its document is closed right away. A chunk is only
+ * loaded once one of the {@link Settings#getThreads()} chunks before it was reassembled, so at most that many chunks
+ * are open besides the first one, regardless of the number of pages.
+ * <br>
+ * The tokenizer of a {@link PDFCensor} is flushed at the end of each page, so no match spans a page boundary and in
+ * particular none spans a chunk boundary. Thus the chunks do not have to overlap and the result is the same as when
+ * censoring the pdf-file as a whole. Resources shared by pages of different chunks are written once per chunk though,
+ * which may increase the size of the output.
+ */
+public final class ChunkedCensor {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	
+	/** The settings that should be applied to each chunk. */
+	@NotNull
+	private final Settings settings;
+	/** The number of pages per chunk. */
+	private final int chunkPages;
+	/** The maximum number of documents that were open at the same time while censoring the last pdf-file. */
+	@NotNull
+	private final AtomicInteger peakOpened = new AtomicInteger();
+	
+	/**
+	 * Creates a new ChunkedCensor for the provided settings.
+	 *
+	 * @param settings the settings that should be applied to each chunk. May not be null.
+	 * @throws NullPointerException if settings is null or specify no number of pages per chunk.
+	 */
+	public ChunkedCensor(@NotNull Settings settings) {
+		this.settings = Objects.requireNonNull(settings);
+		this.chunkPages = Objects.requireNonNull(settings.getChunkPages(), "No number of pages per chunk specified");
+	}
+	
+	/**
+	 * Censors the provided pdf-file chunk by chunk and writes the reassembled pdf-file into the output. The user is
+	 * never prompted for a password. All chunks share a single deadline of {@link Settings#getTimeout()}, which is
+	 * cancelled as soon as one chunk fails, such that the others stop as well.
+	 *
+	 * @param input  the pdf-file that should be censored. May not be null.
+	 * @param output the stream the censored pdf-file should be written to. It is not closed. May not be null.
+	 * @throws AbortedException     if censoring took longer than the timeout.
+	 * @throws IOException          if an I/O error occurs while loading, censoring or saving one of the chunks.
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the chunks.
+	 */
+	public void censor(@NotNull File input, @NotNull OutputStream output) throws IOException, InterruptedException {
+		Objects.requireNonNull(input);
+		Objects.requireNonNull(output);
+		final List<PDDocument> opened = Collections.synchronizedList(new ArrayList<>());
+		final var deadline = new Deadline(settings.getTimeout());
+		peakOpened.set(0);
+		try {
+			final var base = load(input, opened);
+			final var pageCount = base.getNumberOfPages();
+			final var chunks = Math.max(1, (pageCount + chunkPages - 1) / chunkPages);
+			final var threads = Math.max(1, Math.min(settings.getThreads(), chunks));
+			LOGGER.info("Censoring {} pages of {} in {} chunks using {} threads", pageCount, input, chunks, threads);
+			final var executor = Executors.newFixedThreadPool(threads);
+			final var futures = new ArrayList<Future<PDDocument>>();
+			try {
+				final IntFunction<Future<PDDocument>> submit = i -> {
+					final var first = i * chunkPages + 1;
+					final var last = Math.min(pageCount, first + chunkPages - 1);
+					return executor.submit(() -> censor(i == 0 ? base : load(input, opened), first, last, deadline));
+				};
+				while (futures.size() < threads)
+					futures.add(submit.apply(futures.size()));
+				// the pages of the base document may only be replaced once its own chunk was censored
+				get(futures.get(0));
+				for (var i = 1; i < chunks; i++) {
+					// a further chunk is only loaded once one was reassembled, which bounds the open documents
+					if (futures.size() < chunks)
+						futures.add(submit.apply(futures.size()));
+					final var chunk = get(futures.get(i));
+					try {
+						reassemble(base, chunk, i);
+					} finally {
+						opened.remove(chunk);
+						chunk.close();
+					}
+				}
+			} finally {
+				// stops the other chunks if one failed, the documents may only be closed once none is censored any more
+				deadline.cancel();
+				executor.shutdownNow();
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			LOGGER.debug("At most {} documents were open at the same time", peakOpened);
+			if (settings.getDropUnselected())
+				removeUnselectedPages(base);
+			DocumentWriter.save(base, output, settings);
+		} finally {
+			for (var doc : opened)
+				doc.close();
+		}
+	}
+	
+	/**
+	 * Loads the pdf-file and adds it to the opened documents such that it is closed even if censoring fails.
+	 *
+	 * @param input  the pdf-file that should be loaded.
+	 * @param opened the documents that were opened so far.
+	 * @return the loaded pdf-file.
+	 * @throws IOException if an I/O error occurs or the password is incorrect.
+	 */
+	@NotNull
+	private PDDocument load(@NotNull File input, @NotNull List<PDDocument> opened) throws IOException {
+		final var password = Objects.requireNonNullElse(settings.getPassword(), "");
+		final var doc = settings.isMemoryMapped() ?
+						MappedFile.load(input, password, settings.getMemoryUsageSetting()) :
+						PDDocument.load(input, password, settings.getMemoryUsageSetting());
+		opened.add(doc);
+		peakOpened.accumulateAndGet(opened.size(), Math::max);
+		doc.setAllSecurityToBeRemoved(true);
+		return doc;
+	}
+	
+	/**
+	 * Censors the pages of one chunk of the document using a new {@link PDFCensor}. The other pages are left as they
+	 * are.
+	 *
+	 * @param doc      the document containing the chunk.
+	 * @param first    the (1-based) number of the first page of the chunk.
+	 * @param last     the (1-based) number of the last page of the chunk.
+	 * @param deadline the deadline shared by all chunks.
+	 * @return the document.
+	 * @throws IOException if an I/O error occurs or the deadline was aborted.
+	 */
+	@NotNull
+	private PDDocument censor(@NotNull PDDocument doc, int first, int last,
+							  @NotNull Deadline deadline) throws IOException {
+		LOGGER.debug("Censoring the pages {} to {}", first, last);
+		final IntPredicate chunk = page -> page >= first && page <= last;
+		new PDFProcessor(new PDFCensor(settings), settings, chunk).process(doc, deadline);
+		return doc;
+	}
+	
+	/**
+	 * Replaces the pages of the chunk in the base document with copies of the censored ones of the chunk's document.
+	 * The copies do not reference the chunk's document, such that it may be closed afterwards.
+	 *
+	 * @param base  the document the pages should be copied to.
+	 * @param chunk the document in which the pages of the chunk were censored.
+	 * @param index the (0-based) index of the chunk.
+	 * @throws IOException if the content of a stream could not be copied.
+	 */
+	private void reassemble(@NotNull PDDocument base, @NotNull PDDocument chunk, int index) throws IOException {
+		final var cloner = new PDFCloneUtility(base);
+		final var pages = base.getPages();
+		final var end = Math.min(pages.getCount(), (index + 1) * chunkPages);
+		for (var i = index * chunkPages; i < end; i++) {
+			final var page = chunk.getPage(i);
+			inheritAttributes(page);
+			// the page tree of the chunk would be copied as a whole otherwise
+			page.getCOSObject().removeItem(COSName.PARENT);
+			final var copy = new PDPage((COSDictionary) cloner.cloneForNewDocument(page.getCOSObject()));
+			final var old = pages.get(i);
+			pages.insertBefore(copy, old);
+			pages.remove(old);
+		}
+	}
+	
+	/**
+	 * Sets the attributes the page inherits from its ancestors in the page tree on the page itself, as it will be moved
+	 * into a different page tree whose ancestors do not contain the censored resources.
+	 *
+	 * @param page the page whose inherited attributes should be set.
+	 */
+	private static void inheritAttributes(@NotNull PDPage page) {
+		page.setResources(page.getResources());
+		page.setMediaBox(page.getMediaBox());
+		page.setCropBox(page.getCropBox());
+		page.setRotation(page.getRotation());
+	}
+	
+	/**
+	 * Removes all pages from the document that are not selected by {@link Settings#getPages()}.
+	 *
+	 * @param doc the document whose unselected pages should be removed.
+	 */
+	private void removeUnselectedPages(@NotNull PDDocument doc) {
+		final var pages = doc.getPages();
+		for (var i = pages.getCount(); i >= 1; i--) {
+			if (!settings.getPages().contains(i))
+				pages.remove(i - 1);
+		}
+	}
+	
+	/**
+	 * @return the maximum number of documents (the first chunk's included) that were open at the same time while
+	 * censoring the last pdf-file.
+	 */
+	@Contract(pure = true)
+	int getPeakOpened() {
+		return peakOpened.get();
+	}
+	
+	/**
+	 * Waits for the future and returns its document.
+	 *
+	 * @param future the future censoring a chunk.
+	 * @return the document of the chunk.
+	 * @throws IOException          if censoring the chunk failed.
+	 * @throws InterruptedException if the current thread was interrupted while waiting.
+	 */
+	@NotNull
+	private static PDDocument get(@NotNull Future<PDDocument> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException("Failed to censor a chunk", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The Manifest is an append-only record of the outcomes of a batch, such that a batch that was interrupted may be
+ * resumed without censoring the pdf-files that were completed already. Each line records one pdf-file as tab-separated
+ * fields:
+ * <ol>
+ *     <li>the status (see {@link Outcome#getStatus()}),</li>
+ *     <li>the duration in milliseconds,</li>
+ *     <li>the SHA-256 hash of the input (or <code>-</code> if it could not be read),</li>
+ *     <li>the size of the input in bytes (or <code>-1</code> if it is unknown),</li>
+ *     <li>its modification time in milliseconds when it was hashed (or <code>-1</code> if it is unknown),</li>
+ *     <li>the input and</li>
+ *     <li>the output.</li>
+ * </ol>
+ * Tabs, line breaks and backslashes in the paths are escaped by a backslash. Each line is flushed once written, such
+ * that at most the line being written is lost if the process dies, but the manifest is never synced to the disk, which
+ * keeps recording cheap. A truncated last line is ignored when the manifest is read, and so is any other malformed line
+ * except for lines written before the size and modification time were recorded, which lack those two fields.
+ * <br>
+ * When resuming, the manifest is read once into a map from the inputs to the records of their successful censoring, so
+ * finding the record of a pdf-file takes constant time. A later line for the same input overrides the earlier ones. A
+ * pdf-file only counts as completed if it still has the recorded content, such that a pdf-file that was replaced since
+ * is censored again. As long as its size and modification time are unchanged its content is assumed to be unchanged
+ * too, so resuming does not read the completed pdf-files; only those whose size or modification time differ are
+ * hashed to be compared.
+ */
+public final class Manifest implements Closeable {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The separator of the fields of a line. */
+	private static final char SEPARATOR = '\t';
+	/** The number of fields of a line. */
+	private static final int FIELDS = 7;
+	/** The number of fields of a line written before the size and modification time of the input were recorded. */
+	private static final int LEGACY_FIELDS = 5;
+	/** The placeholder for a hash that could not be computed. */
+	static final String NO_HASH = "-";
+	
+	/** The absolute paths of the inputs that were completed according to the manifest, mapped to their records. */
+	@NotNull
+	private final Map<String, Record> completed;
+	/** The writer appending to the manifest. Guarded by this. */
+	@NotNull
+	private final Writer writer;
+	
+	/**
+	 * Opens the manifest for appending and creates it (and its directory) if it does not exist.
+	 *
+	 * @param file   the manifest. May not be null.
+	 * @param resume true if the completed pdf-files should be read from the manifest, false if none should count as
+	 *               completed.
+	 * @throws IOException if the manifest could not be read or opened.
+	 */
+	public Manifest(@NotNull File file, boolean resume) throws IOException {
+		Objects.requireNonNull(file);
+		completed = resume && file.isFile() ? read(file) : Map.of();
+		final var dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("The directory of the manifest " + dir + " could not be created.");
+		writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+										 StandardOpenOption.APPEND);
+		LOGGER.info("Recording the outcomes in {} ({} completed)", file, completed.size());
+	}
+	
+	/**
+	 * Reads the completed pdf-files from the manifest.
+	 *
+	 * @param file the manifest.
+	 * @return the absolute paths of the completed inputs mapped to their records.
+	 * @throws IOException if the manifest could not be read.
+	 */
+	@NotNull
+	private static Map<String, Record> read(@NotNull File file) throws IOException {
+		final var result = new HashMap<String, Record>();
+		try (var lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+			lines.forEach(line -> {
+				final var fields = line.split(String.valueOf(SEPARATOR), -1);
+				final var input = fields.length - 2;
+				if (fields.length != FIELDS && fields.length != LEGACY_FIELDS)
+					LOGGER.warn("Ignoring the malformed line of the manifest: {}", line);
+				else if (!Outcome.OK.equals(fields[0]))
+					result.remove(unescape(fields[input]));
+				else if (fields.length == LEGACY_FIELDS)
+					result.put(unescape(fields[input]), new Record(fields[2], -1, -1, unescape(fields[input + 1])));
+				else {
+					try {
+						final var size = Long.parseLong(fields[3]);
+						final var modified = Long.parseLong(fields[4]);
+						final var output = unescape(fields[input + 1]);
+						result.put(unescape(fields[input]), new Record(fields[2], size, modified, output));
+					} catch (NumberFormatException e) {
+						LOGGER.warn("Ignoring the malformed line of the manifest: {}", line);
+					}
+				}
+			});
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks if the pdf-file was censored successfully according to the manifest, its output still exists and its
+	 * content is still the recorded one. The content is considered unchanged if the size and modification time of the
+	 * pdf-file are the recorded ones; only if they differ the pdf-file is read to compare its hash with the recorded
+	 * one.
+	 *
+	 * @param input the pdf-file that should be censored.
+	 * @return true if the pdf-file should be skipped.
+	 */
+	public boolean isCompleted(@NotNull File input) {
+		final var record = completed.get(input.getAbsolutePath());
+		if (record == null || NO_HASH.equals(record.hash) || !new File(record.output).isFile())
+			return false;
+		if (record.size >= 0 && record.size == input.length() && record.modified == input.lastModified())
+			return true;
+		try {
+			return record.hash.equals(hash(input));
+		} catch (IOException e) {
+			LOGGER.debug("The hash of {} could not be computed", input, e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Appends the outcome to the manifest and flushes it. May be called by multiple threads concurrently.
+	 *
+	 * @param outcome  the outcome of censoring a pdf-file. May not be null.
+	 * @param hash     the hash of the input (see {@link #hash(File)}) or null if it is unknown.
+	 * @param size     the size of the input in bytes when it was hashed or -1 if it is unknown.
+	 * @param modified the modification time of the input (see {@link File#lastModified()}) taken before it was hashed
+	 *                 or -1 if it is unknown.
+	 * @throws IOException if the outcome could not be written.
+	 */
+	public void record(@NotNull Outcome outcome, @Nullable String hash, long size, long modified) throws IOException {
+		final var line = outcome.getStatus() + SEPARATOR + outcome.getMillis() + SEPARATOR +
+						 Objects.requireNonNullElse(hash, NO_HASH) + SEPARATOR + size + SEPARATOR + modified +
+						 SEPARATOR +
+						 escape(outcome.getInput().getAbsolutePath()) + SEPARATOR +
+						 escape(outcome.getOutput().getAbsolutePath()) + '\n';
+		synchronized (this) {
+			writer.write(line);
+			writer.flush();
+		}
+	}
+	
+	/** Closes the manifest. */
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+	
+	/**
+	 * Computes the hash of the content of a file.
+	 *
+	 * @param file the file whose content should be hashed.
+	 * @return the hexadecimal SHA-256 hash of the content.
+	 * @throws IOException if the file could not be read.
+	 */
+	@NotNull
+	public static String hash(@NotNull File file) throws IOException {
+		try (var in = Files.newInputStream(file.toPath())) {
+			return hash(in);
+		}
+	}
+	
+	/**
+	 * Computes the hash of the content of a stream. The stream is read until its end but not closed.
+	 *
+	 * @param in the stream whose content should be hashed.
+	 * @return the hexadecimal SHA-256 hash of the content.
+	 * @throws IOException if the stream could not be read.
+	 */
+	@NotNull
+	public static String hash(@NotNull InputStream in) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+		final var buffer = new byte[64 * 1024];
+		for (int read; (read = in.read(buffer)) >= 0; )
+			digest.update(buffer, 0, read);
+		final var hex = new StringBuilder();
+		for (var b : digest.digest())
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+	
+	/**
+	 * Escapes the backslashes, tabs and line breaks of the value by backslashes.
+	 *
+	 * @param value the value that should be escaped.
+	 * @return the escaped value.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	static String escape(@NotNull String value) {
+		return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+	
+	/**
+	 * Reverts {@link #escape(String)}.
+	 *
+	 * @param value the escaped value.
+	 * @return the original value.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	static String unescape(@NotNull String value) {
+		final var result = new StringBuilder(value.length());
+		for (var i = 0; i < value.length(); i++) {
+			final var c = value.charAt(i);
+			if (c != '\\' || i + 1 == value.length()) {
+				result.append(c);
+				continue;
+			}
+			final var next = value.charAt(++i);
+			result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+		}
+		return result.toString();
+	}
+	
+	/** The record of an input that was censored successfully. */
+	private static final class Record {
+		/** The hash of the input or {@link Manifest#NO_HASH} if it is unknown. */
+		@NotNull
+		private final String hash;
+		/** The size of the input in bytes when it was hashed or -1 if it is unknown. */
+		private final long size;
+		/** The modification time of the input when it was hashed or -1 if it is unknown. */
+		private final long modified;
+		/** The absolute path of the output the input was censored into. */
+		@NotNull
+		private final String output;
+		
+		/**
+		 * Creates a new record.
+		 *
+		 * @param hash     the hash of the input or {@link Manifest#NO_HASH} if it is unknown.
+		 * @param size     the size of the input in bytes when it was hashed or -1 if it is unknown.
+		 * @param modified the modification time of the input when it was hashed or -1 if it is unknown.
+		 * @param output   the absolute path of the output the input was censored into.
+		 */
+		private Record(@NotNull String hash, long size, long modified, @NotNull String output) {
+			this.hash = hash;
+			this.size = size;
+			this.modified = modified;
+			this.output = output;
+		}
+	}
+}
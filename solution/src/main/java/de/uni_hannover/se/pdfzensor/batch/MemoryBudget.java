@@ -0,0 +1,267 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.commons.lang3.Validate;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * The MemoryBudget admits pdf-files to be censored concurrently only while the sum of their estimated heap usage stays
+ * within {@link Settings#getMemoryBudget()}. Further pdf-files wait in {@link #admit(long)} until enough memory is
+ * released. A pdf-file is always admitted if no other one is censored, so a pdf-file exceeding the budget on its own
+ * does not wait forever. Such a pdf-file is buffered in a scratch file only, instead of main memory.
+ * <br>
+ * The heap usage of a pdf-file is estimated from its size, its page count and the {@link MemoryUsageSetting} it is
+ * loaded with (see {@link #estimate(long, int, MemoryUsageSetting)}). As the page count is unknown until the pdf-file
+ * was loaded, pdf-files are admitted based on their size and the estimate is corrected by {@link
+ * Admission#setPages(int)} once it is known.
+ * <br>
+ * A pdf-file whose size is unknown until it was read (e.g. an upload without content length) is admitted by {@link
+ * #admitUnknown()} instead, which reserves the whole budget until {@link Admission#setSize(long)} corrects it.
+ */
+public final class MemoryBudget {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/**
+	 * The heap used per byte of a pdf-file buffered in main memory: the raw bytes, the decoded streams and the parsed
+	 * objects.
+	 */
+	static final long MAIN_MEMORY_FACTOR = 4;
+	/** The heap used per byte of a pdf-file buffered in a scratch file: only the parsed objects remain in the heap. */
+	static final long SCRATCH_FACTOR = 1;
+	/** The heap used per page while it is censored: its parsed content stream, glyph bounds and censor bars. */
+	static final long PAGE_BYTES = 256 * 1024;
+	
+	/** The settings providing the budget and the memory usage setting the pdf-files are loaded with. */
+	@NotNull
+	private final Settings settings;
+	/** The number of bytes the admitted pdf-files may use together or -1 if not limited. */
+	private final long budget;
+	/** The number of bytes the admitted pdf-files are estimated to use. Guarded by this. */
+	private long used = 0;
+	/** The number of admitted pdf-files that were not released yet. Guarded by this. */
+	private int admitted = 0;
+	
+	/**
+	 * Creates a new MemoryBudget for the provided settings.
+	 *
+	 * @param settings the settings providing the budget and the memory usage setting. May not be null.
+	 * @throws NullPointerException if settings is null.
+	 */
+	public MemoryBudget(@NotNull Settings settings) {
+		this.settings = Objects.requireNonNull(settings);
+		this.budget = settings.getMemoryBudget();
+	}
+	
+	/**
+	 * Estimates the heap used while censoring a pdf-file.
+	 *
+	 * @param size   the size of the pdf-file in bytes.
+	 * @param pages  the number of pages of the pdf-file or 0 if unknown.
+	 * @param memory the memory usage setting the pdf-file is loaded with.
+	 * @return the estimated number of bytes used.
+	 */
+	@Contract(pure = true)
+	static long estimate(long size, int pages, @NotNull MemoryUsageSetting memory) {
+		final var perPage = Math.max(0, pages) * PAGE_BYTES;
+		final var scratch = SCRATCH_FACTOR * size + perPage;
+		if (!memory.useMainMemory())
+			return scratch;
+		final var main = MAIN_MEMORY_FACTOR * size + perPage;
+		return memory.isMainMemoryRestricted() ? Math.min(main, scratch + memory.getMaxMainMemoryBytes()) : main;
+	}
+	
+	/**
+	 * Waits until a pdf-file of the provided size fits into the budget (or no other pdf-file is admitted) and admits
+	 * it. If it exceeds the budget on its own, it is admitted to be buffered in a scratch file only. The returned
+	 * admission has to be closed once the pdf-file was censored and closed.
+	 *
+	 * @param size the size of the pdf-file in bytes. May not be negative.
+	 * @return the admission of the pdf-file.
+	 * @throws IllegalArgumentException if size is negative.
+	 * @throws InterruptedException     if the current thread was interrupted while waiting.
+	 */
+	@NotNull
+	public Admission admit(long size) throws InterruptedException {
+		Validate.isTrue(size >= 0, "The size may not be negative.");
+		var memory = settings.getMemoryUsageSetting();
+		var estimate = estimate(size, 0, memory);
+		final var scratchOnly = budget > 0 && estimate > budget && memory.useMainMemory();
+		if (scratchOnly) {
+			memory = MemoryUsageSetting.setupTempFileOnly().setTempDir(settings.getScratchDir());
+			estimate = estimate(size, 0, memory);
+			LOGGER.info("A pdf-file of {} bytes exceeds the memory budget and is buffered in a scratch file", size);
+		}
+		acquire(estimate);
+		return new Admission(size, estimate, memory, scratchOnly);
+	}
+	
+	/**
+	 * Waits until no other pdf-file is admitted and admits a pdf-file of unknown size. As it may be of any size, the
+	 * whole budget is reserved and the pdf-file is buffered in a scratch file only, until its size is known and {@link
+	 * Admission#setSize(long)} corrects the reservation. If the budget is not limited, this is the same as admitting
+	 * an empty pdf-file. The returned admission has to be closed once the pdf-file was censored and closed.
+	 *
+	 * @return the admission of the pdf-file.
+	 * @throws InterruptedException if the current thread was interrupted while waiting.
+	 */
+	@NotNull
+	public Admission admitUnknown() throws InterruptedException {
+		if (budget <= 0)
+			return admit(0);
+		final var memory = MemoryUsageSetting.setupTempFileOnly().setTempDir(settings.getScratchDir());
+		acquire(budget);
+		return new Admission(0, budget, memory, true);
+	}
+	
+	/**
+	 * @return the number of bytes the admitted pdf-files are estimated to use.
+	 */
+	public synchronized long getUsed() {
+		return used;
+	}
+	
+	/**
+	 * @return the number of admitted pdf-files that were not released yet.
+	 */
+	public synchronized int getAdmitted() {
+		return admitted;
+	}
+	
+	/**
+	 * Waits until the bytes fit into the budget or no pdf-file is admitted and reserves them.
+	 *
+	 * @param bytes the number of bytes to reserve.
+	 * @throws InterruptedException if the current thread was interrupted while waiting.
+	 */
+	private synchronized void acquire(long bytes) throws InterruptedException {
+		while (budget > 0 && admitted > 0 && used + bytes > budget)
+			wait();
+		used += bytes;
+		admitted++;
+	}
+	
+	/**
+	 * Changes the number of reserved bytes of an admitted pdf-file without waiting, as it is being censored already.
+	 *
+	 * @param delta the number of bytes to add to the reservation (negative to remove them).
+	 */
+	private synchronized void resize(long delta) {
+		used += delta;
+		if (delta < 0)
+			notifyAll();
+	}
+	
+	/**
+	 * Releases the bytes reserved by an admitted pdf-file and wakes up the waiting pdf-files.
+	 *
+	 * @param bytes the number of bytes reserved by the pdf-file.
+	 */
+	private synchronized void release(long bytes) {
+		used -= bytes;
+		admitted--;
+		notifyAll();
+	}
+	
+	/** The admission of a pdf-file by its {@link MemoryBudget}. Closing it releases the reserved memory. */
+	public final class Admission implements AutoCloseable {
+		/** The size of the pdf-file in bytes. Guarded by the budget. */
+		private long size;
+		/** The number of pages of the pdf-file or 0 if unknown. Guarded by the budget. */
+		private int pages = 0;
+		/** The memory usage setting the pdf-file should be loaded with. */
+		@NotNull
+		private final MemoryUsageSetting memory;
+		/** True if the pdf-file exceeds the budget and is buffered in a scratch file only. */
+		private final boolean scratchOnly;
+		/** The number of bytes reserved for the pdf-file. Guarded by the budget. */
+		private long reserved;
+		/** True if the reserved bytes were released. Guarded by the budget. */
+		private boolean closed = false;
+		
+		/**
+		 * Creates a new admission.
+		 *
+		 * @param size        the size of the pdf-file in bytes.
+		 * @param reserved    the number of bytes reserved for the pdf-file.
+		 * @param memory      the memory usage setting the pdf-file should be loaded with.
+		 * @param scratchOnly true if the pdf-file is buffered in a scratch file only.
+		 */
+		private Admission(long size, long reserved, @NotNull MemoryUsageSetting memory, boolean scratchOnly) {
+			this.size = size;
+			this.reserved = reserved;
+			this.memory = memory;
+			this.scratchOnly = scratchOnly;
+		}
+		
+		/**
+		 * @return the memory usage setting the pdf-file should be loaded with. May only be used for a single document.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public MemoryUsageSetting getMemoryUsageSetting() {
+			return memory;
+		}
+		
+		/**
+		 * @return true if the pdf-file exceeds the budget on its own and thus is buffered in a scratch file only.
+		 */
+		@Contract(pure = true)
+		public boolean isScratchOnly() {
+			return scratchOnly;
+		}
+		
+		/**
+		 * Corrects the estimate of the pdf-file once its page count is known. Does not wait even if the pdf-file no
+		 * longer fits into the budget, since it is being censored already; instead further pdf-files wait longer.
+		 *
+		 * @param pages the number of pages of the pdf-file.
+		 */
+		public void setPages(int pages) {
+			synchronized (MemoryBudget.this) {
+				this.pages = pages;
+				update();
+			}
+		}
+		
+		/**
+		 * Corrects the estimate of the pdf-file once its size is known, as it may differ from the size it was admitted
+		 * with (e.g. if it was admitted by {@link #admitUnknown()}). Does not wait, just like {@link #setPages(int)}.
+		 *
+		 * @param size the size of the pdf-file in bytes. May not be negative.
+		 * @throws IllegalArgumentException if size is negative.
+		 */
+		public void setSize(long size) {
+			Validate.isTrue(size >= 0, "The size may not be negative.");
+			synchronized (MemoryBudget.this) {
+				this.size = size;
+				update();
+			}
+		}
+		
+		/** Replaces the reservation by the estimate of the current size and page count unless it was released. */
+		private void update() {
+			if (closed)
+				return;
+			final var estimate = estimate(size, pages, memory);
+			resize(estimate - reserved);
+			reserved = estimate;
+		}
+		
+		/** Releases the memory reserved for the pdf-file. Closing an admission more than once has no effect. */
+		@Override
+		public void close() {
+			synchronized (MemoryBudget.this) {
+				if (closed)
+					return;
+				closed = true;
+				release(reserved);
+			}
+		}
+	}
+}
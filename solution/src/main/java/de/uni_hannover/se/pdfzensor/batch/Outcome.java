@@ -0,0 +1,172 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * An Outcome is the result of censoring a single pdf-file in batch mode. It records which file was censored into which
+ * output, how long it took and &ndash; if censoring failed &ndash; the error that occurred. Censoring that was aborted
+ * as it took too long is reported as timed out, distinct from other failures. A pdf-file that was skipped, as it was
+ * censored by a previous run according to the {@link Manifest}, counts as a success.
+ * <br>
+ * An outcome is immutable.
+ */
+public final class Outcome {
+	/** The status of a pdf-file that was censored successfully. */
+	public static final String OK = "OK";
+	/** The status of a pdf-file that could not be censored. */
+	public static final String FAIL = "FAIL";
+	/** The status of a pdf-file whose censoring took longer than the timeout. */
+	public static final String TIME = "TIME";
+	/** The status of a pdf-file that was skipped as it was censored by a previous run. */
+	public static final String SKIP = "SKIP";
+	
+	/** The pdf-file that should have been censored. */
+	@NotNull
+	private final File input;
+	/** The file the censored pdf-file should have been written into. */
+	@NotNull
+	private final File output;
+	/** The error that occurred while censoring or null if censoring succeeded. */
+	@Nullable
+	private final Exception error;
+	/** The time spent censoring the pdf-file (in milliseconds), not including the time it waited to be worked on. */
+	private final long millis;
+	/** True if the pdf-file was skipped as it was censored by a previous run. */
+	private final boolean skipped;
+	
+	/**
+	 * Creates a new outcome.
+	 *
+	 * @param input  the pdf-file that should have been censored. May not be null.
+	 * @param output the file the censored pdf-file should have been written into. May not be null.
+	 * @param error  the error that occurred while censoring or null if censoring succeeded.
+	 * @param millis the time censoring the pdf-file took (in milliseconds).
+	 * @throws NullPointerException if input or output is null.
+	 */
+	Outcome(@NotNull File input, @NotNull File output, @Nullable Exception error, long millis) {
+		this(input, output, error, millis, false);
+	}
+	
+	/**
+	 * Creates a new outcome.
+	 *
+	 * @param input   the pdf-file that should have been censored. May not be null.
+	 * @param output  the file the censored pdf-file should have been written into. May not be null.
+	 * @param error   the error that occurred while censoring or null if censoring succeeded.
+	 * @param millis  the time censoring the pdf-file took (in milliseconds).
+	 * @param skipped true if the pdf-file was skipped as it was censored by a previous run.
+	 * @throws NullPointerException if input or output is null.
+	 */
+	private Outcome(@NotNull File input, @NotNull File output, @Nullable Exception error, long millis,
+					boolean skipped) {
+		this.input = Objects.requireNonNull(input);
+		this.output = Objects.requireNonNull(output);
+		this.error = error;
+		this.millis = millis;
+		this.skipped = skipped;
+	}
+	
+	/**
+	 * Creates the outcome of a pdf-file that was skipped as it was censored by a previous run.
+	 *
+	 * @param input  the pdf-file that was skipped. May not be null.
+	 * @param output the file the pdf-file would have been censored into. May not be null.
+	 * @return the new outcome.
+	 * @throws NullPointerException if input or output is null.
+	 */
+	@NotNull
+	@Contract("_, _ -> new")
+	static Outcome skipped(@NotNull File input, @NotNull File output) {
+		return new Outcome(input, output, null, 0, true);
+	}
+	
+	/**
+	 * @return the pdf-file that should have been censored.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public File getInput() {
+		return input;
+	}
+	
+	/**
+	 * @return the file the censored pdf-file should have been written into.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public File getOutput() {
+		return output;
+	}
+	
+	/**
+	 * @return the error that occurred while censoring or null if censoring succeeded.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public Exception getError() {
+		return error;
+	}
+	
+	/**
+	 * @return the time spent censoring the pdf-file (in milliseconds), not including the time it waited to be worked
+	 * on.
+	 */
+	@Contract(pure = true)
+	public long getMillis() {
+		return millis;
+	}
+	
+	/**
+	 * @return true if the pdf-file was censored successfully, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean isSuccess() {
+		return error == null;
+	}
+	
+	/**
+	 * @return true if censoring the pdf-file failed, as it took longer than the timeout.
+	 */
+	@Contract(pure = true)
+	public boolean isTimedOut() {
+		return error instanceof AbortedException && ((AbortedException) error).isTimeout();
+	}
+	
+	/**
+	 * @return true if the pdf-file was skipped as it was censored by a previous run.
+	 */
+	@Contract(pure = true)
+	public boolean isSkipped() {
+		return skipped;
+	}
+	
+	/**
+	 * @return the status of the pdf-file: {@link #OK}, {@link #SKIP}, {@link #TIME} or {@link #FAIL}.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getStatus() {
+		if (isSuccess())
+			return skipped ? SKIP : OK;
+		return isTimedOut() ? TIME : FAIL;
+	}
+	
+	/**
+	 * Returns a string representation of this outcome.
+	 *
+	 * @return the status (see {@link #getStatus()}), time, input and (on success) output or (on failure) error message
+	 * as a single line.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		final var result = String.format("%-4s %8d ms  %s", getStatus(), millis, input);
+		return isSuccess() ? result + " -> " + output : result + ": " + error;
+	}
+}
@@ -0,0 +1,279 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.commons.lang3.Validate;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ResultCache keeps censored pdf-files in a directory, such that an input that was censored before is copied from
+ * the cache instead of being parsed and censored again. An entry is keyed by the hash of the input (see {@link
+ * Manifest#hash(File)}) and the fingerprint of the settings it was censored with (see {@link
+ * de.uni_hannover.se.pdfzensor.config.Settings#getFingerprint()}), so changing the settings never returns a pdf-file
+ * censored differently. As the fingerprint does not cover the password, the censored pdf-files of encrypted inputs
+ * must not be stored.
+ * <br>
+ * The cached pdf-files may take up a limited size together. Once it is exceeded, the least recently used entries are
+ * removed until a tenth of the size is free again, the time an entry was last used being its modification time.
+ * <br>
+ * The cache may be used by multiple threads and by multiple processes sharing the directory: Entries are written into
+ * temporary files that are moved into place atomically, so no one ever reads a partially written entry, and an entry
+ * removed concurrently is merely a miss.
+ */
+public final class ResultCache {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The extension of the cached pdf-files. */
+	private static final String EXTENSION = ".pdf";
+	/** The extension of the temporary files entries are written into. */
+	private static final String TEMP_EXTENSION = ".tmp";
+	/** The age (in milliseconds) after which a temporary file is considered abandoned by a process that died. */
+	private static final long ABANDONED_MILLIS = 60L * 60L * 1000L;
+	
+	/** The directory the censored pdf-files are cached in. */
+	@NotNull
+	private final Path dir;
+	/** The number of bytes the cached pdf-files may take up together. */
+	private final long maxSize;
+	/** The fingerprint of the settings the pdf-files are censored with. */
+	@NotNull
+	private final String fingerprint;
+	/** The estimated number of bytes the cached pdf-files take up. Negative until the directory was scanned. */
+	@NotNull
+	private final AtomicLong size = new AtomicLong(-1);
+	/** The number of inputs that were copied from the cache. */
+	@NotNull
+	private final AtomicLong hits = new AtomicLong();
+	/** The number of inputs that were not found in the cache. */
+	@NotNull
+	private final AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * Creates a new cache in the directory and creates the directory if it does not exist.
+	 *
+	 * @param dir         the directory the censored pdf-files should be cached in. May not be null.
+	 * @param maxSize     the number of bytes the cached pdf-files may take up together.
+	 * @param fingerprint the fingerprint of the settings the pdf-files are censored with. May not be null.
+	 * @throws IllegalArgumentException if the size is not positive or the directory could not be created.
+	 */
+	public ResultCache(@NotNull File dir, long maxSize, @NotNull String fingerprint) {
+		Validate.isTrue(maxSize > 0, "The cache size has to be positive.");
+		Validate.isTrue(dir.isDirectory() || dir.mkdirs(), "The cache directory %s could not be created.", dir);
+		this.dir = dir.toPath();
+		this.maxSize = maxSize;
+		this.fingerprint = Objects.requireNonNull(fingerprint);
+	}
+	
+	/**
+	 * Copies the censored pdf-file of the input into the output if it is cached and marks it as recently used. Missing
+	 * directories of the output are created.
+	 *
+	 * @param hash   the hash of the input (see {@link Manifest#hash(File)}).
+	 * @param output the file the censored pdf-file should be written into.
+	 * @return true if the input was cached and copied into the output, false if it has to be censored.
+	 * @throws IOException if the cached pdf-file could not be copied.
+	 */
+	public boolean restore(@NotNull String hash, @NotNull File output) throws IOException {
+		final var entry = entry(hash);
+		if (!Files.isRegularFile(entry)) {
+			misses.incrementAndGet();
+			return false;
+		}
+		final var parent = output.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+			throw new IOException("The output directory " + parent + " could not be created.");
+		try {
+			Files.copy(entry, output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (NoSuchFileException e) {
+			// removed by a concurrent eviction in the meantime
+			misses.incrementAndGet();
+			return false;
+		}
+		touch(entry);
+		return true;
+	}
+	
+	/**
+	 * Reads the censored pdf-file of the input if it is cached and marks it as recently used.
+	 *
+	 * @param hash the hash of the input (see {@link Manifest#hash(java.io.InputStream)}).
+	 * @return the censored pdf-file or null if the input was not cached and has to be censored.
+	 * @throws IOException if the cached pdf-file could not be read.
+	 */
+	@Nullable
+	public byte[] restore(@NotNull String hash) throws IOException {
+		final var entry = entry(hash);
+		final byte[] result;
+		try {
+			result = Files.readAllBytes(entry);
+		} catch (NoSuchFileException e) {
+			misses.incrementAndGet();
+			return null;
+		}
+		touch(entry);
+		return result;
+	}
+	
+	/**
+	 * Marks the entry as recently used and counts the hit.
+	 *
+	 * @param entry the entry that was copied from the cache.
+	 */
+	private void touch(@NotNull Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			LOGGER.debug("Failed to mark {} as used", entry, e);
+		}
+		hits.incrementAndGet();
+	}
+	
+	/**
+	 * Stores the censored pdf-file of the input in the cache and removes the least recently used entries if the cache
+	 * exceeds its size.
+	 *
+	 * @param hash   the hash of the input (see {@link Manifest#hash(File)}).
+	 * @param output the censored pdf-file.
+	 * @throws IOException if the censored pdf-file could not be stored.
+	 */
+	public void store(@NotNull String hash, @NotNull File output) throws IOException {
+		store(hash, temp -> Files.copy(output.toPath(), temp, StandardCopyOption.REPLACE_EXISTING));
+	}
+	
+	/**
+	 * Stores the censored pdf-file of the input in the cache and removes the least recently used entries if the cache
+	 * exceeds its size.
+	 *
+	 * @param hash   the hash of the input (see {@link Manifest#hash(java.io.InputStream)}).
+	 * @param output the content of the censored pdf-file.
+	 * @throws IOException if the censored pdf-file could not be stored.
+	 */
+	public void store(@NotNull String hash, @NotNull byte[] output) throws IOException {
+		store(hash, temp -> Files.write(temp, output));
+	}
+	
+	/**
+	 * Writes an entry into a temporary file that is moved into place atomically and removes the least recently used
+	 * entries if the cache exceeds its size.
+	 *
+	 * @param hash  the hash of the input.
+	 * @param write writes the censored pdf-file into the temporary file.
+	 * @throws IOException if the censored pdf-file could not be stored.
+	 */
+	private void store(@NotNull String hash, @NotNull Writer write) throws IOException {
+		final var entry = entry(hash);
+		final var temp = Files.createTempFile(dir, entry.getFileName().toString(), TEMP_EXTENSION);
+		final long length;
+		try {
+			write.to(temp);
+			// the entry may already be evicted concurrently once it was moved, so its size is taken beforehand
+			length = Files.size(temp);
+			try {
+				Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		if (size.get() < 0 || size.addAndGet(length) > maxSize)
+			evict();
+	}
+	
+	/**
+	 * Scans the directory for the size of the cached pdf-files and removes the least recently used ones once they
+	 * exceed the size of the cache, until a tenth of it is free again. Temporary files abandoned by processes that died
+	 * are removed as well.
+	 *
+	 * @throws IOException if the directory could not be listed.
+	 */
+	synchronized void evict() throws IOException {
+		final var entries = new ArrayList<Map.Entry<Path, BasicFileAttributes>>();
+		final var now = System.currentTimeMillis();
+		var total = 0L;
+		try (var files = Files.newDirectoryStream(dir)) {
+			for (var file : files) {
+				final BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				} catch (NoSuchFileException e) {
+					continue;
+				}
+				final var name = file.getFileName().toString();
+				if (name.endsWith(EXTENSION)) {
+					entries.add(Map.entry(file, attributes));
+					total += attributes.size();
+				} else if (name.endsWith(TEMP_EXTENSION) &&
+						   now - attributes.lastModifiedTime().toMillis() > ABANDONED_MILLIS)
+					Files.deleteIfExists(file);
+			}
+		}
+		if (total > maxSize) {
+			final var target = maxSize - maxSize / 10;
+			entries.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+			var removed = 0;
+			for (var it = entries.iterator(); it.hasNext() && total > target; removed++) {
+				final var e = it.next();
+				try {
+					Files.deleteIfExists(e.getKey());
+				} catch (IOException ex) {
+					LOGGER.debug("Failed to remove {} from the cache", e.getKey(), ex);
+				}
+				total -= e.getValue().size();
+			}
+			LOGGER.info("Removed {} least recently used pdf-files from the cache", removed);
+		}
+		size.set(total);
+	}
+	
+	/**
+	 * Returns the cached pdf-file of the input.
+	 *
+	 * @param hash the hash of the input.
+	 * @return the path of the entry.
+	 */
+	@NotNull
+	private Path entry(@NotNull String hash) {
+		Validate.isTrue(hash.matches("[0-9a-f]+"), "Invalid hash: %s", hash);
+		return dir.resolve(hash + "-" + fingerprint + EXTENSION);
+	}
+	
+	/**
+	 * @return the number of inputs that were copied from the cache.
+	 */
+	@Contract(pure = true)
+	public long getHits() {
+		return hits.get();
+	}
+	
+	/**
+	 * @return the number of inputs that were not found in the cache.
+	 */
+	@Contract(pure = true)
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	/** Writes the censored pdf-file of an entry into a file. */
+	@FunctionalInterface
+	private interface Writer {
+		/**
+		 * @param file the file the censored pdf-file should be written into.
+		 * @throws IOException if the censored pdf-file could not be written.
+		 */
+		void to(@NotNull Path file) throws IOException;
+	}
+}
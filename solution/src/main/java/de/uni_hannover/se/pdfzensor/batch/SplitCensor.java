@@ -0,0 +1,242 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import de.uni_hannover.se.pdfzensor.utils.MappedFile;
+import de.uni_hannover.se.pdfzensor.utils.MemoryMonitor;
+import de.uni_hannover.se.pdfzensor.writer.DocumentWriter;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * The SplitCensor censors a single (large) pdf-file into part files of {@link Settings#getSplitPages()} pages each
+ * instead of a single output. The pdf-file is loaded once and its parts are censored one after another. The censored
+ * pages of a part are imported into a new {@link PDDocument}, which is saved and closed right away, and the censored
+ * content streams of those pages are closed and dropped from the pdf-file afterwards.
+ * <br>
+ * As PDFBox parses all objects of a pdf-file when loading it, the memory used is that of the parsed pdf-file (whose
+ * streams are buffered as configured by {@link Settings#getMemoryUsageSetting()}) plus the censored content of a
+ * single part. Thus splitting bounds the size of the outputs and of the censored content kept besides the parsed
+ * pdf-file by the size of a part, but not the memory needed to load the pdf-file. The objects of the streams created
+ * while censoring are kept by the pdf-file until it is closed though, only their buffers are released after each
+ * part, so a small amount of memory per censored page remains in use until the last part was written.
+ * <br>
+ * The parts are formed from the pages that are kept in the output, so if the unselected pages are dropped (see {@link
+ * Settings#getDropUnselected()}) every part but the last one still contains exactly the specified number of pages. As
+ * the tokenizer of a {@link PDFCensor} is flushed at the end of each page, each page is censored just like when
+ * censoring the pdf-file as a whole. Resources shared by pages of different parts are written into each of them, while
+ * the catalog and document information of the pdf-file are not written into any part.
+ */
+public final class SplitCensor {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The infix between the name of the output and the number of a part. */
+	private static final String PART_INFIX = "_part";
+	
+	/** The settings that should be applied to each part. */
+	@NotNull
+	private final Settings settings;
+	/** The number of pages per part. */
+	private final int splitPages;
+	
+	/**
+	 * Creates a new SplitCensor for the provided settings.
+	 *
+	 * @param settings the settings that should be applied to each part. May not be null.
+	 * @throws NullPointerException if settings is null or specify no number of pages per part.
+	 */
+	public SplitCensor(@NotNull Settings settings) {
+		this.settings = Objects.requireNonNull(settings);
+		this.splitPages = Objects.requireNonNull(settings.getSplitPages(), "No number of pages per part specified");
+	}
+	
+	/**
+	 * Censors the provided pdf-file part by part and writes each part into its own file next to the output (see {@link
+	 * #partOf(File, int, int)}). The user is never prompted for a password. All parts share a single deadline of {@link
+	 * Settings#getTimeout()}. If censoring a part fails, the parts written so far are deleted again, such that no
+	 * incomplete set of parts is left behind.
+	 *
+	 * @param input   the pdf-file that should be censored. May not be null.
+	 * @param output  the file whose name the names of the parts are derived from. May not be null.
+	 * @param monitor the monitor whose scratch usage should be sampled before each part is closed. May be null.
+	 * @return the part files in the order of their pages. Empty if no page is kept.
+	 * @throws AbortedException if censoring took longer than the timeout.
+	 * @throws IOException      if an I/O error occurs while loading the pdf-file or censoring or saving one of the
+	 *                          parts.
+	 */
+	@NotNull
+	public List<File> censor(@NotNull File input, @NotNull File output,
+							 @Nullable MemoryMonitor monitor) throws IOException {
+		Objects.requireNonNull(input);
+		Objects.requireNonNull(output);
+		final var deadline = new Deadline(settings.getTimeout());
+		final var files = new ArrayList<File>();
+		try (var doc = load(input)) {
+			final var kept = new ArrayList<Integer>();
+			for (var page = 1; page <= doc.getNumberOfPages(); page++) {
+				if (isKept(page))
+					kept.add(page);
+			}
+			final var parts = (kept.size() + splitPages - 1) / splitPages;
+			LOGGER.info("Censoring {} pages of {} into {} parts", kept.size(), input, parts);
+			for (var i = 0; i < parts; i++) {
+				final int first = kept.get(i * splitPages);
+				final int last = kept.get(Math.min(kept.size(), (i + 1) * splitPages) - 1);
+				final IntPredicate part = page -> page >= first && page <= last && isKept(page);
+				final var file = partOf(output, i + 1, parts);
+				files.add(file);
+				new PDFProcessor(new PDFCensor(settings), settings, part).process(doc, deadline);
+				final var pages = pagesOf(doc, part);
+				try (var partDoc = importPages(doc, pages)) {
+					DocumentWriter.save(partDoc, file, settings);
+					if (monitor != null)
+						monitor.sampleScratch();
+				}
+				// the censored pages were written, so their streams are released before the next part is censored
+				for (var page : pages)
+					releaseContents(page);
+				LOGGER.debug("Wrote the pages {} to {} into {}", first, last, file);
+			}
+		} catch (IOException | RuntimeException e) {
+			for (var file : files) {
+				if (file.exists() && !file.delete())
+					LOGGER.warn("Failed to delete the part {}", file);
+			}
+			throw e;
+		}
+		return files;
+	}
+	
+	/**
+	 * Returns the file a part of the output is written into. The number of the part is padded with zeros to the width
+	 * of the number of parts, such that the parts sort in their order, and inserted in front of the extension of the
+	 * output (<code>out.pdf</code> becomes <code>out_part01.pdf</code> for the first of 10 or more parts).
+	 *
+	 * @param output the file whose name the name of the part is derived from. May not be null.
+	 * @param part   the (1-based) number of the part.
+	 * @param parts  the number of parts.
+	 * @return the file the part should be written into.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static File partOf(@NotNull File output, int part, int parts) {
+		final var name = output.getName();
+		final var extension = FilenameUtils.getExtension(name);
+		final var number = String.format("%0" + String.valueOf(parts).length() + "d", part);
+		final var partName = FilenameUtils.removeExtension(name) + PART_INFIX + number +
+							 (extension.isEmpty() ? "" : "." + extension);
+		return new File(output.getParentFile(), partName);
+	}
+	
+	/**
+	 * Checks if the page is kept in the output, which it is unless it is unselected and unselected pages are dropped.
+	 *
+	 * @param page the (1-based) number of the page.
+	 * @return true if the page is kept in one of the parts.
+	 */
+	@Contract(pure = true)
+	private boolean isKept(int page) {
+		return !settings.getDropUnselected() || settings.getPages().contains(page);
+	}
+	
+	/**
+	 * Loads the pdf-file according to the memory settings.
+	 *
+	 * @param input the pdf-file that should be loaded.
+	 * @return the loaded pdf-file.
+	 * @throws IOException if an I/O error occurs or the password is incorrect.
+	 */
+	@NotNull
+	private PDDocument load(@NotNull File input) throws IOException {
+		final var password = Objects.requireNonNullElse(settings.getPassword(), "");
+		final var doc = settings.isMemoryMapped() ?
+						MappedFile.load(input, password, settings.getMemoryUsageSetting()) :
+						PDDocument.load(input, password, settings.getMemoryUsageSetting());
+		doc.setAllSecurityToBeRemoved(true);
+		return doc;
+	}
+	
+	/**
+	 * Returns the pages of the document that belong to the part.
+	 *
+	 * @param doc  the document containing the part.
+	 * @param part whether a page belongs to the part.
+	 * @return the pages of the part in their order.
+	 */
+	@NotNull
+	private static List<PDPage> pagesOf(@NotNull PDDocument doc, @NotNull IntPredicate part) {
+		final var pages = new ArrayList<PDPage>();
+		var number = 1;
+		for (var page : doc.getPages()) {
+			if (part.test(number++))
+				pages.add(page);
+		}
+		return pages;
+	}
+	
+	/**
+	 * Imports the pages of a part into a new document with the version of the pdf-file. Only the dictionaries of the
+	 * pages are copied, on which the attributes a page inherits from the page tree of the pdf-file are set. Their
+	 * content and resources are not copied but shared with the pdf-file, which thus has to stay open until the new
+	 * document was saved.
+	 *
+	 * @param doc   the document containing the censored part.
+	 * @param pages the censored pages of the part.
+	 * @return the new document containing the pages of the part.
+	 */
+	@NotNull
+	private PDDocument importPages(@NotNull PDDocument doc, @NotNull List<PDPage> pages) {
+		final var partDoc = new PDDocument(settings.getMemoryUsageSetting());
+		partDoc.setVersion(doc.getVersion());
+		for (var page : pages) {
+			final var imported = new PDPage(new COSDictionary(page.getCOSObject()));
+			imported.setResources(page.getResources());
+			imported.setMediaBox(page.getMediaBox());
+			imported.setCropBox(page.getCropBox());
+			imported.setRotation(page.getRotation());
+			partDoc.addPage(imported);
+		}
+		return partDoc;
+	}
+	
+	/**
+	 * Removes the content streams from the censored page and closes them, such that their buffers are released. The
+	 * content streams of a censored page were created when censoring it and are not shared with any other page.
+	 *
+	 * @param page the censored page whose content streams should be released.
+	 * @throws IOException if a content stream could not be closed.
+	 */
+	private static void releaseContents(@NotNull PDPage page) throws IOException {
+		final var contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+		page.getCOSObject().removeItem(COSName.CONTENTS);
+		if (contents instanceof COSStream)
+			((COSStream) contents).close();
+		else if (contents instanceof COSArray) {
+			final var array = (COSArray) contents;
+			for (var i = 0; i < array.size(); i++) {
+				if (array.getObject(i) instanceof COSStream)
+					((COSStream) array.getObject(i)).close();
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * The SpoolWatcher watches a spool directory (see {@link Settings#getWatchDir()}) and censors the pdf-files that arrive
+ * in it. A pdf-file is considered complete once its size and modification time did not change for a while, so files
+ * still being written are not picked up. Files that are written under a different name (e.g. <code>.part</code>) and
+ * renamed once complete are thus picked up as well.
+ * <br>
+ * Complete files are censored by {@link Settings#getThreads()} worker threads. At most {@link Settings#getQueueSize()}
+ * further files are queued, the others stay in the spool directory until a worker is available. The censored pdf-file
+ * is written into a temporary file first and then moved into the output directory, such that the output never
+ * contains incomplete files. Afterwards the original is moved into <code>done</code> (or <code>failed</code>) in the
+ * spool directory.
+ */
+public final class SpoolWatcher implements Runnable, AutoCloseable {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The default time (in milliseconds) the size of a file has to be stable until it is considered complete. */
+	private static final long DEFAULT_STABLE_MILLIS = 2000;
+	/** The interval (in milliseconds) in which the throughput and queue depth are logged. */
+	private static final long METRICS_INTERVAL = 60_000;
+	
+	/** The directory that is watched. */
+	@NotNull
+	private final Path spool;
+	/** The directory the originals are moved to once they were censored successfully. */
+	@NotNull
+	private final Path done;
+	/** The directory the originals are moved to if they could not be censored. */
+	@NotNull
+	private final Path failed;
+	/** The settings that should be applied to each pdf-file. */
+	@NotNull
+	private final Settings settings;
+	/** Censors the pdf-files reusing a censor per worker thread. */
+	@NotNull
+	private final BatchCensor censor;
+	/** The time (in milliseconds) the size of a file has to be stable until it is considered complete. */
+	private final long stableMillis;
+	/** The worker threads. */
+	@NotNull
+	private final ExecutorService executor;
+	/** The permits of the files that may be censored or queued at the same time. */
+	@NotNull
+	private final Semaphore admitted;
+	/** The files that were detected but are not yet complete or could not be queued, in the order of detection. */
+	@NotNull
+	private final Map<Path, Candidate> pending = new LinkedHashMap<>();
+	/** The files that are queued or censored at the moment. */
+	@NotNull
+	private final Map<Path, Boolean> active = new ConcurrentHashMap<>();
+	/** The number of files waiting for a worker. */
+	@NotNull
+	private final AtomicInteger queued = new AtomicInteger();
+	/** The number of files censored successfully. */
+	@NotNull
+	private final AtomicLong succeeded = new AtomicLong();
+	/** The number of files that could not be censored. */
+	@NotNull
+	private final AtomicLong failures = new AtomicLong();
+	/** The time (in milliseconds) the watcher was created at. */
+	private final long started = System.currentTimeMillis();
+	/** True until the watcher is closed. */
+	private volatile boolean running = true;
+	
+	/**
+	 * Creates a new SpoolWatcher for the watched directory of the provided settings. The directories for the done and
+	 * failed originals are created if necessary.
+	 *
+	 * @param settings the settings that should be applied to each pdf-file. May not be null.
+	 * @throws NullPointerException if settings is null or specifies no directory to watch.
+	 * @throws IOException          if the done or failed directories could not be created.
+	 */
+	public SpoolWatcher(@NotNull Settings settings) throws IOException {
+		this(settings, DEFAULT_STABLE_MILLIS);
+	}
+	
+	/**
+	 * Creates a new SpoolWatcher for the watched directory of the provided settings. The directories for the done and
+	 * failed originals are created if necessary.
+	 *
+	 * @param settings     the settings that should be applied to each pdf-file. May not be null.
+	 * @param stableMillis the time (in milliseconds) the size of a file has to be stable until it is considered
+	 *                     complete.
+	 * @throws NullPointerException if settings is null or specifies no directory to watch.
+	 * @throws IOException          if the done or failed directories could not be created.
+	 */
+	SpoolWatcher(@NotNull Settings settings, long stableMillis) throws IOException {
+		this.settings = Objects.requireNonNull(settings);
+		this.spool = Objects.requireNonNull(settings.getWatchDir(), "No directory to watch was specified.").toPath();
+		this.done = Files.createDirectories(spool.resolve("done"));
+		this.failed = Files.createDirectories(spool.resolve("failed"));
+		this.censor = new BatchCensor(settings);
+		this.stableMillis = stableMillis;
+		this.admitted = new Semaphore(settings.getThreads() + settings.getQueueSize());
+		final var next = new AtomicInteger(1);
+		this.executor = Executors.newFixedThreadPool(settings.getThreads(),
+													 r -> new Thread(r, "Spool-Worker-" + next.getAndIncrement()));
+	}
+	
+	/**
+	 * Watches the spool directory until the watcher is {@link #close() closed} or the thread is interrupted. Files
+	 * that are already in the spool directory are censored as well.
+	 */
+	@Override
+	public void run() {
+		try (var watchService = spool.getFileSystem().newWatchService()) {
+			spool.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+			LOGGER.info("Watching {} for pdf-files", spool);
+			scan();
+			var lastMetrics = System.currentTimeMillis();
+			while (running) {
+				final var key = watchService.poll(Math.max(stableMillis / 2, 10), TimeUnit.MILLISECONDS);
+				if (key != null) {
+					for (var event : key.pollEvents()) {
+						if (event.kind() == OVERFLOW)
+							scan();
+						else if (event.context() instanceof Path)
+							detect(spool.resolve((Path) event.context()));
+					}
+					key.reset();
+				}
+				admitComplete();
+				if (System.currentTimeMillis() - lastMetrics >= METRICS_INTERVAL) {
+					logMetrics();
+					lastMetrics = System.currentTimeMillis();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | ClosedWatchServiceException e) {
+			LOGGER.error("Failed to watch {}", spool, e);
+		} finally {
+			executor.shutdown();
+			logMetrics();
+		}
+	}
+	
+	/**
+	 * Stops watching the spool directory. The files that are queued already are still censored.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(1, TimeUnit.MINUTES))
+				LOGGER.warn("Not all queued files were censored in time");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/** Detects all files that are currently in the spool directory. */
+	private void scan() {
+		try (var files = Files.list(spool)) {
+			files.forEach(this::detect);
+		} catch (IOException e) {
+			LOGGER.error("Failed to list {}", spool, e);
+		}
+	}
+	
+	/**
+	 * Adds the file to the pending files if it is a pdf-file that is neither pending nor active already. Hidden files
+	 * (starting with a dot) are ignored.
+	 *
+	 * @param file the file that was detected.
+	 */
+	private void detect(@NotNull Path file) {
+		final var name = file.getFileName().toString();
+		if (name.startsWith(".") || !"pdf".equalsIgnoreCase(FilenameUtils.getExtension(name)) ||
+			!Files.isRegularFile(file) || active.containsKey(file))
+			return;
+		pending.putIfAbsent(file, new Candidate());
+	}
+	
+	/**
+	 * Queues the pending files that are complete (in the order of their detection) as long as the queue is not full.
+	 * Files that vanished are dropped.
+	 */
+	private void admitComplete() {
+		final var now = System.currentTimeMillis();
+		for (Iterator<Map.Entry<Path, Candidate>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+			final var entry = it.next();
+			final var file = entry.getKey();
+			final var attributes = readAttributes(file);
+			if (attributes == null) {
+				it.remove();
+			} else if (entry.getValue().update(attributes[0], attributes[1], now) >= stableMillis) {
+				if (!admitted.tryAcquire())
+					break;    // backpressure: leave the remaining files in the spool directory for now
+				it.remove();
+				active.put(file, Boolean.TRUE);
+				queued.incrementAndGet();
+				executor.execute(() -> process(file));
+			}
+		}
+	}
+	
+	/**
+	 * Reads the size and the modification time of the file.
+	 *
+	 * @param file the file whose attributes should be read.
+	 * @return the size and the modification time (in milliseconds) or null if the file does not exist anymore.
+	 */
+	@Nullable
+	private static long[] readAttributes(@NotNull Path file) {
+		try {
+			return new long[]{Files.size(file), Files.getLastModifiedTime(file).toMillis()};
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Censors the file into a temporary file and moves it (and its glyph sidecar) into the output directory on success.
+	 * Afterwards the original is moved into the done or failed directory.
+	 *
+	 * @param file the pdf-file that should be censored.
+	 */
+	private void process(@NotNull Path file) {
+		queued.decrementAndGet();
+		try {
+			final var output = settings.getOutput(file.toFile()).toPath();
+			final var temp = output.resolveSibling("." + output.getFileName() + ".part");
+			final var outcome = censor.censor(file.toFile(), temp.toFile());
+			// the glyph sidecar is written next to the temporary file and has to follow it
+			final var tempSidecar = GlyphSidecar.fileOf(temp.toFile()).toPath();
+			var success = outcome.isSuccess();
+			if (success)
+				success = move(temp, output);
+			else Files.deleteIfExists(temp);
+			if (success && Files.exists(tempSidecar))
+				move(tempSidecar, GlyphSidecar.fileOf(output.toFile()).toPath());
+			else Files.deleteIfExists(tempSidecar);
+			move(file, (success ? done : failed).resolve(file.getFileName()));
+			(success ? succeeded : failures).incrementAndGet();
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("Failed to process {}", file, e);
+			failures.incrementAndGet();
+		} finally {
+			active.remove(file);
+			admitted.release();
+		}
+	}
+	
+	/**
+	 * Moves the file to the target, replacing an existing target. The move is atomic if the file system supports it.
+	 *
+	 * @param source the file that should be moved.
+	 * @param target the path the file should be moved to.
+	 * @return true if the file was moved, false otherwise.
+	 */
+	private static boolean move(@NotNull Path source, @NotNull Path target) {
+		try {
+			try {
+				Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch (IOException e) {
+			LOGGER.error("Failed to move {} to {}", source, target, e);
+			return false;
+		}
+	}
+	
+	/** Logs the number of censored and failed files, the throughput and the queue depth. */
+	private void logMetrics() {
+		final var processed = succeeded.get() + failures.get();
+		final var minutes = Math.max(System.currentTimeMillis() - started, 1) / 60_000.0;
+		LOGGER.info("Spool {}: {} censored, {} failed ({} files/min), {} queued, {} in progress, {} pending", spool,
+					succeeded.get(), failures.get(), String.format("%.1f", processed / minutes), queued.get(),
+					active.size() - queued.get(), pending.size());
+	}
+	
+	/**
+	 * @return the number of files censored successfully so far.
+	 */
+	long getSucceeded() {
+		return succeeded.get();
+	}
+	
+	/**
+	 * @return the number of files that could not be censored so far.
+	 */
+	long getFailures() {
+		return failures.get();
+	}
+	
+	/** The state of a pending file used to decide whether it is complete. */
+	private static final class Candidate {
+		/** The size of the file when it was last checked. */
+		private long size = -1;
+		/** The modification time of the file when it was last checked. */
+		private long modified = -1;
+		/** The time (in milliseconds) since the size and modification time did not change. */
+		private long since;
+		
+		/**
+		 * Updates the state of the file.
+		 *
+		 * @param size     the current size of the file.
+		 * @param modified the current modification time of the file.
+		 * @param now      the current time (in milliseconds).
+		 * @return the time (in milliseconds) the size and modification time did not change.
+		 */
+		long update(long size, long modified, long now) {
+			if (size != this.size || modified != this.modified) {
+				this.size = size;
+				this.modified = modified;
+				this.since = now;
+			}
+			return now - since;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.utils.Utils;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A Stage is one step of a pipeline of worker threads. Each of its threads takes the next job out of the stage's
+ * queue, works on it and hands it off to the queue of the next stage. Since the queues are bounded a stage that is
+ * faster than its successor blocks instead of piling up jobs (and with them memory).
+ * <br>
+ * The end of the jobs is marked by a sentinel job (the poison). Once all threads of a stage received it the stage
+ * passes one poison per thread on to the next stage.
+ *
+ * @param <T> the type of the jobs.
+ */
+final class Stage<T> {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	
+	/** The name of the stage used to name its threads and in {@link #toString()}. */
+	@NotNull
+	private final String name;
+	/** The number of threads working on the jobs of this stage. */
+	private final int threads;
+	/** The work done on each job. Has to handle its own errors. */
+	@NotNull
+	private final Consumer<T> work;
+	/** The sentinel job marking the end of the jobs. */
+	@NotNull
+	private final T poison;
+	/** The queue the jobs of this stage are taken out of. */
+	@NotNull
+	private final BlockingQueue<T> queue;
+	/** The stage the jobs are handed off to after they were worked on. Null if this is the last stage. */
+	@Nullable
+	private Stage<T> next = null;
+	/** The threads of this stage that did not receive the poison yet. */
+	@NotNull
+	private final AtomicInteger running = new AtomicInteger();
+	/** The total time (in nanoseconds) the threads of this stage spent working. */
+	@NotNull
+	private final AtomicLong busyNanos = new AtomicLong();
+	/** The started threads. */
+	@NotNull
+	private final List<Thread> workers = new ArrayList<>();
+	
+	/**
+	 * Creates a new stage.
+	 *
+	 * @param name     the name of the stage.
+	 * @param threads  the number of threads working on the jobs of this stage. Has to be positive.
+	 * @param capacity the number of jobs that may wait in the queue of this stage. Has to be positive.
+	 * @param poison   the sentinel job marking the end of the jobs.
+	 * @param work     the work done on each job. Has to handle its own errors.
+	 */
+	Stage(@NotNull String name, int threads, int capacity, @NotNull T poison, @NotNull Consumer<T> work) {
+		this.name = Objects.requireNonNull(name);
+		this.threads = threads;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.poison = Objects.requireNonNull(poison);
+		this.work = Objects.requireNonNull(work);
+	}
+	
+	/**
+	 * Sets the stage the jobs should be handed off to after this stage worked on them.
+	 *
+	 * @param next the next stage.
+	 * @return the next stage to allow chaining.
+	 */
+	@NotNull
+	Stage<T> then(@NotNull Stage<T> next) {
+		this.next = Objects.requireNonNull(next);
+		return next;
+	}
+	
+	/** Starts the threads of this stage. */
+	void start() {
+		running.set(threads);
+		for (var i = 1; i <= threads; i++) {
+			final var thread = new Thread(this::work, name + "-Worker-" + i);
+			workers.add(thread);
+			thread.start();
+		}
+	}
+	
+	/**
+	 * Adds a job to the queue of this stage. Blocks while the queue is full.
+	 *
+	 * @param job the job that should be worked on or the poison.
+	 * @throws InterruptedException if the thread was interrupted while waiting.
+	 */
+	void put(@NotNull T job) throws InterruptedException {
+		queue.put(job);
+	}
+	
+	/**
+	 * Marks the end of the jobs by putting one poison per thread into the queue of this stage.
+	 *
+	 * @throws InterruptedException if the thread was interrupted while waiting for space in the queue.
+	 */
+	void finish() throws InterruptedException {
+		for (var i = 0; i < threads; i++)
+			queue.put(poison);
+	}
+	
+	/**
+	 * Waits for the threads of this stage to terminate.
+	 *
+	 * @throws InterruptedException if the thread was interrupted while waiting.
+	 */
+	void join() throws InterruptedException {
+		for (var worker : workers)
+			worker.join();
+	}
+	
+	/** Interrupts the threads of this stage. */
+	void interrupt() {
+		workers.forEach(Thread::interrupt);
+	}
+	
+	/**
+	 * The loop of each thread: works on the jobs until the poison was received. The last thread to terminate marks the
+	 * end of the jobs for the next stage, even if it terminated abnormally, such that the pipeline does not hang.
+	 */
+	private void work() {
+		try {
+			for (var job = queue.take(); job != poison; job = queue.take()) {
+				final var start = System.nanoTime();
+				try {
+					work.accept(job);
+				} finally {
+					busyNanos.addAndGet(System.nanoTime() - start);
+				}
+				if (next != null)
+					next.put(job);
+			}
+		} catch (InterruptedException e) {
+			LOGGER.warn("{} was interrupted", Thread.currentThread().getName());
+			Thread.currentThread().interrupt();
+		} finally {
+			if (running.decrementAndGet() == 0 && next != null && !Thread.currentThread().isInterrupted())
+				Utils.tryCall(next::finish, LOGGER, "Failed to finish the " + next + " stage");
+		}
+	}
+	
+	/**
+	 * @return the number of threads of this stage.
+	 */
+	@Contract(pure = true)
+	int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Returns the utilisation of this stage: the share of the time its threads were working instead of waiting for
+	 * jobs or for the next stage.
+	 *
+	 * @param wallNanos the time (in nanoseconds) the stage was running.
+	 * @return the utilisation between 0 and 1.
+	 */
+	@Contract(pure = true)
+	double getUtilisation(long wallNanos) {
+		return wallNanos <= 0 ? 0 : Math.min(1, busyNanos.get() / ((double) wallNanos * threads));
+	}
+	
+	/**
+	 * @return the name of this stage.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		return name;
+	}
+}
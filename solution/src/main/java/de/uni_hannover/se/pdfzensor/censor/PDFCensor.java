@@ -2,25 +2,35 @@ package de.uni_hannover.se.pdfzensor.censor;
 
 import de.uni_hannover.se.pdfzensor.Logging;
 import de.uni_hannover.se.pdfzensor.censor.utils.Annotations;
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphBuffer;
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar;
 import de.uni_hannover.se.pdfzensor.censor.utils.MetadataRemover;
 import de.uni_hannover.se.pdfzensor.censor.utils.PDFUtils;
 import de.uni_hannover.se.pdfzensor.config.Expression;
 import de.uni_hannover.se.pdfzensor.config.Mode;
+import de.uni_hannover.se.pdfzensor.config.Palette;
 import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.config.Zone;
 import de.uni_hannover.se.pdfzensor.images.ImageReplacer;
 import de.uni_hannover.se.pdfzensor.processor.PDFHandler;
 import de.uni_hannover.se.pdfzensor.text.Tokenizer;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import de.uni_hannover.se.pdfzensor.utils.RectUtils;
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.util.TriConsumer;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.text.TextPosition;
 import org.jetbrains.annotations.NotNull;
@@ -28,13 +38,16 @@ import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.awt.geom.Area;
-import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.*;
 import java.util.function.Predicate;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 /**
  * Runs functions to place censoring rectangles (or censoring graphics) and removes elements of the PDF depending on the
  * annotations and the mode
@@ -63,6 +76,12 @@ public final class PDFCensor implements PDFHandler {
 	 */
 	private static final float MAX_GAP = 1.5f;
 	
+	/**
+	 * The maximum difference (in radians) between the angles of two glyphs' baselines for them to still be considered
+	 * part of the same line (and thus to be merged in their local coordinate-system).
+	 */
+	private static final double ANGLE_TOLERANCE = 1e-6;
+	
 	/** Stores the width of a thin space, which usually is 1/5 em or 1/6 em. */
 	private static final double THIN_SPACE_WIDTH = 1 / 6d;
 	
@@ -72,14 +91,35 @@ public final class PDFCensor implements PDFHandler {
 	/**
 	 * The tokenizer calls {@link #onTokenEncountered(String, List, Expression)} when a token was found and thus enables
 	 * the censor to draw the bounds of characters belonging to this token in the color providing to the token ({@link
-	 * Expression}. The payload of each character is the {@link Rectangle2D} representing its bounds on the page.
+	 * Expression}. The payload of each character is the index of its bounds in {@link #glyphs}.
+	 * <br>
+	 * Is <code>null</code> if only zones should be censored (see {@link Settings#isZoneOnly()}), since no text has to be
+	 * matched then.
 	 */
-	private final Tokenizer<Expression, Rectangle2D> tokenizer;
+	@Nullable
+	private final Tokenizer<Expression, Integer> tokenizer;
 	private final ImageReplacer imageReplacer = new ImageReplacer();
 	/** Stores the settings provided in the constructor. */
 	private final Settings settings;
-	/** The list of bounds-color pairs which will be censored. */
-	private List<ImmutablePair<Rectangle2D, Color>> boundingBoxes;
+	/** The colors censor bars may be drawn in. The color-indices stored in {@link #boundingBoxes} index into it. */
+	private final Palette palette;
+	/** The index of the color links are censored in (see {@link Settings#getLinkColorIndex()}). */
+	private final short linkColor;
+	/** The bounds of each glyph (and detected space) on the current page. Reused for each page. */
+	private final GlyphBuffer glyphs = new GlyphBuffer();
+	/** The bounds and color-indices of the censor bars on the current page. Reused for each page of a document. */
+	private GlyphBuffer boundingBoxes;
+	/** The zones that should be censored regardless of their content (see {@link Settings#getZones()}). */
+	private final Zone[] zones;
+	/** The rectangles and color-indices of the zones applying to the current page. Reused for each page. */
+	private final GlyphBuffer zoneBars = new GlyphBuffer();
+	/** The union of {@link #zoneBars}, used to quickly reject glyphs that are outside of all zones. */
+	private final Rectangle2D zoneBounds = new Rectangle2D.Double();
+	/**
+	 * The dictionaries of the pages of the current document that were processed. Only their image data is removed at
+	 * the end of the document, such that unselected pages (see {@link Settings#getPages()}) keep their images.
+	 */
+	private final Set<COSDictionary> processedPages = Collections.newSetFromMap(new IdentityHashMap<>());
 	/** The list of picture bounding boxes that should be censored.. */
 	private List<Rectangle2D> pictureBoundingBoxes;
 	/** The predicate to use when checking bounds of {@link TextPosition}s. */
@@ -87,10 +127,29 @@ public final class PDFCensor implements PDFHandler {
 	/** A new annotations instance in this {@link PDFCensor}-instance. */
 	private Annotations annotations = new Annotations();
 	/**
-	 * Stores the bounds of the last glyph to allow for detection of space-characters. May be null if there was no
-	 * previous glyph after which a space could have followed.
+	 * Stores the index (in {@link #glyphs}) of the last glyph to allow for detection of space-characters. Negative if
+	 * there was no previous glyph after which a space could have followed.
 	 */
-	private Rectangle2D lastGlyph = null;
+	private int lastGlyph = -1;
+	/** Reusable array for the order in which the censor bars are drawn. */
+	private int[] drawOrder = null;
+	/** Reusable rectangles for the glyph-wise work of the processing thread, to not create new ones per glyph. */
+	private final Rectangle2D glyphBounds = new Rectangle2D.Double();
+	private final Rectangle2D lastGlyphBounds = new Rectangle2D.Double();
+	private final Rectangle2D gapBounds = new Rectangle2D.Double();
+	/**
+	 * Reusable rectangles for merging censor bars (see {@link #addOrExtendBoundingBoxes(int, short)}). These are separate
+	 * from the ones above since merging mostly happens in the tokenizer's scanner-thread.
+	 */
+	private final Rectangle2D mergeBounds = new Rectangle2D.Double();
+	private final Rectangle2D lastBarBounds = new Rectangle2D.Double();
+	private final Rectangle2D mergeGap = new Rectangle2D.Double();
+	/**
+	 * Records the glyphs of the current document if {@link Settings#isGlyphSidecar()} is set, null otherwise. Kept
+	 * after the document ended until the next one begins (see {@link #getSidecar()}).
+	 */
+	@Nullable
+	private GlyphSidecar sidecar = null;
 	
 	/**
 	 * @param settings Settings that contain information about the mode and expressions
@@ -98,8 +157,15 @@ public final class PDFCensor implements PDFHandler {
 	public PDFCensor(@NotNull Settings settings) {
 		Objects.requireNonNull(settings);
 		this.settings = settings;
-		tokenizer = new Tokenizer<>(settings.getExpressions());
-		tokenizer.setHandler(this::onTokenEncountered);
+		this.palette = settings.getPalette();
+		this.linkColor = settings.getLinkColorIndex();
+		this.zones = settings.getZones();
+		if (settings.isZoneOnly()) {
+			tokenizer = null;
+		} else {
+			tokenizer = new Tokenizer<>(settings.getExpressions());
+			tokenizer.setHandler(this::onTokenEncountered);
+		}
 		this.removePredicate = rect -> true;
 		// to censor only segments marked beforehand with a different software
 		if (Mode.MARKED.equals(settings.getMode()))
@@ -111,8 +177,9 @@ public final class PDFCensor implements PDFHandler {
 	
 	/**
 	 * Tests if a union created out of the two given rectangles is a horizontal or vertical extension out of those
-	 * rectangles. Should that be the case the union is returned, however, should the union not be a horizontal or
-	 * vertical extension, null will be returned.
+	 * rectangles. Should that be the case the union is written into <code>union</code> and true is returned, however,
+	 * should the union not be a horizontal or vertical extension, false will be returned and <code>union</code> is left
+	 * untouched.
 	 * <br>
 	 * Two rectangles are considered a horizontal extension of each other if both of their heights are deviating no more
 	 * than {@link #DEVIATION_TOLERANCE} % from the height of their union. Likewise, two rectangles are considered a
@@ -122,57 +189,80 @@ public final class PDFCensor implements PDFHandler {
 	 * Note that deviating over the width/height of the union is impossible because a union is always at least the size
 	 * of each of the rectangles out of which it was constructed.
 	 *
-	 * @param r1 the first {@link Rectangle2D}.
-	 * @param r2 the second {@link Rectangle2D}.
-	 * @return A {@link Rectangle2D} which is the union of both given rectangles or null.
-	 * @see Rectangle2D#createUnion(Rectangle2D)
+	 * @param r1    the first {@link Rectangle2D}.
+	 * @param r2    the second {@link Rectangle2D}.
+	 * @param gap   a rectangle used to store the gap between r1 and r2. Its previous value is overwritten.
+	 * @param union the rectangle the union is written into if it is an extension. May be r1 or r2.
+	 * @return true if the union of both rectangles is an extension, false otherwise.
+	 * @see Rectangle2D#union(Rectangle2D, Rectangle2D, Rectangle2D)
 	 */
-	@Nullable
-	private static Rectangle2D getExtended(@NotNull Rectangle2D r1, @NotNull Rectangle2D r2) {
+	private static boolean getExtended(@NotNull Rectangle2D r1, @NotNull Rectangle2D r2, @NotNull Rectangle2D gap,
+									   @NotNull Rectangle2D union) {
 		Validate.isTrue(ObjectUtils.allNotNull(r1, r2), "The rectangles may not be null.");
-		final var comb = r1.createUnion(r2);
+		final var combWidth = max(r1.getMaxX(), r2.getMaxX()) - min(r1.getMinX(), r2.getMinX());
+		final var combHeight = max(r1.getMaxY(), r2.getMaxY()) - min(r1.getMinY(), r2.getMinY());
 		final var percentage = 1 - DEVIATION_TOLERANCE;
-		final var widthTolerance = comb.getWidth() * percentage;
-		final var heightTolerance = comb.getHeight() * percentage;
+		final var widthTolerance = combWidth * percentage;
+		final var heightTolerance = combHeight * percentage;
 		final var sameColumn = r1.getWidth() > widthTolerance && r2.getWidth() > widthTolerance;
 		final var sameLine = r1.getHeight() > heightTolerance && r2.getHeight() > heightTolerance;
 		
-		final var gap = RectUtils.getRectBetween(r1, r2);
-		final var tolerance = new Point2D.Double(comb.getHeight() * MAX_GAP, comb.getWidth() * MAX_GAP);
-		
-		return ((sameLine && gap.getWidth() < tolerance.x) ||
-				(sameColumn && gap.getHeight() < tolerance.y)) ? comb : null;
+		RectUtils.getRectBetween(r1, r2, gap);
+		final var extended = (sameLine && gap.getWidth() < combHeight * MAX_GAP) ||
+							 (sameColumn && gap.getHeight() < combWidth * MAX_GAP);
+		if (extended)
+			Rectangle2D.union(r1, r2, union);
+		return extended;
+	}
+	
+	/**
+	 * Checks whether the baselines of two rectangles (in possibly different buffers) have the same orientation, such
+	 * that their local bounds may be compared (and merged) directly.
+	 *
+	 * @param b1 the buffer containing the first rectangle.
+	 * @param i1 the index of the first rectangle in <code>b1</code>.
+	 * @param b2 the buffer containing the second rectangle.
+	 * @param i2 the index of the second rectangle in <code>b2</code>.
+	 * @return true if the angles of both rectangles are (almost) the same, false otherwise.
+	 */
+	private static boolean isSameOrientation(@NotNull GlyphBuffer b1, int i1, @NotNull GlyphBuffer b2, int i2) {
+		return Math.abs(b1.getAngle(i1) - b2.getAngle(i2)) <= ANGLE_TOLERANCE;
 	}
 	
 	/**
-	 * Calculates the rectangle between two given rectangles and returns an {@link Optional} containing that rectangle
-	 * if it is considered a space-character or an empty optional if it is not.
+	 * Calculates the rectangle between two given glyphs and adds it to {@link #glyphs} if it is considered a
+	 * space-character. If both glyphs share the same orientation the gap is calculated in their local
+	 * coordinate-system (i.e. along their baseline), otherwise their axis-aligned bounds are used.
 	 * <br>
 	 * For a rectangle to be considered a space-character its respective height (for horizontal fonts) or width (for
 	 * vertical fonts) must be in the range of {@link #THIN_SPACE_WIDTH} to {@link #MAX_GAP}. Furthermore, the height of
 	 * a horizontal or width of a vertical space-character may be no larger than the height or width of their enclosing
 	 * rectangles.
 	 *
-	 * @param r1   The first of the two enclosing rectangles. May be <code>null</code>.
-	 * @param r2   The second of the two enclosing rectangles. May be <code>null</code>.
+	 * @param g1   The index of the first of the two enclosing glyphs. May be negative if there is none.
+	 * @param g2   The index of the second of the two enclosing glyphs. May be negative if there is none.
 	 * @param font The font of which the space would be a part of.
-	 * @return The {@link Optional} containing the rectangle between r1 and r2 if it is a space-character. If it is not
-	 * or either r1 or r2 were <code>null</code> then an empty {@link Optional} is returned instead.
+	 * @return The index of the rectangle between g1 and g2 in {@link #glyphs} if it is a space-character. If it is not
+	 * or either g1 or g2 were negative then -1 is returned instead.
 	 */
-	private static Optional<Rectangle2D> getBlankBetween(Rectangle2D r1, Rectangle2D r2, PDFont font) {
-		if (!ObjectUtils.allNotNull(r1, r2))
-			return Optional.empty();
-		var gap = RectUtils.getRectBetween(r1, r2);
+	private int getBlankBetween(int g1, int g2, PDFont font) {
+		if (g1 < 0 || g2 < 0)
+			return -1;
+		final var local = isSameOrientation(glyphs, g1, glyphs, g2);
+		final var angle = local ? glyphs.getAngle(g1) : 0;
+		final var r1 = local ? glyphs.getLocalRect(g1, lastGlyphBounds) : glyphs.getRect(g1, lastGlyphBounds);
+		final var r2 = local ? glyphs.getLocalRect(g2, glyphBounds) : glyphs.getRect(g2, glyphBounds);
+		final var gap = RectUtils.getRectBetween(r1, r2, gapBounds);
 		var tolerance = 1 + DEVIATION_TOLERANCE;
 		// size of the gap in Em (relative to the fonts height/width depending on the font's alignment)
 		double size = gap.getWidth() / ((r1.getHeight() + r2.getHeight()) / 2);
-		boolean ratioFits = gap.getHeight() < tolerance * Math.max(r1.getHeight(), r2.getHeight());
+		boolean ratioFits = gap.getHeight() < tolerance * max(r1.getHeight(), r2.getHeight());
 		if (font.isVertical()) {
 			size = gap.getHeight() / ((r1.getWidth() + r2.getWidth()) / 2);
-			ratioFits = gap.getWidth() < tolerance * Math.max(r1.getWidth(), r2.getWidth());
+			ratioFits = gap.getWidth() < tolerance * max(r1.getWidth(), r2.getWidth());
 		}
-		final var isSpace = ratioFits && Range.between(THIN_SPACE_WIDTH, (double) MAX_GAP).contains(size);
-		return Optional.of(gap).filter(b -> isSpace);
+		final var isSpace = ratioFits && size >= THIN_SPACE_WIDTH && size <= MAX_GAP;
+		return isSpace ? glyphs.add(gap, angle, GlyphBuffer.NO_COLOR) : -1;
 	}
 	
 	/**
@@ -182,8 +272,27 @@ public final class PDFCensor implements PDFHandler {
 	 */
 	@Override
 	public void beginDocument(PDDocument doc) {
-		boundingBoxes = new ArrayList<>();
+		// the tokenizer is closed at the end of each document, so it has to be reopened to reuse the censor
+		if (tokenizer != null)
+			tokenizer.tryFlush();
+		boundingBoxes = new GlyphBuffer();
 		pictureBoundingBoxes = new ArrayList<>();
+		processedPages.clear();
+		sidecar = settings.isGlyphSidecar() ? new GlyphSidecar(settings.getGlyphFingerprint()) : null;
+	}
+	
+	/**
+	 * A callback for when work on a new document starts. The tokenizer stops matching once the deadline was aborted.
+	 *
+	 * @param doc      the document which is being worked on
+	 * @param deadline the deadline of the document
+	 */
+	@Override
+	public void beginDocument(PDDocument doc, Deadline deadline) {
+		// the tokenizer is flushed with the deadline of the previous document, such that a stuck one is abandoned
+		beginDocument(doc);
+		if (tokenizer != null)
+			tokenizer.setDeadline(deadline);
 	}
 	
 	/**
@@ -197,12 +306,21 @@ public final class PDFCensor implements PDFHandler {
 	public void beginPage(PDDocument doc, PDPage page, int pageNum) {
 		Objects.requireNonNull(boundingBoxes).clear();
 		Objects.requireNonNull(pictureBoundingBoxes).clear();
+		glyphs.clear();
+		lastGlyph = -1;
+		processedPages.add(page.getCOSObject());
+		collectZones(pageNum);
 		annotations.cachePage(page);
 		try {
 			this.pictureBoundingBoxes = imageReplacer.replaceImages(doc, page);
 		} catch (IOException e) {
 			LOGGER.error(e);
 		}
+		if (sidecar != null) {
+			// unselected pages are dropped after processing, so only the recorded pages precede this one
+			final var outputIndex = settings.getDropUnselected() ? sidecar.getPages().size() : pageNum - 1;
+			sidecar.beginPage(pageNum, outputIndex, pictureBoundingBoxes);
+		}
 	}
 	
 	/**
@@ -215,13 +333,20 @@ public final class PDFCensor implements PDFHandler {
 	@Override
 	public void endPage(PDDocument doc, PDPage page, int pageNum) {
 		try {
-			tokenizer.flush();
+			if (tokenizer != null)
+				tokenizer.flush();
+			addZoneBars();
 			
 			drawCensorBars(doc, page);
 			drawCensorImages(doc, page);
 			page.setAnnotations(null);
+			// the stream of the images was appended after the one of the bars
+			if (sidecar != null)
+				sidecar.endPage(getContents(page).size() - 2);
 		} catch (IOException e) {
 			LOGGER.error("There was an error writing the page contents of page {}.", pageNum, e);
+			// the censor bars of the page could not be redrawn, so the document gets no sidecar at all
+			sidecar = null;
 		}
 	}
 	
@@ -233,50 +358,314 @@ public final class PDFCensor implements PDFHandler {
 	@Override
 	public void endDocument(PDDocument doc) {
 		try {
-			tokenizer.close();
+			if (tokenizer != null)
+				tokenizer.close();
 		} catch (IOException e) {
 			LOGGER.warn(e);
 		}
 		boundingBoxes = null;
 		pictureBoundingBoxes = null;
 		MetadataRemover.censorMetadata(doc);
-		ImageReplacer.removeImageData(doc);
+		removeImageData(doc);
 		doc.getDocumentCatalog().setDocumentOutline(null);
 		doc.getDocumentCatalog().setPageLabels(null);
 	}
 	
-	/** {@inheritDoc} */
+	/**
+	 * Removes the image data of the processed pages. A processed page sharing its resources with an unprocessed one
+	 * (e.g. by inheriting them from the page tree) gets its own copy of them first, such that the images of the
+	 * unprocessed page are kept.
+	 *
+	 * @param doc the document whose processed pages' image data should be removed.
+	 */
+	private void removeImageData(@NotNull PDDocument doc) {
+		final Set<COSDictionary> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+		final var processed = new ArrayList<PDPage>();
+		for (var page : doc.getPages()) {
+			if (processedPages.contains(page.getCOSObject()))
+				processed.add(page);
+			else if (page.getResources() != null)
+				kept.add(page.getResources().getCOSObject());
+		}
+		for (var page : processed) {
+			final var resources = page.getResources();
+			if (resources != null && kept.contains(resources.getCOSObject()))
+				page.setResources(new PDResources(new COSDictionary(resources.getCOSObject())));
+			ImageReplacer.removeImageData(page);
+		}
+		processedPages.clear();
+	}
+	
+	/**
+	 * Redraws the censor bars of a pdf-file censored before from the glyphs recorded in its sidecar, such that it is
+	 * censored with the expressions of this censor's settings. The glyphs of each recorded page are input into the
+	 * tokenizer just like when the page was censored, and the resulting censor bars replace the stream of the previous
+	 * ones if they differ. The text and images of the pdf-file were removed already and are not touched.
+	 * <br>
+	 * The sidecar has to belong to the pdf-file and its glyph fingerprint has to match the settings (see {@link
+	 * Settings#getGlyphFingerprint()}), which is up to the caller to verify.
+	 *
+	 * @param doc      the censored pdf-file the sidecar belongs to. May not be null.
+	 * @param sidecar  the sidecar recorded when the pdf-file was censored. May not be null.
+	 * @param deadline the deadline after which redrawing should be aborted. May not be null.
+	 * @return the number of pages whose censor bars changed.
+	 * @throws IOException if the censor bars of a page could not be found or written or the deadline was aborted.
+	 */
+	public int redrawCensorBars(@NotNull PDDocument doc, @NotNull GlyphSidecar sidecar, @NotNull Deadline deadline)
+			throws IOException {
+		Objects.requireNonNull(sidecar);
+		beginDocument(Objects.requireNonNull(doc), Objects.requireNonNull(deadline));
+		final var replayer = new Replayer();
+		var changed = 0;
+		try {
+			for (var recorded : sidecar.getPages()) {
+				deadline.check();
+				boundingBoxes.clear();
+				glyphs.clear();
+				collectZones(recorded.getPageNum());
+				pictureBoundingBoxes = new ArrayList<>(recorded.getPictures());
+				GlyphSidecar.replay(recorded, glyphs, replayer);
+				replayer.inputPending();
+				if (tokenizer != null)
+					tokenizer.flush();
+				addZoneBars();
+				if (replaceCensorBars(doc, doc.getPage(recorded.getOutputIndex()), recorded.getBarsIndex()))
+					changed++;
+			}
+		} finally {
+			if (tokenizer != null)
+				tokenizer.close();
+			boundingBoxes = null;
+			pictureBoundingBoxes = null;
+			this.sidecar = null;
+		}
+		return changed;
+	}
+	
+	/**
+	 * Replays the events of a glyph sidecar into the tokenizer. Glyphs and spaces are collected until the tokenizer
+	 * would have been flushed and are then input at once, since each input hands the text over to the tokenizer's
+	 * scanner-thread. The tokenizer sees the same text either way.
+	 */
+	private final class Replayer implements GlyphSidecar.Visitor {
+		/** The text of the glyphs and spaces that were not yet input. */
+		private final StringBuilder pending = new StringBuilder();
+		/** The payload of each character of {@link #pending}. */
+		private final List<Integer> payload = new ArrayList<>();
+		
+		@Override
+		public void visitGlyph(@NotNull String unicode, int glyph) {
+			pending.append(unicode);
+			for (var i = 0; i < unicode.length(); i++)
+				payload.add(glyph);
+		}
+		
+		@Override
+		public void visitSpace(int space) {
+			pending.append(' ');
+			payload.add(space);
+		}
+		
+		@Override
+		public void visitLink(int glyph) {
+			addOrExtendBoundingBoxes(glyph, linkColor);
+		}
+		
+		@Override
+		public void visitFlush() throws IOException {
+			inputPending();
+			if (tokenizer != null)
+				tokenizer.tryFlush();
+		}
+		
+		/**
+		 * Inputs the collected glyphs and spaces into the tokenizer.
+		 *
+		 * @throws IOException if the text could not be input or the deadline was aborted.
+		 */
+		void inputPending() throws IOException {
+			if (tokenizer != null && pending.length() > 0)
+				tokenizer.input(pending.toString(), payload);
+			pending.setLength(0);
+			payload.clear();
+		}
+	}
+	
+	/**
+	 * Draws the censor bars stored in {@link #boundingBoxes} into a new stream and replaces the stream of the page's
+	 * censor bars by it if their contents differ.
+	 *
+	 * @param doc       the document which is being worked on.
+	 * @param page      the page whose censor bars should be replaced.
+	 * @param barsIndex the index of the stream of the censor bars in the page's contents.
+	 * @return true if the censor bars were replaced, false if they did not change.
+	 * @throws IOException if the stream of the censor bars could not be found, read or written.
+	 */
+	private boolean replaceCensorBars(@NotNull PDDocument doc, @NotNull PDPage page, int barsIndex)
+			throws IOException {
+		final var contents = getContents(page);
+		if (barsIndex < 0 || barsIndex >= contents.size() || !(contents.getObject(barsIndex) instanceof COSStream))
+			throw new IOException("The censor bars of the page could not be found");
+		// the bars are appended to a page with the same media-box (and some contents to append to) to write them
+		// exactly like they were written into the censored page
+		final var scratch = new PDPage(page.getMediaBox());
+		final var placeholder = new PDStream(doc);
+		try (var out = placeholder.createOutputStream()) {
+			out.write(' ');
+		}
+		scratch.setContents(placeholder);
+		drawCensorBars(doc, scratch);
+		final var scratchContents = getContents(scratch);
+		final var bars = (COSStream) scratchContents.getObject(scratchContents.size() - 1);
+		if (Arrays.equals(readAll(bars), readAll((COSStream) contents.getObject(barsIndex))))
+			return false;
+		contents.set(barsIndex, bars);
+		return true;
+	}
+	
+	/**
+	 * Returns the array of streams the contents of the page consist of, as created by appending censor bars to it.
+	 *
+	 * @param page the page whose contents should be returned.
+	 * @return the array of content streams.
+	 * @throws IOException if the contents of the page are not an array.
+	 */
+	@NotNull
+	private static COSArray getContents(@NotNull PDPage page) throws IOException {
+		final var contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+		if (!(contents instanceof COSArray))
+			throw new IOException("The contents of the page are not an array of streams");
+		return (COSArray) contents;
+	}
+	
+	/**
+	 * Reads the decoded content of the stream.
+	 *
+	 * @param stream the stream that should be read.
+	 * @return the decoded content.
+	 * @throws IOException if the stream could not be read.
+	 */
+	@NotNull
+	private static byte[] readAll(@NotNull COSStream stream) throws IOException {
+		try (InputStream in = stream.createInputStream()) {
+			return in.readAllBytes();
+		}
+	}
+	
+	/**
+	 * Returns the glyphs recorded for the sidecar of the last document censored.
+	 *
+	 * @return the sidecar or null if {@link Settings#isGlyphSidecar()} is not set or the last document was redrawn
+	 * instead of being censored.
+	 */
+	@Nullable
+	public GlyphSidecar getSidecar() {
+		return sidecar;
+	}
+	
+	/** Adds the rectangles of all zones applying to the current page to {@link #boundingBoxes}. */
+	private void addZoneBars() {
+		for (int i = 0; i < zoneBars.size(); i++)
+			boundingBoxes.add(zoneBars.getRect(i, glyphBounds), zoneBars.getColor(i));
+	}
+	
+	/**
+	 * Collects the rectangles of all zones applying to the given page into {@link #zoneBars} and their union into
+	 * {@link #zoneBounds}.
+	 *
+	 * @param pageNum the number of the page that is being worked on.
+	 */
+	private void collectZones(int pageNum) {
+		zoneBars.clear();
+		zoneBounds.setRect(0, 0, 0, 0);
+		for (var zone : zones) {
+			if (!zone.appliesTo(pageNum))
+				continue;
+			for (var rect : zone.getRects()) {
+				if (zoneBars.isEmpty())
+					zoneBounds.setRect(rect);
+				else
+					zoneBounds.add(rect);
+				zoneBars.add(rect, zone.getColorIndex());
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether the given bounds intersect any of the zones applying to the current page.
+	 *
+	 * @param bounds the (axis-aligned) bounds to test.
+	 * @return true if the bounds intersect a zone of the current page, false otherwise.
+	 */
+	private boolean isInZone(@NotNull Rectangle2D bounds) {
+		if (zoneBars.isEmpty() || !zoneBounds.intersects(bounds))
+			return false;
+		for (int i = 0; i < zoneBars.size(); i++)
+			if (zoneBars.intersects(i, bounds))
+				return true;
+		return false;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <br>
+	 * Text intersecting a zone is always censored, as it is covered by the zone's censor bar. If only zones should be
+	 * censored ({@link Settings#isZoneOnly()}) all other text is kept.
+	 */
 	@Override
 	public boolean shouldCensorText(PDPage page, TextPosition pos) {
-		var bounds = getTextPositionInfo(page, pos);
-		if (bounds.isEmpty()) {
-			return true;
+		final var glyph = getTextPositionInfo(page, pos);
+		if (glyph < 0) {
+			return tokenizer != null;
 		}
-		bounds = bounds.filter(p -> removePredicate.test(p));
-		bounds.ifPresentOrElse(b -> {
-			if (settings.distinguishLinks() && annotations.isLinked(b)) {
+		if (isInZone(glyphs.getRect(glyph, glyphBounds))) {
+			if (tokenizer != null)
 				tokenizer.tryFlush();
-				addOrExtendBoundingBoxes(b, settings.getLinkColor());
-			} else {
-				var space = getBlankBetween(lastGlyph, b, pos.getFont());
-				lastGlyph = b;
-				try {
-					if (space.isPresent())
-						tokenizer.input(" ", List.of(space.get()));
-					tokenizer.input(pos.getUnicode(), Collections.nCopies(pos.getUnicode().length(), b));
-				} catch (IOException e) {
-					LOGGER.warn(e);
-				}
+			if (sidecar != null)
+				sidecar.addFlush();
+			lastGlyph = -1;
+			return true;
+		} else if (tokenizer == null) {
+			return false;
+		}
+		final var censor = removePredicate.test(glyphBounds);
+		if (!censor) {
+			tokenizer.tryFlush();
+			if (sidecar != null)
+				sidecar.addFlush();
+		} else if (settings.distinguishLinks() && annotations.isLinked(glyphBounds)) {
+			tokenizer.tryFlush();
+			addOrExtendBoundingBoxes(glyph, linkColor);
+			if (sidecar != null) {
+				sidecar.addFlush();
+				sidecar.addLink(glyphs, glyph);
 			}
-		}, tokenizer::tryFlush);
-		return bounds.isPresent();
+		} else {
+			var space = getBlankBetween(lastGlyph, glyph, pos.getFont());
+			lastGlyph = glyph;
+			if (sidecar != null) {
+				if (space >= 0)
+					sidecar.addSpace(glyphs, space);
+				sidecar.addGlyph(pos.getUnicode(), glyphs, glyph);
+			}
+			try {
+				if (space >= 0)
+					tokenizer.input(" ", List.of(space));
+				tokenizer.input(pos.getUnicode(), Collections.nCopies(pos.getUnicode().length(), glyph));
+			} catch (AbortedException e) {
+				LOGGER.debug("Stopped tokenizing: {}", e.getMessage());
+			} catch (IOException e) {
+				LOGGER.warn(e);
+			}
+		}
+		return censor;
 	}
 	
 	/**
 	 * <b><i>Do not call this method manually! It is meant to be a callback only.</i></b><br>
 	 * This method is a callback for the tokenizer. It is called when a token was matched (or no match could be found
 	 * for a character). In our case we want to handle this here by filling the bounding-box of the character with the
-	 * respective color (as defined in {@link Expression#getColor()}).
+	 * respective color (as defined in {@link Expression#getColorIndex()}).
 	 *
 	 * @param value   The entire value of the token. Not <code>null</code>. (e.g. {@code 123} for {@code [0-9]+})
 	 * @param payload A list containing the payload for each character in the order they occur in the value.
@@ -284,63 +673,60 @@ public final class PDFCensor implements PDFHandler {
 	 * @see #tokenizer
 	 * @see Tokenizer#setHandler(TriConsumer)
 	 */
-	private void onTokenEncountered(String value, @NotNull List<Rectangle2D> payload, @Nullable Expression token) {
+	private void onTokenEncountered(String value, @NotNull List<Integer> payload, @Nullable Expression token) {
 		Objects.requireNonNull(token);
 		//We are only interested in logging non-default token-matches
 		if (!".".equals(token.getRegex()))
 			LOGGER.debug("Found token [{}]: {}", token, value);
-		payload.forEach(rect -> addOrExtendBoundingBoxes(rect, token.getColor()));
+		final var color = token.getColorIndex();
+		for (var glyph : payload)
+			addOrExtendBoundingBoxes(glyph, color);
 	}
 	
 	/**
-	 * The given bounding-box and color will be added to the {@link #boundingBoxes} list or extend the last element of
-	 * the list to also cover the bounds of the given pair (if the bounds are an extension of the previous bounds and
-	 * the color is the same).
-	 * <br>
-	 * If {@link Settings#getIntersectImages()} is {@code false} then no bounding-boxes intersecting the bounding-boxes
-	 * of censored images will be added to the list or extend the last element of the list. Otherwise the overlapping of
-	 * text censor bars and censored images is not considered and they may overlap.
+	 * The bounds of the given glyph and color will be added to {@link #boundingBoxes} or extend the last censor bar to
+	 * also cover the bounds of the glyph (if the bounds are an extension of the previous bounds and the color is the
+	 * same).
 	 * <br>
 	 * Whether or not the previous bounds will be extended depends on the result of {@link #getExtended(Rectangle2D,
-	 * Rectangle2D)} when called with the two rectangles (and the previously mentioned factors).
+	 * Rectangle2D, Rectangle2D, Rectangle2D)} when called with the two rectangles (and the previously mentioned
+	 * factors). The rectangles are compared in the local coordinate-system of their baseline, so glyphs of a rotated
+	 * line are merged into one rotated censor bar. Glyphs whose orientation differs from the last bar's are never
+	 * merged into it.
 	 *
-	 * @param bb    The bounding-box that should be added to the list of censored bounding-boxes.
-	 * @param color The color in which the provided bounding-box should be censored.
-	 * @see #getExtended(Rectangle2D, Rectangle2D)
-	 * @see Settings#getIntersectImages()
+	 * @param glyph The index of the glyph in {@link #glyphs} whose bounds should be censored.
+	 * @param color The index (in {@link #palette}) of the color in which the glyph should be censored.
+	 * @see #getExtended(Rectangle2D, Rectangle2D, Rectangle2D, Rectangle2D)
 	 */
-	private void addOrExtendBoundingBoxes(@NotNull final Rectangle2D bb, final Color color) {
-		if (!boundingBoxes.isEmpty()) {
-			final var last = boundingBoxes.get(boundingBoxes.size() - 1);
-			final var union = getExtended(last.getLeft(), bb);
-			if (last.getRight().equals(color) && union != null) {
-				boundingBoxes.remove(last);
-				bb.setRect(union);
-			}
-		}
-		boundingBoxes.add(new ImmutablePair<>(bb, color));
+	private void addOrExtendBoundingBoxes(int glyph, short color) {
+		final var bb = glyphs.getLocalRect(glyph, mergeBounds);
+		final var angle = glyphs.getAngle(glyph);
+		final var last = boundingBoxes.size() - 1;
+		if (last >= 0 && boundingBoxes.getColor(last) == color &&
+			isSameOrientation(boundingBoxes, last, glyphs, glyph) &&
+			getExtended(boundingBoxes.getLocalRect(last, lastBarBounds), bb, mergeGap, bb))
+			boundingBoxes.set(last, bb, boundingBoxes.getAngle(last), color);
+		else
+			boundingBoxes.add(bb, angle, color);
 	}
 	
 	/**
-	 * Transforms the <code>pos</code> into either a pair of its bounds and the color to censor the glyph with or an
-	 * empty optional.
+	 * Calculates the bounds of <code>pos</code> and stores them in {@link #glyphs}.
 	 *
-	 * @param pos The TextPosition to transform into a bounds-color pair.
-	 * @return An optional containing either the bounds-color pair or nothing, if an error occurred.
+	 * @param page The page on which <code>pos</code> is located.
+	 * @param pos  The TextPosition of which the bounds should be calculated.
+	 * @return The index of the bounds in {@link #glyphs} or -1, if the glyph is blank or an error occurred.
 	 */
-	private Optional<Rectangle2D> getTextPositionInfo(PDPage page, @NotNull TextPosition pos) {
-		var result = Optional.<Rectangle2D>empty();
+	private int getTextPositionInfo(PDPage page, @NotNull TextPosition pos) {
+		var result = -1;
 		try {
 			var font = pos.getFont();
 			var s = new StringBuilder();
 			for (var i : pos.getCharacterCodes())
 				s.append(font.toUnicode(i));
 			
-			if (StringUtils.isNotBlank(s)) {
-				var transformed = PDFUtils.transformTextPosition(pos);
-				transformed = PDFUtils.mediaBoxCoordToCropBoxCoord(transformed, page);
-				result = Optional.of(transformed);
-			}
+			if (StringUtils.isNotBlank(s))
+				result = PDFUtils.transformTextPosition(pos, page.getCropBox(), glyphs);
 		} catch (IOException e) {
 			LOGGER.error("There was an error handling the font.", e);
 		}
@@ -350,25 +736,52 @@ public final class PDFCensor implements PDFHandler {
 	/**
 	 * Draws the censor bars stored in {@link #boundingBoxes} with their respective color in the given
 	 * <code>document</code> on the given <code>page</code>.
+	 * <br>
+	 * The bars are drawn grouped by their color (in the order of the {@link #palette}) such that the fill-color only
+	 * has to be set once per color. Within a color the bars keep the order they were found in.
+	 * <br>
+	 * If {@link Settings#getIntersectImages()} is {@code false} then the censor bars are clipped to the page's
+	 * media-box minus the bounds of the censored images. Since this requires an {@link Area} per bar, the clipping is
+	 * only done for bars that actually leave the media-box or intersect an image, all others are drawn as plain
+	 * rectangles (or, if they are rotated, as their outline).
 	 *
 	 * @param doc  the document which is being worked on
 	 * @param page the PDPage (current pdf page) that is being worked on
 	 * @throws IOException If there was an I/O error writing the contents of the page.
+	 * @see Settings#getIntersectImages()
 	 */
 	private void drawCensorBars(PDDocument doc, PDPage page) throws IOException {
-		//Calculate the stencil-area that is the area of the page minus the area of each picture.
-		//This stencil will be used later if settings.getIntersectImages() is present to not draw censor-boxes over images
-		Area stencil = new Area(PDFUtils.pdRectToRect2D(page.getMediaBox()));
-		pictureBoundingBoxes.stream().map(Area::new).forEach(stencil::subtract);
+		final var mediaBox = PDFUtils.pdRectToRect2D(page.getMediaBox());
+		//The stencil-area is the area of the page minus the area of each picture. It is calculated lazily.
+		Area stencil = null;
 		
 		try (var pageContentStream = new PDPageContentStream(doc, page, PDPageContentStream.AppendMode.APPEND, true,
 															 true)) {
-			for (var pair : boundingBoxes) {
-				pageContentStream.setNonStrokingColor(pair.getRight());
-				var r = new Area(pair.getLeft());
-				if (!settings.getIntersectImages())
+			drawOrder = boundingBoxes.sortByColor(palette.size(), drawOrder);
+			var currentColor = GlyphBuffer.NO_COLOR;
+			for (int n = 0; n < boundingBoxes.size(); n++) {
+				final var i = drawOrder[n];
+				if (boundingBoxes.getColor(i) != currentColor) {
+					currentColor = boundingBoxes.getColor(i);
+					pageContentStream.setNonStrokingColor(palette.getColor(currentColor));
+				}
+				final var rect = boundingBoxes.getRect(i, glyphBounds);
+				if (settings.getIntersectImages() ||
+					(mediaBox.contains(rect) && pictureBoundingBoxes.stream().noneMatch(rect::intersects))) {
+					if (boundingBoxes.getAngle(i) == 0)
+						pageContentStream.addRect((float) rect.getX(), (float) rect.getY(), (float) rect.getWidth(),
+												  (float) rect.getHeight());
+					else
+						PDFUtils.drawShape(pageContentStream, boundingBoxes.getShape(i));
+				} else {
+					if (stencil == null) {
+						stencil = new Area(mediaBox);
+						pictureBoundingBoxes.stream().map(Area::new).forEach(stencil::subtract);
+					}
+					var r = new Area(boundingBoxes.getShape(i));
 					r.intersect(stencil);
-				PDFUtils.drawArea(pageContentStream, r);
+					PDFUtils.drawArea(pageContentStream, r);
+				}
 				pageContentStream.fill();
 			}
 		}
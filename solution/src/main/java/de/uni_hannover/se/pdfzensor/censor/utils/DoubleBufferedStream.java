@@ -5,6 +5,7 @@ import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -27,6 +28,9 @@ public class DoubleBufferedStream implements AutoCloseable {
 	/** All data is written into this stream and fed into the {@link #stream} when {@link #close()} is called. */
 	@NotNull
 	private final ByteArrayOutputStream os;
+	/** The compressor the data is handed to upon closing or null if it should be compressed right away. */
+	@Nullable
+	private final StreamCompressor compressor;
 	
 	/**
 	 * Creates a new DoubleBufferedStream that acts on the passed PDStream and gets its data from the InputStream.
@@ -37,8 +41,25 @@ public class DoubleBufferedStream implements AutoCloseable {
 	 */
 	@Contract(pure = true)
 	public DoubleBufferedStream(@NotNull PDStream stream, @NotNull InputStream is) {
+		this(stream, is, null);
+	}
+	
+	/**
+	 * Creates a new DoubleBufferedStream that acts on the passed PDStream and gets its data from the InputStream. Upon
+	 * closing the data is handed to the compressor instead of being compressed right away.
+	 *
+	 * @param stream     The PDF-Stream to write data to when this stream is closed. May not be null.
+	 * @param is         The InputStream containing the current data of the PDF-Stream. It may not be null nor closed
+	 *                   manually, use {@link #close()} instead.
+	 * @param compressor The compressor writing the data into the PDF-Stream or null if it should be written right
+	 *                   away.
+	 */
+	@Contract(pure = true)
+	public DoubleBufferedStream(@NotNull PDStream stream, @NotNull InputStream is,
+								@Nullable StreamCompressor compressor) {
 		this.stream = Objects.requireNonNull(stream);
 		this.is = Objects.requireNonNull(is);
+		this.compressor = compressor;
 		os = new ByteArrayOutputStream();
 	}
 	
@@ -81,7 +102,8 @@ public class DoubleBufferedStream implements AutoCloseable {
 	}
 	
 	/**
-	 * Closes the underlying streams and writes the OutputStream's contents to {@link #getStream()}.
+	 * Closes the underlying streams and writes the OutputStream's contents to {@link #getStream()} &ndash; or submits
+	 * them to the compressor, if one was set.
 	 *
 	 * @throws IOException if the resource cannot be closed.
 	 */
@@ -89,6 +111,10 @@ public class DoubleBufferedStream implements AutoCloseable {
 	public void close() throws IOException {
 		is.close();
 		os.close();
+		if (compressor != null) {
+			compressor.submit(stream, os.toByteArray());
+			return;
+		}
 		try (var s = stream.createOutputStream(COSName.FLATE_DECODE)) {
 			s.write(os.toByteArray());
 		}
@@ -0,0 +1,348 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * GlyphBuffer stores the bounds (and a color-index) of many rectangles in primitive arrays instead of one {@link
+ * Rectangle2D} per rectangle. Each rectangle may be rotated (counterclockwise around the origin) by an angle, in which
+ * case its bounds are stored in the local coordinate-system of that angle. This allows e.g. rotated text to be
+ * described (and merged) along its baseline instead of by its axis-aligned bounds in page-coordinates. It is meant to
+ * be created once and reused for each page (see {@link #clear()}), so that the memory held by it does not grow with
+ * the number of glyphs processed in total but only with the number of glyphs on the densest page.
+ * <br>
+ * The rectangles are addressed by their index, which is returned by {@link #add(double, double, double, double, double,
+ * short)}.
+ * Indices stay valid until the buffer is cleared.
+ * <br>
+ * <b>Not thread-safe.</b> The backing arrays are published via volatile fields such that another thread (e.g. the
+ * scanner-thread of the {@link de.uni_hannover.se.pdfzensor.text.Tokenizer}) may read entries which were added before
+ * it was handed their index, even if the buffer grew in the meantime.
+ */
+public final class GlyphBuffer {
+	/** The color-index of entries that have not (yet) been assigned a color. */
+	public static final short NO_COLOR = -1;
+	/** The capacity a buffer is created with if nothing else was specified. */
+	private static final int DEFAULT_CAPACITY = 256;
+	
+	/** The local x-coordinates (lower left corner) of the stored rectangles. */
+	private volatile double[] x;
+	/** The local y-coordinates (lower left corner) of the stored rectangles. */
+	private volatile double[] y;
+	/** The widths of the stored rectangles. */
+	private volatile double[] width;
+	/** The heights of the stored rectangles. */
+	private volatile double[] height;
+	/** The angles (in radians) by which the stored rectangles are rotated around the origin. */
+	private volatile double[] angle;
+	/** The color-indices of the stored rectangles or {@link #NO_COLOR}. */
+	private volatile short[] color;
+	/** The number of rectangles currently stored. */
+	private int size = 0;
+	
+	/** Creates a new, empty GlyphBuffer with the default capacity. */
+	public GlyphBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new, empty GlyphBuffer that is able to hold <code>capacity</code> rectangles before growing.
+	 *
+	 * @param capacity the initial capacity. Has to be positive.
+	 * @throws IllegalArgumentException if the capacity is not positive.
+	 */
+	public GlyphBuffer(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity has to be positive");
+		x = new double[capacity];
+		y = new double[capacity];
+		width = new double[capacity];
+		height = new double[capacity];
+		angle = new double[capacity];
+		color = new short[capacity];
+	}
+	
+	/**
+	 * Appends a new (axis-aligned) rectangle to the buffer.
+	 *
+	 * @param x      the x-coordinate of the rectangle's lower left corner.
+	 * @param y      the y-coordinate of the rectangle's lower left corner.
+	 * @param width  the width of the rectangle.
+	 * @param height the height of the rectangle.
+	 * @param color  the color-index of the rectangle or {@link #NO_COLOR}.
+	 * @return the index of the added rectangle.
+	 */
+	public int add(double x, double y, double width, double height, short color) {
+		return add(x, y, width, height, 0, color);
+	}
+	
+	/**
+	 * Appends a new rotated rectangle to the buffer. The coordinates are those in the local coordinate-system, i.e.
+	 * before the rectangle is rotated by <code>angle</code>.
+	 *
+	 * @param x      the local x-coordinate of the rectangle's lower left corner.
+	 * @param y      the local y-coordinate of the rectangle's lower left corner.
+	 * @param width  the width of the rectangle.
+	 * @param height the height of the rectangle.
+	 * @param angle  the angle (in radians) by which the rectangle is rotated counterclockwise around the origin.
+	 * @param color  the color-index of the rectangle or {@link #NO_COLOR}.
+	 * @return the index of the added rectangle.
+	 */
+	public int add(double x, double y, double width, double height, double angle, short color) {
+		if (size == this.x.length)
+			grow();
+		set(size, x, y, width, height, angle, color);
+		return size++;
+	}
+	
+	/**
+	 * Appends the bounds of the provided rectangle to the buffer.
+	 *
+	 * @param rect  the rectangle to add. Not <code>null</code>.
+	 * @param color the color-index of the rectangle or {@link #NO_COLOR}.
+	 * @return the index of the added rectangle.
+	 */
+	public int add(@NotNull Rectangle2D rect, short color) {
+		return add(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), color);
+	}
+	
+	/**
+	 * Appends the bounds of the provided rectangle as a rotated rectangle to the buffer.
+	 *
+	 * @param rect  the rectangle to add in local coordinates. Not <code>null</code>.
+	 * @param angle the angle (in radians) by which the rectangle is rotated counterclockwise around the origin.
+	 * @param color the color-index of the rectangle or {@link #NO_COLOR}.
+	 * @return the index of the added rectangle.
+	 */
+	public int add(@NotNull Rectangle2D rect, double angle, short color) {
+		return add(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), angle, color);
+	}
+	
+	/**
+	 * Overwrites the rectangle at the given index.
+	 *
+	 * @param index  the index of the rectangle to overwrite.
+	 * @param x      the new local x-coordinate of the rectangle's lower left corner.
+	 * @param y      the new local y-coordinate of the rectangle's lower left corner.
+	 * @param width  the new width of the rectangle.
+	 * @param height the new height of the rectangle.
+	 * @param angle  the new angle (in radians) by which the rectangle is rotated counterclockwise around the origin.
+	 * @param color  the new color-index of the rectangle or {@link #NO_COLOR}.
+	 */
+	public void set(int index, double x, double y, double width, double height, double angle, short color) {
+		this.x[index] = x;
+		this.y[index] = y;
+		this.width[index] = width;
+		this.height[index] = height;
+		this.angle[index] = angle;
+		this.color[index] = color;
+	}
+	
+	/**
+	 * Overwrites the local bounds of the rectangle at the given index with the bounds of the provided rectangle.
+	 *
+	 * @param index the index of the rectangle to overwrite.
+	 * @param rect  the new bounds in local coordinates. Not <code>null</code>.
+	 * @param angle the new angle (in radians) by which the rectangle is rotated counterclockwise around the origin.
+	 * @param color the new color-index of the rectangle or {@link #NO_COLOR}.
+	 */
+	public void set(int index, @NotNull Rectangle2D rect, double angle, short color) {
+		set(index, rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(), angle, color);
+	}
+	
+	/**
+	 * Copies the axis-aligned bounds (in page-coordinates) of the rectangle at the given index into
+	 * <code>target</code>. For rotated rectangles these are the bounds of the rotated rectangle. This allows callers to
+	 * reuse a single {@link Rectangle2D} instead of creating one for each access.
+	 *
+	 * @param index  the index of the rectangle to retrieve.
+	 * @param target the rectangle the bounds should be written into. Not <code>null</code>.
+	 * @return <code>target</code>.
+	 */
+	@Contract("_, _ -> param2")
+	@NotNull
+	public Rectangle2D getRect(int index, @NotNull Rectangle2D target) {
+		Objects.requireNonNull(target);
+		final var a = angle[index];
+		if (a == 0) {
+			target.setRect(x[index], y[index], width[index], height[index]);
+			return target;
+		}
+		final double cos = Math.cos(a), sin = Math.sin(a);
+		// the rotated lower left corner and the rotated vectors along the width and the height
+		final double ox = cos * x[index] - sin * y[index], oy = sin * x[index] + cos * y[index];
+		final double wx = cos * width[index], wy = sin * width[index];
+		final double hx = -sin * height[index], hy = cos * height[index];
+		final double minX = ox + Math.min(0, wx) + Math.min(0, hx), maxX = ox + Math.max(0, wx) + Math.max(0, hx);
+		final double minY = oy + Math.min(0, wy) + Math.min(0, hy), maxY = oy + Math.max(0, wy) + Math.max(0, hy);
+		target.setRect(minX, minY, maxX - minX, maxY - minY);
+		return target;
+	}
+	
+	/**
+	 * Copies the local bounds (i.e. before the rotation) of the rectangle at the given index into
+	 * <code>target</code>.
+	 *
+	 * @param index  the index of the rectangle to retrieve.
+	 * @param target the rectangle the bounds should be written into. Not <code>null</code>.
+	 * @return <code>target</code>.
+	 */
+	@Contract("_, _ -> param2")
+	@NotNull
+	public Rectangle2D getLocalRect(int index, @NotNull Rectangle2D target) {
+		Objects.requireNonNull(target).setRect(x[index], y[index], width[index], height[index]);
+		return target;
+	}
+	
+	/**
+	 * Returns the outline of the rectangle at the given index in page-coordinates. That is a {@link Rectangle2D} for
+	 * axis-aligned rectangles and a closed path along the four rotated corners otherwise.
+	 *
+	 * @param index the index of the rectangle.
+	 * @return the outline of the rectangle. Not <code>null</code>.
+	 */
+	@NotNull
+	public Shape getShape(int index) {
+		final var a = angle[index];
+		if (a == 0)
+			return new Rectangle2D.Double(x[index], y[index], width[index], height[index]);
+		final double cos = Math.cos(a), sin = Math.sin(a);
+		final double ox = cos * x[index] - sin * y[index], oy = sin * x[index] + cos * y[index];
+		final double wx = cos * width[index], wy = sin * width[index];
+		final double hx = -sin * height[index], hy = cos * height[index];
+		final var path = new Path2D.Double(Path2D.WIND_NON_ZERO, 4);
+		path.moveTo(ox, oy);
+		path.lineTo(ox + wx, oy + wy);
+		path.lineTo(ox + wx + hx, oy + wy + hy);
+		path.lineTo(ox + hx, oy + hy);
+		path.closePath();
+		return path;
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the local x-coordinate of the rectangle's lower left corner.
+	 */
+	public double getX(int index) {
+		return x[index];
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the local y-coordinate of the rectangle's lower left corner.
+	 */
+	public double getY(int index) {
+		return y[index];
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the width of the rectangle.
+	 */
+	public double getWidth(int index) {
+		return width[index];
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the height of the rectangle.
+	 */
+	public double getHeight(int index) {
+		return height[index];
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the angle (in radians) by which the rectangle is rotated counterclockwise around the origin. 0 for
+	 * axis-aligned rectangles.
+	 */
+	public double getAngle(int index) {
+		return angle[index];
+	}
+	
+	/**
+	 * @param index the index of the rectangle.
+	 * @return the color-index of the rectangle or {@link #NO_COLOR} if none was assigned.
+	 */
+	public short getColor(int index) {
+		return color[index];
+	}
+	
+	/**
+	 * Checks if the (rotated) rectangle at the given index intersects the provided rectangle. Behaves like {@link
+	 * Rectangle2D#intersects(Rectangle2D)}, meaning empty rectangles never intersect.
+	 *
+	 * @param index the index of the rectangle.
+	 * @param other the rectangle to test against. Not <code>null</code>.
+	 * @return true if both rectangles intersect, false otherwise.
+	 */
+	public boolean intersects(int index, @NotNull Rectangle2D other) {
+		if (angle[index] == 0)
+			return other.intersects(x[index], y[index], width[index], height[index]);
+		return width[index] > 0 && height[index] > 0 && getShape(index).intersects(other);
+	}
+	
+	/**
+	 * Returns the indices of the stored rectangles ordered ascending by their color-index. Rectangles with the same
+	 * color keep their relative order (the sort is stable), rectangles without a color come first. As the number of
+	 * colors is small this is done via counting sort in linear time.
+	 *
+	 * @param colorCount the number of colors, i.e. all color-indices are smaller than this value.
+	 * @param order      an array that may be reused to store the result. May be <code>null</code> or too small, in
+	 *                   which case a new array is created.
+	 * @return an array whose first {@link #size()} elements are the ordered indices. Either <code>order</code> or a new
+	 * array.
+	 */
+	@NotNull
+	public int[] sortByColor(int colorCount, @Nullable int[] order) {
+		final var result = order != null && order.length >= size ? order : new int[size];
+		// offsets[c + 2] counts color c (NO_COLOR is -1), afterwards offsets[c + 1] is the start of color c
+		final var offsets = new int[colorCount + 2];
+		for (int i = 0; i < size; i++)
+			offsets[color[i] + 2]++;
+		for (int c = 1; c < offsets.length; c++)
+			offsets[c] += offsets[c - 1];
+		for (int i = 0; i < size; i++)
+			result[offsets[color[i] + 1]++] = i;
+		return result;
+	}
+	
+	/**
+	 * @return the number of rectangles currently stored.
+	 */
+	@Contract(pure = true)
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return true if no rectangle is stored, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/** Removes all rectangles from the buffer. The capacity is kept such that the buffer may be reused. */
+	public void clear() {
+		size = 0;
+	}
+	
+	/** Doubles the capacity of the backing arrays. */
+	private void grow() {
+		final var capacity = x.length * 2;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		angle = Arrays.copyOf(angle, capacity);
+		color = Arrays.copyOf(color, capacity);
+	}
+}
@@ -0,0 +1,532 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.geom.Rectangle2D;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The GlyphSidecar records the glyphs a censored pdf-file was matched against, such that it can be censored again with
+ * different expressions without parsing the pdf-file (and its fonts) again. For each censored page it stores the
+ * sequence in which the {@link de.uni_hannover.se.pdfzensor.censor.PDFCensor} fed glyphs (their unicode and bounds),
+ * detected spaces and links into its tokenizer as well as the bounds of the censored images and the index of the
+ * stream the censor bars were drawn into. Replaying that sequence with the new expressions yields the new censor bars,
+ * which only replace the stream of the bars in the censored pdf-file.
+ * <br>
+ * The sidecar is only valid for the censored pdf-file it was written with: It stores the hash of the input and of the
+ * censored pdf-file as well as the glyph fingerprint of the settings (see {@link
+ * de.uni_hannover.se.pdfzensor.config.Settings#getGlyphFingerprint()}), which all have to match.
+ * <br>
+ * The bounds are stored at full precision, so replaying them merges and draws exactly the same censor bars as the
+ * original run did. To keep the sidecar compact, the events of each page are deflated once the page was recorded.
+ */
+public final class GlyphSidecar {
+	/** The extension of a sidecar, appended to the name of the censored pdf-file it belongs to. */
+	public static final String EXTENSION = ".glyphs";
+	/** The first bytes of a sidecar (<code>PZGS</code>). */
+	private static final int MAGIC = 0x505A4753;
+	/** The version of the format, which is increased on incompatible changes. */
+	private static final int VERSION = 1;
+	
+	/** The event of a glyph that was input into the tokenizer, followed by its bounds and unicode. */
+	private static final byte GLYPH = 0;
+	/** The event of a detected space that was input into the tokenizer, followed by its bounds. */
+	private static final byte SPACE = 1;
+	/** The event of a linked glyph that was censored in the link color, followed by its bounds. */
+	private static final byte LINK = 2;
+	/** The event of the tokenizer being flushed, e.g. by a glyph that is kept or covered by a zone. */
+	private static final byte FLUSH = 3;
+	/** The flag of an event whose bounds are rotated, in which case the angle follows the bounds. */
+	private static final byte ROTATED = 0x10;
+	
+	/** The glyph fingerprint of the settings the pdf-file was censored with. */
+	@NotNull
+	private final String fingerprint;
+	/** The recorded pages in the order they were censored. */
+	@NotNull
+	private final List<Page> pages = new ArrayList<>();
+	/** The hash of the input. Empty until set. */
+	@NotNull
+	private String inputHash = "";
+	/** The hash of the censored pdf-file. Empty until set. */
+	@NotNull
+	private String outputHash = "";
+	/** The events of the page currently being recorded. Null if no page is being recorded. */
+	@Nullable
+	private DataOutputStream events = null;
+	/** The buffer {@link #events} writes into. Reused for each page. */
+	@NotNull
+	private final ByteArrayOutputStream eventBuffer = new ByteArrayOutputStream();
+	/** The page currently being recorded. Null if no page is being recorded. */
+	@Nullable
+	private Page current = null;
+	
+	/**
+	 * Creates a new, empty sidecar.
+	 *
+	 * @param fingerprint the glyph fingerprint of the settings the pdf-file is censored with. May not be null.
+	 */
+	public GlyphSidecar(@NotNull String fingerprint) {
+		this.fingerprint = Objects.requireNonNull(fingerprint);
+	}
+	
+	/**
+	 * Returns the file the sidecar of the censored pdf-file is stored in.
+	 *
+	 * @param output the censored pdf-file. May not be null.
+	 * @return the file next to the censored pdf-file with {@link #EXTENSION} appended to its name.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static File fileOf(@NotNull File output) {
+		return new File(output.getPath() + EXTENSION);
+	}
+	
+	/**
+	 * Starts recording a page. A page that was not ended is discarded.
+	 *
+	 * @param pageNum     the number of the page in the input (starting at 1).
+	 * @param outputIndex the index of the page in the censored pdf-file.
+	 * @param pictures    the bounds of the censored images on the page. May not be null.
+	 */
+	public void beginPage(int pageNum, int outputIndex, @NotNull List<Rectangle2D> pictures) {
+		final var copies = new ArrayList<Rectangle2D>(pictures.size());
+		for (var rect : pictures)
+			copies.add(new Rectangle2D.Double(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()));
+		current = new Page(pageNum, outputIndex, copies);
+		eventBuffer.reset();
+		events = new DataOutputStream(eventBuffer);
+	}
+	
+	/**
+	 * Records a glyph that was input into the tokenizer.
+	 *
+	 * @param unicode the unicode of the glyph. May not be null.
+	 * @param glyphs  the buffer containing the bounds of the glyph.
+	 * @param glyph   the index of the glyph in <code>glyphs</code>.
+	 */
+	public void addGlyph(@NotNull String unicode, @NotNull GlyphBuffer glyphs, int glyph) {
+		try {
+			writeBounds(GLYPH, glyphs, glyph).writeUTF(unicode);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Records a detected space that was input into the tokenizer.
+	 *
+	 * @param glyphs the buffer containing the bounds of the space.
+	 * @param space  the index of the space in <code>glyphs</code>.
+	 */
+	public void addSpace(@NotNull GlyphBuffer glyphs, int space) {
+		writeBounds(SPACE, glyphs, space);
+	}
+	
+	/**
+	 * Records a linked glyph that was censored in the link color.
+	 *
+	 * @param glyphs the buffer containing the bounds of the glyph.
+	 * @param glyph  the index of the glyph in <code>glyphs</code>.
+	 */
+	public void addLink(@NotNull GlyphBuffer glyphs, int glyph) {
+		writeBounds(LINK, glyphs, glyph);
+	}
+	
+	/** Records the tokenizer being flushed. */
+	public void addFlush() {
+		try {
+			Objects.requireNonNull(events, "No page is being recorded").writeByte(FLUSH);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Writes the type of an event followed by the bounds of the rectangle.
+	 *
+	 * @param type   the type of the event.
+	 * @param glyphs the buffer containing the rectangle.
+	 * @param index  the index of the rectangle in <code>glyphs</code>.
+	 * @return the stream the event was written into.
+	 */
+	@NotNull
+	private DataOutputStream writeBounds(byte type, @NotNull GlyphBuffer glyphs, int index) {
+		final var out = Objects.requireNonNull(events, "No page is being recorded");
+		final var angle = glyphs.getAngle(index);
+		try {
+			out.writeByte(angle == 0 ? type : type | ROTATED);
+			out.writeDouble(glyphs.getX(index));
+			out.writeDouble(glyphs.getY(index));
+			out.writeDouble(glyphs.getWidth(index));
+			out.writeDouble(glyphs.getHeight(index));
+			if (angle != 0)
+				out.writeDouble(angle);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out;
+	}
+	
+	/**
+	 * Finishes recording the current page and deflates its events.
+	 *
+	 * @param barsIndex the index of the stream of the censor bars in the page's contents.
+	 */
+	public void endPage(int barsIndex) {
+		final var page = Objects.requireNonNull(current, "No page is being recorded");
+		page.barsIndex = barsIndex;
+		page.events = deflate(eventBuffer.toByteArray());
+		pages.add(page);
+		current = null;
+		events = null;
+	}
+	
+	/**
+	 * Replays the recorded events of the page: The bounds of each glyph, space and link are added to the buffer and
+	 * passed to the visitor in the order they were recorded.
+	 *
+	 * @param page    the page whose events should be replayed. May not be null.
+	 * @param glyphs  the buffer the bounds should be added to. May not be null.
+	 * @param visitor the visitor the events should be passed to. May not be null.
+	 * @throws IOException if the events are corrupt or the visitor failed.
+	 */
+	public static void replay(@NotNull Page page, @NotNull GlyphBuffer glyphs, @NotNull Visitor visitor)
+			throws IOException {
+		Objects.requireNonNull(glyphs);
+		Objects.requireNonNull(visitor);
+		final var in = new DataInputStream(new ByteArrayInputStream(inflate(page.events)));
+		int type;
+		while ((type = in.read()) >= 0) {
+			if (type == FLUSH) {
+				visitor.visitFlush();
+				continue;
+			}
+			final double x = in.readDouble(), y = in.readDouble(), width = in.readDouble(), height = in.readDouble();
+			final var angle = (type & ROTATED) != 0 ? in.readDouble() : 0;
+			final var glyph = glyphs.add(x, y, width, height, angle, GlyphBuffer.NO_COLOR);
+			switch (type & ~ROTATED) {
+				case GLYPH:
+					visitor.visitGlyph(in.readUTF(), glyph);
+					break;
+				case SPACE:
+					visitor.visitSpace(glyph);
+					break;
+				case LINK:
+					visitor.visitLink(glyph);
+					break;
+				default:
+					throw new IOException("Unknown event " + type);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the sidecar into the file. The sidecar is written into a temporary file first, which is moved into place
+	 * once it was written, such that an interrupted write never leaves a corrupt sidecar behind.
+	 *
+	 * @param file the file the sidecar should be written into. May not be null.
+	 * @throws IOException if the sidecar could not be written.
+	 */
+	public void write(@NotNull File file) throws IOException {
+		final var path = file.getAbsoluteFile().toPath();
+		final var temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(fingerprint);
+				out.writeUTF(inputHash);
+				out.writeUTF(outputHash);
+				out.writeInt(pages.size());
+				for (var page : pages)
+					page.write(out);
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Reads a sidecar written by {@link #write(File)}.
+	 *
+	 * @param file the file the sidecar should be read from. May not be null.
+	 * @return the sidecar.
+	 * @throws IOException if the file could not be read or is not a sidecar of this version.
+	 */
+	@NotNull
+	public static GlyphSidecar read(@NotNull File file) throws IOException {
+		try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a glyph sidecar");
+			final var version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported glyph sidecar version " + version);
+			final var sidecar = new GlyphSidecar(in.readUTF());
+			sidecar.inputHash = in.readUTF();
+			sidecar.outputHash = in.readUTF();
+			final var count = in.readInt();
+			for (var i = 0; i < count; i++)
+				sidecar.pages.add(Page.read(in));
+			return sidecar;
+		}
+	}
+	
+	/**
+	 * Deflates the events of a page.
+	 *
+	 * @param data the events.
+	 * @return the deflated events.
+	 */
+	@NotNull
+	private static byte[] deflate(@NotNull byte[] data) {
+		final var deflater = new Deflater();
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			final var out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+			final var buffer = new byte[8192];
+			while (!deflater.finished())
+				out.write(buffer, 0, deflater.deflate(buffer));
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Inflates the events of a page.
+	 *
+	 * @param data the deflated events.
+	 * @return the events.
+	 * @throws IOException if the events are corrupt.
+	 */
+	@NotNull
+	private static byte[] inflate(@NotNull byte[] data) throws IOException {
+		final var inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			final var out = new ByteArrayOutputStream(data.length * 4);
+			final var buffer = new byte[8192];
+			while (!inflater.finished()) {
+				final var n = inflater.inflate(buffer);
+				out.write(buffer, 0, n);
+				if (!inflater.finished() && n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new EOFException("The events of a page are truncated");
+			}
+			return out.toByteArray();
+		} catch (DataFormatException e) {
+			throw new IOException("The events of a page are corrupt", e);
+		} finally {
+			inflater.end();
+		}
+	}
+	
+	/**
+	 * @return the glyph fingerprint of the settings the pdf-file was censored with.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * @return the hash of the input or an empty string if it was not set.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getInputHash() {
+		return inputHash;
+	}
+	
+	/**
+	 * @param inputHash the hash of the input. May not be null.
+	 */
+	public void setInputHash(@NotNull String inputHash) {
+		this.inputHash = Objects.requireNonNull(inputHash);
+	}
+	
+	/**
+	 * @return the hash of the censored pdf-file or an empty string if it was not set.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getOutputHash() {
+		return outputHash;
+	}
+	
+	/**
+	 * @param outputHash the hash of the censored pdf-file. May not be null.
+	 */
+	public void setOutputHash(@NotNull String outputHash) {
+		this.outputHash = Objects.requireNonNull(outputHash);
+	}
+	
+	/**
+	 * @return the recorded pages in the order they were censored.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public List<Page> getPages() {
+		return Collections.unmodifiableList(pages);
+	}
+	
+	/** A recorded page. */
+	public static final class Page {
+		/** The number of the page in the input (starting at 1). */
+		private final int pageNum;
+		/** The index of the page in the censored pdf-file. */
+		private final int outputIndex;
+		/** The bounds of the censored images on the page. */
+		@NotNull
+		private final List<Rectangle2D> pictures;
+		/** The index of the stream of the censor bars in the page's contents. */
+		private int barsIndex = -1;
+		/** The deflated events of the page. */
+		@NotNull
+		private byte[] events = new byte[0];
+		
+		/**
+		 * Creates a new page.
+		 *
+		 * @param pageNum     the number of the page in the input.
+		 * @param outputIndex the index of the page in the censored pdf-file.
+		 * @param pictures    the bounds of the censored images on the page.
+		 */
+		private Page(int pageNum, int outputIndex, @NotNull List<Rectangle2D> pictures) {
+			this.pageNum = pageNum;
+			this.outputIndex = outputIndex;
+			this.pictures = pictures;
+		}
+		
+		/**
+		 * Writes the page into the stream.
+		 *
+		 * @param out the stream the page should be written into.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void write(@NotNull DataOutputStream out) throws IOException {
+			out.writeInt(pageNum);
+			out.writeInt(outputIndex);
+			out.writeInt(barsIndex);
+			out.writeInt(pictures.size());
+			for (var rect : pictures) {
+				out.writeDouble(rect.getX());
+				out.writeDouble(rect.getY());
+				out.writeDouble(rect.getWidth());
+				out.writeDouble(rect.getHeight());
+			}
+			out.writeInt(events.length);
+			out.write(events);
+		}
+		
+		/**
+		 * Reads a page written by {@link #write(DataOutputStream)}.
+		 *
+		 * @param in the stream the page should be read from.
+		 * @return the page.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		@NotNull
+		private static Page read(@NotNull DataInputStream in) throws IOException {
+			final var pageNum = in.readInt();
+			final var outputIndex = in.readInt();
+			final var barsIndex = in.readInt();
+			final var count = in.readInt();
+			final var pictures = new ArrayList<Rectangle2D>(count);
+			for (var i = 0; i < count; i++)
+				pictures.add(new Rectangle2D.Double(in.readDouble(), in.readDouble(), in.readDouble(),
+													in.readDouble()));
+			final var page = new Page(pageNum, outputIndex, pictures);
+			page.barsIndex = barsIndex;
+			page.events = new byte[in.readInt()];
+			in.readFully(page.events);
+			return page;
+		}
+		
+		/**
+		 * @return the number of the page in the input (starting at 1).
+		 */
+		@Contract(pure = true)
+		public int getPageNum() {
+			return pageNum;
+		}
+		
+		/**
+		 * @return the index of the page in the censored pdf-file.
+		 */
+		@Contract(pure = true)
+		public int getOutputIndex() {
+			return outputIndex;
+		}
+		
+		/**
+		 * @return the index of the stream of the censor bars in the page's contents.
+		 */
+		@Contract(pure = true)
+		public int getBarsIndex() {
+			return barsIndex;
+		}
+		
+		/**
+		 * @return the bounds of the censored images on the page.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public List<Rectangle2D> getPictures() {
+			return Collections.unmodifiableList(pictures);
+		}
+	}
+	
+	/** Receives the events of a page replayed by {@link #replay(Page, GlyphBuffer, Visitor)}. */
+	public interface Visitor {
+		/**
+		 * Called for a glyph that was input into the tokenizer.
+		 *
+		 * @param unicode the unicode of the glyph.
+		 * @param glyph   the index of the glyph's bounds in the buffer.
+		 * @throws IOException if the glyph could not be input.
+		 */
+		void visitGlyph(@NotNull String unicode, int glyph) throws IOException;
+		
+		/**
+		 * Called for a detected space that was input into the tokenizer.
+		 *
+		 * @param space the index of the space's bounds in the buffer.
+		 * @throws IOException if the space could not be input.
+		 */
+		void visitSpace(int space) throws IOException;
+		
+		/**
+		 * Called for a linked glyph that was censored in the link color.
+		 *
+		 * @param glyph the index of the glyph's bounds in the buffer.
+		 */
+		void visitLink(int glyph);
+		
+		/**
+		 * Called when the tokenizer was flushed.
+		 *
+		 * @throws IOException if the tokenizer could not be flushed.
+		 */
+		void visitFlush() throws IOException;
+	}
+}
@@ -1,7 +1,6 @@
 package de.uni_hannover.se.pdfzensor.censor.utils;
 
 import org.apache.fontbox.util.BoundingBox;
-import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
@@ -11,16 +10,23 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.util.Objects;
 
 import static java.awt.geom.PathIterator.*;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 /** PDFUtils is a specialized utility-class to provide short helper-functions centered around PDF-files. */
 public final class PDFUtils {
+	/**
+	 * The maximum deviation (in radians) of a baseline's angle from the horizontal for the text to still be handled as
+	 * axis-aligned text.
+	 */
+	private static final double HORIZONTAL_TOLERANCE = 1e-6;
+	
 	/** No instance of PDFUtils should be created. Thus it will always throw an exception. */
 	@Contract(value = " -> fail", pure = true)
 	private PDFUtils() {
@@ -44,7 +50,9 @@ public final class PDFUtils {
 	}
 	
 	/**
-	 * Generates a new {@link Rectangle2D} with the position and dimensions of the given {@link TextPosition}.
+	 * Generates a new {@link Rectangle2D} with the position and dimensions of the given {@link TextPosition}. These are
+	 * the axis-aligned bounds in media-box coordinates, as calculated by {@link #appendBounds(TextPosition, double,
+	 * double, boolean, GlyphBuffer)}.
 	 *
 	 * @param pos The {@link TextPosition} which's bounds should be transformed into a {@link Rectangle2D}
 	 * @return A {@link Rectangle2D} representing the bounds of the given {@link TextPosition}
@@ -52,25 +60,103 @@ public final class PDFUtils {
 	 */
 	public static Rectangle2D transformTextPosition(@NotNull TextPosition pos) throws IOException {
 		Objects.requireNonNull(pos);
+		final var buffer = new GlyphBuffer(1);
+		return buffer.getRect(appendBounds(pos, 0, 0, false, buffer), new Rectangle2D.Double());
+	}
+	
+	/**
+	 * Calculates the bounds of the given {@link TextPosition} like {@link #transformTextPosition(TextPosition)} and
+	 * shifts them by the lower left corner of the crop-box, but appends the result to the provided {@link GlyphBuffer}
+	 * instead of creating intermediate rectangles, transforms and shapes for every glyph.
+	 * <br>
+	 * If the baseline of the text is not horizontal, the bounds are calculated in the local
+	 * coordinate-system of the baseline (rotated by the baseline's angle) and stored as a rotated rectangle. That way
+	 * the glyphs of a rotated line share one orientation and stay as tall as the line instead of being blown up to
+	 * their axis-aligned bounds.
+	 *
+	 * @param pos     The {@link TextPosition} which's bounds should be calculated. Not <code>null</code>.
+	 * @param cropBox The crop-box of the page the {@link TextPosition} is located on. Not <code>null</code>.
+	 * @param buffer  The buffer the bounds should be appended to. Not <code>null</code>.
+	 * @return The index of the appended bounds in <code>buffer</code>. Its color is {@link GlyphBuffer#NO_COLOR}.
+	 * @throws IOException if the font could not be loaded correctly.
+	 */
+	public static int transformTextPosition(@NotNull TextPosition pos, @NotNull PDRectangle cropBox,
+											@NotNull GlyphBuffer buffer) throws IOException {
+		Objects.requireNonNull(pos);
+		Objects.requireNonNull(cropBox);
+		Objects.requireNonNull(buffer);
+		return appendBounds(pos, cropBox.getLowerLeftX(), cropBox.getLowerLeftY(), true, buffer);
+	}
+	
+	/**
+	 * Calculates the bounds of the glyphs of the given {@link TextPosition} shifted by the offset and appends them to
+	 * the buffer. This is the only place the text matrix (and the font matrix of type 3 fonts) is applied to the glyph
+	 * bounds, such that all ways to obtain the bounds of a {@link TextPosition} agree.
+	 *
+	 * @param pos     The {@link TextPosition} which's bounds should be calculated.
+	 * @param offsetX The offset added to the x-coordinates.
+	 * @param offsetY The offset added to the y-coordinates.
+	 * @param rotate  True if the bounds of text whose baseline is not horizontal should be stored in the local
+	 *                coordinate-system of the baseline, false if the axis-aligned bounds should always be stored.
+	 * @param buffer  The buffer the bounds should be appended to.
+	 * @return The index of the appended bounds in <code>buffer</code>. Its color is {@link GlyphBuffer#NO_COLOR}.
+	 * @throws IOException if the font could not be loaded correctly.
+	 */
+	private static int appendBounds(@NotNull TextPosition pos, double offsetX, double offsetY, boolean rotate,
+									@NotNull GlyphBuffer buffer) throws IOException {
 		PDFont font = pos.getFont();
 		BoundingBox bb = font.getBoundingBox();
-		int totalWidth = 0;        // total width of all characters in this line
+		double totalWidth = 0;
 		for (int i : pos.getCharacterCodes())
 			totalWidth += font.getWidth(i);
-		AffineTransform at = pos.getTextMatrix().createAffineTransform();
-		if (font instanceof PDType3Font)    // specific type of font
-			at.concatenate(font.getFontMatrix().createAffineTransform());
-		else
-			at.scale(.001, .001);
-		Rectangle2D r = new Rectangle2D.Double(0, 0, totalWidth, bb.getHeight() + bb.getLowerLeftY());
-		Shape s = at.createTransformedShape(r);
-		return s.getBounds2D();
-	}
-	
-	public static Rectangle2D mediaBoxCoordToCropBoxCoord(@NotNull Rectangle2D rect, PDPage page) {
-		var cropBox = page.getCropBox();
-		return new Rectangle2D.Double(rect.getX() + cropBox.getLowerLeftX(), rect.getY() + cropBox.getLowerLeftY(),
-									  rect.getWidth(), rect.getHeight());
+		double height = bb.getHeight() + bb.getLowerLeftY();
+		
+		// The components of the text matrix as used by Matrix#createAffineTransform
+		var tm = pos.getTextMatrix();
+		double m00 = tm.getScaleX(), m10 = tm.getShearY(), m01 = tm.getShearX(), m11 = tm.getScaleY();
+		double m02 = tm.getTranslateX(), m12 = tm.getTranslateY();
+		if (font instanceof PDType3Font) {    // concatenate the font matrix (see AffineTransform#concatenate)
+			var fm = font.getFontMatrix();
+			double f00 = fm.getScaleX(), f10 = fm.getShearY(), f01 = fm.getShearX(), f11 = fm.getScaleY();
+			double f02 = fm.getTranslateX(), f12 = fm.getTranslateY();
+			double t00 = m00 * f00 + m01 * f10, t01 = m00 * f01 + m01 * f11;
+			double t10 = m10 * f00 + m11 * f10, t11 = m10 * f01 + m11 * f11;
+			m02 += m00 * f02 + m01 * f12;
+			m12 += m10 * f02 + m11 * f12;
+			m00 = t00;
+			m01 = t01;
+			m10 = t10;
+			m11 = t11;
+		} else {
+			m00 *= .001;
+			m10 *= .001;
+			m01 *= .001;
+			m11 *= .001;
+		}
+		double ox = m02 + offsetX, oy = m12 + offsetY;
+		double dxw = totalWidth * m00, dyw = totalWidth * m10, dxh = height * m01, dyh = height * m11;
+		// The angle of the baseline. Rotating the corners by its negative makes the baseline horizontal
+		double angle = rotate ? Math.atan2(m10, m00) : 0;
+		if (Math.abs(Math.IEEEremainder(angle, Math.PI)) <= HORIZONTAL_TOLERANCE || !Double.isFinite(angle))
+			angle = 0;
+		if (angle != 0) {
+			double cos = Math.cos(angle), sin = Math.sin(angle);
+			double lx = cos * ox + sin * oy, ly = cos * oy - sin * ox;
+			ox = lx;
+			oy = ly;
+			lx = cos * dxw + sin * dyw;
+			ly = cos * dyw - sin * dxw;
+			dxw = lx;
+			dyw = ly;
+			lx = cos * dxh + sin * dyh;
+			ly = cos * dyh - sin * dxh;
+			dxh = lx;
+			dyh = ly;
+		}
+		// The bounds of the transformed corners (0, 0), (w, 0), (0, h) and (w, h)
+		double minX = ox + min(0, dxw) + min(0, dxh), maxX = ox + max(0, dxw) + max(0, dxh);
+		double minY = oy + min(0, dyw) + min(0, dyh), maxY = oy + max(0, dyw) + max(0, dyh);
+		return buffer.add(minX, minY, maxX - minX, maxY - minY, angle, GlyphBuffer.NO_COLOR);
 	}
 	
 	/**
@@ -82,7 +168,19 @@ public final class PDFUtils {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public static void drawArea(@NotNull PDPageContentStream contentStream, @NotNull Area area) throws IOException {
-		final var pit = area.getPathIterator(null);
+		drawShape(contentStream, area);
+	}
+	
+	/**
+	 * Appends the outline of the provided shape to the path currently open in the content-stream. To render the shape
+	 * a succeeding call to {@link PDPageContentStream#fill()} or the like is necessary.
+	 *
+	 * @param contentStream the content-stream to write the data into.
+	 * @param shape         the shape that should be drawn to the provided content-stream.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void drawShape(@NotNull PDPageContentStream contentStream, @NotNull Shape shape) throws IOException {
+		final var pit = shape.getPathIterator(null);
 		final float[] coord = new float[6];
 		while (!pit.isDone()) {
 			int type = pit.currentSegment(coord);
@@ -0,0 +1,194 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+/**
+ * The StreamCompressor Flate-compresses the rewritten streams of a document in the background, such that compressing a
+ * page or form overlaps with parsing the next one. The compression runs on a pool of daemon threads shared by all
+ * instances, each of which reuses a {@link Deflater} of its own.
+ * <br>
+ * Only the compression itself runs in the background: The compressed data is written into its stream by the thread
+ * processing the document, once the stream is read again ({@link #await(COSStream)}), a new page starts ({@link
+ * #applyCompleted()}) or the document was processed ({@link #awaitAll()}). Thus PDFBox is only ever accessed by a
+ * single thread and the output does not depend on the order in which the compressions finish. A StreamCompressor
+ * belongs to a single processing thread and is not thread safe itself.
+ * <br>
+ * At level 0 the streams are stored uncompressed and without a filter instead.
+ */
+public final class StreamCompressor {
+	/** The pool compressing the streams of all instances. */
+	private static final ExecutorService POOL = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				final var thread = new Thread(runnable, "Stream-Compressor");
+				thread.setDaemon(true);
+				return thread;
+			});
+	/** The deflater of each thread of the pool. */
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+	/** The number of bytes compressed at once. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	/** The compression level of the streams. */
+	private final int level;
+	/** The streams whose compressed data was not yet written, in the order they were submitted. */
+	@NotNull
+	private final Map<COSStream, Future<byte[]>> pending = new LinkedHashMap<>();
+	
+	/**
+	 * Creates a new StreamCompressor compressing at the provided level.
+	 *
+	 * @param level the compression level between 0 (no compression) and 9 (best compression) or {@link
+	 *              Deflater#DEFAULT_COMPRESSION}.
+	 */
+	public StreamCompressor(int level) {
+		Validate.isTrue(level == Deflater.DEFAULT_COMPRESSION || level >= 0 && level <= 9,
+						"The compression level has to be between 0 and 9.");
+		this.level = level;
+	}
+	
+	/**
+	 * Replaces the content of the stream by the data once it was compressed. At level 0 the data is written right
+	 * away.
+	 *
+	 * @param stream the stream whose content should be replaced. May not be null.
+	 * @param data   the new (decoded) content of the stream. May not be modified afterwards.
+	 * @throws IOException if the stream is stored uncompressed and could not be written.
+	 */
+	public void submit(@NotNull PDStream stream, @NotNull byte[] data) throws IOException {
+		final var cos = Objects.requireNonNull(stream).getCOSObject();
+		Objects.requireNonNull(data);
+		// a stream rewritten again (like a form shown twice) may only be replaced by its latest content
+		final var previous = pending.remove(cos);
+		if (previous != null)
+			previous.cancel(false);
+		if (level == 0)
+			write(cos, data, false);
+		else pending.put(cos, POOL.submit(() -> compress(data, level)));
+	}
+	
+	/**
+	 * Writes the compressed data into the stream if it is pending, waiting for its compression to finish. Should be
+	 * called before the stream is read.
+	 *
+	 * @param stream the stream that should be read.
+	 * @throws IOException if the stream could not be compressed or written.
+	 */
+	public void await(@NotNull COSStream stream) throws IOException {
+		final var future = pending.remove(stream);
+		if (future != null)
+			write(stream, get(future), true);
+	}
+	
+	/**
+	 * Writes the compressed data into all streams whose compression finished already, such that it does not pile up.
+	 *
+	 * @throws IOException if a stream could not be compressed or written.
+	 */
+	public void applyCompleted() throws IOException {
+		for (var it = pending.entrySet().iterator(); it.hasNext(); ) {
+			final var entry = it.next();
+			if (entry.getValue().isDone()) {
+				it.remove();
+				write(entry.getKey(), get(entry.getValue()), true);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the compressed data into all pending streams, waiting for their compression to finish.
+	 *
+	 * @throws IOException if a stream could not be compressed or written.
+	 */
+	public void awaitAll() throws IOException {
+		while (!pending.isEmpty())
+			await(pending.keySet().iterator().next());
+	}
+	
+	/** Discards all pending streams, such as those of a document whose processing was aborted. */
+	public void clear() {
+		pending.values().forEach(future -> future.cancel(false));
+		pending.clear();
+	}
+	
+	/**
+	 * @return the number of streams whose compressed data was not yet written.
+	 */
+	@Contract(pure = true)
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	/**
+	 * Waits for the compression to finish.
+	 *
+	 * @param future the compression.
+	 * @return the compressed data.
+	 * @throws IOException if the compression failed or the thread was interrupted while waiting.
+	 */
+	@NotNull
+	private static byte[] get(@NotNull Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a stream to be compressed");
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to compress a stream", e.getCause());
+		}
+	}
+	
+	/**
+	 * Compresses the data using the deflater of the current thread.
+	 *
+	 * @param data  the data that should be compressed.
+	 * @param level the compression level.
+	 * @return the compressed data in the zlib format expected by the FlateDecode filter.
+	 */
+	@NotNull
+	static byte[] compress(@NotNull byte[] data, int level) {
+		final var deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setLevel(level);
+		deflater.setInput(data);
+		deflater.finish();
+		final var out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+		final var buffer = new byte[BUFFER_SIZE];
+		while (!deflater.finished())
+			out.write(buffer, 0, deflater.deflate(buffer));
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Replaces the raw content of the stream.
+	 *
+	 * @param stream     the stream whose content should be replaced.
+	 * @param data       the new raw content.
+	 * @param compressed true if the content is Flate-compressed, false if it is not encoded.
+	 * @throws IOException if the stream could not be written.
+	 */
+	private static void write(@NotNull COSStream stream, @NotNull byte[] data, boolean compressed)
+			throws IOException {
+		try (var out = stream.createRawOutputStream()) {
+			out.write(data);
+		}
+		stream.removeItem(COSName.DECODE_PARMS);
+		if (compressed)
+			stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+		else stream.removeItem(COSName.FILTER);
+	}
+}
@@ -32,20 +32,184 @@ import static de.uni_hannover.se.pdfzensor.utils.Utils.fitToArray;
 		optionListHeading = "%n@|bold,underline OPTIONS|@%n%n"
 )
 final class CLArgs {
-	/** The input-file as it was specified. It's value <b>should not</b> be null. */
+	/**
+	 * The input-files (or directories) as they were specified. Should contain at least one element unless a {@link
+	 * #fileList} was specified.
+	 */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@NotNull
+	@Parameters(paramLabel = "\"in.pdf\"", arity = "0..*",
+			description = {"Set the input pdf-file that should be censored. Required. Use - to read it from stdin.", "Multiple files or directories (containing pdf-files) may be specified to censor them all in batch mode."})
+	private List<File> inputs = new ArrayList<>();
+	
+	/** A file listing the input-files (one per line) that should be censored in batch mode. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"-f", "--file-list"}, paramLabel = "\"list\"", arity = "1",
+			description = {"A file containing the paths of the pdf-files that should be censored in batch mode (one per line)."})
+	@Nullable
+	private File fileList = null;
+	
+	/** The number of worker threads to use in batch mode. Null if not specified. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"-t", "--threads"}, paramLabel = "\"count\"", arity = "1",
+			description = {"The number of files (or chunks, see --chunk-pages) that are censored in parallel in batch mode. Defaults to the number of processors."})
+	@Nullable
+	private Integer threads = null;
+	
+	/** The number of threads loading the pdf-files in batch mode. Null if not specified. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--load-threads"}, paramLabel = "\"count\"", arity = "1",
+			description = {"The number of threads loading the pdf-files in batch mode. Defaults to half the number of threads."})
+	@Nullable
+	private Integer loadThreads = null;
+	
+	/** The number of threads saving the censored pdf-files in batch mode. Null if not specified. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--save-threads"}, paramLabel = "\"count\"", arity = "1",
+			description = {"The number of threads saving the censored pdf-files in batch mode. Defaults to half the number of threads."})
+	@Nullable
+	private Integer saveThreads = null;
+	
+	/** The number of pages per chunk when censoring the chunks of a single pdf-file in parallel. Null if not chunked. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--chunk-pages"}, paramLabel = "\"pages\"", arity = "1",
+			description = {"Split a single large pdf-file into chunks of this many pages that are censored in parallel using --threads threads. Disabled by default."})
+	@Nullable
+	private Integer chunkPages = null;
+	
+	/** The number of pages per part file when the output should be split into part files. Null if not split. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--split-pages"}, paramLabel = "\"pages\"", arity = "1",
+			description = {"Write the censored pdf-file as part files of this many pages each (\"<output>_part<n>.pdf\") instead of a single file. Each part is saved and released before the next one is censored, so the memory used is bounded by the size of a part rather than that of the pdf-file. Disabled by default."})
+	@Nullable
+	private Integer splitPages = null;
+	
+	/** The port the censor server should listen on. Null if no server should be started. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--serve"}, paramLabel = "\"port\"", arity = "1",
+			description = {"Start a server censoring the pdf-files posted to http://localhost:port/censor instead of censoring input-files. Use 0 for any free port."})
+	@Nullable
+	private Integer serverPort = null;
+	
+	/** The directory that should be watched for pdf-files to censor. Null if no directory should be watched. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--watch"}, paramLabel = "\"spool\"", arity = "1",
+			description = {"Watch the directory for pdf-files and censor them as they arrive instead of censoring input-files. Originals are moved to spool/done or spool/failed."})
+	@Nullable
+	private File watchDir = null;
+	
+	/** The append-only manifest the outcomes of a batch are recorded in. Null if none should be written. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--manifest"}, paramLabel = "\"manifest\"", arity = "1",
+			description = {"Record the input, content hash, size, modification time, output, status and duration of each pdf-file of a batch in the manifest (appending to it)."})
+	@Nullable
+	private File manifest = null;
+	
+	/** True if the pdf-files recorded as censored in the {@link #manifest} should be skipped. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--resume"}, arity = "0",
+			description = {"Skip the pdf-files of a batch that were censored successfully according to the manifest, such that an interrupted batch may be resumed."})
+	private boolean resume = false;
+	
+	/** The number of requests the censor server may queue in addition to those being censored. Null if not specified. */
 	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--queue-size"}, paramLabel = "\"count\"", arity = "1",
+			description = {"The number of requests the server queues while all threads are busy. Further requests are rejected. Defaults to 4 times the number of threads."})
 	@Nullable
-	@Parameters(paramLabel = "\"in.pdf\"", arity = "1",
-			description = {"Set the input pdf-file that should be censored. Required."})
-	private File input = null;
+	private Integer queueSize = null;
 	
 	/** The output path. This may be a folder, a file or null. Null should be assigned if nothing else was specified. */
 	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
 	@Option(names = {"-o", "--out"}, paramLabel = "\"out\"", arity = "1",
-			description = {"The output file or path the censored file should be written to."})
+			description = {"The output file or path the censored file should be written to. Use - to write it to stdout."})
 	@Nullable
 	private File output = null;
 	
+	/** The amount of main memory (in MiB) used to buffer a pdf-file. Null if not limited. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--max-memory"}, paramLabel = "\"MiB\"", arity = "1",
+			description = {"The amount of main memory used to buffer a pdf-file. The remainder is buffered in a scratch file, 0 buffers it in a scratch file only. Unlimited by default."})
+	@Nullable
+	private Integer maxMemory = null;
+	
+	/** The directory the scratch files are created in. Null for the default temporary directory. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--scratch-dir"}, paramLabel = "\"dir\"", arity = "1",
+			description = {"The directory the scratch files buffering the pdf-files are created in. The temporary directory by default."})
+	@Nullable
+	private File scratchDir = null;
+	
+	/** True if the pdf-files should be mapped into memory instead of being read through a buffer. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--mmap"}, arity = "0",
+			description = {"Map the pdf-files into memory instead of reading them through a buffer, which speeds up parsing large pdf-files. Their streams are still buffered in memory or scratch files. The files must not be modified while they are censored."})
+	private boolean memoryMapped = false;
+	
+	/** True if the resources of each page should be released once it was censored. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--low-memory"}, arity = "0",
+			description = {"Release the fonts, images and other resources of each page once it was censored unless a later page uses them, such that the heap does not grow with the number of pages."})
+	private boolean lowMemory = false;
+	
+	/** True if the output should be written compactly using object streams and a cross-reference stream. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--compact"}, arity = "0",
+			description = {"Pack the objects of the output into compressed object streams and write a cross-reference stream instead of a cross-reference table (requires PDF 1.5)."})
+	private boolean compact = false;
+	
+	/** True if the output should be linearized such that viewers can show its first page before it was loaded. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--linearize"}, arity = "0",
+			description = {"Write linearized (\"fast web view\") pdf-files, whose first page and hint tables are at their beginning, such that viewers can show the first page before the whole file was downloaded. Can not be combined with --compact."})
+	private boolean linearize = false;
+	
+	/** True if identical streams and resources should be collapsed into shared objects before saving. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--deduplicate"}, arity = "0",
+			description = {"Collapse identical streams (contents, images, fonts, color profiles) and resources of the output into single shared objects."})
+	private boolean deduplicate = false;
+	
+	/** The heap (in MiB) the pdf-files censored concurrently may use together. Null if not limited. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--memory-budget"}, paramLabel = "\"MiB\"", arity = "1",
+			description = {"The heap the pdf-files censored concurrently may use together (estimated from their size and page count). Further pdf-files wait and pdf-files exceeding it on their own are buffered in temporary files. Unlimited by default."})
+	@Nullable
+	private Integer memoryBudget = null;
+	
+	/** The level (0-9) the censored streams should be compressed at. Null if the default level should be used. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--compression-level"}, paramLabel = "\"level\"", arity = "1",
+			description = {"The level from 0 (stored uncompressed) to 9 (smallest) the censored page and form contents are compressed at. They are compressed in the background while the next pages are censored. Defaults to the standard level of zlib (6)."})
+	@Nullable
+	private Integer compressionLevel = null;
+	
+	/** The directory the censored pdf-files are cached in by the hash of their input. Null if none are cached. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--cache-dir"}, paramLabel = "\"dir\"", arity = "1",
+			description = {"Cache the censored pdf-files in the directory by the hash of their content and the settings, such that identical pdf-files are copied from the cache instead of being censored again. The directory may be shared by concurrent runs. Batch mode, watch mode and server mode only."})
+	@Nullable
+	private File cacheDir = null;
+	
+	/** The size (in MiB) the cached pdf-files may take up together. Null for the default size. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--cache-size"}, paramLabel = "\"MiB\"", arity = "1",
+			description = {"The size the cached pdf-files may take up together. The least recently used ones are removed once it is exceeded. 1024 MiB by default."})
+	@Nullable
+	private Integer cacheSize = null;
+	
+	/** True if the glyphs of each censored pdf-file should be recorded in a sidecar next to it. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--glyph-sidecar"}, arity = "0",
+			description = {"Record the text and position of the glyphs of each censored pdf-file in a compressed sidecar next to it (\"<output>.glyphs\"). When a pdf-file is censored again into the same output with different expressions but otherwise the same settings, the censor bars are recomputed from the sidecar and only the pages whose bars changed are rewritten, without parsing the input again. Batch mode and watch mode only."})
+	private boolean glyphSidecar = false;
+	
+	/** The time (in seconds) censoring a single pdf-file may take. Null if not limited. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"--timeout"}, paramLabel = "\"seconds\"", arity = "1",
+			description = {"The time censoring a single pdf-file may take. Censoring a pdf-file taking longer is aborted and it is not written. Unlimited by default."})
+	@Nullable
+	private Integer timeout = null;
+	
 	/** An optional password for decrypting encrypted PDFs. Null should be assigned if nothing else was specified. */
 	@Option(names = {"-p", "--password"}, arity = "1", paramLabel = "\"password\"",
 			description = {"The password used for decrypting an encrypted PDF."})
@@ -84,13 +248,14 @@ final class CLArgs {
 	}
 	
 	/**
-	 * A list containing all the expressions parsed from the command-line arguments. Needs to be static to be accessed
-	 * from within th consumer.
+	 * A list containing all the expressions parsed from the command-line arguments. Filled by the {@link
+	 * ExpressionOption} consumer of the CLArgs instance being parsed, such that arguments may be parsed concurrently.
 	 */
 	@Option(names = {"-e", "--expression"}, paramLabel = "\"regex\" [\"hex_color\"]", arity = "1",
 			description = {"Set additional regular expressions with optional colors to use when censoring."}, parameterConsumer = ExpressionOption.class)
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
 	@NotNull
-	private static List<Expression> expressions = new ArrayList<>();
+	private List<Expression> expressions = new ArrayList<>();
 	
 	/**
 	 * A helper class to allow the hexadecimal color codes to be optional. Uses a custom consumer ({@link
@@ -105,8 +270,11 @@ final class CLArgs {
 		 * The argument on the stack after the call may be a color code that follows the regex or another argument, in
 		 * which case the regex is added to the expressions list without a color and the rest of the stack remains for
 		 * PicoCLI to parse.
+		 * <br>
+		 * The expressions are added to the CLArgs instance that is being parsed (the user object of the command).
 		 */
 		public void consumeParameters(Stack<String> args, ArgSpec argSpec, CommandSpec commandSpec) {
+			final var expressions = ((CLArgs) commandSpec.userObject()).expressions;
 			var reg = args.pop();
 			if (!args.isEmpty() && Utils.isHexColorCode(args.peek()))
 				expressions.add(new Expression(reg, args.pop()));
@@ -127,6 +295,21 @@ final class CLArgs {
 	@Option(names = {"-l", "--links"}, arity = "0", description = {"This will enable links to be colored in a certain color (different from the default censor color) and not be considered 'normal text'."})
 	private boolean distinguishLinks = false;
 	
+	/** The pages that should be censored. Null if nothing was specified. */
+	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
+	@Option(names = {"-s", "--pages"}, paramLabel = "\"pages\"", arity = "1",
+			description = {"Censor only the given pages, e.g. \"1-3, 7, 10-\". Other pages are kept as they are."})
+	@Nullable
+	private String pages = null;
+	
+	/** Whether the pages that are not selected by {@link #pages} should be removed. */
+	@Option(names = {"-d", "--drop-unselected"}, arity = "0", description = {"Remove the pages that were not selected with --pages from the output instead of keeping them."})
+	private boolean dropUnselected = false;
+	
+	/** Whether only the zones of the configuration file should be censored and all other text kept. */
+	@Option(names = {"--zones-only"}, arity = "0", description = {"Only censor the zones specified in the configuration file and keep all other text. Without this option the zones are censored in addition to the expressions (or all text if no expressions were specified). Can not be combined with expressions."})
+	private boolean zonesOnly = false;
+	
 	/** A configuration file which should be used when censoring. */
 	@SuppressWarnings("CanBeFinal") // it cannot be final as it will be set by picoCLI
 	@Option(names = {"-c", "--config"}, paramLabel = "\"config file\"", arity = "1",
@@ -155,32 +338,198 @@ final class CLArgs {
 	static CLArgs fromStringArray(@NotNull final String... args) {
 		Validate.notEmpty(args);
 		final var clArgs = new CLArgs();
-		expressions.clear();
 		final var cmd = new CommandLine(clArgs);
-		cmd.parseArgs(Validate.noNullElements(args));
+		requireInput(cmd.parseArgs(Validate.noNullElements(args)));
 		clArgs.validate();
 		return clArgs;
 	}
 	
+	/**
+	 * Checks that the parsed command-line arguments specify at least one input, either as an input-file or as a file
+	 * list, unless a server should be started or a directory should be watched. As the input is not required by picoCLI
+	 * itself (it may be omitted in favor of a file list, the server or the watched directory), this has to be checked
+	 * separately.
+	 *
+	 * @param parsed the result of parsing the command-line arguments into a CLArgs instance.
+	 * @throws CommandLine.MissingParameterException if neither an input, a file list, a server port nor a watched
+	 *                                               directory was specified.
+	 */
+	static void requireInput(@NotNull final CommandLine.ParseResult parsed) {
+		if (!parsed.hasMatchedPositional(0) && !parsed.hasMatchedOption("-f") && !parsed.hasMatchedOption("--serve") &&
+			!parsed.hasMatchedOption("--watch")) {
+			final var spec = parsed.commandSpec();
+			throw new CommandLine.MissingParameterException(spec.commandLine(), spec.positionalParameters().get(0),
+															"Missing required parameter: '\"in.pdf\"'");
+		}
+	}
+	
 	/**
 	 * Validates the current CLArgs instance. If it is not valid it should not be returned to the outside.
 	 *
-	 * @throws NullPointerException if input is null.
+	 * @throws IllegalArgumentException if a number of threads is not positive, the server port is invalid or the
+	 *                                  queue size or maximum memory is negative, the cache size is not positive or the
+	 *                                  compression level is invalid.
 	 * @see #fromStringArray(String...)
 	 */
 	private void validate() {
-		Objects.requireNonNull(input);
+		Validate.isTrue(threads == null || threads > 0, "The number of threads has to be positive.");
+		Validate.isTrue(loadThreads == null || loadThreads > 0, "The number of load threads has to be positive.");
+		Validate.isTrue(saveThreads == null || saveThreads > 0, "The number of save threads has to be positive.");
+		Validate.isTrue(chunkPages == null || chunkPages > 0, "The number of pages per chunk has to be positive.");
+		Validate.isTrue(splitPages == null || splitPages > 0, "The number of pages per part has to be positive.");
+		Validate.isTrue(serverPort == null || (serverPort >= 0 && serverPort <= 0xFFFF),
+						"The server port has to be in [0, 65535].");
+		Validate.isTrue(queueSize == null || queueSize >= 0, "The queue size may not be negative.");
+		Validate.isTrue(maxMemory == null || maxMemory >= 0, "The maximum memory may not be negative.");
+		Validate.isTrue(memoryBudget == null || memoryBudget > 0, "The memory budget has to be positive.");
+		Validate.isTrue(timeout == null || timeout > 0, "The timeout has to be positive.");
+		Validate.isTrue(cacheSize == null || cacheSize > 0, "The cache size has to be positive.");
+		Validate.isTrue(compressionLevel == null || (compressionLevel >= 0 && compressionLevel <= 9),
+						"The compression level has to be in [0, 9].");
 	}
 	
 	/**
-	 * Returns input file given by the user.
+	 * Returns the first input file given by the user.
 	 *
-	 * @return The input file as it was specified by the user.
+	 * @return The first input file as it was specified by the user.
+	 * @throws NullPointerException if only a file list was specified.
 	 */
 	@Contract(pure = true)
 	@NotNull
 	File getInput() {
-		return Objects.requireNonNull(input);
+		return Objects.requireNonNull(inputs.isEmpty() ? null : inputs.get(0));
+	}
+	
+	/**
+	 * Returns all input files (or directories) given by the user.
+	 *
+	 * @return The input files as they were specified by the user. May be empty if a file list was specified.
+	 */
+	@Contract(pure = true)
+	@NotNull
+	File[] getInputs() {
+		return inputs.toArray(new File[0]);
+	}
+	
+	/**
+	 * Returns the file listing further input files as specified by the user.
+	 *
+	 * @return The file list or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	File getFileList() {
+		return fileList;
+	}
+	
+	/**
+	 * Returns the number of worker threads to use in batch mode as specified by the user.
+	 *
+	 * @return The number of threads or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Returns the number of threads loading the pdf-files in batch mode as specified by the user.
+	 *
+	 * @return The number of load threads or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getLoadThreads() {
+		return loadThreads;
+	}
+	
+	/**
+	 * Returns the number of threads saving the censored pdf-files in batch mode as specified by the user.
+	 *
+	 * @return The number of save threads or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getSaveThreads() {
+		return saveThreads;
+	}
+	
+	/**
+	 * Returns the number of pages per chunk when censoring a single pdf-file in parallel as specified by the user.
+	 *
+	 * @return The number of pages per chunk or null if the pdf-file should not be split into chunks.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getChunkPages() {
+		return chunkPages;
+	}
+	
+	/**
+	 * Returns the number of pages per part file when the output should be split into part files as specified by the
+	 * user.
+	 *
+	 * @return The number of pages per part or null if the output should be written as a single file.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getSplitPages() {
+		return splitPages;
+	}
+	
+	/**
+	 * Returns the port the censor server should listen on as specified by the user.
+	 *
+	 * @return The port or null if no server should be started.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getServerPort() {
+		return serverPort;
+	}
+	
+	/**
+	 * Returns the directory that should be watched for pdf-files as specified by the user.
+	 *
+	 * @return The watched directory or null if no directory should be watched.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	File getWatchDir() {
+		return watchDir;
+	}
+	
+	/**
+	 * Returns the manifest the outcomes of a batch should be recorded in as specified by the user.
+	 *
+	 * @return The manifest or null if none should be written.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	File getManifest() {
+		return manifest;
+	}
+	
+	/**
+	 * Returns whether the pdf-files recorded as censored in the manifest should be skipped.
+	 *
+	 * @return True if an interrupted batch should be resumed.
+	 */
+	@Contract(pure = true)
+	boolean getResume() {
+		return resume;
+	}
+	
+	/**
+	 * Returns the number of requests the censor server may queue as specified by the user.
+	 *
+	 * @return The queue size or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getQueueSize() {
+		return queueSize;
 	}
 	
 	/**
@@ -194,6 +543,143 @@ final class CLArgs {
 		return output;
 	}
 	
+	/**
+	 * Returns the amount of main memory (in MiB) used to buffer a pdf-file as specified by the user.
+	 *
+	 * @return The maximum memory or null if it is not limited.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getMaxMemory() {
+		return maxMemory;
+	}
+	
+	/**
+	 * Returns whether the resources of each page should be released once it was censored as specified by the user.
+	 *
+	 * @return True if the low-memory mode should be used.
+	 */
+	@Contract(pure = true)
+	boolean getLowMemory() {
+		return lowMemory;
+	}
+	
+	/**
+	 * Returns whether the output should be written compactly as specified by the user.
+	 *
+	 * @return True if object streams and a cross-reference stream should be written.
+	 */
+	@Contract(pure = true)
+	boolean getCompact() {
+		return compact;
+	}
+	
+	/**
+	 * Returns whether the output should be linearized as specified by the user.
+	 *
+	 * @return True if linearized pdf-files should be written.
+	 */
+	@Contract(pure = true)
+	boolean getLinearize() {
+		return linearize;
+	}
+	
+	/**
+	 * Returns whether identical streams and resources should be collapsed before saving as specified by the user.
+	 *
+	 * @return True if the output should be deduplicated.
+	 */
+	@Contract(pure = true)
+	boolean getDeduplicate() {
+		return deduplicate;
+	}
+	
+	/**
+	 * Returns whether the pdf-files should be mapped into memory as specified by the user.
+	 *
+	 * @return True if the pdf-files should be mapped into memory.
+	 */
+	@Contract(pure = true)
+	boolean getMemoryMapped() {
+		return memoryMapped;
+	}
+	
+	/**
+	 * Returns the directory the scratch files should be created in as specified by the user.
+	 *
+	 * @return The scratch directory or null if the default temporary directory should be used.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	File getScratchDir() {
+		return scratchDir;
+	}
+	
+	/**
+	 * Returns the heap (in MiB) the pdf-files censored concurrently may use together as specified by the user.
+	 *
+	 * @return The memory budget or null if it is not limited.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getMemoryBudget() {
+		return memoryBudget;
+	}
+	
+	/**
+	 * Returns the directory the censored pdf-files should be cached in as specified by the user.
+	 *
+	 * @return The cache directory or null if the censored pdf-files should not be cached.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	File getCacheDir() {
+		return cacheDir;
+	}
+	
+	/**
+	 * Returns the size (in MiB) the cached pdf-files may take up together as specified by the user.
+	 *
+	 * @return The cache size or null if the default size should be used.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getCacheSize() {
+		return cacheSize;
+	}
+	
+	/**
+	 * Returns whether the glyphs of each censored pdf-file should be recorded in a sidecar as specified by the user.
+	 *
+	 * @return True if a glyph sidecar should be written next to each output.
+	 */
+	@Contract(pure = true)
+	boolean getGlyphSidecar() {
+		return glyphSidecar;
+	}
+	
+	/**
+	 * Returns the time (in seconds) censoring a single pdf-file may take as specified by the user.
+	 *
+	 * @return The timeout or null if it is not limited.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getTimeout() {
+		return timeout;
+	}
+	
+	/**
+	 * Returns the level the censored streams should be compressed at as specified by the user.
+	 *
+	 * @return The compression level between 0 and 9 or null if the default level should be used.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Integer getCompressionLevel() {
+		return compressionLevel;
+	}
+	
 	/**
 	 * Returns password String given by the user
 	 *
@@ -276,6 +762,38 @@ final class CLArgs {
 		return expressions.toArray(new Expression[0]);
 	}
 	
+	/**
+	 * Returns the pages that should be censored as specified by the parsed arguments.
+	 *
+	 * @return The page selection as specified by the user or null if none was specified.
+	 * @throws IllegalArgumentException if the specified page selection is malformed.
+	 * @see PageSelection#parse(String)
+	 */
+	@Nullable
+	PageSelection getPages() {
+		return pages == null ? null : PageSelection.parse(pages);
+	}
+	
+	/**
+	 * Returns whether the pages that are not selected should be removed as parsed from the command-line arguments.
+	 *
+	 * @return True if unselected pages should be removed, false otherwise.
+	 */
+	@Contract(pure = true)
+	boolean getDropUnselected() {
+		return this.dropUnselected;
+	}
+	
+	/**
+	 * Returns whether only the zones should be censored as parsed from the command-line arguments.
+	 *
+	 * @return True if only the zones should be censored, false otherwise.
+	 */
+	@Contract(pure = true)
+	boolean getZonesOnly() {
+		return this.zonesOnly;
+	}
+	
 	/**
 	 * Returns whether or not quiet mode should be enabled for logging events. Overwrites the verbosity setting.
 	 *
@@ -26,6 +26,8 @@ public final class CLHelp {
 	 *
 	 * @param args the command-line arguments which will be parsed
 	 * @return true if help or version is requested
+	 * @throws CommandLine.ParameterException if the arguments could not be parsed or if neither help nor version was
+	 *                                        requested and no input was specified.
 	 */
 	@SuppressWarnings("squid:S106")// we explicitly want to print to stdout here instead of logging
 	public static boolean printStandardHelpOptionsIfRequested(@NotNull String... args) {
@@ -35,7 +37,10 @@ public final class CLHelp {
 			cmd.usage(System.out);
 		else if (parsedHelp.isVersionHelpRequested())
 			cmd.printVersionHelp(System.out);
-		else return false;
+		else {
+			CLArgs.requireInput(parsedHelp);
+			return false;
+		}
 		return true;
 	}
 }
@@ -48,13 +48,23 @@ final class Config {
 	 */
 	@Nullable
 	private final Color[] defaultColors;
+	/** The pages that should be censored. Null if not specified. */
+	@Nullable
+	private final PageSelection pages;
+	/** Whether the pages that are not selected by {@link #pages} should be removed. */
+	private final boolean dropUnselected;
+	/** An array of {@link Zone}s that should be censored regardless of their content. */
+	@Nullable
+	private final Zone[] zones;
+	/** Whether only the {@link #zones} should be censored and all other text kept. */
+	private final boolean zonesOnly;
 	
 	/**
 	 * The default constructor creates an empty ConfigurationParser. That is: all values are set to null (or their
 	 * respective default value in case of primitive types).
 	 */
 	private Config() {
-		this(null, null, null, null, null, null, null);
+		this(null, null, null, null, null, null, null, null, null, null, null);
 	}
 	
 	/**
@@ -69,6 +79,11 @@ final class Config {
 	 *                         Null if not specified.
 	 * @param expressions      the expressions specified in the configuration file.
 	 * @param defaultColors    a string array containing hexadecimal color codes. Null if not specified.
+	 * @param pages            the pages that should be censored (see {@link PageSelection#parse(String)}). Null if
+	 *                         not specified.
+	 * @param dropUnselected   the boolean denoting if unselected pages should be removed. Null if not specified.
+	 * @param zones            the zones specified in the configuration file. Null if not specified.
+	 * @param zonesOnly        the boolean denoting if only the zones should be censored. Null if not specified.
 	 * @see #objectToLevel(Object)
 	 * @see Mode#stringToMode(String)
 	 */
@@ -79,7 +94,11 @@ final class Config {
 				   @Nullable @JsonProperty("intersectImages") final Boolean intersectImages,
 				   @Nullable @JsonProperty("links") final Boolean distinguishLinks,
 				   @Nullable @JsonProperty("expressions") final Expression[] expressions,
-				   @Nullable @JsonProperty("defaultColors") final String[] defaultColors) {
+				   @Nullable @JsonProperty("defaultColors") final String[] defaultColors,
+				   @Nullable @JsonProperty("pages") final String pages,
+				   @Nullable @JsonProperty("dropUnselected") final Boolean dropUnselected,
+				   @Nullable @JsonProperty("zones") final Zone[] zones,
+				   @Nullable @JsonProperty("zonesOnly") final Boolean zonesOnly) {
 		this.output = output;
 		this.verbose = objectToLevel(verbose);
 		this.mode = Mode.stringToMode(mode);
@@ -87,6 +106,10 @@ final class Config {
 		this.distinguishLinks = Optional.ofNullable(distinguishLinks).orElse(false);
 		this.expressions = expressions;
 		this.defaultColors = hexArrayToColorArray(defaultColors);
+		this.pages = pages == null ? null : PageSelection.parse(pages);
+		this.dropUnselected = Optional.ofNullable(dropUnselected).orElse(false);
+		this.zones = zones;
+		this.zonesOnly = Optional.ofNullable(zonesOnly).orElse(false);
 	}
 	
 	/**
@@ -286,4 +309,46 @@ final class Config {
 	Color[] getDefaultColors() {
 		return this.defaultColors;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Returns the pages that should be censored as specified in the loaded config.
+	 *
+	 * @return The page selection as specified in the loaded config. Or null if none was specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	PageSelection getPages() {
+		return this.pages;
+	}
+	
+	/**
+	 * Returns whether the pages that are not selected should be removed as specified in the loaded config.
+	 *
+	 * @return True if unselected pages should be removed, false otherwise.
+	 */
+	@Contract(pure = true)
+	boolean getDropUnselected() {
+		return this.dropUnselected;
+	}
+	
+	/**
+	 * Returns the array of zones as they were specified in the loaded config.
+	 *
+	 * @return An array containing the zones as specified in the loaded config. Or null if none were specified.
+	 */
+	@Contract(pure = true)
+	@Nullable
+	Zone[] getZones() {
+		return this.zones;
+	}
+	
+	/**
+	 * Returns whether only the zones should be censored as specified in the loaded config.
+	 *
+	 * @return True if only the zones should be censored, false otherwise.
+	 */
+	@Contract(pure = true)
+	boolean getZonesOnly() {
+		return this.zonesOnly;
+	}
+}
@@ -3,6 +3,7 @@ package de.uni_hannover.se.pdfzensor.config;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import de.uni_hannover.se.pdfzensor.text.TokenDef;
+import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -23,6 +24,11 @@ public final class Expression implements TokenDef {
 	private final String regex;
 	@Nullable
 	private Color color;
+	/**
+	 * The index of {@link #getColor()} in the {@link Palette} of the {@link Settings} this expression belongs to. Is
+	 * {@link Palette#NO_COLOR} until the settings compiled their palette.
+	 */
+	private short colorIndex = Palette.NO_COLOR;
 	
 	/**
 	 * Initializes a new expression object with the provided regular expression and color (in hexadecimal notation). The
@@ -98,6 +104,44 @@ public final class Expression implements TokenDef {
 		return ret;
 	}
 	
+	/**
+	 * Returns the index of this expression's color in the {@link Palette} of the {@link Settings} it belongs to. This
+	 * allows censoring to carry the index instead of the {@link Color} itself.
+	 *
+	 * @return The index of this expression's color in the palette or {@link Palette#NO_COLOR} if it was not assigned.
+	 * @see Settings#getPalette()
+	 */
+	@Contract(pure = true)
+	public short getColorIndex() {
+		return colorIndex;
+	}
+	
+	/**
+	 * Assigns the index of this expression's color in the palette of the settings. Should only be called once all
+	 * colors of the settings are fixed.
+	 *
+	 * @param palette The palette that contains this expression's color. May not be null.
+	 * @throws NullPointerException     if palette is null.
+	 * @throws IllegalArgumentException if the palette does not contain this expression's color.
+	 */
+	void assignColorIndex(@NotNull final Palette palette) {
+		final var index = Objects.requireNonNull(palette).indexOf(getColor());
+		Validate.isTrue(index != Palette.NO_COLOR, "The palette does not contain the expression's color.");
+		colorIndex = index;
+	}
+	
+	/**
+	 * Creates a copy of this expression with the same regex and color (or none if it has none yet). The copy has no
+	 * color index assigned, such that it may be part of a different palette.
+	 *
+	 * @return A new expression equal to this one.
+	 */
+	@NotNull
+	@Contract(value = " -> new", pure = true)
+	Expression copy() {
+		return new Expression(regex, color);
+	}
+	
 	/**
 	 * Returns a string representation that represents this object.
 	 *
@@ -0,0 +1,123 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Pattern;
+
+/**
+ * A PageSelection describes a set of (1-based) page numbers. It is specified as a comma-separated list of single pages
+ * (<code>3</code>), closed ranges (<code>2-5</code>) and ranges open to the end of the document (<code>7-</code>),
+ * e.g. <code>"1, 3-5, 10-"</code>.
+ * <br>
+ * A PageSelection is immutable.
+ */
+public final class PageSelection {
+	/** The selection containing every page. Used if no selection was specified. */
+	public static final PageSelection ALL = new PageSelection(new int[]{1}, new int[]{Integer.MAX_VALUE}, "all");
+	
+	/** The pattern a single entry of the comma-separated list has to match. */
+	private static final Pattern ENTRY_PATTERN = Pattern.compile("^\\s*(\\d+)\\s*(-\\s*(\\d*)\\s*)?$");
+	
+	/** The first page of each range (inclusive). */
+	@NotNull
+	private final int[] starts;
+	/** The last page of each range (inclusive). {@link Integer#MAX_VALUE} for ranges open to the end. */
+	@NotNull
+	private final int[] ends;
+	/** The specification this selection was parsed from. */
+	@NotNull
+	private final String specification;
+	
+	/**
+	 * Creates a new selection out of the provided ranges.
+	 *
+	 * @param starts        the first page of each range.
+	 * @param ends          the last page of each range.
+	 * @param specification the specification the ranges were parsed from.
+	 */
+	private PageSelection(@NotNull final int[] starts, @NotNull final int[] ends, @NotNull final String specification) {
+		this.starts = starts;
+		this.ends = ends;
+		this.specification = specification;
+	}
+	
+	/**
+	 * Parses the provided specification into a page selection.
+	 *
+	 * @param specification the comma-separated list of pages and page ranges. If it is <code>null</code> or blank
+	 *                      {@link #ALL} is returned.
+	 * @return the page selection described by the specification.
+	 * @throws IllegalArgumentException if the specification is malformed, contains a page smaller than 1 or a range
+	 *                                  whose end precedes its start.
+	 */
+	@NotNull
+	@Contract("null -> !null")
+	public static PageSelection parse(@Nullable final String specification) {
+		if (StringUtils.isBlank(specification))
+			return ALL;
+		final var entries = specification.split(",", -1);
+		final var starts = new int[entries.length];
+		final var ends = new int[entries.length];
+		for (var i = 0; i < entries.length; i++) {
+			final var matcher = ENTRY_PATTERN.matcher(entries[i]);
+			Validate.isTrue(matcher.matches(), "The page selection \"%s\" is malformed.", specification);
+			starts[i] = parsePage(matcher.group(1), specification);
+			if (matcher.group(2) == null)
+				ends[i] = starts[i];
+			else if (matcher.group(3).isEmpty())
+				ends[i] = Integer.MAX_VALUE;
+			else
+				ends[i] = parsePage(matcher.group(3), specification);
+			Validate.isTrue(starts[i] <= ends[i], "The page range \"%s\" is empty.", entries[i].trim());
+		}
+		return new PageSelection(starts, ends, specification.trim());
+	}
+	
+	/**
+	 * Parses a single page number.
+	 *
+	 * @param page          the page number as a string of digits.
+	 * @param specification the specification the page is part of (for the error-message).
+	 * @return the page number.
+	 * @throws IllegalArgumentException if the page number is smaller than 1 or too large.
+	 */
+	private static int parsePage(@NotNull final String page, @NotNull final String specification) {
+		try {
+			final var result = Integer.parseInt(page);
+			Validate.isTrue(result >= 1, "Page numbers start at 1 but \"%s\" contains %d.", specification, result);
+			return result;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					String.format("The page number %s in \"%s\" is too large.", page, specification), e);
+		}
+	}
+	
+	/**
+	 * Checks whether the provided page is part of this selection.
+	 *
+	 * @param page the 1-based number of the page.
+	 * @return true if the page is selected, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean contains(int page) {
+		for (var i = 0; i < starts.length; i++)
+			if (starts[i] <= page && page <= ends[i])
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Returns the specification this selection was parsed from.
+	 *
+	 * @return the specification of this selection or "all" for {@link #ALL}.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		return specification;
+	}
+}
@@ -0,0 +1,93 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import de.uni_hannover.se.pdfzensor.utils.Utils;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The Palette is the closed set of colors censor bars may be drawn in. It is compiled once by {@link Settings} from the
+ * colors of the {@link Expression}s and the link color. Instead of passing around and comparing {@link Color}s for
+ * every glyph, the censoring pipeline carries the (short) index of a color in the palette.
+ * <br>
+ * A palette is immutable.
+ */
+public final class Palette {
+	/** The index returned by {@link #indexOf(Color)} if the color is not part of the palette. */
+	public static final short NO_COLOR = -1;
+	
+	/** The distinct colors of this palette in the order they were first specified. */
+	@NotNull
+	private final Color[] colors;
+	
+	/**
+	 * Creates a new palette out of the provided colors. Duplicates are removed such that each color is contained only
+	 * once. The first occurrence of a color determines its index.
+	 *
+	 * @param colors the colors the palette should consist of. May neither be <code>null</code> nor contain
+	 *               <code>null</code>.
+	 * @throws NullPointerException     if colors is <code>null</code>.
+	 * @throws IllegalArgumentException if colors contains <code>null</code> or more than {@link Short#MAX_VALUE}
+	 *                                  distinct colors.
+	 */
+	Palette(@NotNull final Color... colors) {
+		Validate.noNullElements(colors);
+		this.colors = new LinkedHashSet<>(Arrays.asList(colors)).toArray(new Color[0]);
+		Validate.isTrue(this.colors.length <= Short.MAX_VALUE, "A palette may contain at most %d colors",
+						Short.MAX_VALUE);
+	}
+	
+	/**
+	 * Returns the index of the provided color in this palette.
+	 *
+	 * @param color the color to look up. May be <code>null</code>.
+	 * @return the index of the color or {@link #NO_COLOR} if it is not part of this palette.
+	 */
+	@Contract(pure = true)
+	public short indexOf(@Nullable final Color color) {
+		for (short i = 0; i < colors.length; i++)
+			if (colors[i].equals(color))
+				return i;
+		return NO_COLOR;
+	}
+	
+	/**
+	 * Returns the color at the provided index.
+	 *
+	 * @param index the index of the color. Has to be in <code>[0, size())</code>.
+	 * @return the color at the index.
+	 * @throws IndexOutOfBoundsException if index is out of bounds.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Color getColor(int index) {
+		Objects.checkIndex(index, colors.length);
+		return colors[index];
+	}
+	
+	/**
+	 * @return the number of distinct colors in this palette.
+	 */
+	@Contract(pure = true)
+	public int size() {
+		return colors.length;
+	}
+	
+	/**
+	 * Returns a string representation of this palette.
+	 *
+	 * @return the hexadecimal color codes of this palette in the order of their index.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		return Arrays.stream(colors).map(Utils::colorToString).collect(Collectors.joining(", ", "[", "]"));
+	}
+}
@@ -6,16 +6,33 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.util.FileUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static de.uni_hannover.se.pdfzensor.utils.Utils.colorToString;
 import static java.util.Arrays.stream;
@@ -31,12 +48,33 @@ import static java.util.Arrays.stream;
  *     <li>No value will be set to null (for this purpose the default values exist)<br></li>
  *     <li><b>input</b> may only be specified in the CLArgs</li>
  * </ol>
+ * If multiple inputs, a directory or a file list were specified, the settings describe a batch (see {@link
+ * #isBatch()}): the same settings are applied to each of the {@link #getInputs() inputs}. If a server port was
+ * specified instead, the settings have no input at all and are applied to each pdf-file posted to the server. The
+ * same holds if a directory should be watched, in which case the settings are applied to each pdf-file arriving in it.
+ * <br>
+ * The input and output may be {@link #STANDARD_STREAM} (specified as <code>-</code>) to read the pdf-file from stdin
+ * and write the censored pdf-file to stdout. If the input is read from stdin and no output was specified, the output
+ * is written to stdout as well.
+ * <br>
+ * Instead of from commandline arguments, settings may be configured programmatically using a {@link Builder}, which
+ * neither depends on picoCLI nor on the filesystem. Settings are immutable and may be shared by all threads.
  */
 public final class Settings {
 	/** The color that text should be censored in if it does not match any other specified expression. */
 	static final Color DEFAULT_CENSOR_COLOR = Color.BLACK;
+	/** The file representing stdin if used as input and stdout if used as output. */
+	@NotNull
+	public static final File STANDARD_STREAM = new File("-");
+	/** Accepts the pdf-files (by their extension) when listing the content of an input directory. */
+	private static final FileFilter PDF_FILTER = f -> f.isFile() && "pdf".equalsIgnoreCase(
+			FilenameUtils.getExtension(f.getName()));
+	/** The number of bytes the cached pdf-files may take up together if nothing else was specified. */
+	static final long DEFAULT_CACHE_SIZE = 1024L * 1024L * 1024L;
 	/** The color links should be censored in if nothing else was specified. */
 	private static final Color DEFAULT_LINK_COLOR = Color.BLUE;
+	/** The subdirectory of the watched directory the censored pdf-files are written into if nothing else was given. */
+	private static final String DEFAULT_WATCH_OUTPUT = "censored";
 	
 	/**
 	 * Kenneth Kelly's 22 colors of maximum contrast except the first two (#F2F3F4, #222222), since high contrast to
@@ -51,14 +89,88 @@ public final class Settings {
 														 .toArray(Color[]::new);
 	}
 	
-	/** The path at which the pdf-file that should be censored is located. */
-	@NotNull
+	/**
+	 * The path at which the pdf-file that should be censored is located. The first of {@link #inputs}. Null in server
+	 * mode.
+	 */
+	@Nullable
 	private final File input;
-	/** The path into which the censored pdf-file should be written. */
+	/** The paths of all pdf-files that should be censored. Directories and file lists are already expanded. */
 	@NotNull
+	private final File[] inputs;
+	/** True if the settings describe a batch of pdf-files rather than a single one. */
+	private final boolean batch;
+	/** The number of pdf-files (or chunks of a single pdf-file) that should be censored in parallel. */
+	private final int threads;
+	/** The number of pdf-files that should be loaded in parallel in batch mode. */
+	private final int loadThreads;
+	/** The number of censored pdf-files that should be saved in parallel in batch mode. */
+	private final int saveThreads;
+	/**
+	 * The number of pages per chunk when the chunks of a single pdf-file should be censored in parallel. Null if the
+	 * pdf-file should be censored as a whole.
+	 */
+	@Nullable
+	private final Integer chunkPages;
+	/**
+	 * The number of pages per part file when the censored pdf-file should be written as part files. Null if it should
+	 * be written as a single file.
+	 */
+	@Nullable
+	private final Integer splitPages;
+	/** The path into which the censored pdf-file should be written. Null in server mode. */
+	@Nullable
 	private final File output;
+	/**
+	 * The directory the censored pdf-files should be written into in batch mode. Null if each censored pdf-file should
+	 * be written next to its input.
+	 */
+	@Nullable
+	private final File outputDir;
+	/** The port the censor server should listen on or null if the inputs should be censored instead. */
+	@Nullable
+	private final Integer serverPort;
+	/** The manifest the outcomes of a batch are recorded in or null if none should be written. */
+	@Nullable
+	private final File manifest;
+	/** True if the pdf-files recorded as censored in the {@link #manifest} should be skipped. */
+	private final boolean resume;
+	/** The directory that should be watched for pdf-files or null if the inputs should be censored instead. */
+	@Nullable
+	private final File watchDir;
+	/** The number of requests (or files) that may be queued in addition to those being censored. */
+	private final int queueSize;
+	/** The number of bytes of main memory used to buffer a pdf-file or -1 if not limited. */
+	private final long maxMemory;
+	/** The directory the scratch files are created in or null for the default temporary directory. */
+	@Nullable
+	private final File scratchDir;
+	/** True if the pdf-files should be mapped into memory instead of being read through a buffer. */
+	private final boolean memoryMapped;
+	/** True if the resources of each page should be released once it was censored. */
+	private final boolean lowMemory;
+	/** True if the output should be written using object streams and a cross-reference stream. */
+	private final boolean compact;
+	/** True if the output should be linearized such that its first page can be shown before it was loaded. */
+	private final boolean linearized;
+	/** True if identical streams and resources should be collapsed into shared objects before saving. */
+	private final boolean deduplicate;
+	/** The level the censored streams are compressed at, -1 for the default level. */
+	private final int compressionLevel;
+	/** The directory the censored pdf-files are cached in or null if they should not be cached. */
+	@Nullable
+	private final File cacheDir;
+	/** The number of bytes the cached pdf-files may take up together. */
+	private final long cacheSize;
+	/** True if the glyphs of each censored pdf-file should be recorded in a sidecar next to it. */
+	private final boolean glyphSidecar;
+	/** The number of bytes of heap the pdf-files censored concurrently may use together or -1 if not limited. */
+	private final long memoryBudget;
+	/** The number of milliseconds censoring a single pdf-file may take or -1 if not limited. */
+	private final long timeout;
 	/** A password to decrypt an encrypted PDF. Might be null. */
-	private String password;
+	@Nullable
+	private final String password;
 	/**
 	 * A boolean to turn off interaction (e.g. asking for missing passwords and asking for correct passwords if
 	 * incorrect have been given).
@@ -83,6 +195,25 @@ public final class Settings {
 	 * censor bar is drawn).
 	 */
 	private final boolean intersectImages;
+	/**
+	 * The colors censor bars may be drawn in: the colors of all {@link #expressions} and the {@link #linkColor}. Each
+	 * expression's color-index refers to this palette.
+	 */
+	@NotNull
+	private final Palette palette;
+	/** The pages that should be censored. Pages that are not selected are not processed. */
+	@NotNull
+	private final PageSelection pages;
+	/** True if the pages that are not selected should be removed, false if they should be kept as they are. */
+	private final boolean dropUnselected;
+	/** The zones that should be censored regardless of their content. May be empty. */
+	@NotNull
+	private final Zone[] zones;
+	/**
+	 * True if only the {@link #zones} should be censored, which has to be requested explicitly (see
+	 * <code>--zones-only</code>). Text outside of the zones is kept and no text matching is necessary.
+	 */
+	private final boolean zoneOnly;
 	
 	/**
 	 * Constructs the settings object from the configuration file and the commandline arguments.
@@ -90,65 +221,683 @@ public final class Settings {
 	 * @param args The commandline arguments.
 	 */
 	public Settings(@NotNull final String... args) {
+		this(parse(args));
+		
+		//Dump to log
+		final var logger = Logging.getLogger();
+		logger.debug("Finished parsing the settings:");
+		logger.debug("\tInput-file: {}", input);
+		if (serverPort != null)
+			logger.debug("\tServer-port: {} ({} threads, queue size {})", serverPort, threads, queueSize);
+		if (watchDir != null)
+			logger.debug("\tWatched directory: {} ({} threads, queue size {}, output-directory: {})", watchDir, threads,
+						 queueSize, outputDir);
+		if (batch) {
+			logger.debug("\tBatch of {} files using {} load, {} censor and {} save threads:", inputs.length, loadThreads,
+						 threads, saveThreads);
+			for (var in : inputs)
+				logger.debug("\t\t{}", in);
+			if (manifest != null)
+				logger.debug("\tManifest: {}{}", manifest, resume ? " (resuming)" : "");
+			logger.debug("\tOutput-directory: {}", () -> Objects.requireNonNullElse(outputDir, "next to input"));
+		}
+		if (chunkPages != null)
+			logger.debug("\tChunks of {} pages using {} threads", chunkPages, threads);
+		if (splitPages != null)
+			logger.debug("\tParts of {} pages", splitPages);
+		logger.debug("\tOutput-file: {}", output);
+		logger.debug("\tMax. memory: {}", () -> maxMemory < 0 ? "unlimited" : maxMemory + " bytes");
+		logger.debug("\tScratch directory: {}", () -> Objects.requireNonNullElse(scratchDir, "temporary directory"));
+		logger.debug("\tMemory-mapped: {}", memoryMapped);
+		logger.debug("\tLow memory: {}", lowMemory);
+		logger.debug("\tCompact output: {}", compact);
+		logger.debug("\tLinearized output: {}", linearized);
+		logger.debug("\tDeduplicate: {}", deduplicate);
+		logger.debug("\tCompression level: {}", () -> compressionLevel < 0 ? "default" : compressionLevel);
+		logger.debug("\tCache: {}", () -> cacheDir == null ? "none" : cacheDir + " (" + cacheSize + " bytes)");
+		logger.debug("\tGlyph sidecar: {}", glyphSidecar);
+		logger.debug("\tMemory budget: {}", () -> memoryBudget < 0 ? "unlimited" : memoryBudget + " bytes");
+		logger.debug("\tTimeout: {}", () -> timeout < 0 ? "unlimited" : timeout + " ms");
+		logger.debug("\tIntersect Images: {}", intersectImages);
+		logger.debug("\tCensor mode: {}", mode);
+		logger.debug("\tDistinguish Links: {}", distinguishLinks);
+		logger.debug("\tLink-Color: {}", () -> colorToString(linkColor));
+		logger.debug("\tExpressions");
+		for (var exp : expressions)
+			logger.debug("\t\t{}", exp);
+		logger.debug("\tPages: {} (drop unselected: {})", pages, dropUnselected);
+		logger.debug("\tZones (only: {})", zoneOnly);
+		for (var zone : zones)
+			logger.debug("\t\t{}", zone);
+		logger.debug("\tPalette: {}", palette);
+	}
+	
+	/**
+	 * Constructs the settings object from the provided builder. Neither the builder nor its expressions and zones are
+	 * modified or referenced afterwards, such that the builder may be reused.
+	 *
+	 * @param builder The builder containing the values of the settings. May not be null.
+	 * @throws IllegalArgumentException if the values of the builder are inconsistent.
+	 * @see Builder#build()
+	 */
+	private Settings(@NotNull final Builder builder) {
+		serverPort = builder.serverPort;
+		watchDir = builder.watchDir;
+		inputs = builder.inputs.clone();
+		batch = ObjectUtils.defaultIfNull(builder.batch, inputs.length > 1);
+		final var noInputs = serverPort != null || watchDir != null;
+		Validate.isTrue(!noInputs || inputs.length == 0,
+						"No input may be specified when starting a server or watching a directory.");
+		Validate.isTrue(serverPort == null || watchDir == null, "A server can not be started while watching.");
+		Validate.isTrue(serverPort == null || (serverPort >= 0 && serverPort <= 0xFFFF),
+						"The server port has to be in [0, 65535].");
+		Validate.isTrue(noInputs || inputs.length > 0, "No pdf-file to censor was found.");
+		Validate.isTrue(!batch || !ArrayUtils.contains(inputs, STANDARD_STREAM),
+						"The standard input can not be used in batch mode.");
+		input = inputs.length > 0 ? inputs[0] : null;
+		threads = builder.threads;
+		loadThreads = ObjectUtils.defaultIfNull(builder.loadThreads, Math.max(1, threads / 2));
+		saveThreads = ObjectUtils.defaultIfNull(builder.saveThreads, Math.max(1, threads / 2));
+		queueSize = ObjectUtils.defaultIfNull(builder.queueSize, 4 * threads);
+		Validate.isTrue(threads > 0 && loadThreads > 0 && saveThreads > 0, "The number of threads has to be positive.");
+		Validate.isTrue(queueSize >= 0, "The queue size may not be negative.");
+		chunkPages = builder.chunkPages;
+		Validate.isTrue(chunkPages == null || chunkPages > 0, "The number of pages per chunk has to be positive.");
+		Validate.isTrue(chunkPages == null || (!batch && !noInputs && !STANDARD_STREAM.equals(input)),
+						"Only a single pdf-file that is not read from stdin can be split into chunks.");
+		splitPages = builder.splitPages;
+		Validate.isTrue(splitPages == null || splitPages > 0, "The number of pages per part has to be positive.");
+		Validate.isTrue(splitPages == null || (!batch && !noInputs && !STANDARD_STREAM.equals(input)),
+						"Only a single pdf-file that is not read from stdin can be split into parts.");
+		Validate.isTrue(splitPages == null || chunkPages == null, "A pdf-file can not be split into chunks and parts.");
+		if (watchDir != null)
+			outputDir = Objects.requireNonNullElseGet(builder.outputDir, () -> new File(watchDir, DEFAULT_WATCH_OUTPUT));
+		else outputDir = batch ? builder.outputDir : null;
+		// the censored pdf-files would be detected and censored again (only the files directly inside are watched)
+		Validate.isTrue(watchDir == null || !normalize(watchDir).equals(normalize(outputDir)),
+						"The output directory can not be the watched directory.");
+		manifest = builder.manifest;
+		resume = builder.resume;
+		Validate.isTrue(manifest == null || batch, "A manifest can only be written in batch mode.");
+		Validate.isTrue(!resume || manifest != null, "A batch can only be resumed from a manifest.");
+		if (input == null)
+			output = null;
+		else if (batch)
+			output = getOutput(input);
+		else if (builder.output != null)
+			output = builder.output;
+		else if (STANDARD_STREAM.equals(input))
+			output = STANDARD_STREAM;
+		else output = getDefaultOutput(input.getAbsoluteFile().getParent(), input);
+		Validate.isTrue(splitPages == null || !STANDARD_STREAM.equals(output),
+						"The parts of a pdf-file can not be written to stdout.");
+		maxMemory = builder.maxMemory;
+		scratchDir = builder.scratchDir;
+		Validate.isTrue(scratchDir == null || scratchDir.isDirectory(), "The scratch directory does not exist.");
+		memoryMapped = builder.memoryMapped;
+		lowMemory = builder.lowMemory;
+		compact = builder.compact;
+		linearized = builder.linearized;
+		Validate.isTrue(!compact || !linearized, "The output can not be both compact and linearized.");
+		deduplicate = builder.deduplicate;
+		compressionLevel = builder.compressionLevel;
+		cacheDir = builder.cacheDir;
+		cacheSize = builder.cacheSize;
+		Validate.isTrue(cacheDir == null || batch || noInputs,
+						"The pdf-files can only be cached in batch mode, when watching a directory or serving.");
+		glyphSidecar = builder.glyphSidecar;
+		Validate.isTrue(!glyphSidecar || batch || watchDir != null,
+						"Glyph sidecars can only be written in batch mode or when watching a directory.");
+		memoryBudget = builder.memoryBudget;
+		timeout = builder.timeout;
+		password = builder.password;
+		noInteraction = builder.noInteraction;
+		linkColor = DEFAULT_LINK_COLOR;
+		distinguishLinks = builder.distinguishLinks;
+		mode = builder.mode;
+		final var copies = builder.expressions.stream().map(Expression::copy).toArray(Expression[]::new);
+		expressions = combineExpressions(copies, null, builder.defaultColors);
+		intersectImages = builder.intersectImages;
+		pages = builder.pages;
+		dropUnselected = builder.dropUnselected;
+		zones = builder.zones.stream().map(Zone::copy).toArray(Zone[]::new);
+		zoneOnly = builder.zoneOnly;
+		Validate.isTrue(!zoneOnly || (zones.length > 0 && copies.length == 0),
+						"Only the zones can be censored if zones but no expressions were specified.");
+		palette = compilePalette(expressions, zones, linkColor);
+	}
+	
+	/**
+	 * Parses the commandline arguments and loads the corresponding configuration file into a new builder. Initializes
+	 * the logging with the verbosity specified in either of them. Directories and file lists are expanded into the
+	 * pdf-files they contain and the output is resolved against the filesystem.
+	 *
+	 * @param args The commandline arguments.
+	 * @return The builder containing the values of the commandline arguments, the configuration file and the defaults.
+	 * @throws IllegalArgumentException if the arguments or the configuration file are invalid.
+	 */
+	@NotNull
+	private static Builder parse(@NotNull final String... args) {
 		final var clArgs = CLArgs.fromStringArray(args);
 		final var configFile = ObjectUtils.firstNonNull(clArgs.getConfigFile(), Config.getDefaultConfigFile(false));
 		final var config = Config.fromFile(configFile);
 		final var verbose = ObjectUtils.firstNonNull(clArgs.getVerbosity(), config.getVerbosity(), Level.WARN);
 		Logging.init(clArgs.getQuiet() ? Level.OFF : verbose);
 		
-		input = clArgs.getInput();
-		output = checkOutput(ObjectUtils.firstNonNull(clArgs.getOutput(), config.getOutput(),
-													  input.getAbsoluteFile().getParentFile()));
-		password = clArgs.getPassword();
-		noInteraction = clArgs.getNoInteraction();
-		linkColor = DEFAULT_LINK_COLOR;
-		distinguishLinks = clArgs.distinguishLinks() || config.distinguishLinks();
-		mode = ObjectUtils.firstNonNull(clArgs.getMode(), config.getMode(), Mode.ALL);
-		final var defColors = ObjectUtils.firstNonNull(config.getDefaultColors(), DEFAULT_COLORS);
-		expressions = combineExpressions(clArgs.getExpressions(), config.getExpressions(), defColors);
-		intersectImages = clArgs.getIntersectImages() || config.getIntersectImages();
+		final var builder = new Builder();
+		builder.serverPort = clArgs.getServerPort();
+		builder.watchDir = clArgs.getWatchDir();
+		builder.manifest = clArgs.getManifest();
+		builder.resume = clArgs.getResume();
+		Validate.isTrue(builder.watchDir == null || builder.watchDir.isDirectory(),
+						"The watched directory does not exist.");
+		builder.batch = clArgs.getInputs().length > 1 || clArgs.getFileList() != null ||
+						stream(clArgs.getInputs()).anyMatch(File::isDirectory);
+		Validate.isTrue((!builder.batch && clArgs.getInputs().length == 0) ||
+						(builder.serverPort == null && builder.watchDir == null),
+						"No input may be specified when starting a server or watching a directory.");
+		builder.inputs = expandInputs(clArgs.getInputs(), clArgs.getFileList());
+		builder.threads = ObjectUtils.firstNonNull(clArgs.getThreads(), builder.threads);
+		builder.loadThreads = clArgs.getLoadThreads();
+		builder.saveThreads = clArgs.getSaveThreads();
+		builder.queueSize = clArgs.getQueueSize();
+		builder.chunkPages = clArgs.getChunkPages();
+		builder.splitPages = clArgs.getSplitPages();
+		if (builder.batch || builder.watchDir != null)
+			builder.outputDir = checkOutputDir(ObjectUtils.firstNonNull(clArgs.getOutput(), config.getOutput()));
+		else if (builder.inputs.length > 0 && STANDARD_STREAM.equals(builder.inputs[0]))
+			builder.output = checkOutput(ObjectUtils.firstNonNull(clArgs.getOutput(), config.getOutput(),
+																  STANDARD_STREAM), builder.inputs[0]);
+		else if (builder.inputs.length > 0)
+			builder.output = checkOutput(ObjectUtils.firstNonNull(clArgs.getOutput(), config.getOutput(),
+																  builder.inputs[0].getAbsoluteFile().getParentFile()),
+										 builder.inputs[0]);
+		builder.maxMemory = Optional.ofNullable(clArgs.getMaxMemory()).map(mib -> mib * 1024L * 1024L).orElse(-1L);
+		builder.scratchDir = clArgs.getScratchDir();
+		builder.memoryMapped = clArgs.getMemoryMapped();
+		builder.lowMemory = clArgs.getLowMemory();
+		builder.compact = clArgs.getCompact();
+		builder.linearized = clArgs.getLinearize();
+		builder.deduplicate = clArgs.getDeduplicate();
+		builder.compressionLevel = Objects.requireNonNullElse(clArgs.getCompressionLevel(), -1);
+		builder.cacheDir = clArgs.getCacheDir();
+		builder.cacheSize = Optional.ofNullable(clArgs.getCacheSize()).map(mib -> mib * 1024L * 1024L)
+									.orElse(DEFAULT_CACHE_SIZE);
+		builder.glyphSidecar = clArgs.getGlyphSidecar();
+		builder.memoryBudget = Optional.ofNullable(clArgs.getMemoryBudget()).map(mib -> mib * 1024L * 1024L)
+									   .orElse(-1L);
+		builder.timeout = Optional.ofNullable(clArgs.getTimeout()).map(seconds -> seconds * 1000L).orElse(-1L);
+		builder.password = clArgs.getPassword();
+		builder.noInteraction = clArgs.getNoInteraction();
+		builder.distinguishLinks = clArgs.distinguishLinks() || config.distinguishLinks();
+		builder.mode = ObjectUtils.firstNonNull(clArgs.getMode(), config.getMode(), Mode.ALL);
+		builder.defaultColors = ObjectUtils.firstNonNull(config.getDefaultColors(), DEFAULT_COLORS);
+		builder.expressions.addAll(Arrays.asList(ArrayUtils.nullToEmpty(clArgs.getExpressions(), Expression[].class)));
+		builder.expressions.addAll(Arrays.asList(ArrayUtils.nullToEmpty(config.getExpressions(), Expression[].class)));
+		builder.intersectImages = clArgs.getIntersectImages() || config.getIntersectImages();
+		builder.pages = ObjectUtils.firstNonNull(clArgs.getPages(), config.getPages(), PageSelection.ALL);
+		builder.dropUnselected = clArgs.getDropUnselected() || config.getDropUnselected();
+		builder.zones.addAll(Arrays.asList(ArrayUtils.nullToEmpty(config.getZones(), Zone[].class)));
+		builder.zoneOnly = clArgs.getZonesOnly() || config.getZonesOnly();
 		
-		//Dump to log
 		final var logger = Logging.getLogger();
 		if (configFile == null)
 			logger.error("The default configuration file could not be created.");
-		logger.debug("Finished parsing the settings:");
-		logger.debug("\tInput-file: {}", input);
 		logger.debug("\tConfig-file: {}",
 					 () -> Optional.ofNullable(configFile).map(File::getAbsolutePath).orElse("none"));
-		logger.debug("\tOutput-file: {}", output);
 		logger.debug("\tLogger verbosity: {}", verbose);
 		logger.debug("\tQuiet: {}", clArgs::getQuiet);
-		logger.debug("\tIntersect Images: {}", intersectImages);
-		logger.debug("\tCensor mode: {}", mode);
-		logger.debug("\tDistinguish Links: {}", distinguishLinks);
-		logger.debug("\tLink-Color: {}", () -> colorToString(linkColor));
-		logger.debug("\tExpressions");
-		for (var exp : expressions)
-			logger.debug("\t\t{}", exp);
 		logger.debug("\tDefault Colors");
-		for (var col : defColors)
+		for (var col : builder.defaultColors)
 			logger.debug("\t\t{}", () -> colorToString(col));
+		return builder;
+	}
+	
+	/**
+	 * Returns a copy of these settings with additional expressions that take precedence over the expressions of these
+	 * settings. Expressions without a color are assigned one of the default colors not used by these settings. These
+	 * settings remain unchanged, such that they may be shared with censors created concurrently.
+	 *
+	 * @param additional The regex-color-pairs of the additional expressions in the order of their precedence. The
+	 *                   colors are hexadecimal color codes and may be null. May not be null.
+	 * @return the copy with the additional expressions, or these settings if there are none.
+	 * @throws NullPointerException     if additional or one of the regexes is null.
+	 * @throws IllegalArgumentException if one of the colors is incorrectly formatted.
+	 */
+	@NotNull
+	public Settings withExpressions(@NotNull final List<Pair<String, String>> additional) {
+		if (Objects.requireNonNull(additional).isEmpty())
+			return this;
+		final var builder = toBuilder();
+		builder.defaultColors = stream(DEFAULT_COLORS)
+				.filter(c -> builder.expressions.stream().noneMatch(e -> c.equals(e.getColor()))).toArray(Color[]::new);
+		builder.expressions.addAll(0, additional.stream().map(p -> new Expression(p.getKey(), p.getValue()))
+												.collect(Collectors.toList()));
+		// the zones are no longer censored on their own once there are expressions
+		builder.zoneOnly = false;
+		return builder.build();
+	}
+	
+	/**
+	 * Returns a new builder containing the values of these settings, such that settings differing in a few values can
+	 * be built from it. The expressions of the builder are those of these settings without the final catch-all
+	 * expression, which is added again when building. These settings remain unchanged.
+	 *
+	 * @return the new builder.
+	 */
+	@NotNull
+	@Contract(value = "-> new", pure = true)
+	public Builder toBuilder() {
+		final var builder = new Builder();
+		builder.inputs = inputs;
+		builder.batch = batch;
+		builder.output = output;
+		builder.outputDir = outputDir;
+		builder.serverPort = serverPort;
+		builder.watchDir = watchDir;
+		builder.manifest = manifest;
+		builder.resume = resume;
+		builder.threads = threads;
+		builder.loadThreads = loadThreads;
+		builder.saveThreads = saveThreads;
+		builder.queueSize = queueSize;
+		builder.chunkPages = chunkPages;
+		builder.splitPages = splitPages;
+		builder.maxMemory = maxMemory;
+		builder.scratchDir = scratchDir;
+		builder.memoryMapped = memoryMapped;
+		builder.lowMemory = lowMemory;
+		builder.compact = compact;
+		builder.linearized = linearized;
+		builder.deduplicate = deduplicate;
+		builder.compressionLevel = compressionLevel;
+		builder.cacheDir = cacheDir;
+		builder.cacheSize = cacheSize;
+		builder.glyphSidecar = glyphSidecar;
+		builder.memoryBudget = memoryBudget;
+		builder.timeout = timeout;
+		builder.password = password;
+		builder.noInteraction = noInteraction;
+		builder.distinguishLinks = distinguishLinks;
+		builder.mode = mode;
+		builder.expressions.addAll(Arrays.asList(expressions).subList(0, expressions.length - 1));
+		builder.intersectImages = intersectImages;
+		builder.pages = pages;
+		builder.dropUnselected = dropUnselected;
+		builder.zones.addAll(Arrays.asList(zones));
+		builder.zoneOnly = zoneOnly;
+		return builder;
 	}
 	
 	/**
 	 * @return The input file as it was specified in the command-line arguments.
+	 * @throws IllegalStateException if no input was specified since a server should be started.
 	 */
 	@NotNull
 	@Contract(pure = true)
 	public File getInput() {
+		Validate.validState(input != null, "No input was specified.");
 		return input;
 	}
 	
+	/**
+	 * @return The input files as they were specified in the command-line arguments. Directories and file lists are
+	 * expanded to the pdf-files they contain. Contains only {@link #getInput()} if not in batch mode.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public File[] getInputs() {
+		return inputs.clone();
+	}
+	
+	/**
+	 * @return True if multiple pdf-files, a directory or a file list were specified, false if a single pdf-file should
+	 * be censored.
+	 */
+	@Contract(pure = true)
+	public boolean isBatch() {
+		return batch;
+	}
+	
+	/**
+	 * @return The number of pdf-files that should be censored in parallel in batch mode (or chunks of a single pdf-file,
+	 * see {@link #getChunkPages()}). Defaults to the number of available processors.
+	 */
+	@Contract(pure = true)
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * @return The number of pdf-files that should be loaded in parallel in batch mode. Defaults to half of {@link
+	 * #getThreads()}.
+	 */
+	@Contract(pure = true)
+	public int getLoadThreads() {
+		return loadThreads;
+	}
+	
+	/**
+	 * @return The number of censored pdf-files that should be saved in parallel in batch mode. Defaults to half of
+	 * {@link #getThreads()}.
+	 */
+	@Contract(pure = true)
+	public int getSaveThreads() {
+		return saveThreads;
+	}
+	
+	/**
+	 * @return The number of pages per chunk if the pdf-file should be split into chunks that are censored in parallel
+	 * using {@link #getThreads()} threads, or null if it should be censored as a whole.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public Integer getChunkPages() {
+		return chunkPages;
+	}
+	
+	/**
+	 * @return The number of pages per part file if the censored pdf-file should be written as part files, or null if it
+	 * should be written as a single file.
+	 * @see de.uni_hannover.se.pdfzensor.batch.SplitCensor
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public Integer getSplitPages() {
+		return splitPages;
+	}
+	
 	/**
 	 * @return The output file as it was specified in the command-line arguments and config.
+	 * @throws IllegalStateException if no input was specified since a server should be started.
 	 */
 	@NotNull
 	@Contract(pure = true)
 	public File getOutput() {
+		Validate.validState(output != null, "No input was specified.");
 		return output;
 	}
 	
+	/**
+	 * @return True if the pdf-file should be read from stdin, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean isInputStdin() {
+		return STANDARD_STREAM.equals(input);
+	}
+	
+	/**
+	 * @return True if the censored pdf-file should be written to stdout, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean isOutputStdout() {
+		return STANDARD_STREAM.equals(output);
+	}
+	
+	/**
+	 * Creates the memory usage setting a pdf-file should be loaded with. Up to the specified maximum memory the
+	 * pdf-file is buffered in main memory, the remainder in a scratch file in the scratch directory. If the maximum
+	 * memory is 0, it is buffered in a scratch file only. The streams created while censoring are buffered the same
+	 * way, as they share the scratch file of the pdf-file.
+	 *
+	 * @return A new memory usage setting, since a setting may only be used for a single document.
+	 */
+	@NotNull
+	@Contract(value = " -> new", pure = true)
+	public MemoryUsageSetting getMemoryUsageSetting() {
+		final MemoryUsageSetting memory;
+		if (maxMemory < 0)
+			memory = MemoryUsageSetting.setupMainMemoryOnly();
+		else if (maxMemory == 0)
+			memory = MemoryUsageSetting.setupTempFileOnly();
+		else memory = MemoryUsageSetting.setupMixed(maxMemory);
+		return memory.setTempDir(scratchDir);
+	}
+	
+	/**
+	 * @return The directory the scratch files buffering the pdf-files are created in or null if the default temporary
+	 * directory is used.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public File getScratchDir() {
+		return scratchDir;
+	}
+	
+	/**
+	 * @return True if the pdf-files should be mapped into memory (see {@link
+	 * de.uni_hannover.se.pdfzensor.utils.MappedFile}) instead of being read through a buffer. Does not apply to a
+	 * pdf-file read from stdin.
+	 */
+	@Contract(pure = true)
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+	
+	/**
+	 * @return True if the resources of each page should be released once it was censored unless a later page uses
+	 * them, such that the heap does not grow with the number of pages.
+	 * @see de.uni_hannover.se.pdfzensor.processor.PDFProcessor
+	 */
+	@Contract(pure = true)
+	public boolean isLowMemory() {
+		return lowMemory;
+	}
+	
+	/**
+	 * @return True if the non-stream objects of the output should be packed into compressed object streams and a
+	 * cross-reference stream should be written instead of a cross-reference table.
+	 * @see de.uni_hannover.se.pdfzensor.writer.CompactWriter
+	 */
+	@Contract(pure = true)
+	public boolean isCompact() {
+		return compact;
+	}
+	
+	/**
+	 * @return True if the output should be linearized, such that its first page, the objects it needs and the hint
+	 * tables are at the beginning of the pdf-file.
+	 * @see de.uni_hannover.se.pdfzensor.writer.LinearizedWriter
+	 */
+	@Contract(pure = true)
+	public boolean isLinearized() {
+		return linearized;
+	}
+	
+	/**
+	 * @return True if identical streams and resources should be collapsed into single shared objects before the
+	 * output is saved.
+	 * @see de.uni_hannover.se.pdfzensor.writer.Deduplicator
+	 */
+	@Contract(pure = true)
+	public boolean isDeduplicate() {
+		return deduplicate;
+	}
+	
+	/**
+	 * @return The level between 0 (stored uncompressed) and 9 (smallest) the censored page and form contents should
+	 * be compressed at or -1 if the default level should be used.
+	 * @see de.uni_hannover.se.pdfzensor.censor.utils.StreamCompressor
+	 */
+	@Contract(pure = true)
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+	
+	/**
+	 * @return The directory the censored pdf-files are cached in or null if they should not be cached.
+	 * @see de.uni_hannover.se.pdfzensor.batch.ResultCache
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public File getCacheDir() {
+		return cacheDir;
+	}
+	
+	/**
+	 * @return The number of bytes the cached pdf-files may take up together before the least recently used ones are
+	 * removed.
+	 */
+	@Contract(pure = true)
+	public long getCacheSize() {
+		return cacheSize;
+	}
+	
+	/**
+	 * @return True if the glyphs of each censored pdf-file should be recorded in a sidecar next to it, such that it may
+	 * be censored again with different expressions without being parsed.
+	 * @see de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar
+	 */
+	@Contract(pure = true)
+	public boolean isGlyphSidecar() {
+		return glyphSidecar;
+	}
+	
+	/**
+	 * Computes a fingerprint of everything that determines the censored pdf-file besides the input: the version of
+	 * PDF-Zensor, the mode, expressions, zones, colors and selected pages as well as how the output is written. Two
+	 * settings with the same fingerprint censor the same input into the same output.
+	 * <br>
+	 * The password is not part of the fingerprint, since the fingerprint is written to disk (as part of the names of
+	 * cached pdf-files and into glyph sidecars) and a digest of the password could be brute-forced from it. Thus the
+	 * censored pdf-files of encrypted inputs must be neither cached nor recorded in sidecars.
+	 *
+	 * @return the hexadecimal SHA-256 hash of the settings determining the output.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getFingerprint() {
+		return fingerprint(Arrays.toString(expressions), palette);
+	}
+	
+	/**
+	 * Computes a fingerprint like {@link #getFingerprint()} but without the expressions (and the palette, which is
+	 * derived from them). Two settings with the same glyph fingerprint remove the same text of an input and record the
+	 * same glyphs in its sidecar, only the censor bars drawn over the text may differ.
+	 *
+	 * @return the hexadecimal SHA-256 hash of the settings determining the output besides the expressions.
+	 * @see de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public String getGlyphFingerprint() {
+		return fingerprint("", "");
+	}
+	
+	/**
+	 * Computes the hexadecimal SHA-256 hash of the settings determining the output.
+	 *
+	 * @param expressions the expressions that should be part of the fingerprint.
+	 * @param palette     the palette that should be part of the fingerprint.
+	 * @return the hexadecimal SHA-256 hash of the settings.
+	 */
+	@NotNull
+	private String fingerprint(@NotNull String expressions, @NotNull Object palette) {
+		String version;
+		try {
+			version = String.join(" ", new VersionProvider().getVersion());
+		} catch (IOException | RuntimeException e) {
+			version = "unknown";
+		}
+		final var values = Stream.of(version, mode, expressions, Arrays.toString(zones), zoneOnly, palette,
+									 colorToString(linkColor), distinguishLinks, intersectImages, pages,
+									 dropUnselected, compact, linearized, deduplicate, compressionLevel)
+								 .map(String::valueOf).collect(Collectors.joining("\n"));
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256").digest(values.getBytes(StandardCharsets.UTF_8));
+			return String.format("%064x", new BigInteger(1, digest));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+	
+	/**
+	 * @return The number of bytes of heap the pdf-files censored concurrently may use together or -1 if it is not
+	 * limited.
+	 * @see de.uni_hannover.se.pdfzensor.batch.MemoryBudget
+	 */
+	@Contract(pure = true)
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+	
+	/**
+	 * @return The number of milliseconds censoring a single pdf-file may take or -1 if it is not limited.
+	 * @see de.uni_hannover.se.pdfzensor.utils.Deadline
+	 */
+	@Contract(pure = true)
+	public long getTimeout() {
+		return timeout;
+	}
+	
+	/**
+	 * @return The port the censor server should listen on or null if the inputs should be censored instead.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public Integer getServerPort() {
+		return serverPort;
+	}
+	
+	/**
+	 * @return The directory that should be watched for pdf-files to censor or null if the inputs should be censored
+	 * instead.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public File getWatchDir() {
+		return watchDir;
+	}
+	
+	/**
+	 * @return The append-only manifest the outcomes of a batch should be recorded in or null if none should be
+	 * written.
+	 * @see de.uni_hannover.se.pdfzensor.batch.Manifest
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public File getManifest() {
+		return manifest;
+	}
+	
+	/**
+	 * @return True if the pdf-files recorded as censored in the {@link #getManifest() manifest} should be skipped,
+	 * such that an interrupted batch is resumed.
+	 */
+	@Contract(pure = true)
+	public boolean isResume() {
+		return resume;
+	}
+	
+	/**
+	 * @return The number of requests (or files) the censor server (or watcher) may queue while all of its threads are
+	 * busy. Defaults to four times the number of threads.
+	 */
+	@Contract(pure = true)
+	public int getQueueSize() {
+		return queueSize;
+	}
+	
+	/**
+	 * Returns the file the censored version of the provided input should be written into. In batch mode this is
+	 * <code>{out}/{input name}_cens.pdf</code>, where <code>out</code> is the specified output directory or the
+	 * directory of the input if none was specified. When watching a directory <code>out</code> defaults to
+	 * <code>{watched directory}/censored</code>, which is set when the settings are built. Otherwise it is {@link #getOutput()}.
+	 *
+	 * @param in The input file whose output file should be returned. May not be null.
+	 * @return the output file the censored version of <code>in</code> should be written into.
+	 * @throws NullPointerException if in is null.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public File getOutput(@NotNull final File in) {
+		Objects.requireNonNull(in);
+		if (!batch && watchDir == null)
+			return getOutput();
+		final var dir = Objects.requireNonNullElseGet(outputDir, () -> in.getAbsoluteFile().getParentFile());
+		return getDefaultOutput(dir.getPath(), in);
+	}
+	
 	/**
 	 * @return The password String as it was specified in the command-line arguments.
 	 */
@@ -201,6 +950,62 @@ public final class Settings {
 		return ObjectUtils.cloneIfPossible(expressions);
 	}
 	
+	/**
+	 * @return The palette containing all colors censor bars may be drawn in.
+	 * @see Expression#getColorIndex()
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Palette getPalette() {
+		return palette;
+	}
+	
+	/**
+	 * @return The index of {@link #getLinkColor()} in {@link #getPalette()}.
+	 */
+	@Contract(pure = true)
+	public short getLinkColorIndex() {
+		return palette.indexOf(linkColor);
+	}
+	
+	/**
+	 * @return The pages that should be censored as specified in the command-line arguments and config. {@link
+	 * PageSelection#ALL} if nothing was specified.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public PageSelection getPages() {
+		return pages;
+	}
+	
+	/**
+	 * @return True if the pages that are not selected by {@link #getPages()} should be removed from the output, false
+	 * if they should be kept as they are.
+	 */
+	@Contract(pure = true)
+	public boolean getDropUnselected() {
+		return dropUnselected;
+	}
+	
+	/**
+	 * @return The zones that should be censored regardless of their content, as specified in the config. May be
+	 * empty.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Zone[] getZones() {
+		return zones.clone();
+	}
+	
+	/**
+	 * @return True if only the zones should be censored (as requested explicitly), false otherwise.
+	 * @see #getZones()
+	 */
+	@Contract(pure = true)
+	public boolean isZoneOnly() {
+		return zoneOnly;
+	}
+	
 	/**
 	 * @return True if text censor bars may overlap with censored images, false otherwise.
 	 */
@@ -210,35 +1015,120 @@ public final class Settings {
 	}
 	
 	/**
-	 * Validates the provided output file. If it is a file it itself will be returned. If it is a folder (or does not
-	 * exist and has no suffix) a path to <code>{out}/{input name}_cens.pdf</code> is returned.
+	 * Validates the provided output file. If it is a file or {@link #STANDARD_STREAM} it itself will be returned. If it
+	 * is a folder (or does not exist and has no suffix) a path to <code>{out}/{input name}_cens.pdf</code> is
+	 * returned.
 	 *
-	 * @param out The output file that should be validated. May not be null.
+	 * @param out   The output file that should be validated. May not be null.
+	 * @param input The input file the output file belongs to. May not be null.
 	 * @return the validated output file the censored PDF should be written into.
-	 * @throws NullPointerException if out is null
-	 * @see #getDefaultOutput(String)
+	 * @throws NullPointerException if out or input is null
+	 * @see #getDefaultOutput(String, File)
 	 */
 	@NotNull
-	private File checkOutput(@NotNull final File out) {
+	private static File checkOutput(@NotNull final File out, @NotNull final File input) {
+		Objects.requireNonNull(input);
 		var result = Objects.requireNonNull(out);
-		if (!out.isFile() && StringUtils.isEmpty(FileUtils.getFileExtension(out)))
-			result = getDefaultOutput(out.getPath());
+		if (!out.isFile() && !STANDARD_STREAM.equals(out) && StringUtils.isEmpty(FileUtils.getFileExtension(out)))
+			result = getDefaultOutput(out.getPath(), input);
 		return result;
 	}
 	
+	/**
+	 * Validates the provided output directory for batch mode. It must not be an existing file or have a suffix, since
+	 * multiple censored pdf-files will be written into it.
+	 *
+	 * @param out The output directory that should be validated. May be null.
+	 * @return the validated output directory or null if none was specified.
+	 * @throws IllegalArgumentException if out is a file, has a suffix or is {@link #STANDARD_STREAM}.
+	 */
+	@Nullable
+	private static File checkOutputDir(@Nullable final File out) {
+		Validate.isTrue(out == null || (!out.isFile() && !STANDARD_STREAM.equals(out) &&
+										StringUtils.isEmpty(FileUtils.getFileExtension(out))),
+						"In batch mode the output has to be a directory: %s", out);
+		return out;
+	}
+	
+	/**
+	 * @param file The file whose path should be normalized. May not be null.
+	 * @return The absolute and normalized path of the file, such that two paths of the same file may be compared.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	private static Path normalize(@NotNull final File file) {
+		return file.getAbsoluteFile().toPath().normalize();
+	}
+	
+	/**
+	 * Expands the provided inputs into the pdf-files that should be censored. Directories are replaced by the
+	 * pdf-files they directly contain (sorted by name) and each non-blank line of the file list that does not start
+	 * with <code>#</code> is added as another input.
+	 *
+	 * @param inputs   The inputs as specified by the user.
+	 * @param fileList The file listing further inputs. May be null.
+	 * @return the pdf-files that should be censored in the order they were specified.
+	 * @throws IllegalArgumentException if the file list could not be read.
+	 */
+	@NotNull
+	private static File[] expandInputs(@NotNull final File[] inputs, @Nullable final File fileList) {
+		final var result = new ArrayList<File>();
+		for (var in : inputs) {
+			final var content = in.isDirectory() ? in.listFiles(PDF_FILTER) : null;
+			if (content != null) {
+				Arrays.sort(content);
+				result.addAll(Arrays.asList(content));
+			} else result.add(in);
+		}
+		if (fileList != null) {
+			try {
+				Files.readAllLines(fileList.toPath()).stream().map(String::strip)
+					 .filter(l -> !l.isEmpty() && !l.startsWith("#")).map(File::new).forEach(result::add);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("The file list " + fileList + " could not be read.", e);
+			}
+		}
+		return result.toArray(new File[0]);
+	}
+	
 	/**
 	 * Will return the absolute default filename in directory <code>path</code>. The default filename is
 	 * <code>in_cens.pdf</code>, where <code>in</code> is the name of the input file.
 	 *
 	 * @param path The path in which the output file with default naming should be located.
+	 * @param in   The input file the output file belongs to.
 	 * @return The absolute default output file.
 	 */
 	@NotNull
-	private File getDefaultOutput(@NotNull final String path) {
-		final var inName = FilenameUtils.removeExtension(input.getName());
+	private static File getDefaultOutput(@NotNull final String path, @NotNull final File in) {
+		final var inName = FilenameUtils.removeExtension(in.getName());
 		return new File(Objects.requireNonNull(path) + File.separatorChar + inName + "_cens.pdf").getAbsoluteFile();
 	}
 	
+	/**
+	 * Compiles the palette out of the colors of the provided expressions (in their order) followed by the colors of the
+	 * zones and the link color and assigns each expression and zone the index of its color in that palette.
+	 *
+	 * @param expressions The expressions whose colors should be part of the palette. Their colors have to be final.
+	 * @param zones       The zones whose colors should be part of the palette.
+	 * @param linkColor   The color links are censored in.
+	 * @return The compiled palette.
+	 * @see Expression#getColorIndex()
+	 * @see Zone#getColorIndex()
+	 */
+	@NotNull
+	private static Palette compilePalette(@NotNull final Expression[] expressions, @NotNull final Zone[] zones,
+										  @NotNull final Color linkColor) {
+		final var colors = Stream.concat(stream(expressions).map(Expression::getColor),
+										 stream(zones).map(Zone::getColor)).toArray(Color[]::new);
+		final var result = new Palette(ArrayUtils.add(colors, linkColor));
+		for (var exp : expressions)
+			exp.assignColorIndex(result);
+		for (var zone : zones)
+			zone.assignColorIndex(result);
+		return result;
+	}
+	
 	/**
 	 * Merges two {@link Expression} arrays together while keeping them in the given order (<code>expressions1</code> is
 	 * in front). Applies a color from the default color array (if it has unused colors remaining) to expressions which
@@ -250,7 +1140,7 @@ public final class Settings {
 	 * @return The Expression array with the fallback Expression added.
 	 */
 	@NotNull
-	private Expression[] combineExpressions(@Nullable final Expression[] expressions1,
+	private static Expression[] combineExpressions(@Nullable final Expression[] expressions1,
 											@Nullable final Expression[] expressions2,
 											@NotNull final Color[] defaultColors) {
 		final var ret = ArrayUtils.addAll(expressions1, expressions2);
@@ -261,4 +1151,594 @@ public final class Settings {
 		}
 		return ArrayUtils.addAll(ret, new Expression(".", DEFAULT_CENSOR_COLOR));
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * A Builder configures {@link Settings} programmatically instead of from commandline arguments. Unlike {@link
+	 * #Settings(String...)} it neither parses arguments nor reads a configuration file, expands directories or
+	 * initializes the logging, so independent builders may be used concurrently and are unaffected by the files of the
+	 * user. Values that are not set keep the defaults of the commandline.
+	 * <br>
+	 * The built settings are immutable and may be shared by all threads. A builder itself is not thread-safe, but it may
+	 * be reused, as the settings do not reference it (or the expressions and zones added to it) after being built.
+	 */
+	public static final class Builder {
+		/** The pdf-files that should be censored. */
+		@NotNull
+		private File[] inputs = new File[0];
+		/** Whether the inputs are a batch. Null if they are a batch iff there are several of them. */
+		@Nullable
+		private Boolean batch = null;
+		/** The file the censored pdf-file should be written into. Null if it should be written next to the input. */
+		@Nullable
+		private File output = null;
+		/** The directory the censored pdf-files should be written into in batch mode. Null for next to the inputs. */
+		@Nullable
+		private File outputDir = null;
+		/** The port the censor server should listen on or null if the inputs should be censored instead. */
+		@Nullable
+		private Integer serverPort = null;
+		/** The directory that should be watched for pdf-files or null if the inputs should be censored instead. */
+		@Nullable
+		private File watchDir = null;
+		/** The manifest the outcomes of a batch are recorded in or null if none should be written. */
+		@Nullable
+		private File manifest = null;
+		/** Whether the pdf-files recorded as censored in the manifest should be skipped. */
+		private boolean resume = false;
+		/** The number of pdf-files (or chunks of a single pdf-file) that should be censored in parallel. */
+		private int threads = Runtime.getRuntime().availableProcessors();
+		/** The number of pdf-files that should be loaded in parallel in batch mode. Null for half the threads. */
+		@Nullable
+		private Integer loadThreads = null;
+		/** The number of pdf-files that should be saved in parallel in batch mode. Null for half the threads. */
+		@Nullable
+		private Integer saveThreads = null;
+		/** The number of requests (or files) that may be queued. Null for four times the threads. */
+		@Nullable
+		private Integer queueSize = null;
+		/** The number of pages per chunk or null if the pdf-file should be censored as a whole. */
+		@Nullable
+		private Integer chunkPages = null;
+		/** The number of pages per part file or null if the pdf-file should be written as a single file. */
+		@Nullable
+		private Integer splitPages = null;
+		/** The number of bytes of main memory used to buffer a pdf-file or -1 if not limited. */
+		private long maxMemory = -1;
+		/** The directory the scratch files are created in or null for the default temporary directory. */
+		@Nullable
+		private File scratchDir = null;
+		/** Whether the pdf-files should be mapped into memory instead of being read through a buffer. */
+		private boolean memoryMapped = false;
+		/** Whether the resources of each page should be released once it was censored. */
+		private boolean lowMemory = false;
+		/** Whether the output should be written using object streams and a cross-reference stream. */
+		private boolean compact = false;
+		/** Whether the output should be linearized. */
+		private boolean linearized = false;
+		/** Whether identical streams and resources should be collapsed before saving. */
+		private boolean deduplicate = false;
+		/** The level the censored streams should be compressed at, -1 for the default level. */
+		private int compressionLevel = -1;
+		/** The directory the censored pdf-files should be cached in or null if they should not be cached. */
+		@Nullable
+		private File cacheDir = null;
+		/** The number of bytes the cached pdf-files may take up together. */
+		private long cacheSize = DEFAULT_CACHE_SIZE;
+		/** Whether the glyphs of each censored pdf-file should be recorded in a sidecar next to it. */
+		private boolean glyphSidecar = false;
+		/** The number of bytes of heap the concurrently censored pdf-files may use together or -1 if not limited. */
+		private long memoryBudget = -1;
+		/** The number of milliseconds censoring a single pdf-file may take or -1 if not limited. */
+		private long timeout = -1;
+		/** The password to decrypt an encrypted pdf-file. May be null. */
+		@Nullable
+		private String password = null;
+		/** Whether the user should never be prompted. */
+		private boolean noInteraction = false;
+		/** Whether links should be distinguished from normal text. */
+		private boolean distinguishLinks = false;
+		/** The mode to use for censoring. */
+		@NotNull
+		private Mode mode = Mode.ALL;
+		/** The expressions in the order of their precedence. Copied when the settings are built. */
+		@NotNull
+		private final List<Expression> expressions = new ArrayList<>();
+		/** The colors assigned to the expressions without a color. */
+		@NotNull
+		private Color[] defaultColors = DEFAULT_COLORS;
+		/** Whether text censor bars may be drawn atop of censored images. */
+		private boolean intersectImages = false;
+		/** The pages that should be censored. */
+		@NotNull
+		private PageSelection pages = PageSelection.ALL;
+		/** Whether the pages that are not selected should be removed. */
+		private boolean dropUnselected = false;
+		/** The zones that should be censored regardless of their content. Copied when the settings are built. */
+		@NotNull
+		private final List<Zone> zones = new ArrayList<>();
+		/** Whether only the zones should be censored and all other text kept. */
+		private boolean zoneOnly = false;
+		
+		/**
+		 * Sets the pdf-files that should be censored. Several pdf-files are censored in batch mode. Directories are not
+		 * expanded.
+		 *
+		 * @param inputs The pdf-files that should be censored or {@link #STANDARD_STREAM} to read a single pdf-file from
+		 *               stdin. May neither be null nor contain null.
+		 * @return this builder.
+		 * @throws NullPointerException     if inputs is null.
+		 * @throws IllegalArgumentException if inputs contains null.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder inputs(@NotNull final File... inputs) {
+			this.inputs = Validate.noNullElements(inputs).clone();
+			return this;
+		}
+		
+		/**
+		 * Sets whether the inputs should be censored in batch mode even if there is only one of them, such that the
+		 * output is <code>{output directory}/{input name}_cens.pdf</code>.
+		 *
+		 * @param batch True if the inputs are a batch, false if they are a batch iff there are several of them.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder batch(final boolean batch) {
+			this.batch = batch ? Boolean.TRUE : null;
+			return this;
+		}
+		
+		/**
+		 * Sets the file the censored pdf-file should be written into if a single pdf-file is censored. By default it is
+		 * written next to the input as <code>{input name}_cens.pdf</code> (or to stdout if it was read from stdin).
+		 *
+		 * @param output The file the censored pdf-file should be written into or {@link #STANDARD_STREAM} for stdout.
+		 *               May be null to restore the default.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder output(@Nullable final File output) {
+			this.output = output;
+			return this;
+		}
+		
+		/**
+		 * Sets the directory the censored pdf-files should be written into in batch mode or when watching a directory.
+		 * When watching a directory it defaults to its subdirectory <code>censored</code> and may not be the watched
+		 * directory itself.
+		 *
+		 * @param outputDir The output directory or null if they should be written next to their inputs (or into the
+		 *                  default directory when watching).
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder outputDir(@Nullable final File outputDir) {
+			this.outputDir = outputDir;
+			return this;
+		}
+		
+		/**
+		 * Sets the port the censor server should listen on. No inputs may be set in that case.
+		 *
+		 * @param serverPort The port (0 for any free port) or null if the inputs should be censored instead.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder serverPort(@Nullable final Integer serverPort) {
+			this.serverPort = serverPort;
+			return this;
+		}
+		
+		/**
+		 * Sets the directory that should be watched for pdf-files. No inputs may be set in that case. Whether the
+		 * directory exists is not checked.
+		 *
+		 * @param watchDir The watched directory or null if the inputs should be censored instead.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder watchDir(@Nullable final File watchDir) {
+			this.watchDir = watchDir;
+			return this;
+		}
+		
+		/**
+		 * Sets the manifest the outcomes of a batch should be recorded in and whether the pdf-files recorded as
+		 * censored in it should be skipped. Requires batch mode.
+		 *
+		 * @param manifest The manifest or null if none should be written.
+		 * @param resume   True if the pdf-files recorded as censored should be skipped. Requires a manifest.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_, _ -> this")
+		public Builder manifest(@Nullable final File manifest, final boolean resume) {
+			this.manifest = manifest;
+			this.resume = resume;
+			return this;
+		}
+		
+		/**
+		 * @param threads The number of pdf-files (or chunks of a single pdf-file) that should be censored in parallel.
+		 *                Defaults to the number of available processors.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder threads(final int threads) {
+			this.threads = threads;
+			return this;
+		}
+		
+		/**
+		 * @param loadThreads The number of pdf-files that should be loaded in parallel in batch mode. Null for half the
+		 *                    number of threads.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder loadThreads(@Nullable final Integer loadThreads) {
+			this.loadThreads = loadThreads;
+			return this;
+		}
+		
+		/**
+		 * @param saveThreads The number of pdf-files that should be saved in parallel in batch mode. Null for half the
+		 *                    number of threads.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder saveThreads(@Nullable final Integer saveThreads) {
+			this.saveThreads = saveThreads;
+			return this;
+		}
+		
+		/**
+		 * @param queueSize The number of requests (or files) that may be queued in addition to those being censored.
+		 *                  Null for four times the number of threads.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder queueSize(@Nullable final Integer queueSize) {
+			this.queueSize = queueSize;
+			return this;
+		}
+		
+		/**
+		 * @param chunkPages The number of pages per chunk if a single pdf-file should be split into chunks that are
+		 *                   censored in parallel, or null if it should be censored as a whole.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder chunkPages(@Nullable final Integer chunkPages) {
+			this.chunkPages = chunkPages;
+			return this;
+		}
+		
+		/**
+		 * @param splitPages The number of pages per part file if the censored pdf-file should be written as part files,
+		 *                   or null if it should be written as a single file.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder splitPages(@Nullable final Integer splitPages) {
+			this.splitPages = splitPages;
+			return this;
+		}
+		
+		/**
+		 * @param maxMemory The number of bytes of main memory used to buffer a pdf-file (0 to buffer it in a scratch
+		 *                  file only) or a negative number if it is not limited.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder maxMemory(final long maxMemory) {
+			this.maxMemory = Math.max(-1, maxMemory);
+			return this;
+		}
+		
+		/**
+		 * @param scratchDir The directory the scratch files should be created in or null for the default temporary
+		 *                   directory.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder scratchDir(@Nullable final File scratchDir) {
+			this.scratchDir = scratchDir;
+			return this;
+		}
+		
+		/**
+		 * @param memoryMapped Whether the pdf-files should be mapped into memory instead of being read through a
+		 *                     buffer. Defaults to false.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder memoryMapped(final boolean memoryMapped) {
+			this.memoryMapped = memoryMapped;
+			return this;
+		}
+		
+		/**
+		 * @param lowMemory Whether the resources of each page should be released once it was censored. Defaults to
+		 *                  false.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder lowMemory(final boolean lowMemory) {
+			this.lowMemory = lowMemory;
+			return this;
+		}
+		
+		/**
+		 * @param compact Whether the output should be written using object streams and a cross-reference stream.
+		 *                Defaults to false.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder compact(final boolean compact) {
+			this.compact = compact;
+			return this;
+		}
+		
+		/**
+		 * @param linearized Whether the output should be linearized such that its first page can be shown before it
+		 *                   was loaded. Defaults to false.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder linearized(final boolean linearized) {
+			this.linearized = linearized;
+			return this;
+		}
+		
+		/**
+		 * @param deduplicate Whether identical streams and resources should be collapsed into shared objects before
+		 *                    saving. Defaults to false.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder deduplicate(final boolean deduplicate) {
+			this.deduplicate = deduplicate;
+			return this;
+		}
+		
+		/**
+		 * @param memoryBudget The number of bytes of heap the pdf-files censored concurrently may use together or a
+		 *                     non-positive number if it is not limited.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder memoryBudget(final long memoryBudget) {
+			this.memoryBudget = memoryBudget > 0 ? memoryBudget : -1;
+			return this;
+		}
+		
+		/**
+		 * @param compressionLevel The level between 0 (stored uncompressed) and 9 (smallest) the censored streams
+		 *                         should be compressed at or -1 if the default level should be used.
+		 * @return this builder.
+		 * @throws IllegalArgumentException if the compression level is invalid.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder compressionLevel(final int compressionLevel) {
+			Validate.isTrue(compressionLevel >= -1 && compressionLevel <= 9,
+							"The compression level has to be in [-1, 9].");
+			this.compressionLevel = compressionLevel;
+			return this;
+		}
+		
+		/**
+		 * @param cacheDir The directory the censored pdf-files should be cached in or null if they should not be
+		 *                 cached.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder cacheDir(@Nullable final File cacheDir) {
+			this.cacheDir = cacheDir;
+			return this;
+		}
+		
+		/**
+		 * @param cacheSize The number of bytes the cached pdf-files may take up together.
+		 * @return this builder.
+		 * @throws IllegalArgumentException if the cache size is not positive.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder cacheSize(final long cacheSize) {
+			Validate.isTrue(cacheSize > 0, "The cache size has to be positive.");
+			this.cacheSize = cacheSize;
+			return this;
+		}
+		
+		/**
+		 * @param glyphSidecar Whether the glyphs of each censored pdf-file should be recorded in a sidecar next to it.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder glyphSidecar(final boolean glyphSidecar) {
+			this.glyphSidecar = glyphSidecar;
+			return this;
+		}
+		
+		/**
+		 * @param timeout The number of milliseconds censoring a single pdf-file may take or a non-positive number if it
+		 *                is not limited.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder timeout(final long timeout) {
+			this.timeout = timeout > 0 ? timeout : -1;
+			return this;
+		}
+		
+		/**
+		 * @param password The password to decrypt an encrypted pdf-file. May be null.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder password(@Nullable final String password) {
+			this.password = password;
+			return this;
+		}
+		
+		/**
+		 * @param noInteraction True if the user should never be prompted (e.g. for a password), false otherwise.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder noInteraction(final boolean noInteraction) {
+			this.noInteraction = noInteraction;
+			return this;
+		}
+		
+		/**
+		 * @param distinguishLinks True if links should be distinguished from normal text, false otherwise.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder distinguishLinks(final boolean distinguishLinks) {
+			this.distinguishLinks = distinguishLinks;
+			return this;
+		}
+		
+		/**
+		 * @param mode The mode to use for censoring. May not be null.
+		 * @return this builder.
+		 * @throws NullPointerException if mode is null.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder mode(@NotNull final Mode mode) {
+			this.mode = Objects.requireNonNull(mode);
+			return this;
+		}
+		
+		/**
+		 * Adds an expression. Expressions take precedence in the order they were added. Expressions without a color are
+		 * assigned one of the default colors.
+		 *
+		 * @param regex The regex of the expression. May not be null.
+		 * @param color The color matches of the expression should be censored in. May be null.
+		 * @return this builder.
+		 * @throws NullPointerException if regex is null.
+		 * @see #defaultColors(Color...)
+		 */
+		@NotNull
+		@Contract("_, _ -> this")
+		public Builder expression(@NotNull final String regex, @Nullable final Color color) {
+			expressions.add(new Expression(regex, color));
+			return this;
+		}
+		
+		/**
+		 * @param defaultColors The colors that are assigned (in their order) to the expressions without a color. May
+		 *                      neither be null nor contain null.
+		 * @return this builder.
+		 * @throws NullPointerException     if defaultColors is null.
+		 * @throws IllegalArgumentException if defaultColors contains null.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder defaultColors(@NotNull final Color... defaultColors) {
+			this.defaultColors = Validate.noNullElements(defaultColors).clone();
+			return this;
+		}
+		
+		/**
+		 * @param intersectImages True if text censor bars may be drawn atop of censored images, false otherwise.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder intersectImages(final boolean intersectImages) {
+			this.intersectImages = intersectImages;
+			return this;
+		}
+		
+		/**
+		 * @param pages          The pages that should be censored. May not be null.
+		 * @param dropUnselected True if the pages that are not selected should be removed, false if they should be kept
+		 *                       as they are.
+		 * @return this builder.
+		 * @throws NullPointerException if pages is null.
+		 */
+		@NotNull
+		@Contract("_, _ -> this")
+		public Builder pages(@NotNull final PageSelection pages, final boolean dropUnselected) {
+			this.pages = Objects.requireNonNull(pages);
+			this.dropUnselected = dropUnselected;
+			return this;
+		}
+		
+		/**
+		 * Adds a zone that should be censored regardless of its content. The zones are censored in addition to the
+		 * expressions unless only the zones should be censored (see {@link #zoneOnly(boolean)}).
+		 *
+		 * @param pages The pages the zone applies to. May not be null.
+		 * @param color The color the zone should be censored in. May be null.
+		 * @param rects The rectangles of the zone. May neither be null, empty nor contain null.
+		 * @return this builder.
+		 * @throws NullPointerException     if pages or rects are null.
+		 * @throws IllegalArgumentException if rects is empty or contains null.
+		 */
+		@NotNull
+		@Contract("_, _, _ -> this")
+		public Builder zone(@NotNull final PageSelection pages, @Nullable final Color color,
+							@NotNull final Rectangle2D... rects) {
+			zones.add(new Zone(pages, rects, color));
+			return this;
+		}
+		
+		/**
+		 * @param zoneOnly True if only the zones should be censored and all other text kept, false if they should be
+		 *                 censored in addition to the expressions. Requires zones but no expressions.
+		 * @return this builder.
+		 */
+		@NotNull
+		@Contract("_ -> this")
+		public Builder zoneOnly(final boolean zoneOnly) {
+			this.zoneOnly = zoneOnly;
+			return this;
+		}
+		
+		/**
+		 * Builds new settings from the values of this builder.
+		 *
+		 * @return the new settings.
+		 * @throws IllegalArgumentException if the values are inconsistent, e.g. no input was set although neither a
+		 *                                  server should be started nor a directory should be watched.
+		 */
+		@NotNull
+		@Contract(" -> new")
+		public Settings build() {
+			return new Settings(this);
+		}
+	}
+}
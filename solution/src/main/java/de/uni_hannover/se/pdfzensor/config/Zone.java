@@ -0,0 +1,193 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static de.uni_hannover.se.pdfzensor.utils.Utils.colorToString;
+import static de.uni_hannover.se.pdfzensor.utils.Utils.getColorOrNull;
+
+/**
+ * A Zone is a set of fixed rectangles on a selection of pages that should always be censored in the zone's color,
+ * regardless of the text (if any) inside of them. Zones are meant for fixed-layout documents like forms, where the
+ * sensitive fields are always located at the same coordinates.
+ * <br>
+ * In the configuration file a zone is specified as
+ * <pre>{"pages": "1, 3-", "rects": [[x, y, width, height], ...], "color": "#000000"}</pre>
+ * where the rectangles are given in PDF user space units with the origin in the lower left corner of the page. If no
+ * pages are specified the zone applies to every page, if no color is specified {@link Settings#DEFAULT_CENSOR_COLOR}
+ * is used.
+ */
+public final class Zone {
+	/** The pages this zone applies to. */
+	@NotNull
+	private final PageSelection pages;
+	/** The rectangles that should be censored on each of the selected pages. */
+	@NotNull
+	private final Rectangle2D[] rects;
+	/** The color the rectangles should be censored in. */
+	@Nullable
+	private final Color color;
+	/**
+	 * The index of {@link #getColor()} in the {@link Palette} of the {@link Settings} this zone belongs to. Is {@link
+	 * Palette#NO_COLOR} until the settings compiled their palette.
+	 */
+	private short colorIndex = Palette.NO_COLOR;
+	
+	/**
+	 * Initializes a new zone from its representation in the configuration file.
+	 *
+	 * @param pages    The page selection (see {@link PageSelection#parse(String)}). If null the zone applies to all
+	 *                 pages.
+	 * @param rects    The rectangles of the zone, each given as <code>[x, y, width, height]</code>.
+	 * @param hexColor The color the zone should be censored in (in hexadecimal notation). May be null.
+	 * @throws IllegalArgumentException if the pages are malformed, no rectangles were given, a rectangle does not
+	 *                                  consist of exactly four finite numbers or has a negative size, or the color is
+	 *                                  incorrectly formatted.
+	 */
+	@JsonCreator()
+	Zone(@Nullable @JsonProperty("pages") final String pages,
+		 @Nullable @JsonProperty("rects") final double[][] rects,
+		 @Nullable @JsonProperty("color") final String hexColor) {
+		this(PageSelection.parse(pages), toRectangles(rects), getColorOrNull(hexColor));
+	}
+	
+	/**
+	 * Initializes a new zone with the provided pages, rectangles and color.
+	 *
+	 * @param pages The pages the zone applies to. May not be null.
+	 * @param rects The rectangles of the zone. May neither be null, empty nor contain null.
+	 * @param color The color the zone should be censored in. May be null.
+	 * @throws NullPointerException     if pages or rects are null.
+	 * @throws IllegalArgumentException if rects is empty or contains null.
+	 */
+	Zone(@NotNull final PageSelection pages, @NotNull final Rectangle2D[] rects, @Nullable final Color color) {
+		this.pages = Objects.requireNonNull(pages);
+		Validate.notEmpty(rects, "A zone has to consist of at least one rectangle.");
+		this.rects = Validate.noNullElements(rects).clone();
+		this.color = color;
+	}
+	
+	/**
+	 * Converts the rectangles as they are specified in the configuration file into {@link Rectangle2D}s.
+	 *
+	 * @param rects The rectangles, each given as <code>[x, y, width, height]</code>.
+	 * @return The converted rectangles.
+	 * @throws IllegalArgumentException if rects is null or empty or one of the rectangles is malformed.
+	 */
+	@NotNull
+	private static Rectangle2D[] toRectangles(@Nullable final double[][] rects) {
+		Validate.isTrue(rects != null && rects.length > 0, "A zone has to consist of at least one rectangle.");
+		final var result = new Rectangle2D[rects.length];
+		for (var i = 0; i < rects.length; i++) {
+			final var r = rects[i];
+			Validate.isTrue(r != null && r.length == 4, "A zone's rectangle has to be given as [x, y, width, height].");
+			Validate.isTrue(Arrays.stream(r).allMatch(Double::isFinite), "A zone's rectangle has to be finite.");
+			Validate.isTrue(r[2] >= 0 && r[3] >= 0, "A zone's rectangle may not have a negative size.");
+			result[i] = new Rectangle2D.Double(r[0], r[1], r[2], r[3]);
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks whether this zone applies to the provided page.
+	 *
+	 * @param page The 1-based number of the page.
+	 * @return True if the zone's rectangles should be censored on the page, false otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean appliesTo(int page) {
+		return pages.contains(page);
+	}
+	
+	/**
+	 * @return The pages this zone applies to.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public PageSelection getPages() {
+		return pages;
+	}
+	
+	/**
+	 * @return A copy of the rectangles of this zone.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Rectangle2D[] getRects() {
+		return Arrays.stream(rects).map(r -> (Rectangle2D) r.clone()).toArray(Rectangle2D[]::new);
+	}
+	
+	/**
+	 * Returns the color this zone should be censored in. If none has been set {@link Settings#DEFAULT_CENSOR_COLOR} is
+	 * returned.
+	 *
+	 * @return The color associated with this zone.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Color getColor() {
+		return Optional.ofNullable(color).orElse(Settings.DEFAULT_CENSOR_COLOR);
+	}
+	
+	/**
+	 * Returns the index of this zone's color in the {@link Palette} of the {@link Settings} it belongs to.
+	 *
+	 * @return The index of this zone's color in the palette or {@link Palette#NO_COLOR} if it was not assigned.
+	 * @see Settings#getPalette()
+	 */
+	@Contract(pure = true)
+	public short getColorIndex() {
+		return colorIndex;
+	}
+	
+	/**
+	 * Assigns the index of this zone's color in the palette of the settings.
+	 *
+	 * @param palette The palette that contains this zone's color. May not be null.
+	 * @throws NullPointerException     if palette is null.
+	 * @throws IllegalArgumentException if the palette does not contain this zone's color.
+	 */
+	void assignColorIndex(@NotNull final Palette palette) {
+		final var index = Objects.requireNonNull(palette).indexOf(getColor());
+		Validate.isTrue(index != Palette.NO_COLOR, "The palette does not contain the zone's color.");
+		colorIndex = index;
+	}
+	
+	/**
+	 * Creates a copy of this zone with the same pages, rectangles and color. The copy has no color index assigned, such
+	 * that it may be part of a different palette.
+	 *
+	 * @return A new zone equal to this one.
+	 */
+	@NotNull
+	@Contract(value = " -> new", pure = true)
+	Zone copy() {
+		return new Zone(pages, rects, color);
+	}
+	
+	/**
+	 * Returns a string representation that represents this object.
+	 *
+	 * @return A string representation of this zone's pages, rectangles and color.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		final var r = Arrays.stream(rects)
+							.map(rect -> String.format("[%s, %s, %s, %s]", rect.getX(), rect.getY(), rect.getWidth(),
+													   rect.getHeight()))
+							.collect(Collectors.joining(", "));
+		return String.format("[pages: \"%s\"; rects: [%s]; color: %s]", pages, r, colorToString(color));
+	}
+}
@@ -1,5 +1,6 @@
 package de.uni_hannover.se.pdfzensor.processor;
 
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.TextPosition;
@@ -13,6 +14,18 @@ public interface PDFHandler {
 	 */
 	void beginDocument(PDDocument doc);
 	
+	/**
+	 * A callback for when work on a new document starts that should stop once the deadline is aborted. Handlers doing
+	 * work of their own (e.g. in other threads) should check the deadline as well. By default the deadline is ignored
+	 * and {@link #beginDocument(PDDocument)} is called.
+	 *
+	 * @param doc      the document which is being worked on.
+	 * @param deadline the deadline of the document.
+	 */
+	default void beginDocument(PDDocument doc, Deadline deadline) {
+		beginDocument(doc);
+	}
+	
 	/**
 	 * A callback for when work on a new page starts.
 	 *
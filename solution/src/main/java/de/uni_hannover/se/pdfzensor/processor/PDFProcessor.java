@@ -1,6 +1,10 @@
 package de.uni_hannover.se.pdfzensor.processor;
 
 import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.Logger;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.jetbrains.annotations.Contract;
@@ -8,6 +12,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.zip.Deflater;
 
 /**
  * PDFProcessor's primary use is to be an abstraction of {@link TextProcessor} for the public API. As such the
@@ -18,6 +24,15 @@ public final class PDFProcessor {
 	private static final Logger LOGGER = Logging.getLogger();
 	/** The handler that is called back on state changes in the {@link TextProcessor}. */
 	private final PDFHandler handler;
+	/** Tests the (1-based) number of a page whether it should be processed. */
+	@NotNull
+	private final IntPredicate pageFilter;
+	/** Whether pages rejected by the {@link #pageFilter} should be removed from the document instead of kept as is. */
+	private final boolean removeUnselected;
+	/** Whether the resources of each page should be released once it was processed (see {@link PageResourceCache}). */
+	private final boolean lowMemory;
+	/** The compression level of the censored streams. */
+	private final int compressionLevel;
 	
 	/**
 	 * Creates a new instance of a PDFProcessor and sets the handler that should be responsible for managing the
@@ -27,21 +42,124 @@ public final class PDFProcessor {
 	 */
 	@Contract(pure = true)
 	public PDFProcessor(@NotNull PDFHandler handler) {
+		this(handler, page -> true, false, false, Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	/**
+	 * Creates a new instance of a PDFProcessor that processes the pages selected by the settings. The other pages are
+	 * either passed through without being parsed or removed from the document, depending on {@link
+	 * Settings#getDropUnselected()}. In low-memory mode (see {@link Settings#isLowMemory()}) the resources of a page
+	 * (fonts, images etc.) are released once the page was processed, unless a later page uses them as well, such that
+	 * the heap does not grow with the number of pages. The censored streams are compressed at {@link
+	 * Settings#getCompressionLevel()} in the background while the following pages are processed.
+	 *
+	 * @param handler  the PDFHandler responsible for managing the text-processing.
+	 * @param settings the settings specifying the pages to process and how.
+	 */
+	@Contract(pure = true)
+	public PDFProcessor(@NotNull PDFHandler handler, @NotNull Settings settings) {
+		this(handler, settings.getPages()::contains, settings.getDropUnselected(), settings.isLowMemory(),
+			 settings.getCompressionLevel());
+	}
+	
+	/**
+	 * Creates a new instance of a PDFProcessor like {@link #PDFProcessor(PDFHandler, Settings)} that only processes the
+	 * selected pages within the range, e.g. a chunk or part of the document. All other pages are kept as they are.
+	 *
+	 * @param handler  the PDFHandler responsible for managing the text-processing.
+	 * @param settings the settings specifying the pages to process and how.
+	 * @param range    tests the (1-based) number of a page whether it is part of the range.
+	 */
+	@Contract(pure = true)
+	public PDFProcessor(@NotNull PDFHandler handler, @NotNull Settings settings, @NotNull IntPredicate range) {
+		this(handler, range.and(settings.getPages()::contains), false, settings.isLowMemory(),
+			 settings.getCompressionLevel());
+	}
+	
+	/**
+	 * Creates a new instance of a PDFProcessor.
+	 *
+	 * @param handler          the PDFHandler responsible for managing the text-processing.
+	 * @param pageFilter       tests the (1-based) number of a page whether it should be processed.
+	 * @param removeUnselected true if the pages that are not processed should be removed from the document, false if
+	 *                         they should be kept as they are.
+	 * @param lowMemory        true if the resources of each page should be released once it was processed.
+	 * @param compressionLevel the compression level between 0 (no compression) and 9 (best compression) or {@link
+	 *                         Deflater#DEFAULT_COMPRESSION}.
+	 * @throws IllegalArgumentException if the compression level is invalid.
+	 */
+	@Contract(pure = true)
+	private PDFProcessor(@NotNull PDFHandler handler, @NotNull IntPredicate pageFilter, boolean removeUnselected,
+						 boolean lowMemory, int compressionLevel) {
+		Validate.isTrue(compressionLevel == Deflater.DEFAULT_COMPRESSION ||
+						compressionLevel >= 0 && compressionLevel <= 9,
+						"The compression level has to be between 0 and 9.");
 		this.handler = Objects.requireNonNull(handler, "PDFHandler must not be null");
+		this.pageFilter = Objects.requireNonNull(pageFilter, "The page filter must not be null");
+		this.removeUnselected = removeUnselected;
+		this.lowMemory = lowMemory;
+		this.compressionLevel = compressionLevel;
 	}
 	
 	/**
 	 * Runs the entire processing for the provided project by creating a new {@link TextProcessor} that processes the
 	 * page using the formerly &ndash; in the constructor &ndash; specified {@link PDFHandler}.
+	 * <br>
+	 * Pages that are not selected are removed only after the processing is done, such that the page numbers passed to
+	 * the handler are those of the original document.
 	 *
 	 * @param document the document that should be processed.
 	 * @throws IOException if and I/O error occurs.
 	 */
 	public void process(@NotNull PDDocument document) throws IOException {
-		final var processor = new TextProcessor(handler);
+		process(document, Deadline.none());
+	}
+	
+	/**
+	 * Runs the entire processing like {@link #process(PDDocument)}, but aborts it once the deadline expired or was
+	 * cancelled. The deadline is checked for each operator and page as well as by the handler. If it was aborted at any
+	 * point an {@link AbortedException} is thrown, even if the processing finished, as parts of the document may have
+	 * been skipped. The document should not be saved then.
+	 * <br>
+	 * In low-memory mode a {@link PageResourceCache} replaces the resource cache of the document while it is
+	 * processed.
+	 *
+	 * @param document the document that should be processed.
+	 * @param deadline the deadline after which the processing should be aborted.
+	 * @throws AbortedException if the deadline expired or was cancelled.
+	 * @throws IOException      if and I/O error occurs.
+	 */
+	public void process(@NotNull PDDocument document, @NotNull Deadline deadline) throws IOException {
 		final var information = Objects.requireNonNull(document).getDocumentInformation();
+		final var previousCache = document.getResourceCache();
+		final var resourceCache = lowMemory ? new PageResourceCache(document) : null;
+		final var processor = new TextProcessor(handler, pageFilter, Objects.requireNonNull(deadline), resourceCache,
+													compressionLevel);
 		LOGGER.debug("Processing {} by {}", information::getTitle, information::getAuthor);
-		processor.getText(document);
+		if (resourceCache != null)
+			document.setResourceCache(resourceCache);
+		try {
+			processor.getText(document);
+		} finally {
+			document.setResourceCache(previousCache);
+		}
+		deadline.check();
+		if (removeUnselected)
+			removeUnselectedPages(document);
 		LOGGER.debug("Done processing");
 	}
+	
+	/**
+	 * Removes all pages from the document that are rejected by the {@link #pageFilter}.
+	 *
+	 * @param document the document whose unselected pages should be removed.
+	 */
+	private void removeUnselectedPages(@NotNull PDDocument document) {
+		final var pages = document.getPages();
+		for (int i = pages.getCount(); i >= 1; i--) {
+			if (!pageFilter.test(i))
+				pages.remove(i - 1);
+		}
+		LOGGER.debug("Kept {} page(s)", pages::getCount);
+	}
 }
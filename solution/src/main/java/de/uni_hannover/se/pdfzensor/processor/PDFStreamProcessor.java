@@ -2,6 +2,7 @@ package de.uni_hannover.se.pdfzensor.processor;
 
 import de.uni_hannover.se.pdfzensor.Logging;
 import de.uni_hannover.se.pdfzensor.censor.utils.DoubleBufferedStream;
+import de.uni_hannover.se.pdfzensor.censor.utils.StreamCompressor;
 import org.apache.logging.log4j.Logger;
 import org.apache.pdfbox.pdfwriter.ContentStreamWriter;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -16,6 +17,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.*;
+import java.util.zip.Deflater;
 
 /**
  * PDFStreamProcessor builds on the {@link org.apache.pdfbox.contentstream.PDFStreamEngine} via the {@link
@@ -32,6 +34,9 @@ class PDFStreamProcessor extends PDFTextStripper {
 	/** Whenever a stream is entered it gets added to the top of the stack... and taken off when the stream is closed. */
 	@Nullable
 	private Deque<DoubleBufferedStream> currentStream = null;
+	/** Compresses the rewritten streams in the background while the next ones are processed. */
+	@NotNull
+	private final StreamCompressor compressor;
 	
 	/**
 	 * Creates a new instance of the PDFStreamProcessor.
@@ -40,7 +45,21 @@ class PDFStreamProcessor extends PDFTextStripper {
 	 * @see PDFTextStripper#PDFTextStripper()
 	 */
 	PDFStreamProcessor() throws IOException {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	/**
+	 * Creates a new instance of the PDFStreamProcessor compressing the rewritten streams at the provided level.
+	 *
+	 * @param compressionLevel the compression level between 0 (no compression) and 9 (best compression) or {@link
+	 *                         Deflater#DEFAULT_COMPRESSION}.
+	 * @throws IOException              If there is an error loading the properties.
+	 * @throws IllegalArgumentException if the compression level is invalid.
+	 * @see PDFTextStripper#PDFTextStripper()
+	 */
+	PDFStreamProcessor(int compressionLevel) throws IOException {
 		super();
+		compressor = new StreamCompressor(compressionLevel);
 	}
 	
 	/**
@@ -118,12 +137,14 @@ class PDFStreamProcessor extends PDFTextStripper {
 		var information = Objects.requireNonNull(document).getDocumentInformation();
 		LOGGER.debug("Starting to process a new document: {} by {}", information::getTitle, information::getAuthor);
 		currentStream = new ArrayDeque<>();
+		compressor.clear();
 		super.startDocument(document);
 	}
 	
 	/**
 	 * <i><b>Do not call this method directly</b></i><br>
-	 * Appends PDFTextStripper's {@link PDFTextStripper#endDocument(PDDocument)} by deinitializing the stream stack.
+	 * Appends PDFTextStripper's {@link PDFTextStripper#endDocument(PDDocument)} by deinitializing the stream stack and
+	 * writing the streams still being compressed.
 	 *
 	 * @param document The PDF document that has been processed. May not be <code>null</code>.
 	 * @throws IOException          if an I/O error occurs.
@@ -140,6 +161,7 @@ class PDFStreamProcessor extends PDFTextStripper {
 		}
 		currentStream.clear();
 		currentStream = null;
+		compressor.awaitAll();
 	}
 	
 	/**
@@ -155,7 +177,8 @@ class PDFStreamProcessor extends PDFTextStripper {
 	protected void startPage(@NotNull final PDPage page) throws IOException {
 		Objects.requireNonNull(page);
 		LOGGER.debug("Starting to process page {}/{}", this::getCurrentPageNo, document::getNumberOfPages);
-		var bufferedStream = new DoubleBufferedStream(new PDStream(document), page.getContents());
+		compressor.applyCompleted();
+		var bufferedStream = new DoubleBufferedStream(new PDStream(document), page.getContents(), compressor);
 		pushStream(bufferedStream);
 		super.startPage(page);
 	}
@@ -188,7 +211,9 @@ class PDFStreamProcessor extends PDFTextStripper {
 	public void showTransparencyGroup(@NotNull final PDTransparencyGroup form) throws IOException {
 		Objects.requireNonNull(form);
 		LOGGER.debug("Entering transparency group");
-		pushStream(new DoubleBufferedStream(form.getContentStream(), form.getContents()));
+		// the form may have been rewritten before if it is used more than once
+		compressor.await(form.getCOSObject());
+		pushStream(new DoubleBufferedStream(form.getContentStream(), form.getContents(), compressor));
 		super.showTransparencyGroup(form);
 		popStream();
 		LOGGER.debug("Exiting transparency group");
@@ -207,7 +232,9 @@ class PDFStreamProcessor extends PDFTextStripper {
 	public void showForm(@NotNull final PDFormXObject form) throws IOException {
 		Objects.requireNonNull(form);
 		LOGGER.debug("Entering FormXObject");
-		pushStream(new DoubleBufferedStream(form.getContentStream(), form.getContents()));
+		// the form may have been rewritten before if it is used more than once
+		compressor.await(form.getCOSObject());
+		pushStream(new DoubleBufferedStream(form.getContentStream(), form.getContents(), compressor));
 		super.showForm(form);
 		popStream();
 		LOGGER.debug("Exiting FormXObject");
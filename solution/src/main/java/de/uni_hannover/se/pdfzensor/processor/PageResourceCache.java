@@ -0,0 +1,211 @@
+package de.uni_hannover.se.pdfzensor.processor;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.ResourceCache;
+import org.apache.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The PageResourceCache is a {@link ResourceCache} for the low-memory mode. PDFBox' default cache keeps every font,
+ * image, color space etc. it ever loaded softly reachable, such that the heap grows with the number of pages until the
+ * garbage collector is about to run out of memory. This cache instead keeps each resource only until the last page
+ * using it was processed and releases it in {@link #endPage(int)} &ndash; together with the decoded data it holds, such
+ * as parsed font programs, glyph outlines and decoded images.
+ * <br>
+ * Which page uses a resource last is determined once up front by walking the resource dictionaries of the pages
+ * (including those of nested forms, patterns and Type 3 fonts). The resources are identified by their references. To
+ * find the nested resources, the COS objects of the resources are parsed (the dictionaries of streams included), but
+ * neither is their stream data decoded nor are fonts, images etc. created from them. Resources not found that way are
+ * released at the end of the page they were loaded for.
+ */
+final class PageResourceCache implements ResourceCache {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The categories of a resource dictionary whose entries are cached. */
+	private static final COSName[] CATEGORIES = {COSName.FONT, COSName.XOBJECT, COSName.COLORSPACE,
+												 COSName.EXT_G_STATE, COSName.SHADING, COSName.PATTERN,
+												 COSName.PROPERTIES};
+	/** The number of pages after which the cache and heap usage is logged. */
+	private static final int REPORT_INTERVAL = 1000;
+	
+	/** The (1-based) number of the last page using a resource, by the reference to the resource. */
+	@NotNull
+	private final Map<COSObject, Integer> lastUse = new HashMap<>();
+	/** The cached fonts. */
+	private final Map<COSObject, PDFont> fonts = new HashMap<>();
+	/** The cached color spaces. */
+	private final Map<COSObject, PDColorSpace> colorSpaces = new HashMap<>();
+	/** The cached extended graphics states. */
+	private final Map<COSObject, PDExtendedGraphicsState> extGStates = new HashMap<>();
+	/** The cached shadings. */
+	private final Map<COSObject, PDShading> shadings = new HashMap<>();
+	/** The cached patterns. */
+	private final Map<COSObject, PDAbstractPattern> patterns = new HashMap<>();
+	/** The cached property lists. */
+	private final Map<COSObject, PDPropertyList> properties = new HashMap<>();
+	/** The cached XObjects. */
+	private final Map<COSObject, PDXObject> xObjects = new HashMap<>();
+	/** All caches, such that they may be evicted together. */
+	private final List<Map<COSObject, ?>> caches = List.of(fonts, colorSpaces, extGStates, shadings, patterns,
+															properties, xObjects);
+	
+	/**
+	 * Creates a new cache for the provided document and determines the last page using each of its resources.
+	 *
+	 * @param document the document whose resources should be cached. May not be null.
+	 */
+	PageResourceCache(@NotNull PDDocument document) {
+		var pageNum = 0;
+		for (var page : Objects.requireNonNull(document).getPages()) {
+			pageNum++;
+			final var resources = page.getResources();
+			if (resources != null)
+				collect(resources.getCOSObject(), pageNum);
+		}
+		LOGGER.debug("Found {} resources on {} pages", lastUse.size(), pageNum);
+	}
+	
+	/**
+	 * Records the page as the last one using the resources of the dictionary and of the resources nested in them.
+	 *
+	 * @param resources the resource dictionary.
+	 * @param pageNum   the (1-based) number of the page using the resources.
+	 */
+	private void collect(@NotNull COSDictionary resources, int pageNum) {
+		for (var category : CATEGORIES) {
+			if (!(resources.getDictionaryObject(category) instanceof COSDictionary))
+				continue;
+			final var entries = (COSDictionary) resources.getDictionaryObject(category);
+			for (var name : entries.keySet()) {
+				final var item = entries.getItem(name);
+				// the nested resources of those used on this page already were collected before
+				if (item instanceof COSObject && !Objects.equals(lastUse.put((COSObject) item, pageNum), pageNum))
+					collectNested(((COSObject) item).getObject(), pageNum);
+			}
+		}
+	}
+	
+	/**
+	 * Records the page as the last one using the resources nested in a resource, such as those of a form.
+	 *
+	 * @param resource the resource that may have nested resources.
+	 * @param pageNum  the (1-based) number of the page using the resource.
+	 */
+	private void collectNested(@Nullable COSBase resource, int pageNum) {
+		if (resource instanceof COSDictionary &&
+			((COSDictionary) resource).getDictionaryObject(COSName.RESOURCES) instanceof COSDictionary)
+			collect((COSDictionary) ((COSDictionary) resource).getDictionaryObject(COSName.RESOURCES), pageNum);
+	}
+	
+	/**
+	 * Releases the resources no later page uses. Should be called once the page was processed completely.
+	 *
+	 * @param pageNum the (1-based) number of the page that was processed.
+	 */
+	void endPage(int pageNum) {
+		for (var cache : caches)
+			cache.keySet().removeIf(key -> lastUse.getOrDefault(key, 0) <= pageNum);
+		if (pageNum % REPORT_INTERVAL == 0 && LOGGER.isDebugEnabled()) {
+			final var runtime = Runtime.getRuntime();
+			LOGGER.debug("Page {}: {} resources cached, {} MiB heap used", pageNum, size(),
+						 (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+		}
+	}
+	
+	/**
+	 * @return the number of resources currently cached.
+	 */
+	@Contract(pure = true)
+	int size() {
+		return caches.stream().mapToInt(Map::size).sum();
+	}
+	
+	@Override
+	public PDFont getFont(COSObject indirect) {
+		return fonts.get(indirect);
+	}
+	
+	@Override
+	public PDColorSpace getColorSpace(COSObject indirect) {
+		return colorSpaces.get(indirect);
+	}
+	
+	@Override
+	public PDExtendedGraphicsState getExtGState(COSObject indirect) {
+		return extGStates.get(indirect);
+	}
+	
+	@Override
+	public PDShading getShading(COSObject indirect) {
+		return shadings.get(indirect);
+	}
+	
+	@Override
+	public PDAbstractPattern getPattern(COSObject indirect) {
+		return patterns.get(indirect);
+	}
+	
+	@Override
+	public PDPropertyList getProperties(COSObject indirect) {
+		return properties.get(indirect);
+	}
+	
+	@Override
+	public PDXObject getXObject(COSObject indirect) {
+		return xObjects.get(indirect);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDFont font) {
+		fonts.put(indirect, font);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDColorSpace colorSpace) {
+		colorSpaces.put(indirect, colorSpace);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDExtendedGraphicsState extGState) {
+		extGStates.put(indirect, extGState);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDShading shading) {
+		shadings.put(indirect, shading);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDAbstractPattern pattern) {
+		patterns.put(indirect, pattern);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDPropertyList propertyList) {
+		properties.put(indirect, propertyList);
+	}
+	
+	@Override
+	public void put(COSObject indirect, PDXObject xObject) {
+		xObjects.put(indirect, xObject);
+	}
+}
@@ -1,6 +1,7 @@
 package de.uni_hannover.se.pdfzensor.processor;
 
 import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.Logger;
@@ -19,12 +20,15 @@ import org.apache.pdfbox.text.TextPosition;
 import org.apache.pdfbox.util.Vector;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.zip.Deflater;
 
 import static de.uni_hannover.se.pdfzensor.utils.Utils.reduceArray;
 import static java.lang.Boolean.TRUE;
@@ -50,6 +54,15 @@ public class TextProcessor extends PDFStreamProcessor {
 	
 	/** The PDFHandler responsible for managing the processing-task. */
 	private PDFHandler handler;
+	/** Tests the (1-based) number of a page whether it should be processed. Other pages are left untouched. */
+	@NotNull
+	private final IntPredicate pageFilter;
+	/** The deadline after which the processing is aborted. Checked for each page and operator. */
+	@NotNull
+	private final Deadline deadline;
+	/** The cache whose resources are released after each page or null if they should be kept. */
+	@Nullable
+	private final PageResourceCache resourceCache;
 	/** Stores if the encountered glyphs should be censored for the currently processed show-text-operation. */
 	private List<Boolean> shouldBeCensored = new ArrayList<>();
 	
@@ -60,8 +73,32 @@ public class TextProcessor extends PDFStreamProcessor {
 	 * @throws IOException If there is an error loading the properties in {@link PDFTextStripper#PDFTextStripper()}
 	 */
 	TextProcessor(@NotNull PDFHandler handler) throws IOException {
-		super();
+		this(handler, page -> true, Deadline.none(), null, Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	/**
+	 * The processor informs the handler about important events and transfers the documents. Only pages accepted by the
+	 * page filter are processed, all other pages are passed through without parsing their content stream (and without
+	 * informing the handler about them). The processing is aborted at the next page or operator once the deadline
+	 * expired or was cancelled. If a resource cache is provided, the resources no later page uses are released once a
+	 * page was processed and censored. The censored streams are compressed at the provided level.
+	 *
+	 * @param handler          the internal handler which acts to process the documents.
+	 * @param pageFilter       tests the (1-based) number of a page whether it should be processed.
+	 * @param deadline         the deadline after which the processing should be aborted.
+	 * @param resourceCache    the cache installed in the document whose resources should be released after each page
+	 *                         or null if they should be kept.
+	 * @param compressionLevel the compression level between 0 (no compression) and 9 (best compression) or {@link
+	 *                         Deflater#DEFAULT_COMPRESSION}.
+	 * @throws IOException If there is an error loading the properties in {@link PDFTextStripper#PDFTextStripper()}
+	 */
+	TextProcessor(@NotNull PDFHandler handler, @NotNull IntPredicate pageFilter, @NotNull Deadline deadline,
+				  @Nullable PageResourceCache resourceCache, int compressionLevel) throws IOException {
+		super(compressionLevel);
 		this.handler = Objects.requireNonNull(handler);
+		this.pageFilter = Objects.requireNonNull(pageFilter);
+		this.deadline = Objects.requireNonNull(deadline);
+		this.resourceCache = resourceCache;
 	}
 	
 	/**
@@ -137,7 +174,7 @@ public class TextProcessor extends PDFStreamProcessor {
 	@Override
 	protected void startDocument(final @NotNull PDDocument document) throws IOException {
 		super.startDocument(document);
-		handler.beginDocument(document);
+		handler.beginDocument(document, deadline);
 	}
 	
 	/**
@@ -152,6 +189,22 @@ public class TextProcessor extends PDFStreamProcessor {
 		super.endDocument(document);
 	}
 	
+	/**
+	 * Processes the page if it is accepted by the {@link #pageFilter}. Otherwise the page is skipped such that neither
+	 * its content stream nor its resources or annotations are touched. Before that the {@link #deadline} is checked.
+	 *
+	 * @param page The page that should be processed.
+	 * @throws IOException If there is an error processing the page or the deadline was aborted.
+	 */
+	@Override
+	public void processPage(final PDPage page) throws IOException {
+		deadline.check();
+		if (pageFilter.test(getCurrentPageNo()))
+			super.processPage(page);
+		else
+			LOGGER.debug("Passing through page {} unprocessed", getCurrentPageNo());
+	}
+	
 	/**
 	 * Start the current page and pass it to the handler.
 	 *
@@ -165,7 +218,8 @@ public class TextProcessor extends PDFStreamProcessor {
 	}
 	
 	/**
-	 * End editing page and pass it to the handler.
+	 * End editing page and pass it to the handler. Afterwards the resources no later page uses are released from the
+	 * {@link #resourceCache} (if there is one), as the censored content stream was written by then.
 	 *
 	 * @param page The page we just got processed.
 	 * @throws IOException If there is an error loading the properties.
@@ -174,6 +228,8 @@ public class TextProcessor extends PDFStreamProcessor {
 	protected void endPage(final PDPage page) throws IOException {
 		super.endPage(page);
 		handler.endPage(document, page, getCurrentPageNo());
+		if (resourceCache != null)
+			resourceCache.endPage(getCurrentPageNo());
 	}
 	
 	/**
@@ -191,14 +247,17 @@ public class TextProcessor extends PDFStreamProcessor {
 	 * Used to handle an operation. SHOW_TEXT_ADJUSTED and SHOW_TEXT are operators for text in the PDF structure. The
 	 * function copies everything that is not defined as text in the PDF structure. Then the processOperator implemented
 	 * in the {@link org.apache.pdfbox.text.PDFTextStripper} is called which calls shouldCensored to decide if text
-	 * should be censored or not. In shouldCensored a bool is stored to decide if text should be censored or not.
+	 * should be censored or not. In shouldCensored a bool is stored to decide if text should be censored or not. Before
+	 * each operation the {@link #deadline} is checked, such that a malformed content stream can not stall the
+	 * processing.
 	 *
 	 * @param operator The operation to perform.
 	 * @param operands The list of arguments.
-	 * @throws IOException If there is an error processing the operation.
+	 * @throws IOException If there is an error processing the operation or the deadline was aborted.
 	 */
 	@Override
 	protected void processOperator(@NotNull final Operator operator, final List<COSBase> operands) throws IOException {
+		deadline.check();
 		if (StringUtils.equalsAny(operator.getName(), IGNORED_OPERATIONS)) {
 			/* ignore IGNORED_OPERATIONS */
 		} else if (StringUtils.equalsAny(operator.getName(), UNHANDLED_OPERATIONS)) {
@@ -0,0 +1,416 @@
+package de.uni_hannover.se.pdfzensor.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.batch.Manifest;
+import de.uni_hannover.se.pdfzensor.batch.MemoryBudget;
+import de.uni_hannover.se.pdfzensor.batch.ResultCache;
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import de.uni_hannover.se.pdfzensor.writer.DocumentWriter;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The CensorServer keeps a warm JVM and censors the pdf-files posted to it over HTTP. It only listens on the loopback
+ * interface and provides the following endpoints:
+ * <ul>
+ *     <li><code>POST /censor</code>: the body is the pdf-file that should be censored, the response the censored
+ *     pdf-file. Additional expressions may be specified by the query parameters <code>e</code> (the regex) and
+ *     <code>color</code> (the hexadecimal color of the preceding <code>e</code>), just like <code>-e regex
+ *     [color]</code> on the command-line. If censoring takes longer than {@link Settings#getTimeout()} it is aborted
+ *     and 422 is sent instead.</li>
+ *     <li><code>GET /health</code>: 200 while the server is running.</li>
+ *     <li><code>GET /ready</code>: 200 if a request would be accepted right now, 503 otherwise.</li>
+ * </ul>
+ * At most {@link Settings#getThreads()} pdf-files are censored concurrently and at most {@link
+ * Settings#getQueueSize()} further requests wait for a free thread. Requests exceeding that are rejected with 503
+ * immediately, such that the server's memory stays bounded under load. Additionally the pdf-files censored
+ * concurrently are admitted by a {@link MemoryBudget} based on their content length. A pdf-file without content length
+ * (e.g. a chunked upload) reserves the whole budget until it was read, as it may be of any size.
+ * <br>
+ * If a cache directory was specified, the censored pdf-files of the requests without further expressions are kept in
+ * a {@link ResultCache}, such that a pdf-file posted again is answered from the cache instead of being censored.
+ * Encrypted pdf-files are never cached.
+ */
+public final class CensorServer implements AutoCloseable {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The number of seconds a client should wait before retrying a request rejected because the queue was full. */
+	private static final int RETRY_AFTER = 1;
+	
+	/** The settings applied to each posted pdf-file (unless further expressions are specified by the request). */
+	@NotNull
+	private final Settings settings;
+	/** The underlying HTTP server. */
+	@NotNull
+	private final HttpServer server;
+	/** The threads handling the requests. Its size is effectively bounded by {@link #admitted}. */
+	@NotNull
+	private final ExecutorService executor;
+	/** The permits of the requests that may be censored or queued at the same time. */
+	@NotNull
+	private final Semaphore admitted;
+	/** The permits of the requests that may be censored at the same time. */
+	@NotNull
+	private final Semaphore censoring;
+	/** Admits the posted pdf-files such that they stay within the memory budget together. */
+	@NotNull
+	private final MemoryBudget budget;
+	/** The cache of the pdf-files censored with the {@link #settings}. Null if they should not be cached. */
+	@Nullable
+	private final ResultCache cache;
+	/** The idle processors for the {@link #settings}, such that censors are reused across requests. */
+	@NotNull
+	private final Queue<PDFProcessor> idle = new ConcurrentLinkedQueue<>();
+	/** True while the server is running. */
+	private volatile boolean running = false;
+	
+	/**
+	 * Creates a new CensorServer listening on the loopback interface at the port specified by the settings. The
+	 * server has to be {@link #start() started} before it handles requests.
+	 *
+	 * @param settings the settings that should be applied to each posted pdf-file. May not be null.
+	 * @throws NullPointerException     if settings is null.
+	 * @throws IllegalArgumentException if the settings specify no server port or the cache directory could not be
+	 *                                  created.
+	 * @throws IOException              if the server could not be bound to the port.
+	 */
+	public CensorServer(@NotNull Settings settings) throws IOException {
+		this.settings = Objects.requireNonNull(settings);
+		final var port = Objects.requireNonNull(settings.getServerPort(), "No server port was specified.");
+		final var threads = settings.getThreads();
+		admitted = new Semaphore(threads + settings.getQueueSize());
+		censoring = new Semaphore(threads, true);
+		budget = new MemoryBudget(settings);
+		final var cacheDir = settings.getCacheDir();
+		cache = cacheDir == null ? null : new ResultCache(cacheDir, settings.getCacheSize(), settings.getFingerprint());
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		final var next = new AtomicInteger(1);
+		executor = Executors.newCachedThreadPool(r -> new Thread(r, "Censor-Server-" + next.getAndIncrement()));
+		server.setExecutor(executor);
+		server.createContext("/censor", this::handleCensor);
+		server.createContext("/health", exchange -> respond(exchange, 200, "OK"));
+		server.createContext("/ready", exchange -> {
+			if (running && admitted.availablePermits() > 0)
+				respond(exchange, 200, "READY");
+			else respond(exchange, 503, "BUSY");
+		});
+	}
+	
+	/** Starts handling requests. */
+	public void start() {
+		server.start();
+		running = true;
+		LOGGER.info("Censor server listening on {}", server.getAddress());
+	}
+	
+	/**
+	 * @return the port the server is listening on. If port 0 was specified this is the port that was chosen.
+	 */
+	@Contract(pure = true)
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Stops the server. Requests that are currently censored may take up to one second to complete, afterwards they
+	 * are aborted.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		server.stop(1);
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(1, TimeUnit.SECONDS))
+				LOGGER.warn("Not all requests terminated in time");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOGGER.info("Censor server stopped");
+	}
+	
+	/**
+	 * Handles a request to the <code>/censor</code> endpoint by censoring the posted pdf-file with the settings
+	 * extended by the expressions specified in the query.
+	 *
+	 * @param exchange the exchange containing the request and response.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void handleCensor(@NotNull HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			exchange.getResponseHeaders().set("Allow", "POST");
+			respond(exchange, 405, "Only POST is supported.");
+			return;
+		}
+		if (!running || !admitted.tryAcquire()) {
+			exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRY_AFTER));
+			respond(exchange, 503, "Too many requests.");
+			return;
+		}
+		try {
+			final List<Pair<String, String>> expressions;
+			try {
+				expressions = parseExpressions(exchange.getRequestURI().getRawQuery());
+			} catch (IllegalArgumentException e) {
+				respond(exchange, 400, e.getMessage());
+				return;
+			}
+			censoring.acquire();
+			try {
+				censor(exchange, expressions);
+			} finally {
+				censoring.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			respond(exchange, 503, "The server is shutting down.");
+		} finally {
+			admitted.release();
+		}
+	}
+	
+	/**
+	 * Censors the pdf-file posted in the exchange and sends it back as the response.
+	 *
+	 * @param exchange    the exchange containing the request and response.
+	 * @param expressions the additional expressions specified in the request.
+	 * @throws IOException          if an I/O error occurs while sending the response.
+	 * @throws InterruptedException if the current thread was interrupted while waiting for the memory budget.
+	 */
+	private void censor(@NotNull HttpExchange exchange, @NotNull List<Pair<String, String>> expressions)
+			throws IOException, InterruptedException {
+		final var start = System.nanoTime();
+		final byte[] result;
+		final var size = getContentLength(exchange);
+		try (var admission = size < 0 ? budget.admitUnknown() : budget.admit(size)) {
+			// the fingerprint of the cache only covers the settings without further expressions
+			if (cache != null && expressions.isEmpty()) {
+				final var input = readBody(exchange, size);
+				if (input == null) {
+					respond(exchange, 413, "The pdf-file exceeds the memory budget.");
+					return;
+				}
+				admission.setSize(input.length);
+				final var hash = Manifest.hash(new ByteArrayInputStream(input));
+				final var cached = cache.restore(hash);
+				if (cached == null)
+					result = censor(new ByteArrayInputStream(input), admission, expressions, hash);
+				else result = cached;
+			} else result = censor(exchange.getRequestBody(), admission, expressions, null);
+		} catch (AbortedException e) {
+			LOGGER.warn("Aborted censoring a posted pdf-file: {}", e.getMessage());
+			if (e.isTimeout())
+				respond(exchange, 422, e.getMessage());
+			else respond(exchange, 503, "The server is shutting down.");
+			return;
+		} catch (IOException e) {
+			LOGGER.warn("Failed to censor a posted pdf-file", e);
+			respond(exchange, 400, "The pdf-file could not be censored: " + e.getMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			respond(exchange, 400, e.getMessage());
+			return;
+		} catch (RuntimeException e) {
+			LOGGER.error("Failed to censor a posted pdf-file", e);
+			respond(exchange, 500, "The pdf-file could not be censored.");
+			return;
+		}
+		LOGGER.info("Censored a posted pdf-file in {} ms", (System.nanoTime() - start) / 1_000_000);
+		exchange.getResponseHeaders().set("Content-Type", "application/pdf");
+		exchange.sendResponseHeaders(200, result.length);
+		try (var body = exchange.getResponseBody()) {
+			body.write(result);
+		}
+	}
+	
+	/**
+	 * Censors the posted pdf-file with the settings extended by the expressions and stores it in the cache if a hash is
+	 * provided. An encrypted pdf-file is never stored, since the fingerprint of the cache does not cover the password
+	 * (see {@link Settings#getFingerprint()}) and a hit would return it to requests without the password.
+	 *
+	 * @param in          the stream of the posted pdf-file.
+	 * @param admission   the admission of the pdf-file by the memory budget.
+	 * @param expressions the additional expressions specified in the request.
+	 * @param hash        the hash of the posted pdf-file if it should be stored in the cache, null otherwise.
+	 * @return the censored pdf-file.
+	 * @throws IOException if the pdf-file could not be loaded, censored or saved.
+	 */
+	@NotNull
+	private byte[] censor(@NotNull InputStream in, @NotNull MemoryBudget.Admission admission,
+						  @NotNull List<Pair<String, String>> expressions, @Nullable String hash) throws IOException {
+		final var counting = new CountingInputStream(in);
+		try (var doc = PDDocument.load(counting, Objects.requireNonNullElse(settings.getPassword(), ""),
+									   admission.getMemoryUsageSetting())) {
+			final var encrypted = doc.isEncrypted();
+			doc.setAllSecurityToBeRemoved(true);
+			// the pdf-file was read completely, which reveals its size if the request did not specify it
+			admission.setSize(counting.getByteCount());
+			admission.setPages(doc.getNumberOfPages());
+			final PDFProcessor processor;
+			if (expressions.isEmpty())
+				processor = Objects.requireNonNullElseGet(idle.poll(), () -> createProcessor(settings));
+			else processor = createProcessor(settings.withExpressions(expressions));
+			// closing the server interrupts this thread, which cancels the deadline
+			processor.process(doc, new Deadline(settings.getTimeout()));
+			if (expressions.isEmpty())
+				idle.offer(processor);
+			final var out = new ByteArrayOutputStream();
+			DocumentWriter.save(doc, out, settings);
+			final var result = out.toByteArray();
+			if (hash != null && !encrypted)
+				store(hash, result);
+			return result;
+		}
+	}
+	
+	/**
+	 * Stores the censored pdf-file in the cache. A failure is logged only, as the pdf-file was censored nonetheless.
+	 *
+	 * @param hash   the hash of the posted pdf-file.
+	 * @param result the censored pdf-file.
+	 */
+	private void store(@NotNull String hash, @NotNull byte[] result) {
+		try {
+			Objects.requireNonNull(cache).store(hash, result);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to store a posted pdf-file in the cache", e);
+		}
+	}
+	
+	/**
+	 * Reads the posted pdf-file into main memory. If its size is unknown, at most the memory budget is read, such that
+	 * a chunked upload cannot exceed it.
+	 *
+	 * @param exchange the exchange containing the request.
+	 * @param size     the content length of the request or -1 if it is unknown.
+	 * @return the posted pdf-file or null if its size was unknown and it exceeds the memory budget.
+	 * @throws IOException if the pdf-file could not be read.
+	 */
+	@Nullable
+	private byte[] readBody(@NotNull HttpExchange exchange, long size) throws IOException {
+		final var limit = settings.getMemoryBudget();
+		if (size >= 0 || limit <= 0)
+			return exchange.getRequestBody().readAllBytes();
+		final var input = exchange.getRequestBody().readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+		return input.length > limit ? null : input;
+	}
+	
+	/**
+	 * Returns the length of the posted pdf-file as specified by the <code>Content-Length</code> header of the request.
+	 *
+	 * @param exchange the exchange containing the request.
+	 * @return the content length or -1 if it is unknown (e.g. because the pdf-file is uploaded in chunks).
+	 */
+	private static long getContentLength(@NotNull HttpExchange exchange) {
+		try {
+			final var length = Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Length"));
+			return length < 0 ? -1 : length;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Creates a new processor censoring with the provided settings.
+	 *
+	 * @param settings the settings that should be used for censoring.
+	 * @return the new processor.
+	 */
+	@NotNull
+	@Contract("_ -> new")
+	private static PDFProcessor createProcessor(@NotNull Settings settings) {
+		return new PDFProcessor(new PDFCensor(settings), settings);
+	}
+	
+	/**
+	 * Parses the additional expressions out of the raw query of a request. Each parameter <code>e</code> adds an
+	 * expression with the parameter's value as regex. A directly following parameter <code>color</code> sets its
+	 * color. Other parameters are ignored.
+	 *
+	 * @param rawQuery the raw (URL-encoded) query of the request. May be null.
+	 * @return the regex-color-pairs in the order they were specified. The color is null if none was specified.
+	 * @throws IllegalArgumentException if a color is specified without a preceding expression.
+	 */
+	@NotNull
+	static List<Pair<String, String>> parseExpressions(String rawQuery) {
+		final var result = new ArrayList<Pair<String, String>>();
+		if (rawQuery == null || rawQuery.isEmpty())
+			return result;
+		MutablePair<String, String> last = null;
+		for (var param : rawQuery.split("&")) {
+			final var split = param.indexOf('=');
+			final var key = decode(split < 0 ? param : param.substring(0, split));
+			final var value = split < 0 ? "" : decode(param.substring(split + 1));
+			if ("e".equals(key)) {
+				last = MutablePair.of(value, null);
+				result.add(last);
+			} else if ("color".equals(key)) {
+				if (last == null)
+					throw new IllegalArgumentException("A color has to follow an expression.");
+				last.setValue(value);
+				last = null;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Decodes a URL-encoded component of a query.
+	 *
+	 * @param value the URL-encoded value.
+	 * @return the decoded value.
+	 */
+	@NotNull
+	private static String decode(@NotNull String value) {
+		return URLDecoder.decode(value, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Sends a plain text response and closes the exchange. The request body is discarded.
+	 *
+	 * @param exchange the exchange to respond to.
+	 * @param status   the HTTP status code.
+	 * @param message  the message sent as the body of the response.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void respond(@NotNull HttpExchange exchange, int status, @NotNull String message)
+			throws IOException {
+		final var bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (var body = exchange.getResponseBody()) {
+			body.write(bytes);
+		}
+	}
+}
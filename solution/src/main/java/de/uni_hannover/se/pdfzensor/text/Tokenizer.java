@@ -1,6 +1,8 @@
 package de.uni_hannover.se.pdfzensor.text;
 
 import de.uni_hannover.se.pdfzensor.Logging;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.util.TriConsumer;
@@ -11,6 +13,7 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -25,6 +28,9 @@ import java.util.stream.Stream;
  * Tokenizer provides the means to tokenize an input-stream that contains payload. That means that the tokenizer
  * operates on a series of (char, payload)-tuples. When it finds a specified tokens a handler gets called with the
  * token's value, each character's payload and the token-definition that matched.
+ * <br>
+ * The tokenizer stops matching once its {@link #setDeadline(Deadline) deadline} was aborted, such that a pathological
+ * input can not keep the scanner-thread busy. Matching a single token is not interrupted though.
  *
  * @param <T> the token-implementation to be used by the tokenizer
  * @param <C> the payload-type
@@ -33,6 +39,10 @@ import java.util.stream.Stream;
 public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushable {
 	/** The Logger-instance instances of this class should log their output into. */
 	private static final Logger LOGGER = Logging.getLogger();
+	/** The number of milliseconds to wait for the scanner-thread before checking the {@link #deadline} again. */
+	private static final long JOIN_INTERVAL = 50;
+	/** The number of bytes the pipe between {@link #outputStream} and {@link #inputStream} may buffer. */
+	private static final int PIPE_SIZE = 1024;
 	/** The T[] represents the token-definitions as they were passed to {@link #Tokenizer(TokenDef[])}. */
 	@NotNull
 	private final T[] tokens;
@@ -59,8 +69,15 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 	 * Collection)} and the scanner reads from the input-stream inside the scanner-thread ({@link #thread}).
 	 */
 	private PipedOutputStream outputStream;
-	/** Stores the current scanner-thread that is responsible for waiting for input and tokenizing it. */
-	private Thread thread;
+	private PipedInputStream inputStream;
+	/**
+	 * Stores the current scanner-thread that is responsible for waiting for input and tokenizing it. A scanner-thread
+	 * that was abandoned as the {@link #deadline} was aborted is no longer stored and thus ignored.
+	 */
+	private volatile Thread thread;
+	/** The deadline after which no further tokens are matched. Never expires by default. */
+	@NotNull
+	private volatile Deadline deadline = Deadline.none();
 	/**
 	 * Holds the current handler-callback that will be called once a token was read. By default it is {@link
 	 * #emptyHandle(String, List, TokenDef)}.
@@ -110,7 +127,8 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 	
 	/**
 	 * Initializes the pipe and starts a scanner to scan in a new thread for the tokens on the piped input. You may use
-	 * {@link #close()} to deinitialize the parsing-process.
+	 * {@link #close()} to deinitialize the parsing-process. The data is piped as UTF-8, as the default charset of the
+	 * platform may not be able to encode all characters.
 	 */
 	private void setupParser() {
 		var latch = new CountDownLatch(1); //a latch used to wait for the initialization to be done in thread
@@ -118,16 +136,19 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 			LOGGER.debug("Initializing in the scanner-thread");
 			try {
 				outputStream = new PipedOutputStream();
-				var inputStream = new PipedInputStream(outputStream);
-				try (var scanner = new Scanner(inputStream)) {
+				inputStream = new PipedInputStream(outputStream, PIPE_SIZE);
+				try (var scanner = new Scanner(inputStream, StandardCharsets.UTF_8)) {
 					latch.countDown();
-					scanner.findAll(pattern).forEach(this::onTokenEncountered);
+					scanner.findAll(pattern).takeWhile(result -> !deadline.isAborted())
+						   .forEach(this::onTokenEncountered);
 					inputStream.close();
 				}
 			} catch (IOException e) {
 				LOGGER.fatal("An error occurred while tokenizing", e);
 			}
 		}, "Token-Scanner");
+		// a scanner-thread abandoned in the middle of matching a token should not keep the JVM running
+		thread.setDaemon(true);
 		LOGGER.debug("Starting the scanner-thread");
 		thread.start();
 		try {
@@ -147,12 +168,15 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 	 * token-definitions. This works because we generate our {@link #pattern} such that each token has its own capture
 	 * group and these are ordered according to the ordering in the token-definition array ({@link #tokens}). When a
 	 * group is found (or <code>null</code> for when the character could not be matched), the correct amount of payload
-	 * is dequeued from {@link #payload} via {@link #pop(int)} and the {@link #handler} is called.
+	 * is dequeued from {@link #payload} via {@link #pop(int)} and the {@link #handler} is called. Matches of an
+	 * abandoned scanner-thread are ignored.
 	 *
 	 * @param result the match result representing the found token in the input-stream. May not be null.
 	 */
 	private void onTokenEncountered(@NotNull MatchResult result) {
 		Objects.requireNonNull(result);
+		if (Thread.currentThread() != thread)
+			return;
 		//group is 1-based (0 marks the entire match) so we have to subtract one to make it 0-based and index into tokens
 		T token = IntStream.rangeClosed(1, result.groupCount()).filter(i -> Objects.nonNull(result.group(i)))
 						   .mapToObj(g -> tokens[g - 1]).findFirst().orElse(null);
@@ -185,16 +209,24 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 	
 	/**
 	 * Closes all streams and other resources associated with the tokenizer. Waits for the scanner-thread to close down
-	 * before returning. A closed closed tokenizer may be reopened by calling {@link #flush()}.
+	 * before returning, unless the {@link #deadline} was aborted. In that case the scanner-thread is abandoned, as it
+	 * may be stuck matching a single token. A closed closed tokenizer may be reopened by calling {@link #flush()}.
+	 * Closing an already closed tokenizer has no effect.
 	 *
 	 * @throws IOException if an I/O error occurs
 	 */
 	@Override
 	public void close() throws IOException {
+		if (outputStream == null)
+			return;
 		LOGGER.debug("Closing the tokenizer...");
 		outputStream.close();
 		try {
-			thread.join();
+			while (thread.isAlive() && !deadline.isAborted())
+				thread.join(JOIN_INTERVAL);
+			thread.join(JOIN_INTERVAL);
+			if (thread.isAlive())
+				LOGGER.warn("Abandoning the scanner-thread, as the deadline was aborted");
 		} catch (InterruptedException e) {
 			LOGGER.warn("Failed to join thread", e);
 			Thread.currentThread().interrupt();
@@ -202,6 +234,7 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 		payload.clear();
 		thread = null;
 		outputStream = null;
+		inputStream = null;
 	}
 	
 	/**
@@ -231,6 +264,7 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 	 * @param data    the input-text that should be tokenized. Not <code>null</code>.
 	 * @param payload the payload of the data. When the handler is called the payload corresponding to the token is
 	 *                passed back. Not <code>null</code>.
+	 * @throws AbortedException        if the deadline was aborted.
 	 * @throws IOException              if an I/O error occurs.
 	 * @throws NullPointerException     if data or payload are <code>null</code>.
 	 * @throws IllegalArgumentException if data.length() and payload.size() are not equal.
@@ -242,8 +276,55 @@ public class Tokenizer<T extends TokenDef, C> implements AutoCloseable, Flushabl
 		Validate.isTrue(data.length() == payload.size(),
 						String.format("Data length (%d) and payload size (%d) do not match for data: \"%s\"",
 									  data.length(), payload.size(), data));
+		deadline.check();
 		this.payload.addAll(payload);
-		outputStream.write(data.getBytes());
+		write(data.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Writes the bytes into the pipe. A plain write would block for as long as the pipe is full, which is forever if
+	 * the scanner-thread is stuck matching a token. Thus only as many bytes are written as fit into the pipe and the
+	 * deadline is checked while waiting for the scanner-thread to read from it.
+	 *
+	 * @param bytes the bytes that should be written.
+	 * @throws AbortedException if the deadline was aborted while waiting.
+	 * @throws IOException      if an I/O error occurs.
+	 */
+	private void write(byte[] bytes) throws IOException {
+		var offset = 0;
+		while (offset < bytes.length) {
+			final int free;
+			// the pipe notifies the writer waiting on it whenever the scanner-thread read from it
+			synchronized (inputStream) {
+				free = PIPE_SIZE - inputStream.available();
+				if (free <= 0) {
+					try {
+						inputStream.wait(JOIN_INTERVAL);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+			deadline.check();
+			if (free > 0) {
+				final var length = Math.min(free, bytes.length - offset);
+				outputStream.write(bytes, offset, length);
+				// wakes the scanner-thread right away, it would otherwise only poll the pipe for new data once a second
+				outputStream.flush();
+				offset += length;
+			}
+		}
+	}
+	
+	/**
+	 * Sets the deadline after which no further tokens are matched and a scanner-thread that is still busy is abandoned
+	 * when closing the tokenizer. Applies to the current scanner-thread as well.
+	 *
+	 * @param deadline the deadline of the current input. May not be null.
+	 * @throws NullPointerException if deadline is null.
+	 */
+	public void setDeadline(@NotNull Deadline deadline) {
+		this.deadline = Objects.requireNonNull(deadline);
 	}
 	
 	/**
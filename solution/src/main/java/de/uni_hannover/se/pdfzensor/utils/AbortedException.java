@@ -0,0 +1,35 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.jetbrains.annotations.Contract;
+
+import java.io.IOException;
+
+/**
+ * Signals that work on a pdf-file was aborted, as its {@link Deadline} expired or was cancelled. It is an {@link
+ * IOException} such that it passes through the processing just like errors reading a malformed pdf-file, but may be
+ * caught separately to report a distinct status.
+ */
+public class AbortedException extends IOException {
+	private static final long serialVersionUID = 1L;
+	/** True if the deadline expired, false if it was cancelled. */
+	private final boolean timeout;
+	
+	/**
+	 * Creates a new AbortedException.
+	 *
+	 * @param timeout true if the deadline expired, false if it was cancelled.
+	 * @param message the detail message.
+	 */
+	public AbortedException(boolean timeout, String message) {
+		super(message);
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * @return true if the deadline expired, false if it was cancelled.
+	 */
+	@Contract(pure = true)
+	public boolean isTimeout() {
+		return timeout;
+	}
+}
@@ -0,0 +1,102 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A Deadline limits the time a single pdf-file may be worked on and doubles as its cancellation token. The censoring
+ * cooperatively calls {@link #check()} at a fine granularity (for each operator, page and token), such that even a
+ * malformed pdf-file that would otherwise be processed for a very long time is aborted soon after the deadline passed
+ * or it was cancelled.
+ * <br>
+ * A deadline is aborted once it {@link #isExpired() expired} or was {@link #isCancelled() cancelled} and stays so
+ * afterwards. Interrupting a thread that checks the deadline cancels it as well, such that threads working on a
+ * pdf-file may be stopped the same way as any other thread. A deadline may be shared by multiple threads.
+ */
+public final class Deadline {
+	/** The time (see {@link System#nanoTime()}) after which the deadline expires or -1 if it never expires. */
+	private final long end;
+	/** The timeout (in milliseconds) the deadline was created with or -1 if it never expires. */
+	private final long timeout;
+	/** True if the deadline was cancelled. */
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * Creates a new deadline that expires after the provided timeout.
+	 *
+	 * @param timeout the number of milliseconds after which the deadline expires. Never expires if not positive.
+	 */
+	public Deadline(long timeout) {
+		this.timeout = timeout > 0 ? timeout : -1;
+		this.end = timeout > 0 ? System.nanoTime() + timeout * 1_000_000 : -1;
+	}
+	
+	/**
+	 * @return a new deadline that never expires but may still be cancelled.
+	 */
+	@NotNull
+	@Contract(value = " -> new", pure = true)
+	public static Deadline none() {
+		return new Deadline(-1);
+	}
+	
+	/**
+	 * @return the timeout (in milliseconds) the deadline was created with or -1 if it never expires.
+	 */
+	@Contract(pure = true)
+	public long getTimeout() {
+		return timeout;
+	}
+	
+	/** Cancels the deadline, such that the pdf-file is aborted at the next check. Cancelling it again has no effect. */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * @return true if the deadline was cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * @return true if the deadline expired.
+	 */
+	public boolean isExpired() {
+		return end != -1 && System.nanoTime() - end >= 0;
+	}
+	
+	/**
+	 * @return true if the deadline expired or was cancelled, such that work on the pdf-file should stop.
+	 */
+	public boolean isAborted() {
+		return cancelled || isExpired();
+	}
+	
+	/**
+	 * @return the number of milliseconds until the deadline expires (0 if it is aborted already) or {@link
+	 * Long#MAX_VALUE} if it never expires.
+	 */
+	public long getRemainingMillis() {
+		if (cancelled)
+			return 0;
+		if (end == -1)
+			return Long.MAX_VALUE;
+		return Math.max(0, (end - System.nanoTime()) / 1_000_000);
+	}
+	
+	/**
+	 * Checks if work on the pdf-file may continue. Cancels the deadline if the current thread was interrupted.
+	 *
+	 * @throws AbortedException if the deadline expired or was cancelled.
+	 */
+	public void check() throws AbortedException {
+		if (Thread.currentThread().isInterrupted())
+			cancel();
+		if (cancelled)
+			throw new AbortedException(false, "Censoring the pdf-file was cancelled");
+		if (isExpired())
+			throw new AbortedException(true, "Censoring the pdf-file did not finish within " + timeout + " ms");
+	}
+}
@@ -0,0 +1,108 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The MemoryMonitor reports how much heap and how much scratch space censoring used, such that the {@link
+ * MemoryUsageSetting} may be tuned to run big pdf-files with a small heap.
+ * <br>
+ * The peak heap usage is tracked by the JVM itself and read from the heap memory pools (whose peaks are reset when the
+ * monitor is created). The scratch files of PDFBox are deleted once their pdf-file is closed and never shrink before,
+ * thus their peak usage is sampled by {@link #sampleScratch()} right before the pdf-files are closed. Only the scratch
+ * files created after the monitor are counted.
+ */
+public final class MemoryMonitor {
+	/** The prefix of the names of the scratch files PDFBox creates. */
+	private static final String SCRATCH_PREFIX = "PDFBox";
+	/** The suffix of the names of the scratch files PDFBox creates. */
+	private static final String SCRATCH_SUFFIX = ".tmp";
+	/** The number of bytes per MiB. */
+	private static final long MIB = 1024L * 1024L;
+	
+	/** The directory the scratch files are created in. */
+	@NotNull
+	private final File scratchDir;
+	/** The names of the scratch files that existed before the monitor was created. */
+	@NotNull
+	private final Set<String> existing;
+	/** The highest number of bytes the scratch files used together at once. */
+	@NotNull
+	private final AtomicLong peakScratch = new AtomicLong();
+	
+	/**
+	 * Creates a new monitor and resets the peak heap usage.
+	 *
+	 * @param scratchDir the directory the scratch files are created in or null for the default temporary directory.
+	 */
+	public MemoryMonitor(@Nullable File scratchDir) {
+		this.scratchDir = Objects.requireNonNullElseGet(scratchDir,
+														() -> new File(System.getProperty("java.io.tmpdir")));
+		this.existing = Arrays.stream(scratchFiles()).map(File::getName).collect(Collectors.toUnmodifiableSet());
+		for (var pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+	
+	/**
+	 * @return the scratch files currently in the scratch directory.
+	 */
+	@NotNull
+	private File[] scratchFiles() {
+		return Objects.requireNonNullElse(scratchDir.listFiles((dir, name) -> name.startsWith(SCRATCH_PREFIX) &&
+																			  name.endsWith(SCRATCH_SUFFIX)),
+										  new File[0]);
+	}
+	
+	/**
+	 * Measures the scratch files created since the monitor was created and updates the peak scratch usage. Should be
+	 * called right before the pdf-files are closed. May be called by multiple threads concurrently.
+	 *
+	 * @return the number of bytes the scratch files currently use together.
+	 */
+	public long sampleScratch() {
+		final var used = Arrays.stream(scratchFiles()).filter(f -> !existing.contains(f.getName()))
+							   .mapToLong(File::length).sum();
+		peakScratch.accumulateAndGet(used, Math::max);
+		return used;
+	}
+	
+	/**
+	 * @return the highest number of bytes the heap used since the monitor was created. As the peaks of the pools are
+	 * summed up, this is an upper bound.
+	 */
+	public long getPeakHeap() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP)
+								.map(MemoryPoolMXBean::getPeakUsage).filter(Objects::nonNull)
+								.mapToLong(MemoryUsage::getUsed).sum();
+	}
+	
+	/**
+	 * @return the highest number of bytes the scratch files used together at once according to {@link
+	 * #sampleScratch()}.
+	 */
+	public long getPeakScratch() {
+		return peakScratch.get();
+	}
+	
+	/**
+	 * @return the peak heap and scratch usage in MiB as a single line.
+	 */
+	@NotNull
+	@Override
+	public String toString() {
+		return String.format("Peak heap %d MiB, peak scratch %d MiB", getPeakHeap() / MIB, getPeakScratch() / MIB);
+	}
+}
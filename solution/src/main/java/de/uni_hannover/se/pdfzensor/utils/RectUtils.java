@@ -1,6 +1,5 @@
 package de.uni_hannover.se.pdfzensor.utils;
 
-import org.apache.commons.lang3.Range;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
@@ -35,26 +34,45 @@ public final class RectUtils {
 	 * @param r2 the second rectangle. Not <code>null</code>.
 	 * @return the rectangle spanned by the first and second rectangle.
 	 * @throws NullPointerException if r1 or r2 are <code>null</code>.
+	 * @see #getRectBetween(Rectangle2D, Rectangle2D, Rectangle2D)
 	 */
 	@NotNull
 	public static Rectangle2D getRectBetween(@NotNull final Rectangle2D r1, @NotNull final Rectangle2D r2) {
-		var ret = new Rectangle2D.Double();
+		return getRectBetween(r1, r2, new Rectangle2D.Double());
+	}
+	
+	/**
+	 * Like {@link #getRectBetween(Rectangle2D, Rectangle2D)} but writes the span into the provided <code>result</code>
+	 * instead of creating a new rectangle. This allows callers that run this for every glyph to reuse a single
+	 * instance.
+	 *
+	 * @param r1     the first rectangle. Not <code>null</code>.
+	 * @param r2     the second rectangle. Not <code>null</code>.
+	 * @param result the rectangle the span should be written into. Not <code>null</code>.
+	 * @return <code>result</code>.
+	 * @throws NullPointerException if r1, r2 or result are <code>null</code>.
+	 */
+	@NotNull
+	@Contract("_, _, _ -> param3")
+	public static Rectangle2D getRectBetween(@NotNull final Rectangle2D r1, @NotNull final Rectangle2D r2,
+											 @NotNull final Rectangle2D result) {
+		Objects.requireNonNull(result).setRect(0, 0, 0, 0);
 		if (!r1.intersects(r2)) {
 			if (areHorizontallyAligned(r1, r2)) {
 				var minX = min(r1.getMaxX(), r2.getMaxX());
 				var minY = min(r1.getMinY(), r2.getMinY());
 				var maxX = max(r1.getMinX(), r2.getMinX());
 				var maxY = max(r1.getMaxY(), r2.getMaxY());
-				ret.setFrameFromDiagonal(minX, minY, maxX, maxY);
+				result.setFrameFromDiagonal(minX, minY, maxX, maxY);
 			} else {
 				var minX = min(r1.getMinX(), r2.getMinX());
 				var minY = min(r1.getMaxY(), r2.getMaxY());
 				var maxX = max(r1.getMaxX(), r2.getMaxX());
 				var maxY = max(r1.getMinY(), r2.getMinY());
-				ret.setFrameFromDiagonal(minX, minY, maxX, maxY);
+				result.setFrameFromDiagonal(minX, minY, maxX, maxY);
 			}
 		}
-		return ret;
+		return result;
 	}
 	
 	/**
@@ -69,9 +87,8 @@ public final class RectUtils {
 	public static boolean areHorizontallyAligned(@NotNull final Rectangle2D r1, @NotNull final Rectangle2D r2) {
 		Objects.requireNonNull(r1);
 		Objects.requireNonNull(r2);
-		var range1 = Range.between(r1.getMinY(), r1.getMaxY());
-		var range2 = Range.between(r2.getMinY(), r2.getMaxY());
-		return range1.isOverlappedBy(range2);
+		// equivalent to Range#isOverlappedBy but without creating two ranges for each call
+		return r1.getMinY() <= r2.getMaxY() && r2.getMinY() <= r1.getMaxY();
 	}
 	
 }
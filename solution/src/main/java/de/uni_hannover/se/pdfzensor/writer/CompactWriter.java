@@ -0,0 +1,278 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.lang3.Validate;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The CompactWriter writes a {@link PDDocument} like {@link PDDocument#save(OutputStream)} does, but packs all objects
+ * except the streams into compressed object streams and writes a cross-reference stream instead of a cross-reference
+ * table (both require PDF 1.5). The dictionaries of a document mostly consist of names and numbers that compress well,
+ * and the cross-reference stream saves most of the 20 bytes a cross-reference table spends per object.
+ * <br>
+ * Only the objects reachable from the trailer are written, such that objects that were replaced while censoring (like
+ * the original content streams) are dropped. The objects are renumbered in the order they are reached, all with
+ * generation 0. Just like {@link COSWriter} does, the dictionaries PDFBox created are written as indirect objects and
+ * those that were parsed as direct objects are written inline. The streams are copied as they are (still encoded).
+ * Encryption is not supported, thus the security of an encrypted document has to be removed (see {@link
+ * PDDocument#setAllSecurityToBeRemoved(boolean)}).
+ */
+public final class CompactWriter {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The number of objects packed into an object stream if not specified otherwise. */
+	static final int OBJECTS_PER_STREAM = 100;
+	/** The lowest version of PDF supporting object streams and cross-reference streams. */
+	private static final float MIN_VERSION = 1.5f;
+	/** The generation number of the free entry of object number 0. */
+	private static final int FREE_GENERATION = 65535;
+	
+	/** The number of objects packed into an object stream. */
+	private final int objectsPerStream;
+	
+	/** Creates a new CompactWriter packing {@value OBJECTS_PER_STREAM} objects into an object stream. */
+	public CompactWriter() {
+		this(OBJECTS_PER_STREAM);
+	}
+	
+	/**
+	 * Creates a new CompactWriter packing the provided number of objects into an object stream.
+	 *
+	 * @param objectsPerStream the number of objects of an object stream. Has to be positive.
+	 */
+	CompactWriter(int objectsPerStream) {
+		Validate.isTrue(objectsPerStream > 0, "An object stream has to contain at least one object.");
+		this.objectsPerStream = objectsPerStream;
+	}
+	
+	/**
+	 * Writes the document into the output. The output is flushed but not closed.
+	 *
+	 * @param document the document that should be written. May not be null.
+	 * @param output   the output the document should be written into. May not be null.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws IllegalArgumentException if the document is encrypted and its security was not removed.
+	 */
+	public void write(@NotNull PDDocument document, @NotNull OutputStream output) throws IOException {
+		Objects.requireNonNull(document);
+		Validate.isTrue(!document.isEncrypted() || document.isAllSecurityToBeRemoved(),
+						"The compact writer can not write encrypted documents.");
+		final var start = System.nanoTime();
+		final var out = new CountingOutputStream(new BufferedOutputStream(Objects.requireNonNull(output)));
+		final var writing = new Writing(out);
+		writing.write(document);
+		out.flush();
+		LOGGER.debug("Wrote {} objects ({} in {} object streams) into {} bytes in {} ms", writing.entries.size() - 1,
+					  writing.packed, writing.objectStreams, out.getByteCount(), (System.nanoTime() - start) / 1_000_000);
+	}
+	
+	/**
+	 * The state of writing a single document. The indirect objects are numbered once they are first referenced and
+	 * written in that order.
+	 */
+	private final class Writing extends ObjectWriter {
+		/** The output counting the bytes written, which are the offsets of the objects. */
+		@NotNull
+		private final CountingOutputStream out;
+		/** The number of each indirect object by its identity. */
+		@NotNull
+		private final Map<COSBase, Long> numbers = new IdentityHashMap<>();
+		/** The indirect objects that were numbered but not yet written, in the order they were numbered. */
+		@NotNull
+		private final Deque<COSBase> pending = new ArrayDeque<>();
+		/** The cross-reference entries (type and the two fields) by object number. Entry 0 is the free entry. */
+		@NotNull
+		private final List<long[]> entries = new ArrayList<>();
+		/** The offsets of the objects of the current object stream, preceded by their numbers. */
+		@NotNull
+		private final StringBuilder header = new StringBuilder();
+		/** The objects of the current object stream. */
+		@NotNull
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		/** The number of the current object stream or -1 if there is none. */
+		private long objectStream = -1;
+		/** The number of objects in the current object stream. */
+		private int count = 0;
+		/** The number of objects packed into object streams. */
+		private long packed = 0;
+		/** The number of object streams written. */
+		private long objectStreams = 0;
+		
+		/**
+		 * @param out the output the document should be written into.
+		 */
+		Writing(@NotNull CountingOutputStream out) {
+			this.out = out;
+			entries.add(new long[]{0, 0, FREE_GENERATION});
+		}
+		
+		/**
+		 * Writes the header, all objects reachable from the trailer and the cross-reference stream.
+		 *
+		 * @param document the document that should be written.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		void write(@NotNull PDDocument document) throws IOException {
+			final var version = Math.max(document.getVersion(), MIN_VERSION);
+			// the comment of bytes above 127 marks the file as binary
+			out.write(String.format(Locale.ROOT, "%%PDF-%.1f\n%%\u00e2\u00e3\u00cf\u00d3\n", version)
+							.getBytes(StandardCharsets.ISO_8859_1));
+			final var trailer = document.getDocument().getTrailer();
+			final var root = number(trailer.getItem(COSName.ROOT));
+			final var info = trailer.getItem(COSName.INFO) != null ? number(trailer.getItem(COSName.INFO)) : -1;
+			while (!pending.isEmpty())
+				writeObject(pending.poll());
+			flushObjectStream();
+			writeCrossReferenceStream(trailer, root, info);
+		}
+		
+		/**
+		 * Returns the number of the indirect object and numbers it if it was not numbered yet.
+		 *
+		 * @param object the object or a reference to it.
+		 * @return the number of the object.
+		 */
+		@Override
+		long number(@NotNull COSBase object) {
+			final var resolved = resolve(object);
+			var number = numbers.get(resolved);
+			if (number == null) {
+				number = allocate();
+				numbers.put(resolved, number);
+				pending.add(resolved);
+			}
+			return number;
+		}
+		
+		/**
+		 * @return a new object number whose cross-reference entry is set once the object was written.
+		 */
+		private long allocate() {
+			entries.add(null);
+			return entries.size() - 1L;
+		}
+		
+		/**
+		 * Writes an indirect object. Streams are written directly into the output, all other objects are packed into
+		 * the current object stream.
+		 *
+		 * @param object the object that should be written.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void writeObject(@NotNull COSBase object) throws IOException {
+			final long number = numbers.get(object);
+			if (object instanceof COSStream) {
+				entries.set((int) number, new long[]{1, out.getByteCount(), 0});
+				writeStream((COSStream) object, number, out);
+				return;
+			}
+			if (objectStream < 0)
+				objectStream = allocate();
+			header.append(number).append(' ').append(body.size()).append(' ');
+			entries.set((int) number, new long[]{2, objectStream, count});
+			writeDirect(object, body);
+			body.write('\n');
+			packed++;
+			if (++count == objectsPerStream)
+				flushObjectStream();
+		}
+		
+		/**
+		 * Writes the current object stream (if there is one) as a compressed stream and starts a new one.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void flushObjectStream() throws IOException {
+			if (objectStream < 0)
+				return;
+			final var data = new ByteArrayOutputStream();
+			try (var deflater = new DeflaterOutputStream(data)) {
+				deflater.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+				body.writeTo(deflater);
+			}
+			entries.set((int) objectStream, new long[]{1, out.getByteCount(), 0});
+			writeAscii(objectStream + " 0 obj\n<</Type/ObjStm/N " + count + "/First " + header.length() +
+					   "/Filter/FlateDecode/Length " + data.size() + ">>\nstream\n");
+			data.writeTo(out);
+			writeAscii("\nendstream\nendobj\n");
+			objectStreams++;
+			objectStream = -1;
+			count = 0;
+			header.setLength(0);
+			body.reset();
+		}
+		
+		/**
+		 * Writes the cross-reference stream, which also takes the role of the trailer, and the end of the file.
+		 *
+		 * @param trailer the trailer of the document.
+		 * @param root    the number of the document catalog.
+		 * @param info    the number of the document information or -1 if there is none.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void writeCrossReferenceStream(@NotNull COSDictionary trailer, long root, long info)
+				throws IOException {
+			final var number = allocate();
+			final var offset = out.getByteCount();
+			entries.set((int) number, new long[]{1, offset, 0});
+			final var widths = new int[]{1, 1, 1};
+			for (var entry : entries)
+				for (var i = 1; i < widths.length; i++)
+					widths[i] = Math.max(widths[i], width(entry[i]));
+			final var data = new ByteArrayOutputStream();
+			try (var deflater = new DeflaterOutputStream(data)) {
+				for (var entry : entries)
+					for (var i = 0; i < widths.length; i++)
+						for (var b = widths[i] - 1; b >= 0; b--)
+							deflater.write((int) (entry[i] >>> (8 * b)));
+			}
+			writeAscii(number + " 0 obj\n<</Type/XRef/Size " + entries.size() + "/W[" + widths[0] + ' ' + widths[1] +
+					   ' ' + widths[2] + "]/Root " + root + " 0 R");
+			if (info >= 0)
+				writeAscii("/Info " + info + " 0 R");
+			if (trailer.getDictionaryObject(COSName.ID) instanceof COSArray) {
+				writeAscii("/ID");
+				writeDirect(trailer.getDictionaryObject(COSName.ID), out);
+			}
+			writeAscii("/Filter/FlateDecode/Length " + data.size() + ">>\nstream\n");
+			data.writeTo(out);
+			writeAscii("\nendstream\nendobj\nstartxref\n" + offset + "\n%%EOF\n");
+		}
+		
+		/**
+		 * Writes a string of ASCII characters into the output.
+		 *
+		 * @param text the text that should be written.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void writeAscii(@NotNull String text) throws IOException {
+			out.write(text.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+	
+	/**
+	 * @param value a non-negative number.
+	 * @return the number of bytes needed to store the number.
+	 */
+	@Contract(pure = true)
+	private static int width(long value) {
+		var result = 1;
+		while ((value >>>= 8) != 0)
+			result++;
+		return result;
+	}
+}
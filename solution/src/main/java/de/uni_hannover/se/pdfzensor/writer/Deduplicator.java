@@ -0,0 +1,339 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * The Deduplicator collapses identical streams and resources of a document into single shared objects before it is
+ * saved. Censoring adds overlay streams that are often identical, and documents often embed the same font or color
+ * profile many times.
+ * <br>
+ * Every stream reachable from the trailer (content streams, images, embedded fonts, color profiles, forms etc.) and
+ * every indirect object nested in a resource dictionary or a stream is replaced by the first object with the same
+ * content. The objects they reference are deduplicated first, such that two fonts embedding identical font programs
+ * are identical themselves. Objects are compared by the SHA-256 hash of their content, where a reference is
+ * represented by the object it refers to. The raw data of a stream is only hashed once another stream with the same
+ * dictionary and length was found, such that the data of most streams is not read at all.
+ * <br>
+ * Pages, annotations, outlines and the like are never merged, as each of them has to be a distinct object. The
+ * document is modified, thus the Deduplicator should only be applied right before it is saved.
+ */
+public final class Deduplicator {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The marker of a reference in the hashed content. */
+	private static final int REFERENCE = 'R';
+	
+	/** The object each deduplicated object is replaced by (possibly itself), by identity. */
+	@NotNull
+	private final Map<COSBase, COSBase> canonical = new IdentityHashMap<>();
+	/** The first object with the content of the key (the hash of the content). */
+	@NotNull
+	private final Map<String, COSBase> byContent = new HashMap<>();
+	/** The first stream with the dictionary and length of the key whose raw data was not hashed yet. */
+	@NotNull
+	private final Map<String, COSStream> unhashed = new HashMap<>();
+	/** The dictionaries and lengths of the streams whose raw data is hashed. */
+	@NotNull
+	private final Set<String> hashed = new HashSet<>();
+	/** The references to the objects as found in the document, such that a replacement is referenced the same way. */
+	@NotNull
+	private final Map<COSBase, COSObject> references = new IdentityHashMap<>();
+	/** A distinct number per object, which represents a reference to it in the hashed content. */
+	@NotNull
+	private final Map<COSBase, Integer> ids = new IdentityHashMap<>();
+	/** The objects being deduplicated, whose content depends on themselves if referenced again. */
+	@NotNull
+	private final Set<COSBase> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+	/** The number of objects that were replaced. */
+	private long replaced = 0;
+	/** The number of bytes of the objects that were replaced (as hashed, thus without the syntax of PDF). */
+	private long saved = 0;
+	
+	/**
+	 * Deduplicates the streams and resources reachable from the trailer of the document.
+	 *
+	 * @param document the document whose objects should be deduplicated. May not be null.
+	 * @return the approximate number of bytes saved.
+	 * @throws IOException if the data of a stream could not be read.
+	 */
+	public long deduplicate(@NotNull PDDocument document) throws IOException {
+		final var walked = Collections.newSetFromMap(new IdentityHashMap<COSBase, Boolean>());
+		final var pending = new ArrayDeque<COSBase>();
+		pending.push(document.getDocument().getTrailer());
+		// the structure of the document (pages, outlines etc.) may be deep thus it is walked without recursion
+		while (!pending.isEmpty()) {
+			final var container = pending.pop();
+			if (!walked.add(container))
+				continue;
+			forEachChild(container, (key, child, replace) -> {
+				final var resolved = resolve(child);
+				if (resolved instanceof COSStream || COSName.RESOURCES.equals(key) &&
+													 resolved instanceof COSDictionary)
+					replace.accept(deduplicate(child));
+				else if (isContainer(resolved) && !canonical.containsKey(resolved))
+					pending.push(resolved);
+			});
+		}
+		LOGGER.info("Deduplicated {} objects saving about {} bytes", replaced, saved);
+		return saved;
+	}
+	
+	/**
+	 * Deduplicates an object referenced by another one and returns the reference to the object replacing it.
+	 *
+	 * @param child the reference to the object or the object itself.
+	 * @return the reference to the replacement, which is the reference itself if the object is not replaced.
+	 * @throws IOException if the data of a stream could not be read.
+	 */
+	@NotNull
+	private COSBase deduplicate(@NotNull COSBase child) throws IOException {
+		final var resolved = resolve(child);
+		if (child instanceof COSObject)
+			references.putIfAbsent(resolved, (COSObject) child);
+		final var replacement = canonicalize(resolved);
+		if (replacement == resolved)
+			return child;
+		return Objects.requireNonNullElse(references.get(replacement), replacement);
+	}
+	
+	/**
+	 * Returns the first object with the same content as the provided one, after deduplicating the objects it
+	 * references.
+	 *
+	 * @param object the object that should be deduplicated.
+	 * @return the object replacing it or the object itself.
+	 * @throws IOException if the data of a stream could not be read.
+	 */
+	@NotNull
+	private COSBase canonicalize(@NotNull COSBase object) throws IOException {
+		final var known = canonical.get(object);
+		if (known != null)
+			return known;
+		if (isDistinct(object))
+			return object;
+		// an object depending on itself can not be compared by content
+		if (!visiting.add(object))
+			return object;
+		final var digest = sha256();
+		final var out = new CountingOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+		hash(object, out, true);
+		var key = new String(digest.digest(), StandardCharsets.ISO_8859_1);
+		var bytes = out.getByteCount();
+		COSBase replacement = object;
+		if (object instanceof COSStream) {
+			final var stream = (COSStream) object;
+			key += "/" + stream.getLength();
+			bytes += stream.getLength();
+			final var first = unhashed.remove(key);
+			if (first != null)
+				byContent.putIfAbsent(key + '/' + hashData(first), first);
+			if (first != null || hashed.contains(key)) {
+				hashed.add(key);
+				replacement = byContent.computeIfAbsent(key + '/' + hashData(stream), k -> stream);
+			} else unhashed.put(key, stream);
+		} else replacement = byContent.computeIfAbsent(key, k -> object);
+		visiting.remove(object);
+		canonical.put(object, replacement);
+		if (replacement != object) {
+			replaced++;
+			// a direct object is written wherever it is used anyways
+			if (object instanceof COSStream || !object.isDirect() || references.containsKey(object))
+				saved += bytes;
+		}
+		return replacement;
+	}
+	
+	/**
+	 * Writes the content of an object into the hash. Indirect objects it contains are deduplicated and represented
+	 * by the object replacing them. Pages, annotations and other objects that have to stay distinct are represented
+	 * by themselves.
+	 *
+	 * @param object   the object whose content should be hashed.
+	 * @param out      the output into the hash.
+	 * @param resource true if the indirect objects contained in the object should be deduplicated.
+	 * @throws IOException if the data of a stream could not be read.
+	 */
+	private void hash(@NotNull COSBase object, @NotNull OutputStream out, boolean resource) throws IOException {
+		if (object instanceof COSDictionary)
+			out.write(object instanceof COSStream ? 'S' : 'D');
+		else out.write('A');
+		final var mergeable = resource && !isDistinct(object);
+		forEachChild(object, (key, child, replace) -> {
+			if (key != null) {
+				// the length of a stream is compared separately as it may be an indirect object
+				if (object instanceof COSStream && COSName.LENGTH.equals(key))
+					return;
+				key.writePDF(out);
+			}
+			final var resolved = resolve(child);
+			if (isIndirect(child, resolved)) {
+				final var replacement = mergeable ? deduplicate(child) : child;
+				replace.accept(replacement);
+				final var id = ids.computeIfAbsent(resolve(replacement), k -> ids.size());
+				out.write(REFERENCE);
+				out.write(Integer.toString(id).getBytes(StandardCharsets.US_ASCII));
+			} else if (isContainer(resolved))
+				hash(resolved, out, mergeable);
+			else writeScalar(resolved, out);
+			out.write(' ');
+		});
+		out.write(object instanceof COSDictionary ? '>' : ']');
+	}
+	
+	/**
+	 * Hashes the raw data of a stream.
+	 *
+	 * @param stream the stream whose data should be hashed.
+	 * @return the SHA-256 hash of the data (as ISO-8859-1 string).
+	 * @throws IOException if the data could not be read.
+	 */
+	@NotNull
+	private static String hashData(@NotNull COSStream stream) throws IOException {
+		final var digest = sha256();
+		try (var raw = stream.createRawInputStream()) {
+			raw.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+		}
+		return new String(digest.digest(), StandardCharsets.ISO_8859_1);
+	}
+	
+	/**
+	 * Calls the consumer for each entry of a dictionary (in the order of their keys) or each item of an array.
+	 *
+	 * @param container the dictionary or array.
+	 * @param consumer  the consumer of the keys (null for an array), values and a setter replacing the value.
+	 * @throws IOException if the consumer failed.
+	 */
+	private static void forEachChild(@NotNull COSBase container, @NotNull ChildConsumer consumer) throws IOException {
+		if (container instanceof COSDictionary) {
+			final var dictionary = (COSDictionary) container;
+			final var keys = new ArrayList<>(dictionary.keySet());
+			keys.sort(Comparator.comparing(COSName::getName));
+			for (var key : keys)
+				consumer.accept(key, Objects.requireNonNullElse(dictionary.getItem(key), COSNull.NULL),
+								value -> dictionary.setItem(key, value));
+		} else if (container instanceof COSArray) {
+			final var array = (COSArray) container;
+			for (var i = 0; i < array.size(); i++) {
+				final var index = i;
+				consumer.accept(null, Objects.requireNonNullElse(array.get(i), COSNull.NULL),
+								value -> array.set(index, value));
+			}
+		}
+	}
+	
+	/**
+	 * Writes a value that is neither a dictionary nor an array into the hash.
+	 *
+	 * @param value the value.
+	 * @param out   the output into the hash.
+	 * @throws IOException if the value could not be written.
+	 */
+	private static void writeScalar(@NotNull COSBase value, @NotNull OutputStream out) throws IOException {
+		if (value instanceof COSString)
+			COSWriter.writeString((COSString) value, out);
+		else if (value instanceof COSName)
+			((COSName) value).writePDF(out);
+		else if (value instanceof COSInteger)
+			((COSInteger) value).writePDF(out);
+		else if (value instanceof COSFloat)
+			((COSFloat) value).writePDF(out);
+		else if (value instanceof COSBoolean)
+			((COSBoolean) value).writePDF(out);
+		else ((COSNull) COSNull.NULL).writePDF(out);
+	}
+	
+	/**
+	 * Checks whether an object is written as an indirect object, in the same way the {@link CompactWriter} and
+	 * {@link COSWriter} decide.
+	 *
+	 * @param child    the value as contained in another object.
+	 * @param resolved the resolved value.
+	 * @return true if the value is an indirect object.
+	 */
+	@Contract(pure = true)
+	private static boolean isIndirect(@NotNull COSBase child, @NotNull COSBase resolved) {
+		return resolved instanceof COSStream || resolved instanceof COSDictionary && !resolved.isDirect() ||
+			   child instanceof COSObject && isContainer(resolved);
+	}
+	
+	/**
+	 * Checks whether a dictionary has to stay a distinct object, as it is a node of a tree (like pages, outlines,
+	 * fields and structure elements) or belongs to a page (like annotations).
+	 *
+	 * @param object the object.
+	 * @return true if the object may not be merged with an identical one.
+	 */
+	@Contract(pure = true)
+	private static boolean isDistinct(@NotNull COSBase object) {
+		if (!(object instanceof COSDictionary) || object instanceof COSStream)
+			return false;
+		final var dictionary = (COSDictionary) object;
+		return dictionary.containsKey(COSName.PARENT) || dictionary.containsKey(COSName.KIDS) ||
+			   dictionary.containsKey(COSName.P) || COSName.ANNOT.equals(dictionary.getCOSName(COSName.TYPE)) ||
+			   COSName.PAGE.equals(dictionary.getCOSName(COSName.TYPE));
+	}
+	
+	/**
+	 * @param object the object.
+	 * @return true if the object is a dictionary (or stream) or an array.
+	 */
+	@Contract(pure = true)
+	private static boolean isContainer(@NotNull COSBase object) {
+		return object instanceof COSDictionary || object instanceof COSArray;
+	}
+	
+	/**
+	 * Resolves a reference to the object it refers to. A reference to a missing object is resolved to null.
+	 *
+	 * @param object the object or a reference to it.
+	 * @return the referenced object or the object itself if it is no reference.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	private static COSBase resolve(@NotNull COSBase object) {
+		if (object instanceof COSObject)
+			return Objects.requireNonNullElse(((COSObject) object).getObject(), COSNull.NULL);
+		return object;
+	}
+	
+	/**
+	 * @return a new SHA-256 digest.
+	 */
+	@NotNull
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+	
+	/** Consumes the children of a dictionary or array (see {@link #forEachChild(COSBase, ChildConsumer)}). */
+	@FunctionalInterface
+	private interface ChildConsumer {
+		/**
+		 * @param key     the key of the child or null if it is an item of an array.
+		 * @param child   the child (possibly a reference).
+		 * @param replace replaces the child in its container.
+		 * @throws IOException if the child could not be consumed.
+		 */
+		void accept(COSName key, @NotNull COSBase child, @NotNull Consumer<COSBase> replace)
+				throws IOException;
+	}
+}
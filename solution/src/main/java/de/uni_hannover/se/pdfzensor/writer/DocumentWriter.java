@@ -0,0 +1,72 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * The DocumentWriter saves censored documents in the way the {@link Settings} specify, either by PDFBox itself, by
+ * the {@link CompactWriter} or by the {@link LinearizedWriter}, optionally after collapsing identical objects by a
+ * {@link Deduplicator}.
+ */
+public final class DocumentWriter {
+	/**
+	 * This constructor should not be called as no instance of {@link DocumentWriter} shall be created.
+	 *
+	 * @throws UnsupportedOperationException when being called
+	 */
+	@Contract(value = " -> fail", pure = true)
+	private DocumentWriter() {
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Saves the document into the output and closes the output, just like {@link PDDocument#save(OutputStream)}
+	 * does. The document may be modified by deduplicating it and, when linearizing it, by setting the attributes the
+	 * pages inherit on the pages themselves. A document without pages can not be linearized and is saved by PDFBox.
+	 *
+	 * @param document the document that should be saved. May not be null.
+	 * @param output   the output the document should be saved into. May not be null.
+	 * @param settings the settings specifying how the document should be saved. May not be null.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void save(@NotNull PDDocument document, @NotNull OutputStream output, @NotNull Settings settings)
+			throws IOException {
+		Objects.requireNonNull(document);
+		if (settings.isDeduplicate())
+			new Deduplicator().deduplicate(document);
+		final var linearized = settings.isLinearized() && document.getNumberOfPages() > 0;
+		if (!settings.isCompact() && !linearized) {
+			document.save(output);
+			return;
+		}
+		try (output) {
+			if (linearized)
+				new LinearizedWriter().write(document, output);
+			else new CompactWriter().write(document, output);
+		}
+	}
+	
+	/**
+	 * Saves the document into the file.
+	 *
+	 * @param document the document that should be saved. May not be null.
+	 * @param file     the file the document should be saved into. May not be null.
+	 * @param settings the settings specifying how the document should be saved. May not be null.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void save(@NotNull PDDocument document, @NotNull File file, @NotNull Settings settings)
+			throws IOException {
+		Objects.requireNonNull(document);
+		Objects.requireNonNull(settings);
+		save(document, new BufferedOutputStream(new FileOutputStream(Objects.requireNonNull(file))), settings);
+	}
+}
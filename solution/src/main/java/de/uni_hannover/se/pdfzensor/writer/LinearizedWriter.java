@@ -0,0 +1,694 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import de.uni_hannover.se.pdfzensor.Logging;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.Validate;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The LinearizedWriter writes a {@link PDDocument} as a linearized ("fast web view") pdf-file as specified in Annex F
+ * of ISO 32000-1, such that a viewer can show the first page while the rest of the file is still being downloaded.
+ * The file starts with the linearization parameter dictionary and the cross-reference table of the first page,
+ * followed by the document catalog, the primary hint stream and all objects the first page needs. Then come the
+ * remaining pages, each with the objects only it uses, the objects shared by several of them and all other objects
+ * (like the page tree), and finally the main cross-reference table.
+ * <br>
+ * The hint stream contains the page offset hint table and the shared object hint table, in which each shared object
+ * forms a group of its own. Like Acrobat does, the content stream of a page is hinted as spanning the whole page. The
+ * attributes a page inherits from the page tree are set on the page itself, such that a page can be shown without
+ * loading the page tree.
+ * <br>
+ * Just like the {@link CompactWriter}, only the objects reachable from the trailer are written, renumbered and with
+ * generation 0, and encryption is not supported. As the offsets of the objects at the end of the file have to be known
+ * at its beginning, the layout is computed before anything is written: The objects are serialized once to determine
+ * their sizes and a second time into the output, the streams are copied as they are (still encoded) only once.
+ */
+public final class LinearizedWriter {
+	/** A {@link Logger}-instance that should be used by this class' member methods to log their state and errors. */
+	private static final Logger LOGGER = Logging.getLogger();
+	/** The lowest version of PDF supporting linearization. */
+	private static final float MIN_VERSION = 1.2f;
+	/** The generation number of the free entry of object number 0. */
+	private static final int FREE_GENERATION = 65535;
+	/** The attributes a page may inherit from its ancestors in the page tree. */
+	private static final List<COSName> INHERITABLE = List.of(COSName.RESOURCES, COSName.MEDIA_BOX, COSName.CROP_BOX,
+															 COSName.ROTATE);
+	/** The format of the offsets in the linearization parameter dictionary, padded such that their size is fixed. */
+	private static final String OFFSET = "%010d";
+	/** The denominator of the (unused) fractional positions of the shared object references. */
+	private static final int SHARED_DENOMINATOR = 4;
+	
+	/**
+	 * Writes the document linearized into the output. The output is flushed but not closed. The attributes the pages
+	 * inherit are set on the pages themselves.
+	 *
+	 * @param document the document that should be written. May not be null.
+	 * @param output   the output the document should be written into. May not be null.
+	 * @throws IOException              if an I/O error occurs.
+	 * @throws IllegalArgumentException if the document has no pages or is encrypted and its security was not
+	 *                                  removed.
+	 */
+	public void write(@NotNull PDDocument document, @NotNull OutputStream output) throws IOException {
+		Objects.requireNonNull(document);
+		Validate.isTrue(!document.isEncrypted() || document.isAllSecurityToBeRemoved(),
+						"The linearized writer can not write encrypted documents.");
+		Validate.isTrue(document.getNumberOfPages() > 0, "A document without pages can not be linearized.");
+		final var start = System.nanoTime();
+		final var out = new CountingOutputStream(new BufferedOutputStream(Objects.requireNonNull(output)));
+		final var writing = new Writing(document);
+		writing.write(out);
+		out.flush();
+		LOGGER.debug("Wrote {} pages ({} objects of the first page, {} shared) linearized into {} bytes in {} ms",
+					 writing.pages.size(), writing.firstPage.size(), writing.shared.size(), out.getByteCount(),
+					 (System.nanoTime() - start) / 1_000_000);
+	}
+	
+	/**
+	 * The state of writing a single document. The objects are assigned to the parts of the file and numbered when it is
+	 * created.
+	 */
+	private static final class Writing extends ObjectWriter {
+		/** The trailer of the document. */
+		@NotNull
+		private final COSDictionary trailer;
+		/** The version of the written document. */
+		private final float version;
+		/** The document catalog. */
+		@NotNull
+		private final COSBase catalog;
+		/** The document information or null if there is none. */
+		@Nullable
+		private final COSBase info;
+		/** The dictionaries of the pages in their order. */
+		@NotNull
+		private final List<COSDictionary> pages = new ArrayList<>();
+		/** The objects the first page needs, starting with the page itself. */
+		@NotNull
+		private final List<COSBase> firstPage;
+		/** The objects only used by each of the remaining pages, each group starting with the page itself. */
+		@NotNull
+		private final List<List<COSBase>> pageGroups = new ArrayList<>();
+		/** The objects used by several of the remaining pages but not by the first page. */
+		@NotNull
+		private final List<COSBase> shared = new ArrayList<>();
+		/** The identifiers (in the shared object hint table) of the shared objects used by each page. */
+		@NotNull
+		private final List<int[]> sharedReferences = new ArrayList<>();
+		/** The objects neither used by a page nor being the catalog, like the page tree. */
+		@NotNull
+		private final List<COSBase> other = new ArrayList<>();
+		/** The number of each indirect object by its identity. */
+		@NotNull
+		private final Map<COSBase, Long> numbers = new IdentityHashMap<>();
+		/** The size of each indirect object by its identity. */
+		@NotNull
+		private final Map<COSBase, Long> sizes = new IdentityHashMap<>();
+		/** The number of objects in the main cross-reference table, which is the number of the first object. */
+		private final long mainCount;
+		/** The number of the linearization parameter dictionary. */
+		private final long linearizationNumber;
+		/** The number of the primary hint stream. */
+		private final long hintNumber;
+		/** The number of objects in the file (plus the free object 0). */
+		private final long size;
+		
+		/**
+		 * Assigns the objects of the document to the parts of the file and numbers them.
+		 *
+		 * @param document the document that should be written.
+		 */
+		Writing(@NotNull PDDocument document) {
+			final var cos = document.getDocument();
+			trailer = cos.getTrailer();
+			version = Math.max(document.getVersion(), MIN_VERSION);
+			catalog = resolve(trailer.getItem(COSName.ROOT));
+			info = trailer.getItem(COSName.INFO) != null ? resolve(trailer.getItem(COSName.INFO)) : null;
+			// pages, the page tree and the catalog are never part of another page
+			final Set<COSBase> boundaries = Collections.newSetFromMap(new IdentityHashMap<>());
+			boundaries.add(catalog);
+			for (var page : document.getPages()) {
+				final var dictionary = page.getCOSObject();
+				pages.add(dictionary);
+				boundaries.add(dictionary);
+				for (var node = parentOf(dictionary); node != null && boundaries.add(node); node = parentOf(node))
+					LOGGER.trace("Page tree node {}", node);
+				inheritAttributes(dictionary);
+			}
+			final var reached = new ArrayList<List<COSBase>>();
+			final Map<COSBase, Integer> users = new IdentityHashMap<>();
+			for (var i = 0; i < pages.size(); i++) {
+				final var objects = reachable(pages.get(i), boundaries);
+				reached.add(objects);
+				if (i > 0)
+					objects.forEach(object -> users.merge(object, 1, Integer::sum));
+			}
+			firstPage = reached.get(0);
+			final Set<COSBase> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+			assigned.add(catalog);
+			assigned.addAll(firstPage);
+			for (var i = 1; i < pages.size(); i++) {
+				final var group = new ArrayList<COSBase>();
+				for (var object : reached.get(i)) {
+					if (users.get(object) == 1 && assigned.add(object))
+						group.add(object);
+				}
+				pageGroups.add(group);
+			}
+			for (var objects : reached.subList(1, reached.size())) {
+				for (var object : objects)
+					if (assigned.add(object))
+						shared.add(object);
+			}
+			final var roots = new ArrayList<COSBase>(List.of(catalog));
+			if (info != null)
+				roots.add(info);
+			for (var object : reachable(roots)) {
+				if (assigned.add(object))
+					other.add(object);
+			}
+			
+			// the objects of the first page are numbered after those of the main cross-reference table
+			var number = 1L;
+			for (var group : pageGroups)
+				for (var object : group)
+					numbers.put(object, number++);
+			for (var object : shared)
+				numbers.put(object, number++);
+			for (var object : other)
+				numbers.put(object, number++);
+			mainCount = number;
+			linearizationNumber = number++;
+			numbers.put(catalog, number++);
+			hintNumber = number++;
+			for (var object : firstPage)
+				numbers.put(object, number++);
+			size = number;
+			
+			final Map<COSBase, Integer> identifiers = new IdentityHashMap<>();
+			for (var object : firstPage)
+				identifiers.put(object, identifiers.size());
+			for (var object : shared)
+				identifiers.put(object, identifiers.size());
+			sharedReferences.add(new int[0]);
+			for (var objects : reached.subList(1, reached.size()))
+				sharedReferences.add(objects.stream().filter(identifiers::containsKey).mapToInt(identifiers::get)
+											.toArray());
+		}
+		
+		@Override
+		long number(@NotNull COSBase object) {
+			final var number = numbers.get(object);
+			if (number == null)
+				throw new IllegalStateException("The object " + object + " was not numbered");
+			return number;
+		}
+		
+		/**
+		 * Writes the document. The layout of the file is computed first, as the linearization parameter dictionary
+		 * and the cross-reference table of the first page refer to offsets later in the file.
+		 *
+		 * @param out the output counting the bytes written.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		void write(@NotNull CountingOutputStream out) throws IOException {
+			final var header = String.format(Locale.ROOT, "%%PDF-%.1f\n%%âãÏÓ\n", version)
+									 .getBytes(StandardCharsets.ISO_8859_1);
+			final var firstPageCount = size - mainCount;
+			final var firstXrefOffset = header.length + linearizationDictionary(0, 0, 0, 0, 0).length;
+			final var catalogOffset = firstXrefOffset + crossReferenceTable(mainCount, firstPageCount).length() +
+									  20 * firstPageCount + firstTrailer(0).length;
+			final var hintOffset = catalogOffset + sizeOf(catalog);
+			// the offsets in the hint tables are those the objects would have without the hint stream
+			final var offsets = new long[(int) size];
+			var offset = hintOffset;
+			for (var object : firstPage)
+				offset = place(object, offset, offsets);
+			final var firstPageEnd = offset;
+			for (var group : pageGroups)
+				for (var object : group)
+					offset = place(object, offset, offsets);
+			for (var object : shared)
+				offset = place(object, offset, offsets);
+			for (var object : other)
+				offset = place(object, offset, offsets);
+			final var hint = hintStream(offsets, firstPageEnd);
+			final var hintLength = hint.length;
+			for (var i = 0; i < offsets.length; i++)
+				if (offsets[i] >= hintOffset)
+					offsets[i] += hintLength;
+			offsets[(int) linearizationNumber] = header.length;
+			offsets[(int) numbers.get(catalog).longValue()] = catalogOffset;
+			offsets[(int) hintNumber] = hintOffset;
+			final var mainXrefOffset = offset + hintLength;
+			final var mainXref = crossReferenceTable(0, mainCount);
+			final var mainTrailer = ("trailer\n<</Size " + mainCount + ">>\nstartxref\n" + firstXrefOffset +
+									 "\n%%EOF\n").getBytes(StandardCharsets.US_ASCII);
+			final var length = mainXrefOffset + mainXref.length() + 20 * mainCount + mainTrailer.length;
+			// the offset of the white-space preceding the first entry of the main cross-reference table
+			final var firstEntry = mainXrefOffset + mainXref.length() - 1;
+			
+			out.write(header);
+			out.write(linearizationDictionary(length, hintOffset, hintLength, firstPageEnd + hintLength, firstEntry));
+			expect(out, firstXrefOffset);
+			writeAscii(out, crossReferenceTable(mainCount, firstPageCount));
+			for (var number = mainCount; number < size; number++)
+				writeEntry(out, offsets[(int) number], 0, 'n');
+			out.write(firstTrailer(mainXrefOffset));
+			writeObject(out, catalog, catalogOffset);
+			out.write(hint);
+			for (var object : firstPage)
+				writeObject(out, object, offsets[(int) number(object)]);
+			for (var group : pageGroups)
+				for (var object : group)
+					writeObject(out, object, offsets[(int) number(object)]);
+			for (var object : shared)
+				writeObject(out, object, offsets[(int) number(object)]);
+			for (var object : other)
+				writeObject(out, object, offsets[(int) number(object)]);
+			expect(out, mainXrefOffset);
+			writeAscii(out, mainXref);
+			writeEntry(out, 0, FREE_GENERATION, 'f');
+			for (var number = 1; number < mainCount; number++)
+				writeEntry(out, offsets[number], 0, 'n');
+			out.write(mainTrailer);
+			expect(out, length);
+		}
+		
+		/**
+		 * Returns the linearization parameter dictionary. Its offsets are padded, such that its size does not depend
+		 * on them.
+		 *
+		 * @param length       the length of the file.
+		 * @param hintOffset   the offset of the primary hint stream.
+		 * @param hintLength   the length of the primary hint stream.
+		 * @param firstPageEnd the offset of the end of the first page.
+		 * @param firstEntry   the offset of the white-space preceding the first entry of the main cross-reference
+		 *                     table.
+		 * @return the linearization parameter dictionary as indirect object.
+		 */
+		@NotNull
+		private byte[] linearizationDictionary(long length, long hintOffset, long hintLength, long firstPageEnd,
+											   long firstEntry) {
+			return String.format(Locale.ROOT, "%d 0 obj\n<</Linearized 1/L " + OFFSET + "/H[" + OFFSET + ' ' + OFFSET +
+											  "]/O %d/E " + OFFSET + "/N %d/T " + OFFSET + ">>\nendobj\n",
+								 linearizationNumber, length, hintOffset, hintLength, number(pages.get(0)),
+								 firstPageEnd, pages.size(), firstEntry).getBytes(StandardCharsets.US_ASCII);
+		}
+		
+		/**
+		 * Returns the trailer of the cross-reference table of the first page, which is the trailer of the document.
+		 * Its offset of the main cross-reference table is padded, such that its size does not depend on it.
+		 *
+		 * @param mainXrefOffset the offset of the main cross-reference table.
+		 * @return the trailer.
+		 * @throws IOException if the identifier of the document could not be serialized.
+		 */
+		@NotNull
+		private byte[] firstTrailer(long mainXrefOffset) throws IOException {
+			final var trailerData = new ByteArrayOutputStream();
+			writeAscii(trailerData, "trailer\n<</Size " + size + "/Root " + number(catalog) + " 0 R");
+			if (info != null)
+				writeAscii(trailerData, "/Info " + number(info) + " 0 R");
+			if (trailer.getDictionaryObject(COSName.ID) instanceof COSArray) {
+				writeAscii(trailerData, "/ID");
+				writeDirect(trailer.getDictionaryObject(COSName.ID), trailerData);
+			}
+			writeAscii(trailerData, String.format(Locale.ROOT, "/Prev " + OFFSET + ">>\nstartxref\n0\n%%%%EOF\n",
+												  mainXrefOffset));
+			return trailerData.toByteArray();
+		}
+		
+		/**
+		 * Returns the primary hint stream, consisting of the page offset hint table followed by the shared object hint
+		 * table.
+		 *
+		 * @param offsets      the offsets of the objects as if there was no hint stream.
+		 * @param firstPageEnd the offset of the end of the first page as if there was no hint stream.
+		 * @return the hint stream as indirect object.
+		 * @throws IOException if the hint stream could not be compressed.
+		 */
+		@NotNull
+		private byte[] hintStream(@NotNull long[] offsets, long firstPageEnd) throws IOException {
+			final var pageObjects = new long[pages.size()];
+			final var pageLengths = new long[pages.size()];
+			pageObjects[0] = firstPage.size();
+			pageLengths[0] = firstPageEnd - offsets[(int) number(pages.get(0))];
+			for (var i = 1; i < pages.size(); i++) {
+				final var group = pageGroups.get(i - 1);
+				pageObjects[i] = group.size();
+				pageLengths[i] = group.stream().mapToLong(this::sizeOf).sum();
+			}
+			final var minObjects = Arrays.stream(pageObjects).min().orElse(0);
+			final var minLength = Arrays.stream(pageLengths).min().orElse(0);
+			final var objectBits = bits(Arrays.stream(pageObjects).max().orElse(0) - minObjects);
+			final var lengthBits = bits(Arrays.stream(pageLengths).max().orElse(0) - minLength);
+			final var referenceBits = bits(sharedReferences.stream().mapToLong(r -> r.length).max().orElse(0));
+			final var identifierBits = bits(Math.max(0, firstPage.size() + shared.size() - 1L));
+			
+			final var bits = new BitWriter();
+			bits.write(minObjects, 32);
+			bits.write(offsets[(int) number(pages.get(0))], 32);
+			bits.write(objectBits, 16);
+			bits.write(minLength, 32);
+			bits.write(lengthBits, 16);
+			bits.write(0, 32);
+			bits.write(0, 16);
+			bits.write(minLength, 32);
+			bits.write(lengthBits, 16);
+			bits.write(referenceBits, 16);
+			bits.write(identifierBits, 16);
+			bits.write(0, 16);
+			bits.write(SHARED_DENOMINATOR, 16);
+			for (var objects : pageObjects)
+				bits.write(objects - minObjects, objectBits);
+			bits.align();
+			for (var length : pageLengths)
+				bits.write(length - minLength, lengthBits);
+			bits.align();
+			for (var references : sharedReferences)
+				bits.write(references.length, referenceBits);
+			bits.align();
+			for (var references : sharedReferences)
+				for (var identifier : references)
+					bits.write(identifier, identifierBits);
+			bits.align();
+			// neither the numerators of the shared object references nor the offsets of the content streams take bits
+			for (var length : pageLengths)
+				bits.write(length - minLength, lengthBits);
+			bits.align();
+			
+			final var sharedTable = bits.size();
+			final var groupLengths = new long[firstPage.size() + shared.size()];
+			var i = 0;
+			for (var object : firstPage)
+				groupLengths[i++] = sizeOf(object);
+			for (var object : shared)
+				groupLengths[i++] = sizeOf(object);
+			final var minGroupLength = Arrays.stream(groupLengths).min().orElse(0);
+			final var groupLengthBits = bits(Arrays.stream(groupLengths).max().orElse(0) - minGroupLength);
+			bits.write(shared.isEmpty() ? 0 : number(shared.get(0)), 32);
+			bits.write(shared.isEmpty() ? 0 : offsets[(int) number(shared.get(0))], 32);
+			bits.write(firstPage.size(), 32);
+			bits.write(groupLengths.length, 32);
+			bits.write(0, 16);
+			bits.write(minGroupLength, 32);
+			bits.write(groupLengthBits, 16);
+			for (var length : groupLengths)
+				bits.write(length - minGroupLength, groupLengthBits);
+			bits.align();
+			// no group has a signature and each consists of a single object
+			for (var ignored : groupLengths)
+				bits.write(0, 1);
+			bits.align();
+			
+			final var data = new ByteArrayOutputStream();
+			try (var deflater = new DeflaterOutputStream(data)) {
+				bits.writeTo(deflater);
+			}
+			final var hint = new ByteArrayOutputStream();
+			writeAscii(hint, hintNumber + " 0 obj\n<</S " + sharedTable + "/Filter/FlateDecode/Length " + data.size() +
+							 ">>\nstream\n");
+			data.writeTo(hint);
+			hint.write(STREAM_TRAILER);
+			return hint.toByteArray();
+		}
+		
+		/**
+		 * Sets the offset of the object and returns the offset following it.
+		 *
+		 * @param object  the object that should be placed.
+		 * @param offset  the offset of the object.
+		 * @param offsets the offsets of the objects by number.
+		 * @return the offset of the next object.
+		 * @throws IOException if the object could not be serialized.
+		 */
+		private long place(@NotNull COSBase object, long offset, @NotNull long[] offsets) throws IOException {
+			offsets[(int) number(object)] = offset;
+			sizes.put(object, measure(object));
+			return offset + sizeOf(object);
+		}
+		
+		/**
+		 * @param object a placed object.
+		 * @return the size of the object as written.
+		 */
+		private long sizeOf(@NotNull COSBase object) {
+			final var size = sizes.get(object);
+			if (size != null)
+				return size;
+			try {
+				final var measured = measure(object);
+				sizes.put(object, measured);
+				return measured;
+			} catch (IOException e) {
+				throw new IllegalStateException("Failed to serialize " + object, e);
+			}
+		}
+		
+		/**
+		 * Serializes the object to determine its size. The data of streams is not read.
+		 *
+		 * @param object the object whose size should be determined.
+		 * @return the size of the object as written.
+		 * @throws IOException if the object could not be serialized.
+		 */
+		private long measure(@NotNull COSBase object) throws IOException {
+			if (object instanceof COSStream) {
+				final var stream = (COSStream) object;
+				return streamHeader(stream, number(stream)).length + stream.getLength() + STREAM_TRAILER.length;
+			}
+			final var counter = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+			writeIndirect(object, counter);
+			return counter.getByteCount();
+		}
+		
+		/**
+		 * Writes the object as indirect object.
+		 *
+		 * @param out    the output counting the bytes written.
+		 * @param object the object that should be written.
+		 * @param offset the offset the object is expected at.
+		 * @throws IOException if an I/O error occurs or the object is not written at the expected offset.
+		 */
+		private void writeObject(@NotNull CountingOutputStream out, @NotNull COSBase object, long offset)
+				throws IOException {
+			expect(out, offset);
+			if (object instanceof COSStream)
+				writeStream((COSStream) object, number(object), out);
+			else writeIndirect(object, out);
+		}
+		
+		/**
+		 * Writes an object that is no stream as indirect object.
+		 *
+		 * @param object the object that should be written.
+		 * @param os     the output the object should be written into.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		private void writeIndirect(@NotNull COSBase object, @NotNull OutputStream os) throws IOException {
+			writeAscii(os, number(object) + " 0 obj\n");
+			writeDirect(object, os);
+			writeAscii(os, "\nendobj\n");
+		}
+	}
+	
+	/**
+	 * Collects the objects reachable from the page in the order they are referenced, starting with the page itself.
+	 * Boundaries (like other pages) are not followed.
+	 *
+	 * @param page       the page whose objects should be collected.
+	 * @param boundaries the objects that are not followed.
+	 * @return the objects of the page.
+	 */
+	@NotNull
+	private static List<COSBase> reachable(@NotNull COSDictionary page, @NotNull Set<COSBase> boundaries) {
+		final Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		seen.add(page);
+		final var objects = new ArrayList<COSBase>(List.of(page));
+		for (var i = 0; i < objects.size(); i++)
+			ObjectWriter.forEachReference(objects.get(i), object -> {
+				if (!boundaries.contains(object) && seen.add(object))
+					objects.add(object);
+			});
+		return objects;
+	}
+	
+	/**
+	 * Collects all objects reachable from the roots in the order they are referenced, starting with the roots.
+	 *
+	 * @param roots the objects whose references should be followed.
+	 * @return the objects reachable from the roots.
+	 */
+	@NotNull
+	private static List<COSBase> reachable(@NotNull List<COSBase> roots) {
+		final Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		final var objects = new ArrayList<COSBase>();
+		for (var root : roots)
+			if (seen.add(root))
+				objects.add(root);
+		for (var i = 0; i < objects.size(); i++)
+			ObjectWriter.forEachReference(objects.get(i), object -> {
+				if (seen.add(object))
+					objects.add(object);
+			});
+		return objects;
+	}
+	
+	/**
+	 * @param node a page or node of the page tree.
+	 * @return the parent of the node or null if it is the root.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	private static COSDictionary parentOf(@NotNull COSDictionary node) {
+		final var parent = node.getDictionaryObject(COSName.PARENT, COSName.P);
+		return parent instanceof COSDictionary ? (COSDictionary) parent : null;
+	}
+	
+	/**
+	 * Sets the attributes the page inherits from its ancestors in the page tree on the page itself. The values are
+	 * shared with the ancestors.
+	 *
+	 * @param page the page whose inherited attributes should be set.
+	 */
+	private static void inheritAttributes(@NotNull COSDictionary page) {
+		for (var key : INHERITABLE) {
+			if (page.containsKey(key))
+				continue;
+			final Set<COSDictionary> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (var node = parentOf(page); node != null && visited.add(node); node = parentOf(node)) {
+				if (node.containsKey(key)) {
+					page.setItem(key, node.getItem(key));
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes a cross-reference entry.
+	 *
+	 * @param out        the output the entry should be written into.
+	 * @param offset     the offset of the object.
+	 * @param generation the generation of the object.
+	 * @param type       'n' for an object in use, 'f' for a free one.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void writeEntry(@NotNull OutputStream out, long offset, int generation, char type)
+			throws IOException {
+		writeAscii(out, String.format(Locale.ROOT, "%010d %05d %c\r\n", offset, generation, type));
+	}
+	
+	/**
+	 * Returns the beginning of a cross-reference table with a single subsection, which is followed by 20 bytes per
+	 * entry.
+	 *
+	 * @param first the number of the first object.
+	 * @param count the number of entries.
+	 * @return the keyword and the subsection header.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	private static String crossReferenceTable(long first, long count) {
+		return "xref\n" + first + ' ' + count + '\n';
+	}
+	
+	/**
+	 * Checks that the output is at the offset computed for what is written next.
+	 *
+	 * @param out    the output counting the bytes written.
+	 * @param offset the expected offset.
+	 * @throws IllegalStateException if the output is at a different offset.
+	 */
+	private static void expect(@NotNull CountingOutputStream out, long offset) {
+		if (out.getByteCount() != offset)
+			throw new IllegalStateException("Expected offset " + offset + " but was at " + out.getByteCount());
+	}
+	
+	/**
+	 * Writes a string of ASCII characters into the output.
+	 *
+	 * @param os   the output the text should be written into.
+	 * @param text the text that should be written.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void writeAscii(@NotNull OutputStream os, @NotNull String text) throws IOException {
+		os.write(text.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * @param value a non-negative number.
+	 * @return the number of bits needed to store the number, 0 for 0.
+	 */
+	@Contract(pure = true)
+	private static int bits(long value) {
+		return 64 - Long.numberOfLeadingZeros(value);
+	}
+	
+	/** The BitWriter packs the items of the hint tables, most significant bit first. */
+	private static final class BitWriter {
+		/** The bytes written so far. */
+		@NotNull
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		/** The bits of the current byte that were written so far. */
+		private int current = 0;
+		/** The number of bits of the current byte that were written so far. */
+		private int count = 0;
+		
+		/**
+		 * Writes the lowest bits of the value.
+		 *
+		 * @param value the value that should be written. Has to fit into the bits.
+		 * @param bits  the number of bits that should be written.
+		 */
+		void write(long value, int bits) {
+			Validate.isTrue(bits == 64 || value >>> bits == 0, "The value %d does not fit into %d bits", value, bits);
+			for (var i = bits - 1; i >= 0; i--) {
+				current = current << 1 | (int) (value >>> i & 1);
+				if (++count == 8) {
+					bytes.write(current);
+					current = 0;
+					count = 0;
+				}
+			}
+		}
+		
+		/** Fills the current byte with zeros, such that the next item starts at a byte boundary. */
+		void align() {
+			if (count > 0)
+				write(0, 8 - count);
+		}
+		
+		/**
+		 * @return the number of complete bytes written.
+		 */
+		int size() {
+			return bytes.size();
+		}
+		
+		/**
+		 * Writes the bytes into the output. The bits written are aligned first.
+		 *
+		 * @param os the output the bytes should be written into.
+		 * @throws IOException if an I/O error occurs.
+		 */
+		void writeTo(@NotNull OutputStream os) throws IOException {
+			align();
+			bytes.writeTo(os);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The ObjectWriter serializes the objects of a document for the writers replacing {@link COSWriter}. Which values are
+ * written as indirect objects and which are written inline is decided the same way {@link COSWriter} does: Streams,
+ * dictionaries PDFBox created and objects that were indirect in the source are referenced, all other values are
+ * written inline. The numbers of the indirect objects are assigned by the subclass.
+ */
+abstract class ObjectWriter {
+	/** The bytes following the raw data of a stream written by {@link #writeStream(COSStream, long, OutputStream)}. */
+	static final byte[] STREAM_TRAILER = "\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII);
+	
+	/**
+	 * Returns the number of the indirect object, which is written with generation 0.
+	 *
+	 * @param object the resolved object.
+	 * @return the number of the object.
+	 */
+	abstract long number(@NotNull COSBase object);
+	
+	/**
+	 * Writes a stream as an indirect object with its raw data.
+	 *
+	 * @param stream the stream that should be written.
+	 * @param number the number of the stream.
+	 * @param os     the output the stream should be written into.
+	 * @throws IOException if an I/O error occurs or the stream is shorter or longer than specified.
+	 */
+	void writeStream(@NotNull COSStream stream, long number, @NotNull OutputStream os) throws IOException {
+		final var length = stream.getLength();
+		os.write(streamHeader(stream, number));
+		final long copied;
+		try (var raw = stream.createRawInputStream()) {
+			copied = raw.transferTo(os);
+		}
+		if (copied != length)
+			throw new IOException("The stream " + number + " has " + copied + " instead of " + length + " bytes");
+		os.write(STREAM_TRAILER);
+	}
+	
+	/**
+	 * Returns the bytes preceding the raw data of a stream written by {@link #writeStream(COSStream, long,
+	 * OutputStream)}, such that the size of the stream object is known without reading its data.
+	 *
+	 * @param stream the stream that should be written.
+	 * @param number the number of the stream.
+	 * @return the object header and the dictionary of the stream.
+	 * @throws IOException if the dictionary could not be serialized.
+	 */
+	@NotNull
+	byte[] streamHeader(@NotNull COSStream stream, long number) throws IOException {
+		final var header = new ByteArrayOutputStream();
+		header.write((number + " 0 obj\n").getBytes(StandardCharsets.US_ASCII));
+		writeDictionary(stream, header, stream.getLength());
+		header.write("\nstream\n".getBytes(StandardCharsets.US_ASCII));
+		return header.toByteArray();
+	}
+	
+	/**
+	 * Writes a value as a direct object, referencing the indirect objects it contains.
+	 *
+	 * @param value the value that should be written.
+	 * @param os    the output the value should be written into.
+	 * @throws IOException if an I/O error occurs or the value is of an unknown type.
+	 */
+	void writeDirect(@NotNull COSBase value, @NotNull OutputStream os) throws IOException {
+		if (value instanceof COSDictionary)
+			writeDictionary((COSDictionary) value, os, -1);
+		else if (value instanceof COSArray) {
+			os.write('[');
+			var first = true;
+			for (var item : (COSArray) value) {
+				if (!first)
+					os.write(' ');
+				first = false;
+				writeValue(Objects.requireNonNullElse(item, COSNull.NULL), os);
+			}
+			os.write(']');
+		} else if (value instanceof COSString)
+			COSWriter.writeString((COSString) value, os);
+		else if (value instanceof COSName)
+			((COSName) value).writePDF(os);
+		else if (value instanceof COSInteger)
+			((COSInteger) value).writePDF(os);
+		else if (value instanceof COSFloat)
+			((COSFloat) value).writePDF(os);
+		else if (value instanceof COSBoolean)
+			((COSBoolean) value).writePDF(os);
+		else if (value instanceof COSNull)
+			((COSNull) value).writePDF(os);
+		else throw new IOException("Can not write " + value.getClass().getSimpleName());
+	}
+	
+	/**
+	 * Writes a dictionary as a direct object.
+	 *
+	 * @param dictionary the dictionary that should be written.
+	 * @param os         the output the dictionary should be written into.
+	 * @param length     the length of the stream whose dictionary is written or -1 if it is no stream.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void writeDictionary(@NotNull COSDictionary dictionary, @NotNull OutputStream os, long length)
+			throws IOException {
+		os.write(COSWriter.DICT_OPEN);
+		for (var entry : dictionary.entrySet()) {
+			// the length of a stream may be an indirect object, which is no longer needed then
+			if (length >= 0 && COSName.LENGTH.equals(entry.getKey()))
+				continue;
+			entry.getKey().writePDF(os);
+			os.write(' ');
+			writeValue(Objects.requireNonNullElse(entry.getValue(), COSNull.NULL), os);
+		}
+		if (length >= 0) {
+			COSName.LENGTH.writePDF(os);
+			os.write(' ');
+			os.write(Long.toString(length).getBytes(StandardCharsets.US_ASCII));
+		}
+		os.write(COSWriter.DICT_CLOSE);
+	}
+	
+	/**
+	 * Writes a value contained in another object, either as a reference (see {@link #isIndirect(COSBase)}) or inline.
+	 *
+	 * @param value the value that should be written.
+	 * @param os    the output the value should be written into.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeValue(@NotNull COSBase value, @NotNull OutputStream os) throws IOException {
+		if (isIndirect(value))
+			os.write((number(resolve(value)) + " 0 R").getBytes(StandardCharsets.US_ASCII));
+		else writeDirect(resolve(value), os);
+	}
+	
+	/**
+	 * Checks if a value contained in another object is written as a reference to an indirect object: Streams,
+	 * dictionaries created by PDFBox and dictionaries and arrays that were indirect in the source are.
+	 *
+	 * @param value the value or a reference to it.
+	 * @return true if the value is referenced, false if it is written inline.
+	 */
+	@Contract(pure = true)
+	static boolean isIndirect(@NotNull COSBase value) {
+		final var resolved = resolve(value);
+		return resolved instanceof COSStream || resolved instanceof COSDictionary && !resolved.isDirect() ||
+			   value instanceof COSObject && (resolved instanceof COSDictionary || resolved instanceof COSArray);
+	}
+	
+	/**
+	 * Passes each indirect object the object refers to to the action, in the order they are written. References
+	 * within the values written inline are followed.
+	 *
+	 * @param object the resolved object whose references should be visited.
+	 * @param action the action the referenced (resolved) objects should be passed to.
+	 */
+	static void forEachReference(@NotNull COSBase object, @NotNull Consumer<COSBase> action) {
+		if (object instanceof COSDictionary) {
+			final var stream = object instanceof COSStream;
+			for (var entry : ((COSDictionary) object).entrySet()) {
+				if (!stream || !COSName.LENGTH.equals(entry.getKey()))
+					visitValue(Objects.requireNonNullElse(entry.getValue(), COSNull.NULL), action);
+			}
+		} else if (object instanceof COSArray) {
+			for (var item : (COSArray) object)
+				visitValue(Objects.requireNonNullElse(item, COSNull.NULL), action);
+		}
+	}
+	
+	/**
+	 * Passes the value to the action if it is referenced or visits the references of the value if it is inline.
+	 *
+	 * @param value  the value contained in another object.
+	 * @param action the action the referenced (resolved) objects should be passed to.
+	 */
+	private static void visitValue(@NotNull COSBase value, @NotNull Consumer<COSBase> action) {
+		if (isIndirect(value))
+			action.accept(resolve(value));
+		else forEachReference(resolve(value), action);
+	}
+	
+	/**
+	 * Resolves a reference to the object it refers to. A reference to a missing object is resolved to null.
+	 *
+	 * @param object the object or a reference to it.
+	 * @return the referenced object or the object itself if it is no reference.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	static COSBase resolve(@NotNull COSBase object) {
+		if (object instanceof COSObject)
+			return Objects.requireNonNullElse(((COSObject) object).getObject(), COSNull.NULL);
+		return object;
+	}
+}
@@ -1,6 +1,15 @@
 package de.uni_hannover.se.pdfzensor;
 
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 
 import static de.uni_hannover.se.pdfzensor.App.main;
 import static de.uni_hannover.se.pdfzensor.testing.TestConstants.*;
@@ -22,4 +31,30 @@ class AppTest {
 		assertDoesNotThrow(() -> main(getResourcePath(PDF_RESOURCE_PATH + "sample.bla.pdf")));
 		assertDoesNotThrow(() -> main(getResourcePath(PDF_RESOURCE_PATH + "StillAPDF")));
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Checks if a pdf-file read from stdin is censored and written to stdout.
+	 *
+	 * @param maxMemory The maximum memory (in MiB) used to buffer stdin.
+	 * @throws IOException If the resource could not be read or the output could not be loaded.
+	 */
+	@ParameterizedTest(name = "Run {index}: max. memory: {0}")
+	@ValueSource(strings = {"0", "16"})
+	void testStandardStreams(String maxMemory) throws IOException {
+		final var originalIn = System.in;
+		final var originalOut = System.out;
+		final var out = new ByteArrayOutputStream();
+		try (var in = new FileInputStream(getResourcePath(PDF_RESOURCE_PATH + "sample.pdf"))) {
+			System.setIn(in);
+			System.setOut(new PrintStream(out, true));
+			main("-", "--max-memory", maxMemory);
+		} finally {
+			System.setIn(originalIn);
+			System.setOut(originalOut);
+		}
+		try (var doc = PDDocument.load(out.toByteArray())) {
+			assertTrue(doc.getNumberOfPages() > 0);
+			assertTrue(new PDFTextStripper().getText(doc).isBlank());
+		}
+	}
+}
@@ -2,6 +2,7 @@ package de.uni_hannover.se.pdfzensor;
 
 import de.uni_hannover.se.pdfzensor.testing.TestUtility;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.PDFProvider;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.jetbrains.annotations.TestOnly;
 import org.junit.jupiter.api.Test;
@@ -20,12 +21,19 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class EncryptedFilesTest {
 	private static Method openMethod = TestUtility
-			.getPrivateMethod(App.class, "open", File.class, String.class, Integer.TYPE);
+			.getPrivateMethod(App.class, "open", File.class, String.class, Integer.TYPE, MemoryUsageSetting.class,
+							  Boolean.TYPE);
 	
 	@TestOnly
 	private static PDDocument open(File file, String password, int tries) throws IOException {
+		return open(file, password, tries, MemoryUsageSetting.setupMainMemoryOnly(), false);
+	}
+	
+	@TestOnly
+	private static PDDocument open(File file, String password, int tries, MemoryUsageSetting memory, boolean mapped)
+			throws IOException {
 		try {
-			return (PDDocument) openMethod.invoke(null, file, password, tries);
+			return (PDDocument) openMethod.invoke(null, file, password, tries, memory, mapped);
 		} catch (IllegalAccessException e) {
 			e.printStackTrace();
 			fail();
@@ -36,7 +44,7 @@ class EncryptedFilesTest {
 	}
 	
 	
-	/** Tests if {@link App#open(File, String, int)}  does show expected behavior. */
+	/** Tests if {@link App#open(File, String, int, MemoryUsageSetting, boolean)}  does show expected behavior. */
 	@Test
 	void testOpen() {
 		assertThrows(FileNotFoundException.class, () -> open(new File("notexisting.pdf"), null, 3));
@@ -65,4 +73,32 @@ class EncryptedFilesTest {
 		assertDoesNotThrow(() -> open(getResource(ENCRYPTED_PDF_RESOURCE_PATH + "Cryptography_Sample_encrypted.pdf"),
 									  "testpassword", 3));
 	}
+	
+	/**
+	 * Tests if an encrypted PDF can be opened from a mapping of it.
+	 *
+	 * @throws IOException if there is an I/O-Error.
+	 */
+	@Test
+	void testOpenMapped() throws IOException {
+		final var file = getResource(ENCRYPTED_PDF_RESOURCE_PATH + "Cryptography_Sample_encrypted.pdf");
+		try (var doc = open(file, "testpassword", 0, MemoryUsageSetting.setupMainMemoryOnly(), true)) {
+			assertNotNull(doc);
+			assertTrue(doc.getNumberOfPages() > 0);
+		}
+	}
+	
+	/**
+	 * Tests if a PDF can be opened buffered in a scratch file only.
+	 *
+	 * @throws IOException if there is an I/O-Error.
+	 */
+	@Test
+	void testOpenWithScratchFile() throws IOException {
+		try (var doc = open(getResource("/pdf-files/sample.pdf"), null, 0, MemoryUsageSetting.setupTempFileOnly(),
+							false)) {
+			assertNotNull(doc);
+			assertTrue(doc.getNumberOfPages() > 0);
+		}
+	}
 }
@@ -0,0 +1,307 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createPdfFile;
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** BatchCensorTest should contain all unit-tests related to {@link BatchCensor}. */
+class BatchCensorTest {
+	/** Checks if an invalid settings argument is rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidSettings() {
+		assertThrows(NullPointerException.class, () -> new BatchCensor(null));
+		assertThrows(NullPointerException.class, () -> BatchCensor.writeSummary(null, System.out));
+		assertThrows(NullPointerException.class, () -> BatchCensor.writeSummary(List.of(), null));
+	}
+	
+	/**
+	 * Checks if all files of a batch are censored by fewer workers than files (such that workers are reused) and a
+	 * failure of one file does not affect the others. Checks if the utilisation is written for each stage.
+	 *
+	 * @param tempDir A temporary directory to store the inputs and outputs in.
+	 * @throws Exception If the test files could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testRun(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		for (var i = 0; i < 5; i++)
+			Files.copy(sample, in.resolve("sample" + i + ".pdf"));
+		Files.writeString(in.resolve("broken.pdf"), "not a pdf");
+		final var out = tempDir.resolve("out");
+		
+		final var settings = new Settings(in.toString(), "-o", out.toString(), "-t", "2", "--load-threads", "1",
+										  "--save-threads", "3");
+		final var batch = new BatchCensor(settings);
+		final var outcomes = batch.run();
+		assertEquals(6, outcomes.size());
+		for (var i = 0; i < outcomes.size(); i++)
+			assertEquals(settings.getInputs()[i], outcomes.get(i).getInput());
+		assertFalse(outcomes.get(0).isSuccess());
+		for (var outcome : outcomes.subList(1, outcomes.size())) {
+			assertTrue(outcome.isSuccess(), () -> String.valueOf(outcome.getError()));
+			assertEquals(settings.getOutput(outcome.getInput()), outcome.getOutput());
+			assertCensored(outcome);
+		}
+		
+		final var summary = new ByteArrayOutputStream();
+		BatchCensor.writeSummary(outcomes, new PrintStream(summary, true));
+		assertTrue(summary.toString().contains("5 succeeded (0 skipped), 1 failed"));
+		
+		final var utilisation = new ByteArrayOutputStream();
+		batch.writeUtilisation(new PrintStream(utilisation, true));
+		final var lines = utilisation.toString().lines().toArray(String[]::new);
+		assertEquals(4, lines.length);
+		assertTrue(lines[0].matches("Load\\s+1 threads.*% busy"), lines[0]);
+		assertTrue(lines[1].matches("Censor\\s+2 threads.*% busy"), lines[1]);
+		assertTrue(lines[2].matches("Save\\s+3 threads.*% busy"), lines[2]);
+		assertTrue(lines[3].matches("Peak heap \\d+ MiB, peak scratch \\d+ MiB"), lines[3]);
+	}
+	
+	/**
+	 * Checks if all files of a batch are censored even if the memory budget is too small for each of them, such that
+	 * they are censored one at a time in scratch files in the scratch directory.
+	 *
+	 * @param tempDir A temporary directory to store the inputs and outputs in.
+	 * @throws Exception If the test files could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testMemoryBudget(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		for (var i = 0; i < 3; i++)
+			Files.copy(sample, in.resolve("sample" + i + ".pdf"));
+		final var out = tempDir.resolve("out");
+		final var scratch = Files.createDirectory(tempDir.resolve("scratch"));
+		
+		final var settings = new Settings.Builder().inputs(in.toFile().listFiles()).outputDir(out.toFile()).threads(3)
+												   .memoryBudget(1).scratchDir(scratch.toFile()).build();
+		final var outcomes = new BatchCensor(settings).run();
+		assertEquals(3, outcomes.size());
+		for (var outcome : outcomes) {
+			assertTrue(outcome.isSuccess(), () -> String.valueOf(outcome.getError()));
+			assertCensored(outcome);
+		}
+		try (var scratchFiles = Files.list(scratch)) {
+			assertEquals(0, scratchFiles.count(), "the scratch files should be deleted once censored");
+		}
+	}
+	
+	/**
+	 * Checks if a pdf-file taking longer than the timeout is reported as timed out and not written.
+	 *
+	 * @param tempDir A temporary directory to store the input and output in.
+	 * @throws Exception If the test file could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testTimeout(@TempDir Path tempDir) throws Exception {
+		final var input = createPdfFile(tempDir.resolve("pages.pdf"), 50, "");
+		final var settings = new Settings.Builder().inputs(input).batch(true).outputDir(tempDir.resolve("out").toFile())
+												   .timeout(1).build();
+		final var outcomes = new BatchCensor(settings).run();
+		assertEquals(1, outcomes.size());
+		assertTrue(outcomes.get(0).isTimedOut(), () -> String.valueOf(outcomes.get(0).getError()));
+		assertFalse(outcomes.get(0).getOutput().exists());
+		
+		final var summary = new ByteArrayOutputStream();
+		BatchCensor.writeSummary(outcomes, new PrintStream(summary, true));
+		assertTrue(summary.toString().contains("0 succeeded (0 skipped), 1 failed (1 timed out)"));
+	}
+	
+	/**
+	 * Checks if a batch records its outcomes in the manifest and a resumed batch skips the pdf-files recorded as
+	 * censored whose output still exists.
+	 *
+	 * @param tempDir A temporary directory to store the inputs, outputs and manifest in.
+	 * @throws Exception If the test files could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testResume(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		for (var i = 0; i < 3; i++)
+			Files.copy(sample, in.resolve("sample" + i + ".pdf"));
+		Files.writeString(in.resolve("broken.pdf"), "not a pdf");
+		final var out = tempDir.resolve("out").toString();
+		final var manifest = tempDir.resolve("batch.tsv");
+		
+		var outcomes = new BatchCensor(new Settings(in.toString(), "-o", out, "--manifest",
+													manifest.toString())).run();
+		assertEquals(4, outcomes.size());
+		assertTrue(outcomes.stream().noneMatch(Outcome::isSkipped));
+		assertEquals(4, Files.readAllLines(manifest).size());
+		Files.delete(outcomes.get(1).getOutput().toPath());
+		
+		final var settings = new Settings(in.toString(), "-o", out, "--manifest", manifest.toString(), "--resume");
+		outcomes = new BatchCensor(settings).run();
+		assertEquals(Outcome.FAIL, outcomes.get(0).getStatus());
+		assertEquals(Outcome.OK, outcomes.get(1).getStatus());
+		assertEquals(Outcome.SKIP, outcomes.get(2).getStatus());
+		assertEquals(Outcome.SKIP, outcomes.get(3).getStatus());
+		assertCensored(outcomes.get(1));
+		assertEquals(6, Files.readAllLines(manifest).size());
+		
+		final var summary = new ByteArrayOutputStream();
+		BatchCensor.writeSummary(outcomes, new PrintStream(summary, true));
+		assertTrue(summary.toString().contains("3 succeeded (2 skipped), 1 failed"));
+	}
+	
+	/**
+	 * Checks if pdf-files censored before with the same settings are copied from the cache, while changing the
+	 * settings censors them again.
+	 *
+	 * @param tempDir A temporary directory to store the inputs, outputs and cache in.
+	 * @throws Exception If the test files could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testCache(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		for (var i = 0; i < 3; i++)
+			Files.copy(sample, in.resolve("sample" + i + ".pdf"));
+		final var out = tempDir.resolve("out").toString();
+		final var cache = tempDir.resolve("cache").toString();
+		
+		var batch = new BatchCensor(new Settings(in.toString(), "-o", out, "-t", "1", "--cache-dir", cache));
+		var outcomes = batch.run();
+		assertTrue(outcomes.stream().allMatch(Outcome::isSuccess));
+		assertEquals(3, Objects.requireNonNull(batch.getCache()).getHits() + batch.getCache().getMisses());
+		for (var outcome : outcomes)
+			Files.delete(outcome.getOutput().toPath());
+		
+		batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--cache-dir", cache));
+		outcomes = batch.run();
+		assertEquals(3, Objects.requireNonNull(batch.getCache()).getHits());
+		for (var outcome : outcomes) {
+			assertTrue(outcome.isSuccess(), () -> String.valueOf(outcome.getError()));
+			assertCensored(outcome);
+		}
+		final var utilisation = new ByteArrayOutputStream();
+		batch.writeUtilisation(new PrintStream(utilisation, true));
+		assertTrue(utilisation.toString().contains("Cache: 3 hits, 0 misses"), utilisation::toString);
+		
+		batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--cache-dir", cache, "--compact"));
+		batch.run();
+		// identical inputs may be copied from the first one censored with the new settings
+		assertTrue(Objects.requireNonNull(batch.getCache()).getMisses() >= 1);
+		assertNull(new BatchCensor(new Settings(in.toString(), "-o", out)).getCache());
+	}
+	
+	/**
+	 * Checks if encrypted pdf-files are neither cached nor recorded in glyph sidecars, as the fingerprint naming them
+	 * does not cover the password.
+	 *
+	 * @param tempDir A temporary directory to store the inputs, outputs and cache in.
+	 * @throws Exception If the test files could not be created or the batch was interrupted.
+	 */
+	@Test
+	void testEncryptedNotCached(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var encrypted = getResource("/encrypted-pdf-files/Cryptography_Sample_encrypted.pdf").toPath();
+		for (var i = 0; i < 2; i++)
+			Files.copy(encrypted, in.resolve("encrypted" + i + ".pdf"));
+		final var out = tempDir.resolve("out").toString();
+		final var cache = tempDir.resolve("cache");
+		
+		for (var run = 0; run < 2; run++) {
+			final var batch = new BatchCensor(new Settings(in.toString(), "-o", out, "-p", "testpassword",
+														   "--cache-dir", cache.toString(), "--glyph-sidecar"));
+			final var outcomes = batch.run();
+			for (var outcome : outcomes) {
+				assertTrue(outcome.isSuccess(), () -> String.valueOf(outcome.getError()));
+				assertFalse(GlyphSidecar.fileOf(outcome.getOutput()).exists());
+			}
+			assertEquals(0, Objects.requireNonNull(batch.getCache()).getHits());
+			assertEquals(0, batch.getRedrawn());
+			try (var entries = Files.list(cache)) {
+				assertEquals(0, entries.count());
+			}
+		}
+	}
+	
+	/**
+	 * Checks if pdf-files censored with glyph sidecars are redrawn from them instead of being censored again when the
+	 * expressions change, and are only rewritten if their censor bars changed.
+	 *
+	 * @param tempDir A temporary directory to create the inputs and outputs in.
+	 * @throws Exception If the files could not be created or the batch failed.
+	 */
+	@Test
+	void testGlyphSidecar(@TempDir Path tempDir) throws Exception {
+		final var in = Files.createDirectory(tempDir.resolve("in"));
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		for (var i = 0; i < 2; i++)
+			Files.copy(sample, in.resolve("sample" + i + ".pdf"));
+		final var out = tempDir.resolve("out").toString();
+		
+		var batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--glyph-sidecar"));
+		var outcomes = batch.run();
+		assertTrue(outcomes.stream().allMatch(Outcome::isSuccess));
+		assertEquals(0, batch.getRedrawn());
+		final var censored = new ArrayList<byte[]>();
+		for (var outcome : outcomes) {
+			assertTrue(GlyphSidecar.fileOf(outcome.getOutput()).isFile());
+			censored.add(Files.readAllBytes(outcome.getOutput().toPath()));
+		}
+		
+		batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--glyph-sidecar"));
+		outcomes = batch.run();
+		assertEquals(2, batch.getRedrawn());
+		assertEquals(0, batch.getRewrittenPages());
+		for (var i = 0; i < outcomes.size(); i++)
+			assertArrayEquals(censored.get(i), Files.readAllBytes(outcomes.get(i).getOutput().toPath()));
+		
+		for (var run = 0; run < 2; run++) {
+			batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--glyph-sidecar", "-e", "[a-z]+",
+												 "#FF0000"));
+			outcomes = batch.run();
+			assertEquals(2, batch.getRedrawn());
+			// the second run finds the sidecars written by the first one with the same expressions
+			if (run == 0)
+				assertTrue(batch.getRewrittenPages() > 0);
+			else assertEquals(0, batch.getRewrittenPages());
+			for (var outcome : outcomes) {
+				assertTrue(outcome.isSuccess(), () -> String.valueOf(outcome.getError()));
+				assertCensored(outcome);
+			}
+		}
+		final var utilisation = new ByteArrayOutputStream();
+		batch.writeUtilisation(new PrintStream(utilisation, true));
+		assertTrue(utilisation.toString().contains("Glyph sidecars: 2 pdf-files redrawn, 0 pages rewritten"),
+				   utilisation::toString);
+		
+		// a setting other than the expressions requires censoring the inputs again
+		batch = new BatchCensor(new Settings(in.toString(), "-o", out, "--glyph-sidecar", "--compact"));
+		batch.run();
+		assertEquals(0, batch.getRedrawn());
+	}
+	
+	/**
+	 * Asserts that the output of the outcome exists and contains no more text.
+	 *
+	 * @param outcome The outcome of censoring a pdf-file.
+	 * @throws IOException If the output could not be loaded.
+	 */
+	private static void assertCensored(Outcome outcome) throws IOException {
+		try (var doc = PDDocument.load(outcome.getOutput())) {
+			assertTrue(new PDFTextStripper().getText(doc).isBlank());
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.testing.TestUtility;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createPdfFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** ChunkedCensorTest should contain all unit-tests related to {@link ChunkedCensor}. */
+class ChunkedCensorTest {
+	/** The number of pages of the generated pdf-file. */
+	private static final int PAGES = 7;
+	
+	/**
+	 * Checks if invalid settings and arguments are rejected.
+	 *
+	 * @param tempDir A temporary directory to store the generated pdf-file in.
+	 * @throws IOException If the pdf-file could not be created.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidArguments(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir).getAbsolutePath();
+		assertThrows(NullPointerException.class, () -> new ChunkedCensor(null));
+		assertThrows(NullPointerException.class, () -> new ChunkedCensor(new Settings(input)));
+		final var censor = new ChunkedCensor(new Settings(input, "--chunk-pages", "2"));
+		assertThrows(NullPointerException.class, () -> censor.censor(null, OutputStream.nullOutputStream()));
+		assertThrows(NullPointerException.class, () -> censor.censor(new File(input), null));
+	}
+	
+	/**
+	 * Checks if censoring a pdf-file in chunks yields the same pages in the same order as censoring it as a whole,
+	 * regardless of whether the chunks divide the pages evenly or there are fewer threads than chunks.
+	 *
+	 * @param chunkPages The number of pages per chunk.
+	 * @param threads    The number of threads censoring the chunks.
+	 * @param pages      The pages that should be censored.
+	 * @param drop       Whether the unselected pages should be removed.
+	 * @param tempDir    A temporary directory to store the generated pdf-file in.
+	 * @throws Exception If the pdf-file could not be created, censored or loaded.
+	 */
+	@ParameterizedTest(name = "Run {index}: chunk pages: {0}, threads: {1}, pages: {2}, drop: {3}")
+	@CsvSource({"1, 4, 1-7, false", "2, 2, 1-7, false", "3, 8, 1-7, false", "7, 2, 1-7, false", "10, 2, 1-7, false",
+			"2, 3, '2-3, 6', false", "2, 3, '2-3, 6', true"})
+	void testCensor(int chunkPages, int threads, @NotNull String pages, boolean drop,
+					@TempDir Path tempDir) throws Exception {
+		final var input = createInput(tempDir);
+		final var args = new ArrayList<>(List.of(input.getAbsolutePath(), "-e", "Secret", "-s", pages));
+		if (drop)
+			args.add("-d");
+		final var whole = new Settings(args.toArray(String[]::new));
+		args.addAll(List.of("--chunk-pages", String.valueOf(chunkPages), "-t", String.valueOf(threads)));
+		final var chunked = new Settings(args.toArray(String[]::new));
+		
+		final var out = new ByteArrayOutputStream();
+		new ChunkedCensor(chunked).censor(input, out);
+		try (var expected = PDDocument.load(input); var actual = PDDocument.load(out.toByteArray())) {
+			new PDFProcessor(new PDFCensor(whole), whole).process(expected);
+			assertEquals(expected.getNumberOfPages(), actual.getNumberOfPages());
+			final var stripper = new PDFTextStripper();
+			for (var i = 1; i <= expected.getNumberOfPages(); i++) {
+				assertEquals(expected.getPage(i - 1).getMediaBox().getWidth(),
+							 actual.getPage(i - 1).getMediaBox().getWidth(), "Page " + i + " is out of order");
+				stripper.setStartPage(i);
+				stripper.setEndPage(i);
+				assertEquals(stripper.getText(expected), stripper.getText(actual));
+			}
+		}
+	}
+	
+	/**
+	 * Checks if the documents of the chunks are closed once their pages were reassembled, such that no more than one
+	 * chunk per thread is open besides the first one, while the pages of the closed chunks remain intact.
+	 *
+	 * @param tempDir A temporary directory to store the generated pdf-file in.
+	 * @throws Exception If the pdf-file could not be created, censored or loaded.
+	 */
+	@Test
+	void testOpenChunksBounded(@TempDir Path tempDir) throws Exception {
+		final var input = createInput(tempDir);
+		final var whole = new Settings(input.getAbsolutePath(), "-e", "Secret");
+		final var censor = new ChunkedCensor(new Settings(input.getAbsolutePath(), "-e", "Secret", "--chunk-pages", "1",
+														  "-t", "2"));
+		final var out = new ByteArrayOutputStream();
+		censor.censor(input, out);
+		assertTrue(censor.getPeakOpened() <= 3, "Too many chunks were open: " + censor.getPeakOpened());
+		try (var expected = PDDocument.load(input); var actual = PDDocument.load(out.toByteArray())) {
+			new PDFProcessor(new PDFCensor(whole)).process(expected);
+			assertEquals(PAGES, actual.getNumberOfPages());
+			final var stripper = new PDFTextStripper();
+			for (var i = 1; i <= PAGES; i++) {
+				assertEquals(300 + 10 * i, actual.getPage(i - 1).getMediaBox().getWidth());
+				stripper.setStartPage(i);
+				stripper.setEndPage(i);
+				assertEquals(stripper.getText(expected), stripper.getText(actual));
+			}
+		}
+	}
+	
+	/**
+	 * Checks if censoring the chunks is aborted once they took longer than the timeout together.
+	 *
+	 * @param tempDir A temporary directory to store the generated pdf-file in.
+	 * @throws IOException If the pdf-file could not be created.
+	 */
+	@Test
+	void testTimeout(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir);
+		final var settings = new Settings.Builder().inputs(input).chunkPages(2).threads(2).timeout(1).build();
+		final var e = assertThrows(AbortedException.class,
+								   () -> new ChunkedCensor(settings).censor(input, OutputStream.nullOutputStream()));
+		assertTrue(e.isTimeout());
+	}
+	
+	/**
+	 * Checks if a pdf-file that can not be loaded leads to an exception.
+	 *
+	 * @param tempDir A temporary directory to store the broken pdf-file in.
+	 * @throws IOException If the broken pdf-file could not be created.
+	 */
+	@Test
+	void testBrokenInput(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir);
+		final var censor = new ChunkedCensor(new Settings(input.getAbsolutePath(), "--chunk-pages", "2"));
+		final var broken = tempDir.resolve("broken.pdf");
+		Files.writeString(broken, "not a pdf");
+		assertThrows(IOException.class, () -> censor.censor(broken.toFile(), OutputStream.nullOutputStream()));
+	}
+	
+	/**
+	 * Creates a pdf-file with {@link #PAGES} pages of different widths, each containing text that should be censored as
+	 * well as text that should be kept (see {@link TestUtility#createDocument(int, String)}).
+	 *
+	 * @param dir The directory the pdf-file should be created in.
+	 * @return The created pdf-file.
+	 * @throws IOException If the pdf-file could not be created.
+	 */
+	@NotNull
+	private static File createInput(@NotNull Path dir) throws IOException {
+		return createPdfFile(dir.resolve("pages.pdf"), PAGES, " Secret");
+	}
+}
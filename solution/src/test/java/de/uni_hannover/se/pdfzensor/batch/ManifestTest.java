@@ -0,0 +1,102 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** ManifestTest should contain all unit-tests related to {@link Manifest}. */
+class ManifestTest {
+	/** Checks if escaping a value and unescaping it again restores it. */
+	@Test
+	void testEscape() {
+		for (var value : new String[]{"", "plain.pdf", "a\\tb.pdf", "tab\there", "line\nbreak\r", "\\", "end\\"}) {
+			final var escaped = Manifest.escape(value);
+			assertFalse(escaped.contains("\t") || escaped.contains("\n") || escaped.contains("\r"), escaped);
+			assertEquals(value, Manifest.unescape(escaped));
+		}
+	}
+	
+	/**
+	 * Checks if the outcomes recorded in a manifest are read when resuming: the last line of an input wins, failures
+	 * and malformed lines are not completed and an input whose output vanished, whose hash is unknown or whose content
+	 * changed is not completed either. An input whose size and modification time are unchanged is completed without
+	 * comparing its hash, while one that was only touched or recorded by a line without them is compared by its hash.
+	 *
+	 * @param tempDir A temporary directory to store the manifest and files in.
+	 * @throws IOException If the files could not be created.
+	 */
+	@Test
+	void testResume(@TempDir Path tempDir) throws IOException {
+		final var file = tempDir.resolve("dir").resolve("batch.tsv").toFile();
+		final var a = Files.writeString(tempDir.resolve("a\tb.pdf"), "abc").toFile();
+		final var b = Files.writeString(tempDir.resolve("b.pdf"), "b").toFile();
+		final var c = Files.writeString(tempDir.resolve("c.pdf"), "c").toFile();
+		final var d = Files.writeString(tempDir.resolve("d.pdf"), "d").toFile();
+		final var e = Files.writeString(tempDir.resolve("e.pdf"), "e").toFile();
+		final var aOut = Files.createFile(tempDir.resolve("a_cens.pdf")).toFile();
+		final var bOut = Files.createFile(tempDir.resolve("b_cens.pdf")).toFile();
+		final var cOut = tempDir.resolve("c_cens.pdf").toFile();
+		final var dOut = Files.createFile(tempDir.resolve("d_cens.pdf")).toFile();
+		final var eOut = Files.createFile(tempDir.resolve("e_cens.pdf")).toFile();
+		final var f = Files.writeString(tempDir.resolve("f.pdf"), "f").toFile();
+		final var g = Files.writeString(tempDir.resolve("g.pdf"), "g").toFile();
+		final var h = Files.writeString(tempDir.resolve("h.pdf"), "h").toFile();
+		final var hash = Manifest.hash(a);
+		try (var manifest = new Manifest(file, true)) {
+			assertFalse(manifest.isCompleted(a));
+			manifest.record(new Outcome(a, aOut, null, 5), hash, a.length(), a.lastModified());
+			manifest.record(new Outcome(b, bOut, null, 5), Manifest.hash(b), b.length(), b.lastModified());
+			manifest.record(new Outcome(b, bOut, new IOException("broken"), 5), null, -1, -1);
+			manifest.record(new Outcome(c, cOut, null, 5), Manifest.hash(c), c.length(), c.lastModified());
+			manifest.record(new Outcome(d, dOut, null, 5), Manifest.hash(d), d.length(), d.lastModified());
+			manifest.record(new Outcome(e, eOut, null, 5), null, -1, -1);
+			manifest.record(new Outcome(f, aOut, null, 5), Manifest.hash(a), f.length(), f.lastModified());
+			manifest.record(new Outcome(g, aOut, null, 5), Manifest.hash(g), g.length(), g.lastModified());
+		}
+		final var lines = Files.readAllLines(file.toPath());
+		assertEquals(8, lines.size());
+		assertTrue(lines.get(0).startsWith("OK\t5\t" + hash + "\t3\t" + a.lastModified() + "\t"), lines.get(0));
+		assertTrue(lines.get(2).startsWith("FAIL\t5\t-\t-1\t-1\t"), lines.get(2));
+		final var legacy = "OK\t3\t" + Manifest.hash(h) + "\t" + Manifest.escape(h.getAbsolutePath()) + "\t" +
+						   Manifest.escape(aOut.getAbsolutePath()) + "\n";
+		Files.writeString(file.toPath(), legacy, StandardOpenOption.APPEND);
+		Files.writeString(file.toPath(), "OK\t3\ttruncat", StandardOpenOption.APPEND);
+		Files.writeString(d.toPath(), "replaced");
+		assertTrue(g.setLastModified(g.lastModified() - 60_000));
+		
+		try (var manifest = new Manifest(file, true)) {
+			assertTrue(manifest.isCompleted(a));
+			assertFalse(manifest.isCompleted(b));
+			assertFalse(manifest.isCompleted(c));
+			assertFalse(manifest.isCompleted(d));
+			assertFalse(manifest.isCompleted(e));
+			assertTrue(manifest.isCompleted(f), "the hash is compared although size and modification time match");
+			assertTrue(manifest.isCompleted(g));
+			assertTrue(manifest.isCompleted(h));
+			assertFalse(manifest.isCompleted(new File("unknown.pdf")));
+		}
+		try (var manifest = new Manifest(file, false)) {
+			assertFalse(manifest.isCompleted(a));
+		}
+	}
+	
+	/**
+	 * Checks if the hash of a file is its hexadecimal SHA-256 hash.
+	 *
+	 * @param tempDir A temporary directory to store the file in.
+	 * @throws IOException If the file could not be created.
+	 */
+	@Test
+	void testHash(@TempDir Path tempDir) throws IOException {
+		final var file = Files.writeString(tempDir.resolve("abc.txt"), "abc").toFile();
+		assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Manifest.hash(file));
+		assertThrows(IOException.class, () -> Manifest.hash(tempDir.resolve("missing").toFile()));
+	}
+}
@@ -0,0 +1,162 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static de.uni_hannover.se.pdfzensor.batch.MemoryBudget.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** MemoryBudgetTest should contain all unit-tests related to {@link MemoryBudget}. */
+class MemoryBudgetTest {
+	/** One mebibyte. */
+	private static final long MIB = 1024 * 1024;
+	
+	/**
+	 * Creates a new memory budget.
+	 *
+	 * @param budget The number of bytes the admitted pdf-files may use together or -1 if not limited.
+	 * @return The new memory budget.
+	 */
+	private static MemoryBudget createBudget(long budget) {
+		return new MemoryBudget(new Settings.Builder().inputs(new File("in.pdf")).memoryBudget(budget).build());
+	}
+	
+	/** Checks if invalid arguments are rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidArguments() {
+		assertThrows(NullPointerException.class, () -> new MemoryBudget(null));
+		assertThrows(IllegalArgumentException.class, () -> createBudget(-1).admit(-1));
+	}
+	
+	/** Checks if the estimate depends on the size, the page count and the memory usage setting. */
+	@Test
+	void testEstimate() {
+		final var main = MemoryUsageSetting.setupMainMemoryOnly();
+		final var scratch = MemoryUsageSetting.setupTempFileOnly();
+		assertEquals(MAIN_MEMORY_FACTOR * MIB, estimate(MIB, 0, main));
+		assertEquals(SCRATCH_FACTOR * MIB, estimate(MIB, 0, scratch));
+		assertEquals(MAIN_MEMORY_FACTOR * MIB + 10 * PAGE_BYTES, estimate(MIB, 10, main));
+		assertEquals(SCRATCH_FACTOR * MIB + 10 * PAGE_BYTES, estimate(MIB, 10, scratch));
+		assertEquals(SCRATCH_FACTOR * MIB + 1024, estimate(MIB, 0, MemoryUsageSetting.setupMixed(1024)));
+		assertEquals(MAIN_MEMORY_FACTOR * MIB, estimate(MIB, 0, MemoryUsageSetting.setupMixed(100 * MIB)));
+	}
+	
+	/**
+	 * Checks if an unlimited budget admits all pdf-files immediately.
+	 *
+	 * @throws InterruptedException If the admission was interrupted.
+	 */
+	@Test
+	void testUnlimited() throws InterruptedException {
+		final var budget = createBudget(-1);
+		try (var first = budget.admit(1000 * MIB); var second = budget.admit(1000 * MIB)) {
+			assertFalse(first.isScratchOnly());
+			assertFalse(second.isScratchOnly());
+			assertTrue(first.getMemoryUsageSetting().useMainMemory());
+			assertEquals(2, budget.getAdmitted());
+		}
+		assertEquals(0, budget.getAdmitted());
+		assertEquals(0, budget.getUsed());
+	}
+	
+	/**
+	 * Checks if a pdf-file waits until enough memory was released and the estimate is corrected by the page count.
+	 *
+	 * @throws Exception If the admission was interrupted or failed.
+	 */
+	@Test
+	void testAdmission() throws Exception {
+		final var budget = createBudget(10 * MIB);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var first = budget.admit(MIB);
+			final var second = budget.admit(MIB);
+			assertEquals(2 * MAIN_MEMORY_FACTOR * MIB, budget.getUsed());
+			final var third = executor.submit(() -> budget.admit(MIB));
+			assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+			
+			first.setPages(4);
+			assertEquals(2 * MAIN_MEMORY_FACTOR * MIB + 4 * PAGE_BYTES, budget.getUsed());
+			first.close();
+			first.close();
+			first.setPages(8);
+			try (var admission = third.get(5, TimeUnit.SECONDS)) {
+				assertFalse(admission.isScratchOnly());
+				assertEquals(2, budget.getAdmitted());
+				assertEquals(2 * MAIN_MEMORY_FACTOR * MIB, budget.getUsed());
+			}
+			second.close();
+			assertEquals(0, budget.getUsed());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Checks if a pdf-file of unknown size reserves the whole budget and is buffered in a scratch file until its size
+	 * is known, while an unlimited budget admits it immediately.
+	 *
+	 * @throws Exception If the admission was interrupted or failed.
+	 */
+	@Test
+	void testUnknownSize() throws Exception {
+		final var budget = createBudget(10 * MIB);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var first = budget.admit(MIB);
+			final var unknown = executor.submit(budget::admitUnknown);
+			assertThrows(TimeoutException.class, () -> unknown.get(200, TimeUnit.MILLISECONDS));
+			first.close();
+			try (var admission = unknown.get(5, TimeUnit.SECONDS)) {
+				assertTrue(admission.isScratchOnly());
+				assertFalse(admission.getMemoryUsageSetting().useMainMemory());
+				assertEquals(10 * MIB, budget.getUsed());
+				admission.setSize(2 * MIB);
+				admission.setPages(3);
+				assertEquals(SCRATCH_FACTOR * 2 * MIB + 3 * PAGE_BYTES, budget.getUsed());
+				assertThrows(IllegalArgumentException.class, () -> admission.setSize(-1));
+			}
+			assertEquals(0, budget.getUsed());
+		} finally {
+			executor.shutdownNow();
+		}
+		try (var admission = createBudget(-1).admitUnknown()) {
+			assertFalse(admission.isScratchOnly());
+		}
+	}
+		
+		/**
+	 * Checks if a pdf-file exceeding the budget on its own is buffered in a scratch file and admitted once no other
+	 * pdf-file is admitted.
+	 *
+	 * @throws Exception If the admission was interrupted or failed.
+	 */
+	@Test
+	void testOversized() throws Exception {
+		final var budget = createBudget(10 * MIB);
+		final var executor = Executors.newSingleThreadExecutor();
+		try {
+			final var first = budget.admit(6 * MIB);
+			assertTrue(first.isScratchOnly());
+			assertFalse(first.getMemoryUsageSetting().useMainMemory());
+			assertTrue(first.getMemoryUsageSetting().useTempFile());
+			assertEquals(SCRATCH_FACTOR * 6 * MIB, budget.getUsed());
+			
+			final var second = executor.submit(() -> budget.admit(6 * MIB));
+			assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));
+			first.close();
+			try (var admission = second.get(5, TimeUnit.SECONDS)) {
+				assertTrue(admission.isScratchOnly());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
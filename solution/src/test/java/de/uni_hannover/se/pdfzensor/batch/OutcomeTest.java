@@ -0,0 +1,62 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** OutcomeTest should contain all unit-tests related to {@link Outcome}. */
+class OutcomeTest {
+	/** Checks if the values of an outcome are stored and represented correctly. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testOutcome() {
+		final var in = new File("in.pdf");
+		final var out = new File("in_cens.pdf");
+		assertThrows(NullPointerException.class, () -> new Outcome(null, out, null, 0));
+		assertThrows(NullPointerException.class, () -> new Outcome(in, null, null, 0));
+		
+		var outcome = new Outcome(in, out, null, 42);
+		assertSame(in, outcome.getInput());
+		assertSame(out, outcome.getOutput());
+		assertNull(outcome.getError());
+		assertEquals(42, outcome.getMillis());
+		assertTrue(outcome.isSuccess());
+		assertFalse(outcome.isTimedOut());
+		assertFalse(outcome.isSkipped());
+		assertEquals(Outcome.OK, outcome.getStatus());
+		assertTrue(outcome.toString().startsWith("OK"));
+		assertTrue(outcome.toString().contains("in_cens.pdf"));
+		
+		final var error = new IOException("broken");
+		outcome = new Outcome(in, out, error, 7);
+		assertSame(error, outcome.getError());
+		assertFalse(outcome.isSuccess());
+		assertFalse(outcome.isTimedOut());
+		assertTrue(outcome.toString().startsWith("FAIL"));
+		assertTrue(outcome.toString().contains("broken"));
+		
+		outcome = new Outcome(in, out, new AbortedException(true, "too slow"), 7);
+		assertFalse(outcome.isSuccess());
+		assertTrue(outcome.isTimedOut());
+		assertEquals(Outcome.TIME, outcome.getStatus());
+		assertTrue(outcome.toString().startsWith("TIME"));
+		assertTrue(outcome.toString().contains("too slow"));
+		
+		outcome = new Outcome(in, out, new AbortedException(false, "cancelled"), 7);
+		assertFalse(outcome.isTimedOut());
+		assertEquals(Outcome.FAIL, outcome.getStatus());
+		assertTrue(outcome.toString().startsWith("FAIL"));
+		
+		outcome = Outcome.skipped(in, out);
+		assertTrue(outcome.isSuccess());
+		assertTrue(outcome.isSkipped());
+		assertEquals(0, outcome.getMillis());
+		assertEquals(Outcome.SKIP, outcome.getStatus());
+		assertTrue(outcome.toString().startsWith("SKIP"));
+		assertTrue(outcome.toString().contains("in_cens.pdf"));
+	}
+}
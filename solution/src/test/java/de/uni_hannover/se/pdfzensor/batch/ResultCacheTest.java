@@ -0,0 +1,139 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** ResultCacheTest should contain all unit-tests related to {@link ResultCache}. */
+class ResultCacheTest {
+	/**
+	 * Checks if invalid arguments are rejected.
+	 *
+	 * @param tempDir A temporary directory to create the cache in.
+	 * @throws IOException If the test file could not be created.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidArguments(@TempDir Path tempDir) throws IOException {
+		final var dir = tempDir.toFile();
+		final var file = Files.createFile(tempDir.resolve("file")).toFile();
+		assertThrows(IllegalArgumentException.class, () -> new ResultCache(dir, 0, "abc"));
+		assertThrows(IllegalArgumentException.class, () -> new ResultCache(new File(file, "dir"), 1, "abc"));
+		assertThrows(NullPointerException.class, () -> new ResultCache(dir, 1, null));
+		final var cache = new ResultCache(dir, 1, "abc");
+		assertThrows(IllegalArgumentException.class, () -> cache.restore("../x", file));
+	}
+	
+	/**
+	 * Checks if a stored pdf-file is restored for the same hash and fingerprint only and the hits and misses are
+	 * counted.
+	 *
+	 * @param tempDir A temporary directory to create the cache and files in.
+	 * @throws IOException If the files could not be created.
+	 */
+	@Test
+	void testRestore(@TempDir Path tempDir) throws IOException {
+		final var dir = tempDir.resolve("cache").toFile();
+		final var cache = new ResultCache(dir, 1024 * 1024, "f1");
+		assertTrue(dir.isDirectory());
+		final var censored = Files.writeString(tempDir.resolve("censored.pdf"), "censored").toFile();
+		final var output = tempDir.resolve("out").resolve("output.pdf").toFile();
+		assertFalse(cache.restore("abc", output));
+		assertFalse(output.exists());
+		cache.store("abc", censored);
+		assertTrue(cache.restore("abc", output));
+		assertEquals("censored", Files.readString(output.toPath()));
+		assertFalse(cache.restore("abd", output));
+		assertFalse(new ResultCache(dir, 1024 * 1024, "f2").restore("abc", output));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		try (var files = Files.list(dir.toPath())) {
+			assertEquals(1, files.count());
+		}
+	}
+	
+	/**
+	 * Checks if the least recently used pdf-files are removed once the cache exceeds its size, and a restored pdf-file
+	 * counts as used.
+	 *
+	 * @param tempDir A temporary directory to create the cache and files in.
+	 * @throws IOException If the files could not be created.
+	 */
+	@Test
+	void testEvict(@TempDir Path tempDir) throws IOException {
+		final var dir = tempDir.resolve("cache");
+		final var cache = new ResultCache(dir.toFile(), 1000, "f");
+		final var censored = Files.writeString(tempDir.resolve("censored.pdf"), "x".repeat(400)).toFile();
+		final var output = tempDir.resolve("output.pdf").toFile();
+		cache.store("a", censored);
+		cache.store("b", censored);
+		setAge(dir, "a", 3);
+		setAge(dir, "b", 2);
+		assertTrue(cache.restore("a", output));
+		final var abandoned = Files.createFile(dir.resolve("c-f.pdf123.tmp"));
+		Files.setLastModifiedTime(abandoned, FileTime.fromMillis(0));
+		cache.store("c", censored);
+		assertFalse(Files.exists(abandoned));
+		assertTrue(cache.restore("a", output));
+		assertFalse(cache.restore("b", output));
+		assertTrue(cache.restore("c", output));
+	}
+	
+	/**
+	 * Checks if concurrent workers storing and restoring the same pdf-files always restore complete ones.
+	 *
+	 * @param tempDir A temporary directory to create the cache and files in.
+	 * @throws Exception If the files could not be created or a worker failed.
+	 */
+	@Test
+	void testConcurrent(@TempDir Path tempDir) throws Exception {
+		final var content = "y".repeat(100_000);
+		final var censored = Files.writeString(tempDir.resolve("censored.pdf"), content).toFile();
+		final var cache = new ResultCache(tempDir.resolve("cache").toFile(), 250_000, "f");
+		final var executor = Executors.newFixedThreadPool(4);
+		try {
+			final var futures = new ArrayList<Future<Void>>();
+			for (var w = 0; w < 4; w++) {
+				final var output = tempDir.resolve("output" + w + ".pdf").toFile();
+				futures.add(executor.submit((Callable<Void>) () -> {
+					for (var i = 0; i < 50; i++) {
+						final var hash = Integer.toHexString(i % 5);
+						if (cache.restore(hash, output))
+							assertEquals(content, Files.readString(output.toPath()));
+						else cache.store(hash, censored);
+					}
+					return null;
+				}));
+			}
+			for (var future : futures)
+				future.get();
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(cache.getHits() > 0);
+	}
+	
+	/**
+	 * Sets the time the cached pdf-file was last used to some hours ago.
+	 *
+	 * @param dir   the directory of the cache.
+	 * @param hash  the hash of the cached pdf-file.
+	 * @param hours the number of hours ago it was used.
+	 * @throws IOException If the time could not be set.
+	 */
+	private static void setAge(Path dir, String hash, int hours) throws IOException {
+		Files.setLastModifiedTime(dir.resolve(hash + "-f.pdf"),
+								  FileTime.fromMillis(System.currentTimeMillis() - hours * 3_600_000L));
+	}
+}
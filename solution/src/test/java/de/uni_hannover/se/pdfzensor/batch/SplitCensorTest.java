@@ -0,0 +1,161 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.censor.PDFCensor;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
+import de.uni_hannover.se.pdfzensor.testing.TestUtility;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createPdfFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SplitCensorTest should contain all unit-tests related to {@link SplitCensor}. */
+class SplitCensorTest {
+	/** The number of pages of the generated pdf-file. */
+	private static final int PAGES = 7;
+	
+	/** Checks if the parts are named after the output and numbered such that they sort in their order. */
+	@Test
+	void testPartOf() {
+		assertEquals(new File("out/a_cens_part1.pdf"), SplitCensor.partOf(new File("out/a_cens.pdf"), 1, 3));
+		assertEquals(new File("out/a_cens_part03.pdf"), SplitCensor.partOf(new File("out/a_cens.pdf"), 3, 12));
+		assertEquals(new File("a_part100.pdf"), SplitCensor.partOf(new File("a.pdf"), 100, 100));
+		assertEquals(new File("out/a_part2"), SplitCensor.partOf(new File("out/a"), 2, 2));
+	}
+	
+	/**
+	 * Checks if invalid settings and arguments are rejected.
+	 *
+	 * @param tempDir A temporary directory to store the generated pdf-file in.
+	 * @throws IOException If the pdf-file could not be created.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidArguments(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir).getAbsolutePath();
+		assertThrows(NullPointerException.class, () -> new SplitCensor(null));
+		assertThrows(NullPointerException.class, () -> new SplitCensor(new Settings(input)));
+		final var censor = new SplitCensor(new Settings(input, "--split-pages", "2"));
+		assertThrows(NullPointerException.class, () -> censor.censor(null, new File("out.pdf"), null));
+		assertThrows(NullPointerException.class, () -> censor.censor(new File(input), null, null));
+	}
+	
+	/**
+	 * Checks if the parts contain the pages of the pdf-file censored as a whole in the same order, with each part but
+	 * the last one containing exactly the specified number of pages, regardless of whether unselected pages are
+	 * dropped.
+	 *
+	 * @param splitPages The number of pages per part.
+	 * @param pages      The pages that should be censored.
+	 * @param drop       Whether the unselected pages should be removed.
+	 * @param parts      The number of parts that should be written.
+	 * @param tempDir    A temporary directory to store the generated pdf-file and the parts in.
+	 * @throws IOException If the pdf-file could not be created, censored or loaded.
+	 */
+	@ParameterizedTest(name = "Run {index}: split pages: {0}, pages: {1}, drop: {2}")
+	@CsvSource({"1, 1-7, false, 7", "2, 1-7, false, 4", "7, 1-7, false, 1", "10, 1-7, false, 1",
+			"2, '2-3, 6', false, 4", "2, '2-3, 6', true, 2", "3, '1, 3-7', true, 2"})
+	void testCensor(int splitPages, @NotNull String pages, boolean drop, int parts,
+					@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir);
+		final var args = new ArrayList<>(List.of(input.getAbsolutePath(), "-e", "Secret", "-s", pages));
+		if (drop)
+			args.add("-d");
+		final var whole = new Settings(args.toArray(String[]::new));
+		args.addAll(List.of("--split-pages", String.valueOf(splitPages)));
+		final var split = new Settings(args.toArray(String[]::new));
+		
+		final var output = tempDir.resolve("out.pdf").toFile();
+		final var files = new SplitCensor(split).censor(input, output, null);
+		assertEquals(parts, files.size());
+		try (var expected = PDDocument.load(input)) {
+			new PDFProcessor(new PDFCensor(whole), whole).process(expected);
+			final var stripper = new PDFTextStripper();
+			var page = 1;
+			for (var i = 0; i < parts; i++) {
+				assertEquals(SplitCensor.partOf(output, i + 1, parts), files.get(i));
+				try (var actual = PDDocument.load(files.get(i))) {
+					final var count = i < parts - 1 ? splitPages : expected.getNumberOfPages() - page + 1;
+					assertEquals(count, actual.getNumberOfPages(), "Part " + (i + 1) + " has the wrong size");
+					for (var j = 1; j <= count; j++, page++) {
+						assertEquals(expected.getPage(page - 1).getMediaBox().getWidth(),
+									 actual.getPage(j - 1).getMediaBox().getWidth(), "Page " + page + " is misplaced");
+						stripper.setStartPage(page);
+						stripper.setEndPage(page);
+						final var text = stripper.getText(expected);
+						stripper.setStartPage(j);
+						stripper.setEndPage(j);
+						assertEquals(text, stripper.getText(actual));
+					}
+				}
+			}
+			assertEquals(expected.getNumberOfPages() + 1, page);
+		}
+		assertFalse(output.exists());
+	}
+	
+	/**
+	 * Checks if censoring the parts is aborted once they took longer than the timeout together and the parts written
+	 * so far are deleted again.
+	 *
+	 * @param tempDir A temporary directory to store the generated pdf-file and the parts in.
+	 * @throws IOException If the pdf-file could not be created or the directory could not be listed.
+	 */
+	@Test
+	void testTimeout(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir);
+		final var settings = new Settings.Builder().inputs(input).splitPages(2).timeout(1).build();
+		final var output = tempDir.resolve("out.pdf").toFile();
+		final var e = assertThrows(AbortedException.class,
+								   () -> new SplitCensor(settings).censor(input, output, null));
+		assertTrue(e.isTimeout());
+		try (var files = Files.list(tempDir)) {
+			assertEquals(List.of(input.toPath()), files.collect(Collectors.toList()));
+		}
+	}
+	
+	/**
+	 * Checks if a pdf-file that can not be loaded leads to an exception and no part being written.
+	 *
+	 * @param tempDir A temporary directory to store the broken pdf-file in.
+	 * @throws IOException If the broken pdf-file could not be created.
+	 */
+	@Test
+	void testBrokenInput(@TempDir Path tempDir) throws IOException {
+		final var input = createInput(tempDir);
+		final var censor = new SplitCensor(new Settings(input.getAbsolutePath(), "--split-pages", "2"));
+		final var broken = tempDir.resolve("broken.pdf");
+		Files.writeString(broken, "not a pdf");
+		final var output = tempDir.resolve("out.pdf").toFile();
+		assertThrows(IOException.class, () -> censor.censor(broken.toFile(), output, null));
+		assertFalse(SplitCensor.partOf(output, 1, 1).exists());
+	}
+	
+	/**
+	 * Creates a pdf-file with {@link #PAGES} pages of different widths, each containing text that should be censored as
+	 * well as text that should be kept (see {@link TestUtility#createDocument(int, String)}).
+	 *
+	 * @param dir The directory the pdf-file should be created in.
+	 * @return The created pdf-file.
+	 * @throws IOException If the pdf-file could not be created.
+	 */
+	@NotNull
+	private static File createInput(@NotNull Path dir) throws IOException {
+		return createPdfFile(dir.resolve("pages.pdf"), PAGES, " Secret");
+	}
+}
@@ -0,0 +1,115 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphSidecar;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SpoolWatcherTest should contain all unit-tests related to {@link SpoolWatcher}. */
+class SpoolWatcherTest {
+	/** Checks if invalid settings are rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidSettings() {
+		assertThrows(NullPointerException.class, () -> new SpoolWatcher(null));
+		final var settings = new Settings(getResource("/pdf-files/sample.pdf").getAbsolutePath());
+		assertThrows(NullPointerException.class, () -> new SpoolWatcher(settings));
+	}
+	
+	/**
+	 * Checks if existing, arriving and renamed pdf-files are censored into the output directory and the originals are
+	 * moved into the done or failed directories, while other files are left alone.
+	 *
+	 * @param tempDir A temporary directory to use as spool directory.
+	 * @throws Exception If the test files could not be created or the watcher was interrupted.
+	 */
+	@Test
+	void testWatch(@TempDir Path tempDir) throws Exception {
+		final var sample = getResource("/pdf-files/sample.pdf").toPath();
+		final var spool = Files.createDirectory(tempDir.resolve("spool"));
+		Files.copy(sample, spool.resolve("existing.pdf"));
+		
+		final var settings = new Settings("--watch", spool.toString(), "-t", "2", "--queue-size", "1");
+		final var watcher = new SpoolWatcher(settings, 200);
+		final var thread = new Thread(watcher, "Spool-Watcher-Test");
+		thread.start();
+		try {
+			Files.copy(sample, spool.resolve("arriving.pdf"));
+			Files.copy(sample, spool.resolve("renamed.pdf.part"));
+			Files.move(spool.resolve("renamed.pdf.part"), spool.resolve("renamed.pdf"));
+			Files.writeString(spool.resolve("broken.pdf"), "not a pdf");
+			Files.writeString(spool.resolve("notes.txt"), "not a pdf either");
+			awaitTrue(() -> watcher.getSucceeded() == 3 && watcher.getFailures() == 1);
+		} finally {
+			watcher.close();
+			thread.join(10_000);
+		}
+		assertFalse(thread.isAlive());
+		
+		for (var name : new String[]{"existing", "arriving", "renamed"}) {
+			assertTrue(Files.exists(spool.resolve("done").resolve(name + ".pdf")));
+			try (var doc = PDDocument.load(spool.resolve("censored").resolve(name + "_cens.pdf").toFile())) {
+				assertTrue(new PDFTextStripper().getText(doc).isBlank());
+			}
+		}
+		assertTrue(Files.exists(spool.resolve("failed").resolve("broken.pdf")));
+		assertTrue(Files.exists(spool.resolve("notes.txt")));
+		try (var files = Files.list(spool)) {
+			assertEquals(4, files.count()); // censored, done, failed and notes.txt
+		}
+		try (var files = Files.list(spool.resolve("censored"))) {
+			assertEquals(3, files.count()); // no temporary files are left
+		}
+	}
+	
+	/**
+	 * Checks if the glyph sidecar is moved into the output directory together with the censored pdf-file instead of
+	 * being left behind next to the temporary file.
+	 *
+	 * @param tempDir A temporary directory to use as spool directory.
+	 * @throws Exception If the test file could not be created or the watcher was interrupted.
+	 */
+	@Test
+	void testGlyphSidecar(@TempDir Path tempDir) throws Exception {
+		final var spool = Files.createDirectory(tempDir.resolve("spool"));
+		Files.copy(getResource("/pdf-files/sample.pdf").toPath(), spool.resolve("sample.pdf"));
+		final var settings = new Settings("--watch", spool.toString(), "--glyph-sidecar");
+		final var watcher = new SpoolWatcher(settings, 200);
+		final var thread = new Thread(watcher, "Spool-Watcher-Test");
+		thread.start();
+		try {
+			awaitTrue(() -> watcher.getSucceeded() == 1);
+		} finally {
+			watcher.close();
+			thread.join(10_000);
+		}
+		final var output = spool.resolve("censored").resolve("sample_cens.pdf");
+		final var sidecar = GlyphSidecar.fileOf(output.toFile());
+		assertTrue(sidecar.exists());
+		assertEquals(Manifest.hash(output.toFile()), GlyphSidecar.read(sidecar).getOutputHash());
+		try (var files = Files.list(spool.resolve("censored"))) {
+			assertEquals(2, files.count()); // the pdf-file and its sidecar only
+		}
+	}
+	
+	/**
+	 * Waits up to 30 seconds for the condition to become true.
+	 *
+	 * @param condition the condition to wait for.
+	 * @throws InterruptedException if the thread was interrupted while waiting.
+	 */
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		for (var i = 0; i < 300 && !condition.getAsBoolean(); i++)
+			Thread.sleep(100);
+		assertTrue(condition.getAsBoolean(), "The condition did not become true in time.");
+	}
+}
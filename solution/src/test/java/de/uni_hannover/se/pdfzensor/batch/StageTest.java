@@ -0,0 +1,67 @@
+package de.uni_hannover.se.pdfzensor.batch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** StageTest should contain all unit-tests related to {@link Stage}. */
+class StageTest {
+	/**
+	 * Checks if all jobs pass through all stages of a pipeline and the pipeline terminates once the end of the jobs
+	 * was marked.
+	 *
+	 * @throws InterruptedException if the test was interrupted.
+	 */
+	@Test
+	void testPipeline() throws InterruptedException {
+		final var poison = new int[0];
+		final var done = new ConcurrentLinkedQueue<int[]>();
+		final var first = new Stage<>("First", 2, 1, poison, (int[] job) -> job[0]++);
+		final var second = new Stage<>("Second", 3, 3, poison, (int[] job) -> job[0] *= 10);
+		final var third = new Stage<>("Third", 1, 1, poison, done::add);
+		assertSame(third, first.then(second).then(third));
+		assertEquals(3, second.getThreads());
+		
+		for (var stage : new Stage[]{first, second, third})
+			stage.start();
+		for (var i = 0; i < 100; i++)
+			first.put(new int[]{i});
+		first.finish();
+		for (var stage : new Stage[]{first, second, third})
+			stage.join();
+		
+		assertEquals(100, done.size());
+		assertEquals(100 * 101 / 2 * 10, done.stream().mapToInt(job -> job[0]).sum());
+		for (var stage : new Stage[]{first, second, third}) {
+			assertTrue(stage.getUtilisation(1_000_000_000L) >= 0);
+			assertTrue(stage.getUtilisation(1) <= 1);
+		}
+		assertEquals(0, first.getUtilisation(0));
+	}
+	
+	/**
+	 * Checks if the pipeline still terminates if the work on a job fails abnormally.
+	 *
+	 * @throws InterruptedException if the test was interrupted.
+	 */
+	@Test
+	void testFailingWork() throws InterruptedException {
+		final var poison = new Object();
+		final var done = new AtomicInteger();
+		final var first = new Stage<>("First", 1, 1, poison, job -> {
+			throw new IllegalStateException("expected");
+		});
+		final var second = new Stage<>("Second", 1, 1, poison, job -> done.incrementAndGet());
+		first.then(second);
+		first.start();
+		second.start();
+		first.put(new Object());
+		first.finish();
+		first.join();
+		second.join();
+		assertEquals(0, done.get());
+	}
+}
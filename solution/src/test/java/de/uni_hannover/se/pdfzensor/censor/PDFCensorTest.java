@@ -1,27 +1,41 @@
 package de.uni_hannover.se.pdfzensor.censor;
 
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphBuffer;
 import de.uni_hannover.se.pdfzensor.config.Settings;
 import de.uni_hannover.se.pdfzensor.processor.PDFHandler;
 import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.PDFCensorBoundingBoxProvider;
-import org.apache.commons.lang3.tuple.ImmutablePair;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import org.apache.pdfbox.contentstream.PDFStreamEngine;
 import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
 import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
+import org.apache.pdfbox.util.Matrix;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import java.awt.*;
+import java.awt.Color;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -51,12 +65,11 @@ class PDFCensorTest implements PDFHandler {
 	 * @return The bounds-color pair list of the given instance.
 	 */
 	@Nullable
-	@SuppressWarnings("unchecked")
-	private static List<ImmutablePair<Rectangle2D, Color>> getBoundingBoxes(@NotNull PDFCensor fromInstance) {
+	private static GlyphBuffer getBoundingBoxes(@NotNull PDFCensor fromInstance) {
 		try {
 			var boundingBoxesField = PDFCensor.class.getDeclaredField("boundingBoxes");
 			boundingBoxesField.setAccessible(true);
-			return (List<ImmutablePair<Rectangle2D, Color>>) boundingBoxesField.get(fromInstance);
+			return (GlyphBuffer) boundingBoxesField.get(fromInstance);
 		} catch (Exception e) {
 			Assertions.fail("Could not retrieve the bounds-color pair list.", e);
 		}
@@ -96,6 +109,183 @@ class PDFCensorTest implements PDFHandler {
 		}
 	}
 	
+	/**
+	 * Checks if a line of rotated text is censored by a single (rotated) censor bar instead of one bar per glyph.
+	 *
+	 * @param degrees The angle (in degrees) by which the line of text is rotated.
+	 * @param tempDir A temporary directory to store the generated PDF-file in.
+	 * @throws IOException If the document could not be created or loaded.
+	 */
+	@ParameterizedTest(name = "Run {index}: degrees: {0}")
+	@ValueSource(doubles = {0, 30, 90, 135, 200, 315})
+	void testRotatedTextIsMergedPerLine(double degrees, @TempDir Path tempDir) throws IOException {
+		final var text = "RotatedLineOfText123";
+		final var file = tempDir.resolve("rotated.pdf").toFile();
+		try (var doc = new PDDocument()) {
+			var page = new PDPage();
+			doc.addPage(page);
+			try (var contentStream = new PDPageContentStream(doc, page)) {
+				contentStream.beginText();
+				contentStream.setFont(PDType1Font.HELVETICA, 12);
+				var matrix = Matrix.getRotateInstance(Math.toRadians(degrees), 300, 400);
+				contentStream.setTextMatrix(matrix);
+				contentStream.showText(text);
+				contentStream.endText();
+			}
+			doc.save(file);
+		}
+		testPDFCensor(file.getAbsolutePath(), new Rectangle2D.Double[text.length()], 1);
+	}
+	
+	/**
+	 * Checks if only the text inside of the zones is censored and no tokenizer is used if only zones were specified.
+	 *
+	 * @param tempDir A temporary directory to store the generated PDF- and config-files in.
+	 * @throws Exception If the document could not be created, loaded or the tokenizer could not be retrieved.
+	 */
+	@Test
+	void testZoneOnly(@TempDir Path tempDir) throws Exception {
+		final var file = tempDir.resolve("zones.pdf").toFile();
+		try (var doc = new PDDocument()) {
+			var page = new PDPage();
+			doc.addPage(page);
+			try (var contentStream = new PDPageContentStream(doc, page)) {
+				contentStream.beginText();
+				contentStream.setFont(PDType1Font.HELVETICA, 12);
+				contentStream.newLineAtOffset(100, 700);
+				contentStream.showText("Secret");
+				contentStream.newLineAtOffset(0, -100);
+				contentStream.showText("Public");
+				contentStream.endText();
+			}
+			doc.save(file);
+		}
+		final var config = tempDir.resolve("zones.json");
+		Files.writeString(config, "{\"zones\": [{\"pages\": \"1\", \"rects\": [[90, 690, 100, 30]]}]}");
+		
+		final var settings = new Settings(file.getAbsolutePath(), "-c", config.toString(), "--zones-only");
+		final var censor = new PDFCensor(settings);
+		final var tokenizerField = PDFCensor.class.getDeclaredField("tokenizer");
+		tokenizerField.setAccessible(true);
+		Assertions.assertNull(tokenizerField.get(censor));
+		try (var doc = PDDocument.load(file)) {
+			new PDFProcessor(censor).process(doc);
+			final var text = new PDFTextStripper().getText(doc);
+			Assertions.assertFalse(text.contains("Secret"));
+			Assertions.assertTrue(text.contains("Public"));
+		}
+	}
+	
+	/**
+	 * Checks if the image data is only removed from the processed pages and unselected pages keep their images, also if
+	 * they share their resources with a processed page.
+	 *
+	 * @param tempDir A temporary directory to store the generated PDF-file in.
+	 * @throws IOException If the document could not be created, censored or loaded.
+	 */
+	@Test
+	void testUnselectedPagesKeepImages(@TempDir Path tempDir) throws IOException {
+		final var file = tempDir.resolve("images.pdf").toFile();
+		try (var doc = new PDDocument()) {
+			final var image = LosslessFactory.createFromImage(doc, new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+			for (var i = 1; i <= 3; i++) {
+				var page = new PDPage();
+				doc.addPage(page);
+				// the third page shares the resources of the second one
+				if (i == 3)
+					page.setResources(doc.getPage(1).getResources());
+				try (var contentStream = new PDPageContentStream(doc, page)) {
+					contentStream.drawImage(image, 10, 10);
+				}
+			}
+			doc.save(file);
+		}
+		final var settings = new Settings(file.getAbsolutePath(), "--pages", "1-2");
+		try (var doc = PDDocument.load(file)) {
+			new PDFProcessor(new PDFCensor(settings), settings).process(doc);
+			Assertions.assertFalse(doc.getPage(0).getResources().getXObjectNames().iterator().hasNext());
+			Assertions.assertFalse(doc.getPage(1).getResources().getXObjectNames().iterator().hasNext());
+			Assertions.assertTrue(doc.getPage(2).getResources().getXObjectNames().iterator().hasNext());
+		}
+	}
+	
+	/**
+	 * Checks if redrawing the censor bars of a censored pdf-file from its glyph sidecar with different expressions
+	 * yields the same censor bars as censoring the input with those expressions, and that only the pages whose bars
+	 * changed are replaced.
+	 *
+	 * @param tempDir A temporary directory to store the generated PDF-files in.
+	 * @throws IOException If the documents could not be created, censored or loaded.
+	 */
+	@Test
+	void testRedrawCensorBars(@TempDir Path tempDir) throws IOException {
+		final var file = tempDir.resolve("numbers.pdf").toFile();
+		try (var doc = new PDDocument()) {
+			for (var text : List.of("Call 0511 762 or write", "No numbers here", "Only 42")) {
+				var page = new PDPage();
+				doc.addPage(page);
+				try (var contentStream = new PDPageContentStream(doc, page)) {
+					contentStream.beginText();
+					contentStream.setFont(PDType1Font.HELVETICA, 12);
+					contentStream.newLineAtOffset(100, 700);
+					contentStream.showText(text);
+					contentStream.endText();
+				}
+			}
+			doc.save(file);
+		}
+		// glyph sidecars are only recorded in batch mode
+		final var previous = new Settings.Builder().inputs(file).batch(true).glyphSidecar(true).build();
+		final var current = new Settings.Builder().inputs(file).batch(true).glyphSidecar(true)
+												  .expression("[0-9]+", Color.RED).build();
+		
+		final var censored = tempDir.resolve("censored.pdf").toFile();
+		final var censor = new PDFCensor(previous);
+		try (var doc = PDDocument.load(file)) {
+			new PDFProcessor(censor).process(doc);
+			doc.save(censored);
+		}
+		final var sidecar = Objects.requireNonNull(censor.getSidecar());
+		Assertions.assertEquals(3, sidecar.getPages().size());
+		final List<byte[]> expected;
+		try (var doc = PDDocument.load(file)) {
+			new PDFProcessor(new PDFCensor(current)).process(doc);
+			expected = getCensorBars(doc);
+		}
+		
+		try (var doc = PDDocument.load(censored)) {
+			Assertions.assertEquals(0, new PDFCensor(previous).redrawCensorBars(doc, sidecar, Deadline.none()));
+		}
+		try (var doc = PDDocument.load(censored)) {
+			final var before = getCensorBars(doc);
+			Assertions.assertEquals(2, new PDFCensor(current).redrawCensorBars(doc, sidecar, Deadline.none()));
+			final var after = getCensorBars(doc);
+			for (var i = 0; i < expected.size(); i++)
+				Assertions.assertArrayEquals(expected.get(i), after.get(i), "page " + (i + 1));
+			Assertions.assertArrayEquals(before.get(1), after.get(1));
+			Assertions.assertTrue(new PDFTextStripper().getText(doc).isBlank());
+		}
+	}
+	
+	/**
+	 * Returns the decoded censor bars of each page, i.e. the second to last stream of its contents.
+	 *
+	 * @param doc The censored document.
+	 * @return The decoded censor bars of each page.
+	 * @throws IOException If the contents could not be read.
+	 */
+	@NotNull
+	private static List<byte[]> getCensorBars(@NotNull PDDocument doc) throws IOException {
+		final var result = new ArrayList<byte[]>();
+		for (var page : doc.getPages()) {
+			final var contents = (COSArray) page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+			try (var in = ((COSStream) contents.getObject(contents.size() - 2)).createInputStream()) {
+				result.add(in.readAllBytes());
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * This tests checks if after processing the PDF Document all DrawObject operator are removed
 	 *
@@ -185,7 +375,6 @@ class PDFCensorTest implements PDFHandler {
 		
 		var listBefore = Objects.requireNonNull(getBoundingBoxes(properCensor));
 		var sizeBefore = listBefore.size();
-		var oldLast = (sizeBefore > 0) ? listBefore.get(sizeBefore - 1) : null;
 		
 		var actual = properCensor.shouldCensorText(page, pos);
 		
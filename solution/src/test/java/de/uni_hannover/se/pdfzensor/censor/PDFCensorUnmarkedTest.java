@@ -1,11 +1,11 @@
 package de.uni_hannover.se.pdfzensor.censor;
 
 import de.uni_hannover.se.pdfzensor.censor.utils.Annotations;
+import de.uni_hannover.se.pdfzensor.censor.utils.GlyphBuffer;
 import de.uni_hannover.se.pdfzensor.config.Settings;
 import de.uni_hannover.se.pdfzensor.processor.PDFHandler;
 import de.uni_hannover.se.pdfzensor.processor.PDFProcessor;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.PDFCensorUnmarkedArgumentProvider;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.TextPosition;
@@ -14,10 +14,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
-import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
-import java.util.List;
 import java.util.Objects;
 
 import static de.uni_hannover.se.pdfzensor.censor.utils.PDFUtils.transformTextPosition;
@@ -63,7 +61,7 @@ class PDFCensorUnmarkedTest implements PDFHandler {
 	 *
 	 * @return the bounding-boxes of the {@link #properCensor} retrieved via reflection.
 	 */
-	private List<ImmutablePair<Rectangle2D, Color>> getBoundingBoxes() {
+	private GlyphBuffer getBoundingBoxes() {
 		/* Ignore warning because we can not create a class with generic attributes */
 		return getPrivateField(PDFCensor.class, this.properCensor, "boundingBoxes");
 	}
@@ -165,7 +163,6 @@ class PDFCensorUnmarkedTest implements PDFHandler {
 		/* before the TextPosition has been processed */
 		var listBefore = getBoundingBoxes();
 		int sizeBefore = listBefore.size();
-		var lastBoundsBefore = (sizeBefore > 0) ? listBefore.get(sizeBefore - 1) : null;
 		
 		boolean actual = properCensor.shouldCensorText(page, pos);
 		Assertions.assertEquals(isNotMarked(pos), actual, "a textPosition is misidentified");
@@ -3,6 +3,8 @@ package de.uni_hannover.se.pdfzensor.censor.utils;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.ByteArrayProvider;
 import de.uni_hannover.se.pdfzensor.testing.iostreams.CheckedByteInputStream;
 import de.uni_hannover.se.pdfzensor.testing.iostreams.DummyPDStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -50,4 +52,24 @@ class DoubleBufferedStreamTest {
 		assertTrue(is.isClosed());
 		pdStream.assertAsExpected();
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Checks if the data is handed to the compressor upon closing, if one was provided.
+	 *
+	 * @throws IOException if the stream could not be written.
+	 */
+	@Test
+	void testCompressor() throws IOException {
+		final var data = new byte[]{1, 2, 3};
+		try (var doc = new PDDocument()) {
+			final var pdStream = new PDStream(doc);
+			final var compressor = new StreamCompressor(1);
+			try (var stream = new DoubleBufferedStream(pdStream, new ByteArrayInputStream(new byte[0]), compressor)) {
+				stream.getOutputStream().write(data);
+			}
+			assertEquals(1, compressor.getPendingCount());
+			compressor.awaitAll();
+			assertArrayEquals(data, pdStream.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.checkRectanglesEqual;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** This class should contain all the tests related only to the {@link GlyphBuffer}. */
+class GlyphBufferTest {
+	
+	/** Checks if invalid capacities are rejected. */
+	@Test
+	void testInvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new GlyphBuffer(0));
+		assertThrows(IllegalArgumentException.class, () -> new GlyphBuffer(-1));
+	}
+	
+	/** Checks if added rectangles can be retrieved (also after the buffer had to grow) and overwritten. */
+	@Test
+	void testAddAndSet() {
+		var buffer = new GlyphBuffer(1);
+		assertTrue(buffer.isEmpty());
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, buffer.add(i, i + 1, i + 2, i + 3, (short) (i % 5)));
+		assertEquals(100, buffer.size());
+		assertFalse(buffer.isEmpty());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, buffer.getX(i));
+			assertEquals(i + 1, buffer.getY(i));
+			assertEquals(i + 2, buffer.getWidth(i));
+			assertEquals(i + 3, buffer.getHeight(i));
+			assertEquals(i % 5, buffer.getColor(i));
+			assertEquals(new Rectangle2D.Double(i, i + 1, i + 2, i + 3), buffer.getRect(i, new Rectangle2D.Float()));
+		}
+		buffer.set(42, new Rectangle2D.Double(-1, -2, 3, 4), 0, GlyphBuffer.NO_COLOR);
+		assertEquals(new Rectangle2D.Double(-1, -2, 3, 4), buffer.getRect(42, new Rectangle2D.Double()));
+		assertEquals(GlyphBuffer.NO_COLOR, buffer.getColor(42));
+		assertEquals(100, buffer.size());
+	}
+	
+	/** Checks if clearing the buffer resets its size such that indices are handed out from the start again. */
+	@Test
+	void testClear() {
+		var buffer = new GlyphBuffer();
+		buffer.add(new Rectangle2D.Double(0, 0, 1, 1), (short) 0);
+		buffer.add(new Rectangle2D.Double(1, 1, 1, 1), (short) 0);
+		buffer.clear();
+		assertTrue(buffer.isEmpty());
+		assertEquals(0, buffer.add(new Rectangle2D.Double(2, 2, 1, 1), (short) 1));
+		assertEquals(1, buffer.size());
+	}
+	
+	/** Checks if {@link GlyphBuffer#intersects(int, Rectangle2D)} behaves like {@link Rectangle2D#intersects}. */
+	@Test
+	void testIntersects() {
+		var buffer = new GlyphBuffer();
+		var index = buffer.add(0, 0, 10, 10, (short) 0);
+		var empty = buffer.add(5, 5, 0, 0, (short) 0);
+		assertTrue(buffer.intersects(index, new Rectangle2D.Double(5, 5, 10, 10)));
+		assertFalse(buffer.intersects(index, new Rectangle2D.Double(10, 10, 10, 10)));
+		assertFalse(buffer.intersects(empty, new Rectangle2D.Double(0, 0, 10, 10)));
+	}
+	
+	/** Checks if rotated rectangles keep their local bounds and report their rotated bounds and outline. */
+	@Test
+	void testRotated() {
+		var buffer = new GlyphBuffer();
+		var local = new Rectangle2D.Double(10, 0, 20, 5);
+		var index = buffer.add(local, Math.PI / 6, (short) 0);
+		assertEquals(Math.PI / 6, buffer.getAngle(index));
+		assertEquals(local, buffer.getLocalRect(index, new Rectangle2D.Double()));
+		
+		var shape = AffineTransform.getRotateInstance(Math.PI / 6).createTransformedShape(local);
+		var bounds = buffer.getRect(index, new Rectangle2D.Double());
+		assertTrue(checkRectanglesEqual(shape.getBounds2D(), bounds, 1e-9));
+		assertTrue(checkRectanglesEqual(shape.getBounds2D(), buffer.getShape(index).getBounds2D(), 1e-9));
+		
+		// the corner of the axis-aligned bounds lies outside of the rotated rectangle
+		var corner = new Rectangle2D.Double(bounds.getMinX(), bounds.getMaxY() - .5, .5, .5);
+		assertTrue(bounds.intersects(corner));
+		assertFalse(buffer.intersects(index, corner));
+		assertTrue(buffer.intersects(index, new Rectangle2D.Double(bounds.getCenterX(), bounds.getCenterY(), 1, 1)));
+		
+		var axisAligned = buffer.add(local, (short) 0);
+		assertEquals(0, buffer.getAngle(axisAligned));
+		assertEquals(local, buffer.getShape(axisAligned));
+	}
+	
+	/** Checks if {@link GlyphBuffer#sortByColor(int, int[])} orders by color while keeping the order within a color. */
+	@Test
+	void testSortByColor() {
+		var buffer = new GlyphBuffer();
+		short[] colors = {2, 0, GlyphBuffer.NO_COLOR, 1, 0, 2, 1, 0};
+		for (var color : colors)
+			buffer.add(0, 0, 1, 1, color);
+		assertArrayEquals(new int[]{2, 1, 4, 7, 3, 6, 0, 5}, buffer.sortByColor(3, null));
+		
+		var reused = new int[16];
+		assertSame(reused, buffer.sortByColor(3, reused));
+		assertArrayEquals(new int[]{2, 1, 4, 7, 3, 6, 0, 5}, Arrays.copyOf(reused, buffer.size()));
+		assertNotSame(reused, buffer.sortByColor(3, new int[1]));
+	}
+}
@@ -0,0 +1,136 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** This class tests the {@link GlyphSidecar}. */
+class GlyphSidecarTest {
+	/** Checks if the sidecar of a censored pdf-file is stored next to it. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testFileOf() {
+		assertEquals(new File("out/a.pdf.glyphs"), GlyphSidecar.fileOf(new File("out/a.pdf")));
+		assertThrows(NullPointerException.class, () -> new GlyphSidecar(null));
+		assertThrows(NullPointerException.class, () -> new GlyphSidecar("f").addFlush());
+	}
+	
+	/**
+	 * Checks if the recorded events are replayed in the same order with exactly the same bounds after the sidecar was
+	 * written and read again.
+	 *
+	 * @param tempDir A temporary directory to write the sidecar into.
+	 * @throws IOException If the sidecar could not be written or read.
+	 */
+	@Test
+	void testReplay(@TempDir Path tempDir) throws IOException {
+		final var glyphs = new GlyphBuffer();
+		final var a = glyphs.add(0.1, 0.2, 0.3, 0.4, GlyphBuffer.NO_COLOR);
+		final var space = glyphs.add(1d / 3, 2, 3, 4, GlyphBuffer.NO_COLOR);
+		final var b = glyphs.add(5, 6, 7, 8, Math.PI / 7, GlyphBuffer.NO_COLOR);
+		final var picture = new Rectangle2D.Double(10, 20, 30, 40);
+		
+		final var sidecar = new GlyphSidecar("fingerprint");
+		sidecar.beginPage(2, 0, List.of(picture));
+		sidecar.addGlyph("a", glyphs, a);
+		sidecar.addSpace(glyphs, space);
+		sidecar.addGlyph("\u00df\u0308", glyphs, b);
+		sidecar.addFlush();
+		sidecar.addLink(glyphs, b);
+		sidecar.endPage(3);
+		sidecar.beginPage(4, 1, List.of());
+		sidecar.endPage(2);
+		sidecar.setInputHash("01");
+		sidecar.setOutputHash("23");
+		final var file = tempDir.resolve("a.pdf.glyphs").toFile();
+		sidecar.write(file);
+		
+		final var read = GlyphSidecar.read(file);
+		assertEquals("fingerprint", read.getFingerprint());
+		assertEquals("01", read.getInputHash());
+		assertEquals("23", read.getOutputHash());
+		assertEquals(2, read.getPages().size());
+		final var first = read.getPages().get(0);
+		assertEquals(2, first.getPageNum());
+		assertEquals(0, first.getOutputIndex());
+		assertEquals(3, first.getBarsIndex());
+		assertEquals(List.of(picture), first.getPictures());
+		assertEquals(4, read.getPages().get(1).getPageNum());
+		assertEquals(2, read.getPages().get(1).getBarsIndex());
+		
+		final var replayed = new GlyphBuffer();
+		final var events = replay(first, replayed);
+		assertEquals(List.of("glyph a 0", "space 1", "glyph \u00df\u0308 2", "flush", "link 3"), events);
+		for (var i = 0; i < replayed.size(); i++) {
+			final var original = List.of(a, space, b, b).get(i);
+			assertEquals(glyphs.getX(original), replayed.getX(i));
+			assertEquals(glyphs.getY(original), replayed.getY(i));
+			assertEquals(glyphs.getWidth(original), replayed.getWidth(i));
+			assertEquals(glyphs.getHeight(original), replayed.getHeight(i));
+			assertEquals(glyphs.getAngle(original), replayed.getAngle(i));
+		}
+		assertEquals(List.of(), replay(read.getPages().get(1), replayed));
+	}
+	
+	/**
+	 * Checks if files that are no sidecars are rejected.
+	 *
+	 * @param tempDir A temporary directory to write the files into.
+	 * @throws IOException If the files could not be written.
+	 */
+	@Test
+	void testInvalidFile(@TempDir Path tempDir) throws IOException {
+		final var file = tempDir.resolve("a.pdf.glyphs");
+		Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+		assertThrows(IOException.class, () -> GlyphSidecar.read(file.toFile()));
+		Files.write(file, new byte[]{1, 2});
+		assertThrows(IOException.class, () -> GlyphSidecar.read(file.toFile()));
+		assertThrows(IOException.class, () -> GlyphSidecar.read(tempDir.resolve("missing").toFile()));
+	}
+	
+	/**
+	 * Replays the events of the page.
+	 *
+	 * @param page   The page whose events should be replayed.
+	 * @param glyphs The buffer the bounds should be added to.
+	 * @return A description of each event in the order they were replayed.
+	 * @throws IOException If the events could not be replayed.
+	 */
+	@NotNull
+	private static List<String> replay(@NotNull GlyphSidecar.Page page, @NotNull GlyphBuffer glyphs)
+			throws IOException {
+		final var events = new ArrayList<String>();
+		GlyphSidecar.replay(page, glyphs, new GlyphSidecar.Visitor() {
+			@Override
+			public void visitGlyph(@NotNull String unicode, int glyph) {
+				events.add("glyph " + unicode + " " + glyph);
+			}
+			
+			@Override
+			public void visitSpace(int space) {
+				events.add("space " + space);
+			}
+			
+			@Override
+			public void visitLink(int glyph) {
+				events.add("link " + glyph);
+			}
+			
+			@Override
+			public void visitFlush() {
+				events.add("flush");
+			}
+		});
+		return events;
+	}
+}
@@ -1,6 +1,7 @@
 package de.uni_hannover.se.pdfzensor.censor.utils;
 
 import de.uni_hannover.se.pdfzensor.testing.TestUtility;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
@@ -102,6 +103,82 @@ class PDFUtilsTest {
 		}
 	}
 	
+	/**
+	 * Tests that {@link PDFUtils#transformTextPosition(TextPosition, PDRectangle, GlyphBuffer)} appends the same bounds
+	 * as {@link PDFUtils#transformTextPosition(TextPosition)} shifted by the lower left corner of the crop-box. This is
+	 * also checked for a rotated and skewed text matrix.
+	 *
+	 * @param input The input {@link TextPositionValue}.
+	 */
+	@ParameterizedTest(name = "Run {index}: TextPosition: {0}")
+	@MethodSource("textPositionProvider")
+	void transformTextPositionIntoBufferTest(@NotNull TextPositionValue input) throws IOException {
+		var page = new PDPage();
+		page.setCropBox(new PDRectangle(12.5f, 30f, 500f, 700f));
+		var buffer = new GlyphBuffer(1);
+		var rotated = Matrix.getRotateInstance(Math.PI / 6, input.endX, input.endY);
+		rotated.concatenate(Matrix.getScaleInstance(input.fontSize, input.fontSize));
+		var matrices = new Matrix[]{
+				new Matrix(input.fontSize, 0f, 0f, input.fontSize, input.endX, input.endY),
+				new Matrix(0f, input.fontSize, -input.fontSize, 0f, input.endX, input.endY),
+				new Matrix(input.fontSize, 0f, -3f, input.fontSize / 2, input.endX, input.endY), rotated};
+		for (var matrix : matrices) {
+			TextPosition tp = createTextPosition(input, matrix);
+			var expected = toCropBox(PDFUtils.transformTextPosition(tp), page);
+			var index = PDFUtils.transformTextPosition(tp, page.getCropBox(), buffer);
+			assertEquals(buffer.size() - 1, index);
+			assertEquals(GlyphBuffer.NO_COLOR, buffer.getColor(index));
+			assertTrue(checkRectanglesEqual(expected, buffer.getRect(index, new Rectangle2D.Double()), 1e-4));
+		}
+		// the rotated text is stored in the local coordinate-system of its baseline
+		var index = buffer.size() - 1;
+		assertEquals(Math.PI / 6, buffer.getAngle(index), 1e-6);
+		var local = buffer.getLocalRect(index, new Rectangle2D.Double());
+		var upright = PDFUtils.transformTextPosition(
+				createTextPosition(input, Matrix.getScaleInstance(input.fontSize, input.fontSize)));
+		assertEquals(upright.getWidth(), local.getWidth(), 1e-4);
+		assertEquals(upright.getHeight(), local.getHeight(), 1e-4);
+		
+		// skewed text is bounded along its (rotated) baseline
+		var skewed = createTextPosition(input, new Matrix(input.fontSize, 2f, -3f, input.fontSize / 2, input.endX,
+														  input.endY));
+		var expected = toCropBox(PDFUtils.transformTextPosition(skewed), page);
+		index = PDFUtils.transformTextPosition(skewed, page.getCropBox(), buffer);
+		assertEquals(Math.atan2(2f, input.fontSize), buffer.getAngle(index), 1e-6);
+		var bounds = buffer.getRect(index, new Rectangle2D.Double());
+		bounds.add(new Rectangle2D.Double(bounds.getX() - 1e-4, bounds.getY() - 1e-4, 0, 0));
+		bounds.add(new Rectangle2D.Double(bounds.getMaxX() + 1e-4, bounds.getMaxY() + 1e-4, 0, 0));
+		assertTrue(bounds.contains(expected));
+	}
+	
+	/**
+	 * Shifts the rectangle from media-box coordinates into crop-box coordinates of the page.
+	 *
+	 * @param rect the rectangle in media-box coordinates.
+	 * @param page the page whose crop-box should be used.
+	 * @return the shifted rectangle.
+	 */
+	@NotNull
+	private static Rectangle2D toCropBox(@NotNull Rectangle2D rect, @NotNull PDPage page) {
+		final var cropBox = page.getCropBox();
+		return new Rectangle2D.Double(rect.getX() + cropBox.getLowerLeftX(), rect.getY() + cropBox.getLowerLeftY(),
+									  rect.getWidth(), rect.getHeight());
+	}
+	
+	/**
+	 * Creates a {@link TextPosition} out of the provided values placed by the provided text matrix.
+	 *
+	 * @param input  the values of the text position.
+	 * @param matrix the text matrix of the text position.
+	 * @return the new text position.
+	 */
+	@NotNull
+	private static TextPosition createTextPosition(@NotNull TextPositionValue input, @NotNull Matrix matrix) {
+		return new TextPosition(0, 595.276f, 841.89f, matrix, input.endX, input.endY, input.maxHeight,
+								input.individualWidth, input.spaceWidth, input.unicode, input.charCodes, input.font,
+								input.fontSize, input.fontSizeInPt);
+	}
+	
 	/**
 	 * tests for {@link PDFUtils#pdRectToRect2D(PDRectangle)} function
 	 *
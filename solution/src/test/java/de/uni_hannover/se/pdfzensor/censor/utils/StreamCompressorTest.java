@@ -0,0 +1,133 @@
+package de.uni_hannover.se.pdfzensor.censor.utils;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** StreamCompressorTest should contain all unit-tests related to {@link StreamCompressor}. */
+class StreamCompressorTest {
+	/** Some compressible data. */
+	private static final byte[] DATA = "BT /F1 12 Tf 100 700 Td (Hello World) Tj ET\n".repeat(1000)
+																				   .getBytes(StandardCharsets.US_ASCII);
+	
+	/** Checks if invalid compression levels are rejected. */
+	@Test
+	void testConstructor() {
+		assertThrows(IllegalArgumentException.class, () -> new StreamCompressor(-2));
+		assertThrows(IllegalArgumentException.class, () -> new StreamCompressor(10));
+		assertDoesNotThrow(() -> new StreamCompressor(Deflater.DEFAULT_COMPRESSION));
+		assertDoesNotThrow(() -> new StreamCompressor(0));
+		assertDoesNotThrow(() -> new StreamCompressor(9));
+	}
+	
+	/**
+	 * Checks if the data is compressed into the zlib format and the same data always yields the same result.
+	 *
+	 * @param level the compression level.
+	 * @throws DataFormatException if the compressed data is invalid.
+	 */
+	@ParameterizedTest(name = "Run {index}: level: {0}")
+	@ValueSource(ints = {-1, 1, 6, 9})
+	void testCompress(int level) throws DataFormatException {
+		final var compressed = StreamCompressor.compress(DATA, level);
+		assertTrue(compressed.length < DATA.length);
+		assertArrayEquals(compressed, StreamCompressor.compress(DATA, level));
+		final var inflater = new Inflater();
+		inflater.setInput(compressed);
+		final var result = new byte[DATA.length + 1];
+		assertEquals(DATA.length, inflater.inflate(result));
+		assertTrue(inflater.finished());
+		assertArrayEquals(DATA, Arrays.copyOf(result, DATA.length));
+		inflater.end();
+	}
+	
+	/**
+	 * Checks if the compressed data is written once it is awaited and only the latest data submitted for a stream is
+	 * written.
+	 *
+	 * @throws IOException if the streams could not be written.
+	 */
+	@Test
+	void testSubmit() throws IOException {
+		try (var doc = new PDDocument()) {
+			final var compressor = new StreamCompressor(9);
+			final var first = new PDStream(doc);
+			final var second = new PDStream(doc);
+			compressor.submit(first, new byte[]{1, 2, 3});
+			compressor.submit(second, DATA);
+			compressor.submit(first, DATA);
+			assertEquals(2, compressor.getPendingCount());
+			compressor.await(second.getCOSObject());
+			assertEquals(1, compressor.getPendingCount());
+			assertEquals(COSName.FLATE_DECODE, second.getCOSObject().getFilters());
+			assertArrayEquals(DATA, second.toByteArray());
+			compressor.awaitAll();
+			assertEquals(0, compressor.getPendingCount());
+			assertArrayEquals(DATA, first.toByteArray());
+			assertArrayEquals(StreamCompressor.compress(DATA, 9),
+							  first.getCOSObject().createRawInputStream().readAllBytes());
+			
+			compressor.submit(first, new byte[]{1, 2, 3});
+			compressor.clear();
+			assertEquals(0, compressor.getPendingCount());
+			compressor.awaitAll();
+			assertArrayEquals(DATA, first.toByteArray());
+		}
+	}
+	
+	/**
+	 * Checks if the compressed data of finished compressions is written without waiting for the others.
+	 *
+	 * @throws IOException if the streams could not be written.
+	 */
+	@Test
+	void testApplyCompleted() throws IOException {
+		try (var doc = new PDDocument()) {
+			final var compressor = new StreamCompressor(1);
+			final var stream = new PDStream(doc);
+			compressor.submit(stream, DATA);
+			// wait for the compression without applying it
+			assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+				while (compressor.getPendingCount() > 0) {
+					compressor.applyCompleted();
+					Thread.sleep(1);
+				}
+			});
+			assertEquals(COSName.FLATE_DECODE, stream.getCOSObject().getFilters());
+			assertArrayEquals(DATA, stream.toByteArray());
+		}
+	}
+	
+	/**
+	 * Checks if the data is stored uncompressed and without a filter right away at level 0.
+	 *
+	 * @throws IOException if the stream could not be written.
+	 */
+	@Test
+	void testStoreOnly() throws IOException {
+		try (var doc = new PDDocument()) {
+			final var compressor = new StreamCompressor(0);
+			final var stream = new PDStream(doc);
+			try (var os = stream.createOutputStream(COSName.FLATE_DECODE)) {
+				os.write(new byte[]{1, 2, 3});
+			}
+			compressor.submit(stream, DATA);
+			assertEquals(0, compressor.getPendingCount());
+			assertNull(stream.getCOSObject().getFilters());
+			assertArrayEquals(DATA, stream.getCOSObject().createRawInputStream().readAllBytes());
+		}
+	}
+}
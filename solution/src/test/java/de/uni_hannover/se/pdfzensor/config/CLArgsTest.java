@@ -8,9 +8,12 @@ import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
+import picocli.CommandLine;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,4 +65,195 @@ class CLArgsTest {
 		assertEquals(quiet, clArgs.getQuiet());
 		assertEquals(intersectImages, clArgs.getIntersectImages());
 	}
-}
\ No newline at end of file
+	
+	/** Checks if the page selection and whether unselected pages should be dropped are parsed. */
+	@Test
+	void testPages() {
+		var clArgs = CLArgs.fromStringArray("in.pdf");
+		assertNull(clArgs.getPages());
+		assertFalse(clArgs.getDropUnselected());
+		
+		clArgs = CLArgs.fromStringArray("in.pdf", "--pages", "1-3, 5", "-d");
+		var pages = clArgs.getPages();
+		assertNotNull(pages);
+		assertTrue(pages.contains(3));
+		assertFalse(pages.contains(4));
+		assertTrue(pages.contains(5));
+		assertTrue(clArgs.getDropUnselected());
+		
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "-s", "3-1").getPages());
+		assertFalse(CLArgs.fromStringArray("in.pdf").getZonesOnly());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--zones-only").getZonesOnly());
+	}
+	
+	/** Checks if multiple inputs, the file list and the number of threads are parsed correctly. */
+	@Test
+	void testBatch() {
+		var clArgs = CLArgs.fromStringArray("in.pdf");
+		assertArrayEquals(new File[]{new File("in.pdf")}, clArgs.getInputs());
+		assertNull(clArgs.getFileList());
+		assertNull(clArgs.getThreads());
+		
+		clArgs = CLArgs.fromStringArray("a.pdf", "b.pdf", "dir", "-t", "4");
+		assertArrayEquals(new File[]{new File("a.pdf"), new File("b.pdf"), new File("dir")}, clArgs.getInputs());
+		assertEquals(new File("a.pdf"), clArgs.getInput());
+		assertEquals(4, clArgs.getThreads());
+		assertNull(clArgs.getLoadThreads());
+		assertNull(clArgs.getSaveThreads());
+		
+		clArgs = CLArgs.fromStringArray("in.pdf", "--load-threads", "2", "--save-threads", "5");
+		assertEquals(2, clArgs.getLoadThreads());
+		assertEquals(5, clArgs.getSaveThreads());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--load-threads", "0"));
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--save-threads", "0"));
+		
+		clArgs = CLArgs.fromStringArray("--file-list", "list.txt");
+		assertEquals(0, clArgs.getInputs().length);
+		assertEquals(new File("list.txt"), clArgs.getFileList());
+		assertThrows(NullPointerException.class, clArgs::getInput);
+		
+		assertThrows(CommandLine.MissingParameterException.class, () -> CLArgs.fromStringArray("-t", "2"));
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "-t", "0"));
+	}
+	
+	/** Checks if the server port and queue size are parsed and validated correctly. */
+	@Test
+	void testServer() {
+		var clArgs = CLArgs.fromStringArray("in.pdf");
+		assertNull(clArgs.getServerPort());
+		assertNull(clArgs.getQueueSize());
+		
+		clArgs = CLArgs.fromStringArray("--serve", "8080", "--queue-size", "0");
+		assertEquals(8080, clArgs.getServerPort());
+		assertEquals(0, clArgs.getQueueSize());
+		assertEquals(0, clArgs.getInputs().length);
+		
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("--serve", "-1"));
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("--serve", "65536"));
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("--serve", "0", "--queue-size", "-1"));
+	}
+	
+	/**
+	 * Checks if the expressions of arguments that are parsed concurrently do not get mixed up.
+	 *
+	 * @throws Exception If a thread was interrupted or failed.
+	 */
+	@Test
+	void testParallelExpressions() throws Exception {
+		final var executor = Executors.newFixedThreadPool(8);
+		try {
+			final var futures = new ArrayList<Future<CLArgs>>();
+			for (var i = 0; i < 64; i++) {
+				final var regex = "regex" + i;
+				futures.add(executor.submit(() -> CLArgs.fromStringArray("in.pdf", "-e", regex, "-e", regex + "b")));
+			}
+			for (var i = 0; i < futures.size(); i++) {
+				final var expressions = futures.get(i).get().getExpressions();
+				assertEquals(2, expressions.length);
+				assertEquals("regex" + i, expressions[0].getRegex());
+				assertEquals("regex" + i + "b", expressions[1].getRegex());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/** Checks if the memory budget is parsed and validated correctly. */
+	@Test
+	void testMemoryBudget() {
+		assertNull(CLArgs.fromStringArray("in.pdf").getMemoryBudget());
+		assertEquals(512, CLArgs.fromStringArray("in.pdf", "--memory-budget", "512").getMemoryBudget());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--memory-budget", "0"));
+	}
+	
+	/** Checks if the timeout is parsed and validated correctly. */
+	@Test
+	void testTimeout() {
+		assertNull(CLArgs.fromStringArray("in.pdf").getTimeout());
+		assertEquals(30, CLArgs.fromStringArray("in.pdf", "--timeout", "30").getTimeout());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--timeout", "0"));
+	}
+	
+	/**
+	 * Checks if the scratch directory, whether to map the pdf-files into memory, whether to release the resources of
+	 * each page, how to compress and cache the censored pdf-files, whether to record their glyphs and how to write the
+	 * output are parsed correctly.
+	 */
+	@Test
+	void testScratchDir() {
+		assertFalse(CLArgs.fromStringArray("in.pdf").getMemoryMapped());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--mmap").getMemoryMapped());
+		assertFalse(CLArgs.fromStringArray("in.pdf").getLowMemory());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--low-memory").getLowMemory());
+		assertFalse(CLArgs.fromStringArray("in.pdf").getCompact());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--compact").getCompact());
+		assertFalse(CLArgs.fromStringArray("in.pdf").getLinearize());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--linearize").getLinearize());
+		assertFalse(CLArgs.fromStringArray("in.pdf").getDeduplicate());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--deduplicate").getDeduplicate());
+		assertNull(CLArgs.fromStringArray("in.pdf").getCacheDir());
+		assertEquals(new File("cache"), CLArgs.fromStringArray("in.pdf", "--cache-dir", "cache").getCacheDir());
+		assertNull(CLArgs.fromStringArray("in.pdf").getCacheSize());
+		assertEquals(64, CLArgs.fromStringArray("in.pdf", "--cache-size", "64").getCacheSize());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--cache-size", "0"));
+		assertFalse(CLArgs.fromStringArray("in.pdf").getGlyphSidecar());
+		assertTrue(CLArgs.fromStringArray("in.pdf", "--glyph-sidecar").getGlyphSidecar());
+		assertNull(CLArgs.fromStringArray("in.pdf").getCompressionLevel());
+		assertEquals(0, CLArgs.fromStringArray("in.pdf", "--compression-level", "0").getCompressionLevel());
+		assertEquals(9, CLArgs.fromStringArray("in.pdf", "--compression-level", "9").getCompressionLevel());
+		assertThrows(IllegalArgumentException.class,
+					 () -> CLArgs.fromStringArray("in.pdf", "--compression-level", "10"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> CLArgs.fromStringArray("in.pdf", "--compression-level", "-1"));
+		assertNull(CLArgs.fromStringArray("in.pdf").getScratchDir());
+		assertEquals(new File("scratch"), CLArgs.fromStringArray("in.pdf", "--scratch-dir", "scratch").getScratchDir());
+	}
+	
+	/** Checks if the manifest and whether to resume from it are parsed correctly. */
+	@Test
+	void testManifest() {
+		var clArgs = CLArgs.fromStringArray("in.pdf");
+		assertNull(clArgs.getManifest());
+		assertFalse(clArgs.getResume());
+		clArgs = CLArgs.fromStringArray("in.pdf", "--manifest", "batch.tsv", "--resume");
+		assertEquals(new File("batch.tsv"), clArgs.getManifest());
+		assertTrue(clArgs.getResume());
+	}
+	
+	/** Checks if the number of pages per chunk is parsed and validated correctly. */
+	@Test
+	void testChunkPages() {
+		assertNull(CLArgs.fromStringArray("in.pdf").getChunkPages());
+		assertEquals(50, CLArgs.fromStringArray("in.pdf", "--chunk-pages", "50").getChunkPages());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--chunk-pages", "0"));
+	}
+	
+	/** Checks if the number of pages per part file is parsed and validated correctly. */
+	@Test
+	void testSplitPages() {
+		assertNull(CLArgs.fromStringArray("in.pdf").getSplitPages());
+		assertEquals(50, CLArgs.fromStringArray("in.pdf", "--split-pages", "50").getSplitPages());
+		assertThrows(IllegalArgumentException.class, () -> CLArgs.fromStringArray("in.pdf", "--split-pages", "0"));
+	}
+	
+	/** Checks if <code>-</code> is accepted as input and output and the maximum memory is parsed. */
+	@Test
+	void testStandardStreams() {
+		var clArgs = CLArgs.fromStringArray("-", "-o", "-");
+		assertEquals(new File("-"), clArgs.getInput());
+		assertEquals(new File("-"), clArgs.getOutput());
+		assertNull(clArgs.getMaxMemory());
+		
+		clArgs = CLArgs.fromStringArray("-", "--max-memory", "64");
+		assertEquals(64, clArgs.getMaxMemory());
+	}
+	
+	/** Checks if the watched directory is parsed and suffices as input. */
+	@Test
+	void testWatch() {
+		assertNull(CLArgs.fromStringArray("in.pdf").getWatchDir());
+		final var clArgs = CLArgs.fromStringArray("--watch", "spool");
+		assertEquals(new File("spool"), clArgs.getWatchDir());
+		assertEquals(0, clArgs.getInputs().length);
+	}
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,7 +33,7 @@ class ConfigTest {
 	 * @param path The path to an invalid JSON-file.
 	 */
 	@ParameterizedTest
-	@ValueSource(strings = {"invalid/invalid_json.json", "invalid/empty_config.json", "invalid/defaultColorsAllInvalid.json", "invalid/defaultColorsSomeInvalid.json", "invalid/expressionsInvalidColor.json", "invalid/expressionsInvalidSyntax.json"})
+	@ValueSource(strings = {"invalid/invalid_json.json", "invalid/empty_config.json", "invalid/defaultColorsAllInvalid.json", "invalid/defaultColorsSomeInvalid.json", "invalid/expressionsInvalidColor.json", "invalid/expressionsInvalidSyntax.json", "invalid/zonesInvalidPages.json", "invalid/zonesInvalidRects.json", "invalid/zonesNoRects.json", "invalid/pagesInvalid.json"})
 	void testInvalidJson(String path) {
 		assertThrows(IllegalArgumentException.class, () -> Config.fromFile(getResource(CONFIG_PATH + path)));
 	}
@@ -93,6 +94,47 @@ class ConfigTest {
 		}
 	}
 	
+	/** Tests if the zones specified in a configuration file are parsed as expected. */
+	@Test
+	void testZones() {
+		var config = Config.fromFile(getResource(CONFIG_PATH + "valid/zonesOnly.json"));
+		assertNull(config.getExpressions());
+		var zones = config.getZones();
+		assertNotNull(zones);
+		assertEquals(2, zones.length);
+		
+		assertTrue(zones[0].appliesTo(1));
+		assertFalse(zones[0].appliesTo(2));
+		assertEquals(Color.RED, zones[0].getColor());
+		assertArrayEquals(new Rectangle2D[]{new Rectangle2D.Double(50, 700, 200, 20),
+				new Rectangle2D.Double(50, 650, 200, 20)}, zones[0].getRects());
+		
+		assertTrue(zones[1].appliesTo(1));
+		assertTrue(zones[1].appliesTo(42));
+		assertEquals(Settings.DEFAULT_CENSOR_COLOR, zones[1].getColor());
+		assertArrayEquals(new Rectangle2D[]{new Rectangle2D.Double(0, 0, 100, 50)}, zones[1].getRects());
+		
+		assertNull(Config.fromFile(null).getZones());
+		assertTrue(config.getZonesOnly());
+		assertFalse(Config.fromFile(null).getZonesOnly());
+	}
+	
+	/** Tests if the page selection specified in a configuration file is parsed as expected. */
+	@Test
+	void testPages() {
+		var config = Config.fromFile(getResource(CONFIG_PATH + "valid/pages.json"));
+		var pages = config.getPages();
+		assertNotNull(pages);
+		assertFalse(pages.contains(1));
+		assertTrue(pages.contains(2));
+		assertTrue(pages.contains(100));
+		assertTrue(config.getDropUnselected());
+		
+		config = Config.fromFile(null);
+		assertNull(config.getPages());
+		assertFalse(config.getDropUnselected());
+	}
+	
 	/**
 	 * Refreshes the existing default configuration file and tests if its content is parsed (and was therefore written)
 	 * as expected.
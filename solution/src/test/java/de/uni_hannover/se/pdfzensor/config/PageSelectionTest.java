@@ -0,0 +1,48 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** PageSelectionTest should contain all unit-tests related to {@link PageSelection}. */
+class PageSelectionTest {
+	
+	/** Checks if missing selections select every page. */
+	@Test
+	void testAll() {
+		assertSame(PageSelection.ALL, PageSelection.parse(null));
+		assertSame(PageSelection.ALL, PageSelection.parse(" "));
+		assertTrue(PageSelection.ALL.contains(1));
+		assertTrue(PageSelection.ALL.contains(Integer.MAX_VALUE));
+		assertFalse(PageSelection.ALL.contains(0));
+	}
+	
+	/** Checks if single pages, closed and open ranges are parsed correctly. */
+	@Test
+	void testValidSelection() {
+		var selection = PageSelection.parse(" 2, 4-6 ,9- ");
+		assertEquals("2, 4-6 ,9-", selection.toString());
+		var expected = new boolean[]{false, false, true, false, true, true, true, false, false, true, true};
+		for (var page = 0; page < expected.length; page++)
+			assertEquals(expected[page], selection.contains(page), "page " + page);
+		assertTrue(selection.contains(Integer.MAX_VALUE));
+		
+		selection = PageSelection.parse("3-3");
+		assertTrue(selection.contains(3));
+		assertFalse(selection.contains(2));
+		assertFalse(selection.contains(4));
+	}
+	
+	/**
+	 * Checks if malformed selections are rejected.
+	 *
+	 * @param specification the malformed selection.
+	 */
+	@ParameterizedTest(name = "Run {index}: specification: {0}")
+	@ValueSource(strings = {"0", "-3", "3-1", "1,,2", "1,", "a", "1-2-3", "1 2", "99999999999"})
+	void testInvalidSelection(String specification) {
+		assertThrows(IllegalArgumentException.class, () -> PageSelection.parse(specification));
+	}
+}
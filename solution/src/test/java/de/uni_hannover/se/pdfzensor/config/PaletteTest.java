@@ -0,0 +1,47 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** PaletteTest should contain all unit-tests related to {@link Palette}. */
+class PaletteTest {
+	
+	/** Checks if invalid colors are rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidColors() {
+		assertThrows(NullPointerException.class, () -> new Palette((Color[]) null));
+		assertThrows(IllegalArgumentException.class, () -> new Palette(Color.BLACK, null));
+	}
+	
+	/** Checks if duplicates are removed and the first occurrence of a color determines its index. */
+	@Test
+	void testIndices() {
+		var palette = new Palette(Color.BLACK, Color.RED, Color.BLACK, new Color(0, 0, 255), Color.BLUE);
+		assertEquals(3, palette.size());
+		assertEquals(0, palette.indexOf(Color.BLACK));
+		assertEquals(1, palette.indexOf(Color.RED));
+		assertEquals(2, palette.indexOf(Color.BLUE));
+		assertEquals(Palette.NO_COLOR, palette.indexOf(Color.GREEN));
+		assertEquals(Palette.NO_COLOR, palette.indexOf(null));
+		for (short i = 0; i < palette.size(); i++)
+			assertEquals(i, palette.indexOf(palette.getColor(i)));
+		assertThrows(IndexOutOfBoundsException.class, () -> palette.getColor(3));
+		assertThrows(IndexOutOfBoundsException.class, () -> palette.getColor(-1));
+		assertEquals("[#000000, #FF0000, #0000FF]", palette.toString());
+	}
+	
+	/** Checks if an expression is assigned the index of its color in the palette. */
+	@Test
+	void testExpressionColorIndex() {
+		var palette = new Palette(Color.BLACK, Color.RED);
+		var exp = new Expression("reg", Color.RED);
+		assertEquals(Palette.NO_COLOR, exp.getColorIndex());
+		exp.assignColorIndex(palette);
+		assertEquals(1, exp.getColorIndex());
+		assertThrows(IllegalArgumentException.class, () -> new Expression("reg", Color.GREEN).assignColorIndex(palette));
+	}
+}
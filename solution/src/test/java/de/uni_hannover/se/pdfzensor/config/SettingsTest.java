@@ -4,19 +4,31 @@ import de.uni_hannover.se.pdfzensor.Logging;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.CLArgumentProvider;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.SettingsProvider;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.Level;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static de.uni_hannover.se.pdfzensor.testing.LoggingUtility.getRootLogger;
+import static de.uni_hannover.se.pdfzensor.testing.TestConstants.CONFIG_PATH;
 import static de.uni_hannover.se.pdfzensor.testing.TestUtility.*;
 import static de.uni_hannover.se.pdfzensor.utils.Utils.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -124,6 +136,7 @@ class SettingsTest {
 		expressions.add(new ImmutablePair<>(".", colorToString(Settings.DEFAULT_CENSOR_COLOR)));
 		assertEqualExpressions(expressions.toArray(new ImmutablePair[0]), settings.getExpressions(),
 							   defColors != null ? defColors : settingsDefColors);
+		assertPaletteMatches(settings);
 		
 		assertEquals(intersectImages, settings.getIntersectImages());
 		assertEquals(links, settings.distinguishLinks());
@@ -134,6 +147,70 @@ class SettingsTest {
 	void testLinkColor() {
 		final var settings = new Settings(getResource("/pdf-files/sample.pdf").getAbsolutePath());
 		assertEquals(Color.BLUE, settings.getLinkColor());
+		assertEquals(Color.BLUE, settings.getPalette().getColor(settings.getLinkColorIndex()));
+	}
+	
+	/** Checks if the page selection of the command-line arguments overrides the one of the config. */
+	@Test
+	void testPages() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var config = getResource(CONFIG_PATH + "valid/pages.json").getAbsolutePath();
+		var settings = new Settings(input);
+		assertSame(PageSelection.ALL, settings.getPages());
+		assertFalse(settings.getDropUnselected());
+		
+		settings = new Settings(input, "-c", config);
+		assertEquals("2-", settings.getPages().toString());
+		assertTrue(settings.getDropUnselected());
+		
+		settings = new Settings(input, "-c", config, "--pages", "1");
+		assertEquals("1", settings.getPages().toString());
+		assertTrue(settings.getDropUnselected());
+	}
+	
+	/** Checks if zones are taken from the config and only-zone censoring has to be requested explicitly. */
+	@Test
+	void testZones() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var config = getResource(CONFIG_PATH + "valid/zonesOnly.json").getAbsolutePath();
+		var settings = new Settings(input, "-c", config);
+		assertEquals(2, settings.getZones().length);
+		assertTrue(settings.isZoneOnly());
+		assertPaletteMatches(settings);
+		assertNotSame(settings.getZones(), settings.getZones());
+		
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "-c", config, "-e", "[0-9]+"));
+		
+		// without the explicit request the zones are censored in addition to the expressions
+		final var zone = new Rectangle2D.Double(0, 0, 1, 1);
+		settings = new Settings.Builder().inputs(new File(input)).zone(PageSelection.ALL, null, zone).build();
+		assertEquals(1, settings.getZones().length);
+		assertFalse(settings.isZoneOnly());
+		assertEquals(1, settings.getExpressions().length);
+		settings = new Settings(input, "--zones-only", "-c", config);
+		assertTrue(settings.isZoneOnly());
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--zones-only"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().inputs(new File(input)).zoneOnly(true)
+																				 .build());
+		
+		settings = new Settings(input);
+		assertEquals(0, settings.getZones().length);
+		assertFalse(settings.isZoneOnly());
+	}
+	
+	/**
+	 * Asserts that the color-index of each of the settings' expressions and zones refers to their color in the
+	 * settings' palette.
+	 *
+	 * @param settings the settings whose palette should be checked.
+	 */
+	private static void assertPaletteMatches(@NotNull Settings settings) {
+		var palette = settings.getPalette();
+		for (var exp : settings.getExpressions())
+			assertEquals(exp.getColor(), palette.getColor(exp.getColorIndex()));
+		for (var zone : settings.getZones())
+			assertEquals(zone.getColor(), palette.getColor(zone.getColorIndex()));
+		assertEquals(settings.getLinkColor(), palette.getColor(settings.getLinkColorIndex()));
 	}
 	
 	/**
@@ -191,4 +268,545 @@ class SettingsTest {
 		else
 			assertTrue(consoleLoggerLevel.isLessSpecificThan(Level.WARN));
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Checks if directories and file lists are expanded into the inputs of a batch and the outputs are derived from
+	 * the output directory.
+	 *
+	 * @param tempDir A temporary directory to store the inputs, file list and outputs in.
+	 * @throws IOException If the test files could not be created.
+	 */
+	@Test
+	void testBatch(@TempDir Path tempDir) throws IOException {
+		final var dir = Files.createDirectory(tempDir.resolve("in"));
+		for (var name : new String[]{"b.pdf", "a.PDF", "c.txt"})
+			Files.createFile(dir.resolve(name));
+		final var single = getResource("/pdf-files/sample.pdf");
+		final var list = tempDir.resolve("list.txt");
+		Files.writeString(list, "# comment\n\n  " + single.getAbsolutePath() + "  \n");
+		final var out = tempDir.resolve("out").toFile();
+		
+		var settings = new Settings(single.getAbsolutePath());
+		assertFalse(settings.isBatch());
+		assertArrayEquals(new File[]{single}, settings.getInputs());
+		assertEquals(settings.getOutput(), settings.getOutput(single));
+		assertTrue(settings.getThreads() > 0);
+		
+		settings = new Settings(dir.toString(), "-f", list.toString(), "-o", out.getPath(), "-t", "3");
+		assertTrue(settings.isBatch());
+		assertArrayEquals(new File[]{dir.resolve("a.PDF").toFile(), dir.resolve("b.pdf").toFile(), single},
+						  settings.getInputs());
+		assertEquals(dir.resolve("a.PDF").toFile(), settings.getInput());
+		assertEquals(3, settings.getThreads());
+		assertEquals(1, settings.getLoadThreads());
+		assertEquals(1, settings.getSaveThreads());
+		assertEquals(new File(out, "sample_cens.pdf").getAbsoluteFile(), settings.getOutput(single));
+		
+		settings = new Settings(dir.toString(), "-t", "8", "--load-threads", "3");
+		assertEquals(3, settings.getLoadThreads());
+		assertEquals(4, settings.getSaveThreads());
+		
+		settings = new Settings(dir.toString());
+		assertEquals(dir.resolve("b_cens.pdf").toFile().getAbsoluteFile(),
+					 settings.getOutput(dir.resolve("b.pdf").toFile()));
+		
+		final var emptyDir = Files.createDirectory(tempDir.resolve("empty")).toString();
+		assertThrows(IllegalArgumentException.class, () -> new Settings(emptyDir));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(dir.toString(), "-o", "out.pdf"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("-f", tempDir.resolve("none").toString()));
+	}
+	
+	/** Checks if the settings of a server have no input and the server options are taken over. */
+	@Test
+	void testServer() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		var settings = new Settings(input);
+		assertNull(settings.getServerPort());
+		assertEquals(4 * settings.getThreads(), settings.getQueueSize());
+		
+		settings = new Settings("--serve", "0", "-t", "2", "--queue-size", "3");
+		assertEquals(0, settings.getServerPort());
+		assertEquals(2, settings.getThreads());
+		assertEquals(3, settings.getQueueSize());
+		assertFalse(settings.isBatch());
+		assertEquals(0, settings.getInputs().length);
+		assertThrows(IllegalStateException.class, settings::getInput);
+		assertThrows(IllegalStateException.class, settings::getOutput);
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--serve", "0"));
+	}
+	
+	/**
+	 * Checks if only a single pdf-file that is not read from stdin may be split into chunks.
+	 *
+	 * @param tempDir A temporary directory to store the inputs in.
+	 * @throws IOException If the inputs could not be created.
+	 */
+	@Test
+	void testChunkPages(@TempDir Path tempDir) throws IOException {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		assertNull(new Settings(input).getChunkPages());
+		assertEquals(10, new Settings(input, "--chunk-pages", "10").getChunkPages());
+		assertEquals(10, new Settings(input, "--chunk-pages", "10").withExpressions(List.of()).getChunkPages());
+		
+		final var dir = Files.createDirectory(tempDir.resolve("in"));
+		Files.copy(Path.of(input), dir.resolve("sample.pdf"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(dir.toString(), "--chunk-pages", "10"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("-", "--chunk-pages", "10"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("--serve", "0", "--chunk-pages", "10"));
+	}
+	
+	/**
+	 * Checks if only a single pdf-file that is not read from stdin and not written to stdout may be split into parts.
+	 *
+	 * @param tempDir A temporary directory to store the inputs in.
+	 * @throws IOException If the inputs could not be created.
+	 */
+	@Test
+	void testSplitPages(@TempDir Path tempDir) throws IOException {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		assertNull(new Settings(input).getSplitPages());
+		assertEquals(10, new Settings(input, "--split-pages", "10").getSplitPages());
+		assertEquals(10, new Settings(input, "--split-pages", "10").withExpressions(List.of()).getSplitPages());
+		
+		final var dir = Files.createDirectory(tempDir.resolve("in"));
+		Files.copy(Path.of(input), dir.resolve("sample.pdf"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(dir.toString(), "--split-pages", "10"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("-", "--split-pages", "10"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "-o", "-", "--split-pages", "10"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings(input, "--split-pages", "10", "--chunk-pages", "10"));
+	}
+	
+	/** Checks if the memory budget is converted into bytes and unlimited by default. */
+	@Test
+	void testMemoryBudget() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		assertEquals(-1, new Settings(input).getMemoryBudget());
+		assertEquals(64L * 1024 * 1024, new Settings(input, "--memory-budget", "64").getMemoryBudget());
+		assertEquals(-1, new Settings.Builder().inputs(new File(input)).memoryBudget(0).build().getMemoryBudget());
+		assertEquals(1000, new Settings.Builder().inputs(new File(input)).memoryBudget(1000).build().getMemoryBudget());
+	}
+	
+	/** Checks if the timeout is converted into milliseconds and unlimited by default. */
+	@Test
+	void testTimeout() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		assertEquals(-1, new Settings(input).getTimeout());
+		assertEquals(30_000, new Settings(input, "--timeout", "30").getTimeout());
+		assertEquals(-1, new Settings.Builder().inputs(new File(input)).timeout(-5).build().getTimeout());
+		assertEquals(250, new Settings.Builder().inputs(new File(input)).timeout(250).build().getTimeout());
+		assertEquals(250, new Settings.Builder().inputs(new File(input)).timeout(250).build()
+												.withExpressions(List.of()).getTimeout());
+	}
+	
+	/**
+	 * Checks if the manifest is only accepted in batch mode and resuming only with a manifest.
+	 *
+	 * @param tempDir A temporary directory to store the inputs in.
+	 * @throws IOException If the inputs could not be created.
+	 */
+	@Test
+	void testManifest(@TempDir Path tempDir) throws IOException {
+		final var input = getResource("/pdf-files/sample.pdf");
+		final var second = tempDir.resolve("second.pdf").toFile();
+		Files.copy(input.toPath(), second.toPath());
+		final var manifest = tempDir.resolve("batch.tsv").toFile();
+		
+		var settings = new Settings(input.getAbsolutePath(), second.getAbsolutePath());
+		assertNull(settings.getManifest());
+		assertFalse(settings.isResume());
+		settings = new Settings(input.getAbsolutePath(), second.getAbsolutePath(), "--manifest", manifest.getPath(),
+								"--resume");
+		assertEquals(manifest, settings.getManifest());
+		assertTrue(settings.isResume());
+		assertEquals(manifest, settings.withExpressions(List.of(Pair.of("a", null))).getManifest());
+		
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings(input.getAbsolutePath(), "--manifest", manifest.getPath()));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings(input.getAbsolutePath(), second.getAbsolutePath(), "--resume"));
+		settings = new Settings.Builder().inputs(input).batch(true).manifest(manifest, false).build();
+		assertEquals(manifest, settings.getManifest());
+		assertFalse(settings.isResume());
+	}
+	
+	/** Checks if additional expressions take precedence and get a palette of their own. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testWithExpressions() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var settings = new Settings(input, "-e", "a", "#FF0000");
+		assertThrows(NullPointerException.class, () -> settings.withExpressions(null));
+		assertSame(settings, settings.withExpressions(List.of()));
+		
+		final var copy = settings.withExpressions(List.of(Pair.of("b", "#00FF00"), Pair.of("c", null)));
+		final var expressions = copy.getExpressions();
+		final var original = settings.getExpressions();
+		assertEquals(original.length + 2, expressions.length);
+		assertEquals("b", expressions[0].getRegex());
+		assertEquals("c", expressions[1].getRegex());
+		for (var i = 0; i < original.length; i++) {
+			assertEquals(original[i].getRegex(), expressions[i + 2].getRegex());
+			assertEquals(original[i].getColor(), expressions[i + 2].getColor());
+		}
+		assertNotEquals(Color.RED, expressions[1].getColor());
+		assertNotEquals(Settings.DEFAULT_CENSOR_COLOR, expressions[1].getColor());
+		assertPaletteMatches(copy);
+		assertPaletteMatches(settings);
+		assertEquals(original.length, settings.getExpressions().length);
+		assertEquals(settings.getInput(), copy.getInput());
+		
+		assertThrows(IllegalArgumentException.class, () -> settings.withExpressions(List.of(Pair.of("d", "nocolor"))));
+	}
+	
+	/** Checks if a builder returned by toBuilder builds equal settings and changing it leaves the settings alone. */
+	@Test
+	void testToBuilder() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var settings = new Settings(input, "-e", "a", "#FF0000", "-t", "3", "--chunk-pages", "2", "--low-memory",
+										  "--compact", "--compression-level", "1", "--pages", "1", "--timeout", "5");
+		final var copy = settings.toBuilder().build();
+		assertEquals(settings.getFingerprint(), copy.getFingerprint());
+		assertEquals(settings.getGlyphFingerprint(), copy.getGlyphFingerprint());
+		assertEquals(settings.getInput(), copy.getInput());
+		assertEquals(settings.getOutput(), copy.getOutput());
+		assertEquals(settings.getThreads(), copy.getThreads());
+		assertEquals(settings.getChunkPages(), copy.getChunkPages());
+		assertEquals(settings.getTimeout(), copy.getTimeout());
+		assertEquals(settings.getExpressions().length, copy.getExpressions().length);
+		assertPaletteMatches(copy);
+		
+		final var changed = settings.toBuilder().threads(1).expression("b", Color.GREEN).build();
+		assertEquals(1, changed.getThreads());
+		assertEquals(settings.getExpressions().length + 1, changed.getExpressions().length);
+		assertEquals(3, settings.getThreads());
+		assertNotEquals(settings.getFingerprint(), changed.getFingerprint());
+	}
+	
+	/**
+	 * Checks if the fingerprint changes with the settings determining the censored output only, but not with those
+	 * determining how and where it is produced.
+	 */
+	@Test
+	void testFingerprint() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var fingerprint = new Settings(input, "-e", "a", "#FF0000").getFingerprint();
+		assertTrue(fingerprint.matches("[0-9a-f]{64}"), fingerprint);
+		assertEquals(fingerprint, new Settings(input, "-e", "a", "#FF0000").getFingerprint());
+		assertEquals(fingerprint, new Settings(input, "-e", "a", "#FF0000", "-t", "3", "--low-memory", "--timeout",
+											   "5", "-o", "other.pdf").getFingerprint());
+		for (var args : List.of(new String[]{"-e", "b", "#FF0000"}, new String[]{"-e", "a", "#00FF00"},
+								new String[]{"-e", "a", "#FF0000", "-m"}, new String[]{"-e", "a", "#FF0000", "-l"},
+								new String[]{"-e", "a", "#FF0000", "--pages", "1"},
+								new String[]{"-e", "a", "#FF0000", "--compact"},
+								new String[]{"-e", "a", "#FF0000", "--linearize"},
+								new String[]{"-e", "a", "#FF0000", "--compression-level", "1"}))
+			assertNotEquals(fingerprint, new Settings(ArrayUtils.insert(0, args, input)).getFingerprint(),
+							() -> String.join(" ", args));
+		assertNotEquals(fingerprint, new Settings(input, "-e", "a", "#FF0000")
+				.withExpressions(List.of(Pair.of("b", null))).getFingerprint());
+		
+		// the glyph fingerprint ignores the expressions, but nothing else
+		final var glyphFingerprint = new Settings(input, "-e", "a", "#FF0000").getGlyphFingerprint();
+		assertNotEquals(fingerprint, glyphFingerprint);
+		assertEquals(glyphFingerprint, new Settings(input, "-e", "b", "#00FF00").getGlyphFingerprint());
+		assertEquals(glyphFingerprint, new Settings(input, "-e", "a", "#FF0000")
+				.withExpressions(List.of(Pair.of("b", null))).getGlyphFingerprint());
+		assertNotEquals(glyphFingerprint, new Settings(input, "-e", "a", "#FF0000", "-m").getGlyphFingerprint());
+		assertNotEquals(glyphFingerprint, new Settings(input, "-e", "a", "#FF0000", "--compact").getGlyphFingerprint());
+	}
+	
+	/** Checks if <code>-</code> selects stdin and stdout and the memory used to buffer stdin is taken over. */
+	@Test
+	void testStandardStreams() {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		var settings = new Settings(input);
+		assertFalse(settings.isInputStdin());
+		assertFalse(settings.isOutputStdout());
+		assertTrue(settings.getMemoryUsageSetting().useMainMemory());
+		assertFalse(settings.getMemoryUsageSetting().useTempFile());
+		
+		settings = new Settings(input, "-o", "-");
+		assertFalse(settings.isInputStdin());
+		assertTrue(settings.isOutputStdout());
+		assertEquals(Settings.STANDARD_STREAM, settings.getOutput());
+		
+		settings = new Settings("-", "--max-memory", "2");
+		assertTrue(settings.isInputStdin());
+		assertTrue(settings.isOutputStdout());
+		assertEquals(2L * 1024 * 1024, settings.getMemoryUsageSetting().getMaxMainMemoryBytes());
+		assertTrue(settings.getMemoryUsageSetting().useTempFile());
+		
+		settings = new Settings("-", "-o", "out.pdf");
+		assertTrue(settings.isInputStdin());
+		assertFalse(settings.isOutputStdout());
+		assertEquals(new File("out.pdf"), settings.getOutput());
+		
+		assertThrows(IllegalArgumentException.class, () -> new Settings("-", input));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, input, "-o", "-"));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--max-memory", "-1"));
+	}
+	
+	/**
+	 * Checks if the maximum memory and the scratch directory select the memory usage setting the pdf-files are loaded
+	 * with and whether they are mapped into memory is taken over.
+	 *
+	 * @param tempDir A temporary directory to use as scratch directory.
+	 */
+	@Test
+	void testMemoryUsageSetting(@TempDir Path tempDir) {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var scratch = tempDir.toFile();
+		var settings = new Settings(input, "--scratch-dir", scratch.getPath());
+		assertEquals(scratch, settings.getScratchDir());
+		var memory = settings.getMemoryUsageSetting();
+		assertTrue(memory.useMainMemory());
+		assertFalse(memory.useTempFile());
+		assertEquals(scratch, memory.getTempDir());
+		
+		settings = new Settings(input, "--max-memory", "0", "--scratch-dir", scratch.getPath());
+		memory = settings.getMemoryUsageSetting();
+		assertFalse(memory.useMainMemory());
+		assertTrue(memory.useTempFile());
+		assertEquals(scratch, memory.getTempDir());
+		assertNotSame(memory, settings.getMemoryUsageSetting());
+		
+		settings = new Settings.Builder().inputs(new File(input)).maxMemory(1024).scratchDir(scratch).build();
+		memory = settings.withExpressions(List.of(Pair.of("a", null))).getMemoryUsageSetting();
+		assertTrue(memory.useMainMemory());
+		assertTrue(memory.useTempFile());
+		assertEquals(1024, memory.getMaxMainMemoryBytes());
+		assertEquals(scratch, memory.getTempDir());
+		assertNull(new Settings(input).getScratchDir());
+		assertFalse(new Settings(input).isMemoryMapped());
+		assertTrue(new Settings(input, "--mmap").withExpressions(List.of(Pair.of("a", null))).isMemoryMapped());
+		assertTrue(new Settings.Builder().inputs(new File(input)).memoryMapped(true).build().isMemoryMapped());
+		assertFalse(new Settings(input).isLowMemory());
+		assertTrue(new Settings(input, "--low-memory").withExpressions(List.of(Pair.of("a", null))).isLowMemory());
+		assertTrue(new Settings.Builder().inputs(new File(input)).lowMemory(true).build().isLowMemory());
+		assertFalse(new Settings(input).isCompact());
+		assertTrue(new Settings(input, "--compact").withExpressions(List.of(Pair.of("a", null))).isCompact());
+		assertTrue(new Settings.Builder().inputs(new File(input)).compact(true).build().isCompact());
+		assertFalse(new Settings(input).isLinearized());
+		assertTrue(new Settings(input, "--linearize").withExpressions(List.of(Pair.of("a", null))).isLinearized());
+		assertTrue(new Settings.Builder().inputs(new File(input)).linearized(true).build().isLinearized());
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--compact", "--linearize"));
+		assertFalse(new Settings(input).isDeduplicate());
+		assertTrue(new Settings(input, "--deduplicate").withExpressions(List.of(Pair.of("a", null)))
+												   .isDeduplicate());
+		assertTrue(new Settings.Builder().inputs(new File(input)).deduplicate(true).build().isDeduplicate());
+		assertEquals(-1, new Settings(input).getCompressionLevel());
+		assertEquals(0, new Settings(input, "--compression-level", "0").withExpressions(List.of(Pair.of("a", null)))
+																		.getCompressionLevel());
+		assertEquals(9, new Settings.Builder().inputs(new File(input)).compressionLevel(9).build()
+											  .getCompressionLevel());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().compressionLevel(10));
+		assertNull(new Settings(input).getCacheDir());
+		assertEquals(Settings.DEFAULT_CACHE_SIZE, new Settings(input).getCacheSize());
+		final var dir = new File(input).getParent();
+		settings = new Settings(dir, "--cache-dir", scratch.getPath(), "--cache-size", "2");
+		assertEquals(scratch, settings.getCacheDir());
+		assertEquals(2 * 1024 * 1024, settings.withExpressions(List.of(Pair.of("a", null))).getCacheSize());
+		assertEquals(scratch, new Settings("--serve", "0", "--cache-dir", scratch.getPath()).getCacheDir());
+		assertEquals(5, new Settings.Builder().inputs(new File(input)).cacheSize(5).build().getCacheSize());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().cacheSize(0));
+		// the censored pdf-files are only cached in batch mode, when watching a directory and when serving
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--cache-dir", scratch.getPath()));
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--cache-dir", scratch.getPath(),
+																		"--chunk-pages", "2"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(new File(input)).cacheDir(scratch).build());
+		assertFalse(new Settings(input).isGlyphSidecar());
+		assertTrue(new Settings(dir, "--glyph-sidecar").withExpressions(List.of(Pair.of("a", null))).isGlyphSidecar());
+		assertTrue(new Settings.Builder().inputs(new File(input)).batch(true).glyphSidecar(true).build()
+										 .isGlyphSidecar());
+		// glyph sidecars are only written in batch mode and when watching a directory
+		assertThrows(IllegalArgumentException.class, () -> new Settings(input, "--glyph-sidecar"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(new File(input)).glyphSidecar(true).build());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().serverPort(0).glyphSidecar(true)
+																				 .build());
+		
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings(input, "--scratch-dir", new File(scratch, "missing").getPath()));
+	}
+	
+	/**
+	 * Checks if the settings for watching a directory have no input and write into the censored directory by default,
+	 * but never into the watched directory itself.
+	 *
+	 * @param tempDir A temporary directory to watch.
+	 */
+	@Test
+	void testWatch(@TempDir Path tempDir) {
+		final var input = getResource("/pdf-files/sample.pdf");
+		assertNull(new Settings(input.getAbsolutePath()).getWatchDir());
+		
+		var settings = new Settings("--watch", tempDir.toString());
+		assertEquals(tempDir.toFile(), settings.getWatchDir());
+		assertEquals(0, settings.getInputs().length);
+		assertEquals(tempDir.resolve("censored").resolve("sample_cens.pdf").toFile().getAbsoluteFile(),
+					 settings.getOutput(input));
+		
+		final var out = tempDir.resolve("out").toFile();
+		settings = new Settings("--watch", tempDir.toString(), "-o", out.getPath());
+		assertEquals(new File(out, "sample_cens.pdf").getAbsoluteFile(), settings.getOutput(input));
+		
+		// settings built for watching write into the censored directory by default as well
+		settings = new Settings.Builder().watchDir(tempDir.toFile()).build();
+		assertEquals(tempDir.resolve("censored").resolve("sample_cens.pdf").toFile().getAbsoluteFile(),
+					 settings.getOutput(input));
+		
+		// the censored pdf-files may not be written into the watched directory, where they would be censored again
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings("--watch", tempDir.toString(), "-o", tempDir.resolve("out/..").toString()));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().watchDir(tempDir.toFile()).outputDir(tempDir.toFile()).build());
+		assertThrows(IllegalArgumentException.class, () -> new Settings("--watch", tempDir.resolve("none").toString()));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("--watch", tempDir.toString(), "-o", "out.pdf"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings("--watch", tempDir.toString(), input.getAbsolutePath()));
+		assertThrows(IllegalArgumentException.class, () -> new Settings("--watch", tempDir.toString(), "--serve", "0"));
+	}
+	
+	/** Checks if the builder applies the defaults of the commandline and builds settings from its values. */
+	@Test
+	void testBuilder() {
+		final var input = new File("dir", "in.pdf");
+		var settings = new Settings.Builder().inputs(input).build();
+		assertEquals(input, settings.getInput());
+		assertEquals(new File("dir", "in_cens.pdf").getAbsoluteFile(), settings.getOutput());
+		assertFalse(settings.isBatch());
+		assertEquals(Runtime.getRuntime().availableProcessors(), settings.getThreads());
+		assertEquals(Mode.ALL, settings.getMode());
+		assertEquals(PageSelection.ALL, settings.getPages());
+		assertNull(settings.getPassword());
+		assertEquals(1, settings.getExpressions().length);
+		assertEquals(".", settings.getExpressions()[0].getRegex());
+		assertEquals(0, settings.getZones().length);
+		assertFalse(settings.isZoneOnly());
+		
+		final var builder = new Settings.Builder().inputs(input).output(new File("out.pdf")).threads(3)
+												  .mode(Mode.MARKED).password("secret").distinguishLinks(true)
+												  .pages(PageSelection.parse("2-"), true).expression("a", null)
+												  .expression("b", Color.RED).defaultColors(Color.GREEN)
+												  .zone(PageSelection.ALL, null, new Rectangle2D.Double(0, 0, 1, 1));
+		settings = builder.build();
+		assertEquals(new File("out.pdf"), settings.getOutput());
+		assertEquals(3, settings.getThreads());
+		assertEquals(1, settings.getLoadThreads());
+		assertEquals(12, settings.getQueueSize());
+		assertEquals(Mode.MARKED, settings.getMode());
+		assertEquals("secret", settings.getPassword());
+		assertTrue(settings.distinguishLinks());
+		assertFalse(settings.getPages().contains(1));
+		assertTrue(settings.getDropUnselected());
+		final var expressions = settings.getExpressions();
+		assertEquals(3, expressions.length);
+		assertEquals("a", expressions[0].getRegex());
+		assertEquals(Color.GREEN, expressions[0].getColor());
+		assertEquals("b", expressions[1].getRegex());
+		assertEquals(Color.RED, expressions[1].getColor());
+		assertEquals(1, settings.getZones().length);
+		assertFalse(settings.isZoneOnly());
+		assertPaletteMatches(settings);
+		
+		// the settings do not share their expressions and zones with the builder or each other
+		final var other = builder.expression("c", Color.BLUE).build();
+		assertEquals(4, other.getExpressions().length);
+		assertEquals(3, settings.getExpressions().length);
+		assertNotSame(settings.getExpressions()[0], other.getExpressions()[0]);
+		assertNotSame(settings.getZones()[0], other.getZones()[0]);
+		assertPaletteMatches(settings);
+		assertPaletteMatches(other);
+		
+		settings = new Settings.Builder().inputs(Settings.STANDARD_STREAM).build();
+		assertTrue(settings.isInputStdin());
+		assertTrue(settings.isOutputStdout());
+		
+		settings = new Settings.Builder().inputs(input, new File("other.pdf")).outputDir(new File("out")).build();
+		assertTrue(settings.isBatch());
+		assertEquals(new File("out", "other_cens.pdf").getAbsoluteFile(), settings.getOutput(new File("other.pdf")));
+		assertTrue(new Settings.Builder().inputs(input).batch(true).build().isBatch());
+		
+		settings = new Settings.Builder().serverPort(0).threads(2).queueSize(1).build();
+		assertEquals(0, settings.getServerPort());
+		assertEquals(1, settings.getQueueSize());
+		assertThrows(IllegalStateException.class, settings::getInput);
+		
+		settings = new Settings.Builder().inputs(input).zone(PageSelection.ALL, Color.RED,
+															 new Rectangle2D.Double(0, 0, 1, 1)).zoneOnly(true).build();
+		assertTrue(settings.isZoneOnly());
+		assertPaletteMatches(settings);
+	}
+	
+	/** Checks if the builder rejects invalid and inconsistent values. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testBuilderValidation() {
+		final var input = new File("in.pdf");
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().build());
+		assertThrows(NullPointerException.class, () -> new Settings.Builder().inputs((File[]) null));
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().inputs(input, null));
+		assertThrows(NullPointerException.class, () -> new Settings.Builder().mode(null));
+		assertThrows(NullPointerException.class, () -> new Settings.Builder().expression(null, null));
+		assertThrows(NullPointerException.class, () -> new Settings.Builder().pages(null, false));
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().defaultColors(Color.RED, null));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().zone(PageSelection.ALL, null).inputs(input).build());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().inputs(input).threads(0).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(input).saveThreads(0).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(input).chunkPages(0).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(input).splitPages(0).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(input).compact(true).linearized(true).build());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().inputs(input).serverPort(0).build());
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().serverPort(65536).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().serverPort(0).watchDir(new File("spool")).build());
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Settings.Builder().inputs(input, Settings.STANDARD_STREAM).build());
+	}
+	
+	/**
+	 * Checks if settings that are constructed concurrently, from arguments as well as by builders, do not affect each
+	 * other.
+	 *
+	 * @throws Exception If a thread was interrupted or failed.
+	 */
+	@Test
+	void testParallelConstruction() throws Exception {
+		final var input = getResource("/pdf-files/sample.pdf").getAbsolutePath();
+		final var count = 64;
+		final var executor = Executors.newFixedThreadPool(8);
+		try {
+			final var start = new CountDownLatch(1);
+			final var futures = new ArrayList<Future<Settings>>();
+			for (var i = 0; i < count; i++) {
+				final var regex = "regex" + i;
+				final var byBuilder = i % 2 == 0;
+				futures.add(executor.submit(() -> {
+					start.await();
+					if (byBuilder)
+						return new Settings.Builder().inputs(new File(input)).expression(regex, null).build();
+					return new Settings(input, "-e", regex, "-e", regex + "b");
+				}));
+			}
+			start.countDown();
+			for (var i = 0; i < count; i++) {
+				final var settings = futures.get(i).get();
+				final var expressions = settings.getExpressions();
+				assertEquals("regex" + i, expressions[0].getRegex());
+				if (i % 2 == 0)
+					assertEquals(2, expressions.length);
+				else assertEquals("regex" + i + "b", expressions[1].getRegex());
+				assertPaletteMatches(settings);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
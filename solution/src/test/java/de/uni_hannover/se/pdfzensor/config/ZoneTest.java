@@ -0,0 +1,58 @@
+package de.uni_hannover.se.pdfzensor.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** ZoneTest should contain all unit-tests related to {@link Zone}. */
+class ZoneTest {
+	
+	/** Checks if invalid zones are rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidZones() {
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", null, null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", new double[0][], null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", new double[][]{null}, null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", new double[][]{{0, 0, 1}}, null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", new double[][]{{0, 0, -1, 1}}, null));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Zone("1", new double[][]{{0, Double.NaN, 1, 1}}, null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("x", new double[][]{{0, 0, 1, 1}}, null));
+		assertThrows(IllegalArgumentException.class, () -> new Zone("1", new double[][]{{0, 0, 1, 1}}, "red"));
+		assertThrows(NullPointerException.class,
+					 () -> new Zone(null, new Rectangle2D[]{new Rectangle2D.Double()}, null));
+		assertThrows(IllegalArgumentException.class,
+					 () -> new Zone(PageSelection.ALL, new Rectangle2D[]{null}, null));
+	}
+	
+	/** Checks if a valid zone reports its pages, rectangles and color. */
+	@Test
+	void testValidZone() {
+		var zone = new Zone("2-3", new double[][]{{1, 2, 3, 4}, {5, 6, 0, 0}}, "#00FF00");
+		assertFalse(zone.appliesTo(1));
+		assertTrue(zone.appliesTo(2));
+		assertTrue(zone.appliesTo(3));
+		assertEquals("2-3", zone.getPages().toString());
+		assertEquals(Color.GREEN, zone.getColor());
+		assertArrayEquals(new Rectangle2D[]{new Rectangle2D.Double(1, 2, 3, 4), new Rectangle2D.Double(5, 6, 0, 0)},
+						  zone.getRects());
+		// the rectangles may not be modified from the outside
+		zone.getRects()[0].setRect(0, 0, 0, 0);
+		assertEquals(new Rectangle2D.Double(1, 2, 3, 4), zone.getRects()[0]);
+		assertEquals("[pages: \"2-3\"; rects: [[1.0, 2.0, 3.0, 4.0], [5.0, 6.0, 0.0, 0.0]]; color: #00FF00]",
+					 zone.toString());
+		
+		zone = new Zone(null, new double[][]{{1, 2, 3, 4}}, null);
+		assertTrue(zone.appliesTo(1));
+		assertEquals(Settings.DEFAULT_CENSOR_COLOR, zone.getColor());
+		assertEquals(Palette.NO_COLOR, zone.getColorIndex());
+		zone.assignColorIndex(new Palette(Color.RED, Settings.DEFAULT_CENSOR_COLOR));
+		assertEquals(1, zone.getColorIndex());
+		assertThrows(IllegalArgumentException.class, () -> new Zone(null, new double[][]{{1, 2, 3, 4}}, null)
+				.assignColorIndex(new Palette(Color.RED)));
+	}
+}
@@ -1,10 +1,26 @@
 package de.uni_hannover.se.pdfzensor.processor;
 
+import de.uni_hannover.se.pdfzensor.config.PageSelection;
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createDocument;
 import static org.junit.jupiter.api.Assertions.*;
 
 /** PDFProcessorTest should contain all unit-tests related to {@link PDFProcessor}. */
@@ -73,4 +89,169 @@ class PDFProcessorTest {
 		assertThrows(NullPointerException.class, () -> new PDFProcessor(null));
 		assertDoesNotThrow(() -> new PDFProcessor(dummyHandler));
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Checks if only the selected pages are passed to the handler and the unselected pages are either kept untouched
+	 * or removed.
+	 *
+	 * @param removeUnselected whether the unselected pages should be removed.
+	 * @throws IOException If the document could not be created or processed.
+	 */
+	@ParameterizedTest(name = "Run {index}: removeUnselected: {0}")
+	@ValueSource(strings = {"false", "true"})
+	void testPageFilter(boolean removeUnselected) throws IOException {
+		final var processed = new ArrayList<Integer>();
+		final var handler = new PDFHandler() {
+			@Override
+			public void beginDocument(final PDDocument doc) {}
+			
+			@Override
+			public void beginPage(final PDDocument doc, final PDPage page, final int pageNum) {
+				processed.add(pageNum);
+			}
+			
+			@Override
+			public void endPage(final PDDocument doc, final PDPage page, final int pageNum) {}
+			
+			@Override
+			public void endDocument(final PDDocument doc) {}
+			
+			@Override
+			public boolean shouldCensorText(PDPage page, final TextPosition pos) {
+				return true;
+			}
+		};
+		final var settings = new Settings.Builder().inputs(new File("in.pdf"))
+												   .pages(PageSelection.parse("2-3"), removeUnselected).build();
+		assertThrows(NullPointerException.class, () -> new PDFProcessor(handler, null));
+		assertThrows(NullPointerException.class, () -> new PDFProcessor(handler, settings, null));
+		try (var doc = createDocument(5, "")) {
+			final var unselected = doc.getPage(3).getContents().readAllBytes();
+			new PDFProcessor(handler, settings).process(doc);
+			assertEquals(List.of(2, 3), processed);
+			if (removeUnselected) {
+				assertEquals(2, doc.getNumberOfPages());
+			} else {
+				assertEquals(5, doc.getNumberOfPages());
+				assertArrayEquals(unselected, doc.getPage(3).getContents().readAllBytes());
+			}
+			final var text = new PDFTextStripper().getText(doc);
+			assertFalse(text.contains("Page 2"));
+			assertFalse(text.contains("Page 3"));
+			assertEquals(!removeUnselected, text.contains("Page 1"));
+			assertEquals(!removeUnselected, text.contains("Page 5"));
+		}
+	}
+	
+	/**
+	 * Checks if the processing is aborted before the first page if the deadline was cancelled, and the handler is
+	 * informed about the deadline.
+	 *
+	 * @throws IOException If the document could not be created.
+	 */
+	@Test
+	void testDeadline() throws IOException {
+		final var deadline = Deadline.none();
+		final var pages = new ArrayList<Integer>();
+		final var handler = new PDFHandler() {
+			@Override
+			public void beginDocument(final PDDocument doc) {}
+			
+			@Override
+			public void beginDocument(final PDDocument doc, final Deadline actual) {
+				assertSame(deadline, actual);
+			}
+			
+			@Override
+			public void beginPage(final PDDocument doc, final PDPage page, final int pageNum) {
+				pages.add(pageNum);
+			}
+			
+			@Override
+			public void endPage(final PDDocument doc, final PDPage page, final int pageNum) {}
+			
+			@Override
+			public void endDocument(final PDDocument doc) {}
+			
+			@Override
+			public boolean shouldCensorText(PDPage page, final TextPosition pos) {
+				return false;
+			}
+		};
+		try (var doc = createDocument(2, "")) {
+			final var processor = new PDFProcessor(handler);
+			assertThrows(NullPointerException.class, () -> processor.process(doc, null));
+			processor.process(doc, deadline);
+			assertEquals(List.of(1, 2), pages);
+			
+			pages.clear();
+			deadline.cancel();
+			final var e = assertThrows(AbortedException.class, () -> processor.process(doc, deadline));
+			assertFalse(e.isTimeout());
+			assertTrue(pages.isEmpty());
+		}
+	}
+	
+	/**
+	 * Checks if the censored page contents are compressed at the provided level (or stored without a filter at level
+	 * 0), while their decoded content and the extracted text do not depend on the level and compressing them in the
+	 * background yields the same bytes each time.
+	 *
+	 * @throws IOException If the document could not be created or processed.
+	 */
+	@Test
+	void testCompressionLevel() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> new Settings.Builder().compressionLevel(10));
+		final var handler = new PDFHandler() {
+			@Override
+			public void beginDocument(final PDDocument doc) {}
+			
+			@Override
+			public void beginPage(final PDDocument doc, final PDPage page, final int pageNum) {}
+			
+			@Override
+			public void endPage(final PDDocument doc, final PDPage page, final int pageNum) {}
+			
+			@Override
+			public void endDocument(final PDDocument doc) {}
+			
+			@Override
+			public boolean shouldCensorText(PDPage page, final TextPosition pos) {
+				return false;
+			}
+		};
+		final var raw = new HashMap<Integer, List<byte[]>>();
+		List<byte[]> expected = null;
+		String expectedText = null;
+		for (var level : new int[]{-1, 0, 1, 9, 9}) {
+			try (var doc = createDocument(12, "")) {
+				final var settings = new Settings.Builder().inputs(new File("in.pdf")).compressionLevel(level).build();
+				new PDFProcessor(handler, settings).process(doc);
+				final var streams = new ArrayList<COSStream>();
+				for (var page : doc.getPages())
+					streams.add((COSStream) page.getCOSObject().getDictionaryObject(COSName.CONTENTS));
+				final var decoded = new ArrayList<byte[]>();
+				final var encoded = new ArrayList<byte[]>();
+				for (var stream : streams) {
+					assertEquals(level == 0 ? null : COSName.FLATE_DECODE, stream.getFilters());
+					decoded.add(stream.createInputStream().readAllBytes());
+					encoded.add(stream.createRawInputStream().readAllBytes());
+				}
+				final var text = new PDFTextStripper().getText(doc);
+				if (expected == null) {
+					expected = decoded;
+					expectedText = text;
+				}
+				assertEquals(expectedText, text);
+				assertEquals(expected.size(), decoded.size());
+				final var previous = raw.putIfAbsent(level, encoded);
+				for (var i = 0; i < decoded.size(); i++) {
+					assertArrayEquals(expected.get(i), decoded.get(i));
+					if (previous != null)
+						assertArrayEquals(previous.get(i), encoded.get(i));
+				}
+			}
+		}
+		assertTrue(expectedText.contains("Page 12"));
+	}
+}
@@ -5,16 +5,25 @@ import de.uni_hannover.se.pdfzensor.censor.utils.DoubleBufferedStream;
 import de.uni_hannover.se.pdfzensor.testing.TestUtility;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.PDFProvider;
 import org.apache.logging.log4j.Level;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createDocument;
 import static org.junit.jupiter.api.Assertions.*;
 
 class PDFStreamProcessorTest {
@@ -54,4 +63,50 @@ class PDFStreamProcessorTest {
 			assertDoesNotThrow(() -> processor.getText(doc));
 		}
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Checks if the page contents and a form shown on every page are rewritten at the provided compression level and
+	 * none of them is left pending once the document was processed.
+	 *
+	 * @param level the compression level.
+	 * @throws IOException If the document could not be created or processed.
+	 */
+	@ParameterizedTest(name = "Run {index}: level: {0}")
+	@ValueSource(ints = {-1, 0, 9})
+	void testCompressionLevel(int level) throws IOException {
+		try (var doc = createFormDocument()) {
+			final var processor = new PDFStreamProcessor(level);
+			processor.getText(doc);
+			final var resources = doc.getPage(0).getResources();
+			final var form = resources.getXObject(resources.getXObjectNames().iterator().next()).getCOSObject();
+			assertEquals(level == 0 ? null : COSName.FLATE_DECODE, form.getFilters());
+			for (var page : doc.getPages()) {
+				final var contents = (COSStream) page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+				assertEquals(level == 0 ? null : COSName.FLATE_DECODE, contents.getFilters());
+				// nothing was copied into the rewritten streams
+				assertEquals(0, contents.createInputStream().readAllBytes().length);
+			}
+			assertEquals(0, form.createInputStream().readAllBytes().length);
+		}
+		assertThrows(IllegalArgumentException.class, () -> new PDFStreamProcessor(10));
+	}
+	
+	/**
+	 * Creates a document whose pages all show their number and the same form.
+	 *
+	 * @return the created document.
+	 * @throws IOException If the document could not be created.
+	 */
+	@NotNull
+	private static PDDocument createFormDocument() throws IOException {
+		final var form = new PDFormXObject(new COSStream());
+		form.setBBox(new PDRectangle(200, 50));
+		final var resources = new PDResources();
+		final var font = resources.add(PDType1Font.HELVETICA);
+		form.setResources(resources);
+		try (var os = form.getContentStream().createOutputStream(COSName.FLATE_DECODE)) {
+			os.write(("BT /" + font.getName() + " 12 Tf 10 10 Td (Form) Tj ET").getBytes(StandardCharsets.US_ASCII));
+		}
+		return createDocument(12, "", (contentStream, page) -> contentStream.drawForm(form));
+	}
+}
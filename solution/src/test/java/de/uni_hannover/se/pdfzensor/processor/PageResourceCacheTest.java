@@ -0,0 +1,147 @@
+package de.uni_hannover.se.pdfzensor.processor;
+
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** PageResourceCacheTest should contain all unit-tests related to {@link PageResourceCache}. */
+class PageResourceCacheTest {
+	/**
+	 * Creates a document whose pages all use Helvetica and each one a font of its own. The document is saved and
+	 * reloaded, such that the fonts are referenced indirectly.
+	 *
+	 * @param own the fonts only used by the page with the same index.
+	 * @return the reloaded document.
+	 * @throws IOException If the document could not be created.
+	 */
+	private static PDDocument createDocument(List<PDFont> own) throws IOException {
+		try (var doc = new PDDocument(); var out = new ByteArrayOutputStream()) {
+			for (var font : own) {
+				var page = new PDPage();
+				doc.addPage(page);
+				try (var contentStream = new PDPageContentStream(doc, page)) {
+					contentStream.beginText();
+					contentStream.setFont(PDType1Font.HELVETICA, 12);
+					contentStream.showText("Shared");
+					contentStream.setFont(font, 12);
+					contentStream.showText("Own");
+					contentStream.endText();
+				}
+			}
+			doc.save(out);
+			return PDDocument.load(out.toByteArray());
+		}
+	}
+	
+	/**
+	 * Looks up the reference to the font of a page by its base font.
+	 *
+	 * @param page the page using the font.
+	 * @param font the font.
+	 * @return the reference to the font in the resources of the page.
+	 */
+	private static COSObject reference(PDPage page, PDFont font) {
+		final var fonts = (COSDictionary) page.getResources().getCOSObject().getDictionaryObject(COSName.FONT);
+		for (var name : fonts.keySet()) {
+			final var item = (COSObject) fonts.getItem(name);
+			if (font.getName().equals(((COSDictionary) item.getObject()).getNameAsString(COSName.BASE_FONT)))
+				return item;
+		}
+		throw new AssertionError("The font " + font.getName() + " is not used by the page");
+	}
+	
+	/**
+	 * Checks if each resource is kept until the last page using it was processed and released afterwards.
+	 *
+	 * @throws IOException If the document could not be created.
+	 */
+	@Test
+	void testEndPage() throws IOException {
+		assertThrows(NullPointerException.class, () -> new PageResourceCache(null));
+		final var own = List.<PDFont>of(PDType1Font.TIMES_ROMAN, PDType1Font.COURIER, PDType1Font.HELVETICA_BOLD);
+		try (var doc = createDocument(own)) {
+			final var cache = new PageResourceCache(doc);
+			final var shared = reference(doc.getPage(0), PDType1Font.HELVETICA);
+			assertSame(shared, reference(doc.getPage(2), PDType1Font.HELVETICA));
+			final var first = reference(doc.getPage(0), own.get(0));
+			final var second = reference(doc.getPage(1), own.get(1));
+			cache.put(shared, PDType1Font.HELVETICA);
+			cache.put(first, own.get(0));
+			cache.put(second, own.get(1));
+			// not used by any page, e.g. loaded by the handler
+			final var unknown = new COSObject(new COSDictionary());
+			cache.put(unknown, own.get(2));
+			assertEquals(4, cache.size());
+			assertSame(own.get(0), cache.getFont(first));
+			
+			cache.endPage(1);
+			assertEquals(2, cache.size());
+			assertNull(cache.getFont(first));
+			assertNull(cache.getFont(unknown));
+			assertSame(PDType1Font.HELVETICA, cache.getFont(shared));
+			assertSame(own.get(1), cache.getFont(second));
+			
+			cache.endPage(2);
+			assertEquals(1, cache.size());
+			assertSame(PDType1Font.HELVETICA, cache.getFont(shared));
+			
+			cache.endPage(3);
+			assertEquals(0, cache.size());
+		}
+	}
+	
+	/**
+	 * Checks if the cache is used while a document is processed in low-memory mode and the previous cache is restored
+	 * afterwards.
+	 *
+	 * @throws IOException If the document could not be created or processed.
+	 */
+	@Test
+	void testLowMemoryProcessing() throws IOException {
+		final var handler = new PDFHandler() {
+			@Override
+			public void beginDocument(final PDDocument doc) {}
+			
+			@Override
+			public void beginPage(final PDDocument doc, final PDPage page, final int pageNum) {
+				assertTrue(doc.getResourceCache() instanceof PageResourceCache);
+			}
+			
+			@Override
+			public void endPage(final PDDocument doc, final PDPage page, final int pageNum) {}
+			
+			@Override
+			public void endDocument(final PDDocument doc) {}
+			
+			@Override
+			public boolean shouldCensorText(PDPage page, final TextPosition pos) {
+				return true;
+			}
+		};
+		try (var doc = createDocument(List.of(PDType1Font.TIMES_ROMAN, PDType1Font.COURIER))) {
+			final var previous = doc.getResourceCache();
+			final var settings = new Settings.Builder().inputs(new File("in.pdf")).lowMemory(true).build();
+			new PDFProcessor(handler, settings).process(doc);
+			assertSame(previous, doc.getResourceCache());
+			final var text = new PDFTextStripper().getText(doc);
+			assertFalse(text.contains("Shared"));
+			assertFalse(text.contains("Own"));
+		}
+	}
+}
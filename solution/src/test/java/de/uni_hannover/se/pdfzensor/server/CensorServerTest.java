@@ -0,0 +1,286 @@
+package de.uni_hannover.se.pdfzensor.server;
+
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createDocument;
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** CensorServerTest should contain all unit-tests related to {@link CensorServer}. */
+class CensorServerTest {
+	/** The client used to send the requests. */
+	private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	
+	/** Checks if invalid settings are rejected. */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidSettings() {
+		assertThrows(NullPointerException.class, () -> new CensorServer(null));
+		final var settings = new Settings(getResource("/pdf-files/sample.pdf").getAbsolutePath());
+		assertThrows(NullPointerException.class, () -> new CensorServer(settings));
+	}
+	
+	/** Checks if the expressions are parsed out of the query like they are out of the command-line arguments. */
+	@Test
+	void testParseExpressions() {
+		assertTrue(CensorServer.parseExpressions(null).isEmpty());
+		assertTrue(CensorServer.parseExpressions("").isEmpty());
+		assertEquals(List.of(Pair.of("a b", "#FF0000"), Pair.of("[0-9]+&", null)),
+					 CensorServer.parseExpressions("e=a+b&color=%23FF0000&x=1&e=%5B0-9%5D%2B%26"));
+		assertThrows(IllegalArgumentException.class, () -> CensorServer.parseExpressions("color=%23FF0000"));
+		assertThrows(IllegalArgumentException.class,
+					 () -> CensorServer.parseExpressions("e=a&color=%23FF0000&color=%23FF0000"));
+	}
+	
+	/**
+	 * Checks if posted pdf-files are censored and invalid requests are answered accordingly.
+	 *
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testCensor() throws Exception {
+		final var pdf = Files.readAllBytes(getResource("/pdf-files/sample.pdf").toPath());
+		try (var server = new CensorServer(new Settings("--serve", "0", "-t", "2"))) {
+			server.start();
+			assertEquals(200, send(server, "/health", null).statusCode());
+			assertEquals(200, send(server, "/ready", null).statusCode());
+			assertEquals(405, send(server, "/censor", null).statusCode());
+			assertEquals(400, send(server, "/censor", "no pdf".getBytes()).statusCode());
+			assertEquals(400, send(server, "/censor?e=a&color=nocolor", pdf).statusCode());
+			
+			for (var query : new String[]{"", "", "?e=Lorem&color=%23FF0000&e=ipsum"}) {
+				final var response = send(server, "/censor" + query, pdf);
+				assertEquals(200, response.statusCode());
+				assertEquals("application/pdf", response.headers().firstValue("Content-Type").orElse(null));
+				try (var doc = PDDocument.load(response.body())) {
+					assertTrue(new PDFTextStripper().getText(doc).isBlank());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks if the censored pdf-files of requests without further expressions are cached and a pdf-file posted again
+	 * is answered from the cache.
+	 *
+	 * @param tempDir A temporary directory to use as cache directory.
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testCache(@TempDir Path tempDir) throws Exception {
+		final var pdf = Files.readAllBytes(getResource("/pdf-files/sample.pdf").toPath());
+		final var cache = tempDir.resolve("cache");
+		try (var server = new CensorServer(new Settings("--serve", "0", "--cache-dir", cache.toString()))) {
+			server.start();
+			final var first = send(server, "/censor", pdf);
+			assertEquals(200, first.statusCode());
+			try (var entries = Files.list(cache)) {
+				assertEquals(1, entries.count());
+			}
+			// an entry that was tampered with proves that the second response is copied from the cache
+			try (var entries = Files.list(cache)) {
+				Files.write(entries.findFirst().orElseThrow(), "cached".getBytes(StandardCharsets.US_ASCII));
+			}
+			assertArrayEquals("cached".getBytes(StandardCharsets.US_ASCII), send(server, "/censor", pdf).body());
+			final var other = send(server, "/censor?e=Lorem", pdf);
+			assertEquals(200, other.statusCode());
+			try (var doc = PDDocument.load(other.body())) {
+				assertTrue(new PDFTextStripper().getText(doc).isBlank());
+			}
+			try (var entries = Files.list(cache)) {
+				assertEquals(1, entries.count());
+			}
+		}
+	}
+	
+	/**
+	 * Checks if the censored pdf-files of encrypted requests are not cached, as the fingerprint naming the entries does
+	 * not cover the password.
+	 *
+	 * @param tempDir A temporary directory to use as cache directory.
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testEncryptedNotCached(@TempDir Path tempDir) throws Exception {
+		final var pdf = Files.readAllBytes(getResource("/encrypted-pdf-files/Cryptography_Sample_encrypted.pdf")
+												   .toPath());
+		final var cache = tempDir.resolve("cache");
+		try (var server = new CensorServer(new Settings("--serve", "0", "--cache-dir", cache.toString(), "-p",
+														"testpassword"))) {
+			server.start();
+			for (var i = 0; i < 2; i++) {
+				final var response = send(server, "/censor", pdf);
+				assertEquals(200, response.statusCode());
+				try (var doc = PDDocument.load(response.body())) {
+					assertFalse(doc.isEncrypted());
+				}
+			}
+			try (var entries = Files.list(cache)) {
+				assertEquals(0, entries.count());
+			}
+		}
+	}
+	
+	/**
+	 * Checks if pdf-files uploaded in chunks, i.e. without content length, are censored and rejected with 413 if they
+	 * exceed the memory budget while being read into main memory for the cache.
+	 *
+	 * @param tempDir A temporary directory to use as cache directory.
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testChunked(@TempDir Path tempDir) throws Exception {
+		final var pdf = Files.readAllBytes(getResource("/pdf-files/sample.pdf").toPath());
+		final var builder = new Settings.Builder().serverPort(0).memoryBudget(pdf.length);
+		try (var server = new CensorServer(builder.build())) {
+			server.start();
+			final var response = sendChunked(server, pdf);
+			assertEquals(200, response.statusCode());
+			try (var doc = PDDocument.load(response.body())) {
+				assertTrue(new PDFTextStripper().getText(doc).isBlank());
+			}
+		}
+		try (var server = new CensorServer(builder.cacheDir(tempDir.resolve("cache").toFile()).build())) {
+			server.start();
+			assertEquals(200, sendChunked(server, pdf).statusCode());
+			final var oversized = Arrays.copyOf(pdf, pdf.length + 1);
+			assertEquals(413, sendChunked(server, oversized).statusCode());
+			assertEquals(200, send(server, "/ready", null).statusCode());
+		}
+	}
+	
+	/**
+	 * Checks if requests exceeding the threads and queue are rejected while the server is busy.
+	 *
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testQueueFull() throws Exception {
+		try (var server = new CensorServer(new Settings("--serve", "0", "-t", "1", "--queue-size", "0"))) {
+			server.start();
+			// a request whose body is not complete occupies the only thread until the connection is closed
+			try (var pending = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+				final var out = pending.getOutputStream();
+				out.write(("POST /censor HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100000\r\n\r\n%PDF-1.4\n")
+								  .getBytes(StandardCharsets.US_ASCII));
+				out.flush();
+				var ready = send(server, "/ready", null).statusCode();
+				for (var i = 0; i < 100 && ready == 200; i++) {
+					Thread.sleep(50);
+					ready = send(server, "/ready", null).statusCode();
+				}
+				assertEquals(503, ready);
+				final var rejected = send(server, "/censor", new byte[0]);
+				assertEquals(503, rejected.statusCode());
+				assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+				assertEquals(200, send(server, "/health", null).statusCode());
+				
+				pending.shutdownOutput();
+				final var status = new String(pending.getInputStream().readNBytes(12), StandardCharsets.US_ASCII);
+				assertEquals("HTTP/1.1 400", status);
+			}
+			// the permit of the pending request is released only after its response was sent
+			var ready = send(server, "/ready", null).statusCode();
+			for (var i = 0; i < 100 && ready == 503; i++) {
+				Thread.sleep(50);
+				ready = send(server, "/ready", null).statusCode();
+			}
+			assertEquals(200, ready);
+		}
+	}
+	
+	/**
+	 * Checks if censoring a pdf-file taking longer than the timeout is aborted with 422 and the server stays usable.
+	 *
+	 * @throws Exception If the server could not be started or a request failed.
+	 */
+	@Test
+	void testTimeout() throws Exception {
+		final var settings = new Settings.Builder().serverPort(0).threads(1).timeout(1).build();
+		try (var server = new CensorServer(settings)) {
+			server.start();
+			final var response = send(server, "/censor", createPages(50));
+			assertEquals(422, response.statusCode());
+			assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("1 ms"));
+			assertEquals(200, send(server, "/health", null).statusCode());
+		}
+	}
+	
+	/**
+	 * Creates a pdf-file containing a line of text on each page.
+	 *
+	 * @param pages the number of pages.
+	 * @return the bytes of the pdf-file.
+	 * @throws IOException if the pdf-file could not be created.
+	 */
+	private static byte[] createPages(int pages) throws IOException {
+		try (var doc = createDocument(pages, ""); var out = new ByteArrayOutputStream()) {
+			doc.save(out);
+			return out.toByteArray();
+		}
+	}
+	
+	/**
+	 * Sends a request to the server.
+	 *
+	 * @param server the server the request should be sent to.
+	 * @param path   the path (and query) of the request.
+	 * @param body   the body that should be posted or null if a GET-request should be sent.
+	 * @return the response of the server.
+	 * @throws IOException          if an I/O error occurs.
+	 * @throws InterruptedException if the request was interrupted.
+	 */
+	private HttpResponse<byte[]> send(CensorServer server, String path, byte[] body)
+			throws IOException, InterruptedException {
+		final var builder = HttpRequest.newBuilder(uri(server, path));
+		if (body != null)
+			builder.POST(HttpRequest.BodyPublishers.ofByteArray(body));
+		return client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+	
+	/**
+	 * Posts the pdf-file to the <code>/censor</code> endpoint of the server in chunks, such that the request does not
+	 * specify its content length.
+	 *
+	 * @param server the server the request should be sent to.
+	 * @param body   the pdf-file that should be posted.
+	 * @return the response to the request.
+	 * @throws IOException          If the request failed.
+	 * @throws InterruptedException If the request was interrupted.
+	 */
+	private HttpResponse<byte[]> sendChunked(CensorServer server, byte[] body)
+			throws IOException, InterruptedException {
+		final var publisher = HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body));
+		final var request = HttpRequest.newBuilder(uri(server, "/censor")).POST(publisher).build();
+		return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+		
+		/**
+	 * @param server the server the request should be sent to.
+	 * @param path   the path (and query) of the request.
+	 * @return the URI of the path on the server.
+	 */
+	private static URI uri(CensorServer server, String path) {
+		return URI.create("http://localhost:" + server.getPort() + path);
+	}
+}
@@ -3,6 +3,11 @@ package de.uni_hannover.se.pdfzensor.testing;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.logging.log4j.util.StackLocatorUtil;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -10,11 +15,13 @@ import org.junit.jupiter.api.function.Executable;
 
 import java.awt.geom.Rectangle2D;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.Permission;
 import java.util.Arrays;
 import java.util.Collection;
@@ -192,6 +199,73 @@ public final class TestUtility {
 		}
 	}
 	
+	/**
+	 * Creates a document with the provided number of pages. Each page shows a line of text consisting of its number
+	 * (<code>Page i</code>) and the suffix and is <code>300 + 10 * i</code> points wide, such that the order of the
+	 * pages can be checked.
+	 *
+	 * @param pages  the number of pages.
+	 * @param suffix the text following the number of each page. May be empty.
+	 * @param drawer draws further content onto each page after its text. May be null.
+	 * @return the created document. Has to be closed by the caller.
+	 * @throws IOException if the document could not be created.
+	 */
+	@NotNull
+	public static PDDocument createDocument(int pages, @NotNull String suffix, @Nullable PageDrawer drawer)
+			throws IOException {
+		Objects.requireNonNull(suffix);
+		final var doc = new PDDocument();
+		try {
+			for (var i = 1; i <= pages; i++) {
+				final var page = new PDPage(new PDRectangle(300 + 10 * i, 400));
+				doc.addPage(page);
+				try (var contentStream = new PDPageContentStream(doc, page)) {
+					contentStream.beginText();
+					contentStream.setFont(PDType1Font.HELVETICA, 12);
+					contentStream.newLineAtOffset(20, 300);
+					contentStream.showText("Page " + i + suffix);
+					contentStream.endText();
+					if (drawer != null)
+						drawer.draw(contentStream, i);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			doc.close();
+			throw e;
+		}
+		return doc;
+	}
+	
+	/**
+	 * Creates a document like {@link #createDocument(int, String, PageDrawer)} without further content.
+	 *
+	 * @param pages  the number of pages.
+	 * @param suffix the text following the number of each page. May be empty.
+	 * @return the created document. Has to be closed by the caller.
+	 * @throws IOException if the document could not be created.
+	 */
+	@NotNull
+	public static PDDocument createDocument(int pages, @NotNull String suffix) throws IOException {
+		return createDocument(pages, suffix, null);
+	}
+	
+	/**
+	 * Creates a pdf-file like {@link #createDocument(int, String)}.
+	 *
+	 * @param file   the file the pdf-file should be saved as.
+	 * @param pages  the number of pages.
+	 * @param suffix the text following the number of each page. May be empty.
+	 * @return the created pdf-file.
+	 * @throws IOException if the pdf-file could not be created.
+	 */
+	@NotNull
+	public static File createPdfFile(@NotNull Path file, int pages, @NotNull String suffix) throws IOException {
+		try (var doc = createDocument(pages, suffix)) {
+			doc.save(file.toFile());
+		}
+		return file.toFile();
+	}
+	
 	/**
 	 * Asserts that the provided executable calls {@link System#exit(int)} with the expected error-code.
 	 *
@@ -224,4 +298,15 @@ public final class TestUtility {
 			System.setSecurityManager(defaultSecManager);
 		}
 	}
+	
+	/** Draws further content onto a page of a document created by {@link #createDocument(int, String, PageDrawer)}. */
+	@FunctionalInterface
+	public interface PageDrawer {
+		/**
+		 * @param contentStream the content stream of the page, after its text was shown.
+		 * @param page          the (1-based) number of the page.
+		 * @throws IOException if the content could not be drawn.
+		 */
+		void draw(@NotNull PDPageContentStream contentStream, int page) throws IOException;
+	}
 }
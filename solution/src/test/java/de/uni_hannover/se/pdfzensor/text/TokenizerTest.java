@@ -2,6 +2,8 @@ package de.uni_hannover.se.pdfzensor.text;
 
 import de.uni_hannover.se.pdfzensor.testing.TestUtility;
 import de.uni_hannover.se.pdfzensor.testing.argumentproviders.TokenProvider;
+import de.uni_hannover.se.pdfzensor.utils.AbortedException;
+import de.uni_hannover.se.pdfzensor.utils.Deadline;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
@@ -69,6 +71,33 @@ class TokenizerTest {
 		}
 	}
 	
+	/**
+	 * Checks if input exceeding the pipe is tokenized completely and no further input is accepted once the deadline
+	 * was cancelled.
+	 *
+	 * @throws IOException If the tokenizer could not be flushed or closed.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testDeadline() throws IOException {
+		final var found = Collections.synchronizedList(new ArrayList<String>());
+		try (var tokenizer = new Tokenizer<SimpleToken, Integer>(new SimpleToken("test"))) {
+			assertThrows(NullPointerException.class, () -> tokenizer.setDeadline(null));
+			tokenizer.setHandler((value, payload, token) -> found.add(value));
+			final var deadline = Deadline.none();
+			tokenizer.setDeadline(deadline);
+			tokenizer.input("test".repeat(1000), Collections.nCopies(4000, 0));
+			tokenizer.flush();
+			assertEquals(1000, found.size());
+			assertTrue(found.stream().allMatch("test"::equals));
+			
+			deadline.cancel();
+			assertThrows(AbortedException.class, () -> tokenizer.input("test", Collections.nCopies(4, 0)));
+			tokenizer.flush();
+			assertEquals(1000, found.size());
+		}
+	}
+	
 	/**
 	 * Checks if the tokenizer can correctly tokenize with ligatures in the token or in the input.
 	 */
@@ -0,0 +1,65 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** DeadlineTest should contain all unit-tests related to {@link Deadline}. */
+class DeadlineTest {
+	/** Checks if a deadline without timeout never expires but may be cancelled. */
+	@Test
+	void testNone() {
+		final var deadline = Deadline.none();
+		assertEquals(-1, deadline.getTimeout());
+		assertEquals(-1, new Deadline(0).getTimeout());
+		assertFalse(deadline.isExpired());
+		assertFalse(deadline.isAborted());
+		assertEquals(Long.MAX_VALUE, deadline.getRemainingMillis());
+		assertDoesNotThrow(deadline::check);
+		
+		deadline.cancel();
+		deadline.cancel();
+		assertTrue(deadline.isCancelled());
+		assertFalse(deadline.isExpired());
+		assertTrue(deadline.isAborted());
+		assertEquals(0, deadline.getRemainingMillis());
+		final var e = assertThrows(AbortedException.class, deadline::check);
+		assertFalse(e.isTimeout());
+	}
+	
+	/**
+	 * Checks if a deadline expires after its timeout.
+	 *
+	 * @throws InterruptedException If the test was interrupted while waiting for the deadline to expire.
+	 */
+	@Test
+	void testTimeout() throws InterruptedException {
+		final var deadline = new Deadline(50);
+		assertEquals(50, deadline.getTimeout());
+		assertTrue(deadline.getRemainingMillis() <= 50);
+		while (!deadline.isExpired())
+			Thread.sleep(10);
+		assertTrue(deadline.isAborted());
+		assertFalse(deadline.isCancelled());
+		assertEquals(0, deadline.getRemainingMillis());
+		final var e = assertThrows(AbortedException.class, deadline::check);
+		assertTrue(e.isTimeout());
+		assertTrue(e.getMessage().contains("50 ms"));
+		assertFalse(new Deadline(60_000).isAborted());
+	}
+	
+	/** Checks if checking a deadline in an interrupted thread cancels it without clearing the interrupt. */
+	@Test
+	void testInterrupt() {
+		final var deadline = Deadline.none();
+		Thread.currentThread().interrupt();
+		try {
+			final var e = assertThrows(AbortedException.class, deadline::check);
+			assertFalse(e.isTimeout());
+			assertTrue(deadline.isCancelled());
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** MappedFileTest should contain all unit-tests related to {@link MappedFile}. */
+class MappedFileTest {
+	/**
+	 * Checks if a file mapped in several segments is read correctly across the boundaries of the segments.
+	 *
+	 * @param tempDir A temporary directory to store the file in.
+	 * @throws IOException If the file could not be created or read.
+	 */
+	@Test
+	void testRead(@TempDir Path tempDir) throws IOException {
+		final var content = new byte[10];
+		for (var i = 0; i < content.length; i++)
+			content[i] = (byte) (250 + i);
+		final var file = Files.write(tempDir.resolve("data.bin"), content).toFile();
+		try (var mapped = new MappedFile(file, 4)) {
+			assertEquals(10, mapped.length());
+			assertEquals(10, mapped.available());
+			assertEquals(250, mapped.peek());
+			assertEquals(250, mapped.read());
+			assertEquals(1, mapped.getPosition());
+			
+			final var buffer = new byte[6];
+			assertEquals(6, mapped.read(buffer));
+			assertArrayEquals(new byte[]{(byte) 251, (byte) 252, (byte) 253, (byte) 254, (byte) 255, 0}, buffer);
+			mapped.rewind(3);
+			assertArrayEquals(new byte[]{(byte) 254, (byte) 255, 0}, mapped.readFully(3));
+			assertEquals(0, mapped.read(buffer, 0, 0));
+			assertEquals(3, mapped.read(buffer, 1, 5));
+			assertEquals(1, buffer[1]);
+			assertEquals(3, buffer[3]);
+			assertTrue(mapped.isEOF());
+			assertEquals(-1, mapped.read());
+			assertEquals(-1, mapped.peek());
+			assertEquals(-1, mapped.read(buffer));
+			
+			mapped.seek(2);
+			assertFalse(mapped.isEOF());
+			assertEquals(252, mapped.read());
+			assertThrows(EOFException.class, () -> mapped.readFully(9));
+			assertThrows(IOException.class, () -> mapped.seek(-1));
+			mapped.seek(20);
+			assertEquals(0, mapped.available());
+			assertEquals(-1, mapped.read());
+		}
+	}
+	
+	/**
+	 * Checks if an empty file may be mapped and a closed file may no longer be read.
+	 *
+	 * @param tempDir A temporary directory to store the file in.
+	 * @throws IOException If the file could not be created or mapped.
+	 */
+	@Test
+	void testEmptyAndClosed(@TempDir Path tempDir) throws IOException {
+		final var file = Files.createFile(tempDir.resolve("empty.bin")).toFile();
+		final var mapped = new MappedFile(file);
+		assertEquals(0, mapped.length());
+		assertTrue(mapped.isEOF());
+		assertEquals(-1, mapped.read());
+		assertEquals(0, mapped.readFully(0).length);
+		assertFalse(mapped.isClosed());
+		mapped.close();
+		assertTrue(mapped.isClosed());
+		assertThrows(IOException.class, mapped::read);
+		assertThrows(IOException.class, mapped::length);
+		assertThrows(IOException.class, () -> new MappedFile(new File(tempDir.toFile(), "missing.bin")));
+	}
+	
+	/**
+	 * Checks if a pdf-file loaded from a mapping contains the same text as one loaded normally and a malformed file is
+	 * rejected.
+	 *
+	 * @param tempDir A temporary directory to store the malformed file in.
+	 * @throws IOException If the pdf-file could not be loaded.
+	 */
+	@Test
+	void testLoad(@TempDir Path tempDir) throws IOException {
+		final var file = getResource("/pdf-files/sample.pdf");
+		final var stripper = new PDFTextStripper();
+		try (var expected = PDDocument.load(file);
+			 var actual = MappedFile.load(file, null, MemoryUsageSetting.setupTempFileOnly())) {
+			assertEquals(expected.getNumberOfPages(), actual.getNumberOfPages());
+			assertEquals(stripper.getText(expected), stripper.getText(actual));
+		}
+		final var broken = Files.writeString(tempDir.resolve("broken.pdf"), "not a pdf").toFile();
+		assertThrows(IOException.class, () -> MappedFile.load(broken, null, MemoryUsageSetting.setupMainMemoryOnly()));
+	}
+}
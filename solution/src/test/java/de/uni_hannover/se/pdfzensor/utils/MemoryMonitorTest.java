@@ -0,0 +1,40 @@
+package de.uni_hannover.se.pdfzensor.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** MemoryMonitorTest should contain all unit-tests related to {@link MemoryMonitor}. */
+class MemoryMonitorTest {
+	/**
+	 * Checks if only the scratch files created after the monitor are measured and the peak usage is kept once they
+	 * are deleted.
+	 *
+	 * @param tempDir A temporary directory to use as scratch directory.
+	 * @throws IOException If the scratch files could not be created.
+	 */
+	@Test
+	void testScratch(@TempDir Path tempDir) throws IOException {
+		Files.write(tempDir.resolve("PDFBox1.tmp"), new byte[100]);
+		final var monitor = new MemoryMonitor(tempDir.toFile());
+		assertEquals(0, monitor.sampleScratch());
+		assertEquals(0, monitor.getPeakScratch());
+		
+		final var scratch = Files.write(tempDir.resolve("PDFBox2.tmp"), new byte[300]);
+		Files.write(tempDir.resolve("other.tmp"), new byte[50]);
+		assertEquals(300, monitor.sampleScratch());
+		Files.delete(scratch);
+		assertEquals(0, monitor.sampleScratch());
+		assertEquals(300, monitor.getPeakScratch());
+		
+		assertTrue(monitor.getPeakHeap() > 0);
+		assertTrue(monitor.toString().matches("Peak heap \\d+ MiB, peak scratch 0 MiB"), monitor.toString());
+		assertEquals(0, new MemoryMonitor(tempDir.resolve("missing").toFile()).sampleScratch());
+		assertDoesNotThrow(() -> new MemoryMonitor(null).sampleScratch());
+	}
+}
@@ -0,0 +1,139 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.createDocument;
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** CompactWriterTest should contain all unit-tests related to {@link CompactWriter}. */
+class CompactWriterTest {
+	/**
+	 * Writes the document compactly.
+	 *
+	 * @param document the document that should be written.
+	 * @param writer   the writer that should be used.
+	 * @return the written document.
+	 * @throws IOException If the document could not be written.
+	 */
+	private static byte[] write(PDDocument document, CompactWriter writer) throws IOException {
+		final var out = new ByteArrayOutputStream();
+		writer.write(document, out);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Checks that the written document uses a cross-reference stream whose entries are correct: Each object written
+	 * directly starts at its offset and all others are packed into object streams.
+	 *
+	 * @param written the written document.
+	 * @param reread  the written document loaded again.
+	 */
+	private static void assertCompact(byte[] written, PDDocument reread) {
+		final var text = new String(written, StandardCharsets.ISO_8859_1);
+		assertTrue(text.startsWith("%PDF-1."));
+		assertTrue(reread.getVersion() >= 1.5f);
+		assertTrue(text.endsWith("%%EOF\n"));
+		assertTrue(reread.getDocument().isXRefStream());
+		var packed = 0;
+		for (var entry : reread.getDocument().getXrefTable().entrySet()) {
+			// PDFBox records the number of the object stream as negative offset of a packed object
+			if (entry.getValue() < 0) {
+				packed++;
+				continue;
+			}
+			final var offset = Math.toIntExact(entry.getValue());
+			assertTrue(text.startsWith(entry.getKey().getNumber() + " 0 obj", offset), entry.getKey().toString());
+		}
+		assertTrue(packed > 0);
+		assertFalse(text.contains("\nxref"));
+		assertTrue(text.contains("/Type/ObjStm"));
+		assertFalse(text.contains("/Type /Page"));
+	}
+	
+	/**
+	 * Checks if a pdf-file written compactly contains the same pages and text as if written by PDFBox and is smaller.
+	 *
+	 * @param path the path of the pdf-file.
+	 * @throws IOException If the pdf-file could not be loaded or written.
+	 */
+	@ParameterizedTest(name = "Run {index}: {0}")
+	@ValueSource(strings = {"/pdf-files/sample.pdf", "/pdf-files/formAndTransparencyGroup.pdf",
+							"/pdf-files/XsAtSetPositionLinks.pdf", "/pdf-files/fullMetadata.pdf"})
+	void testWrite(String path) throws IOException {
+		final var stripper = new PDFTextStripper();
+		try (var doc = PDDocument.load(getResource(path))) {
+			final var expected = new ByteArrayOutputStream();
+			doc.save(expected);
+			final var written = write(doc, new CompactWriter());
+			assertTrue(written.length < expected.size());
+			try (var original = PDDocument.load(expected.toByteArray()); var reread = PDDocument.load(written)) {
+				assertCompact(written, reread);
+				assertEquals(original.getNumberOfPages(), reread.getNumberOfPages());
+				assertEquals(stripper.getText(original), stripper.getText(reread));
+				assertEquals(original.getDocumentInformation().getTitle(), reread.getDocumentInformation().getTitle());
+				assertEquals(original.getDocumentInformation().getAuthor(),
+							 reread.getDocumentInformation().getAuthor());
+			}
+			assertArrayEquals(written, write(doc, new CompactWriter()));
+		}
+	}
+	
+	/**
+	 * Checks if a document created by PDFBox (whose objects are not marked as direct and whose pages reference their
+	 * parent) is written correctly, also if each object stream contains a single object only.
+	 *
+	 * @throws IOException If the document could not be created or written.
+	 */
+	@Test
+	void testCreatedDocument() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> new CompactWriter(0));
+		try (var doc = createDocument(3, "")) {
+			doc.getDocumentInformation().setTitle("Compact");
+			for (var writer : Arrays.asList(new CompactWriter(), new CompactWriter(1))) {
+				final var written = write(doc, writer);
+				try (var reread = PDDocument.load(written)) {
+					assertCompact(written, reread);
+					assertEquals(3, reread.getNumberOfPages());
+					assertEquals("Compact", reread.getDocumentInformation().getTitle());
+					assertSame(reread.getPages().getCOSObject(),
+							   reread.getPage(2).getCOSObject().getDictionaryObject(COSName.PARENT));
+					final var text = new PDFTextStripper().getText(reread);
+					for (var i = 1; i <= 3; i++)
+						assertTrue(text.contains("Page " + i));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks if an encrypted document is only written once its security was removed.
+	 *
+	 * @throws IOException If the document could not be loaded or written.
+	 */
+	@Test
+	void testEncrypted() throws IOException {
+		final var file = getResource("/encrypted-pdf-files/Cryptography_Sample_encrypted.pdf");
+		try (var doc = PDDocument.load(file, "testpassword")) {
+			final var writer = new CompactWriter();
+			assertThrows(IllegalArgumentException.class, () -> write(doc, writer));
+			assertThrows(NullPointerException.class, () -> writer.write(null, new ByteArrayOutputStream()));
+			doc.setAllSecurityToBeRemoved(true);
+			final var written = write(doc, writer);
+			try (var reread = PDDocument.load(written)) {
+				assertFalse(reread.isEncrypted());
+				assertEquals(new PDFTextStripper().getText(doc), new PDFTextStripper().getText(reread));
+			}
+		}
+	}
+}
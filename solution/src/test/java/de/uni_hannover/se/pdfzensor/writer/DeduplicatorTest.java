@@ -0,0 +1,109 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationText;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** DeduplicatorTest should contain all unit-tests related to {@link Deduplicator}. */
+class DeduplicatorTest {
+	/**
+	 * Creates a document of three pages. The first two show the same text and image, where each page has an image, a
+	 * content stream and an annotation of its own. The third page shows another text.
+	 *
+	 * @return the created document, saved and loaded again, such that its objects are indirect ones as in a parsed
+	 * pdf-file.
+	 * @throws IOException If the document could not be created.
+	 */
+	private static PDDocument createDocument() throws IOException {
+		final var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+		for (var x = 0; x < 64; x++)
+			image.setRGB(x, x, 0xFF0000);
+		try (var doc = new PDDocument(); var out = new ByteArrayOutputStream()) {
+			for (var text : new String[]{"Same", "Same", "Other"}) {
+				final var page = new PDPage();
+				doc.addPage(page);
+				try (var contentStream = new PDPageContentStream(doc, page)) {
+					contentStream.drawImage(LosslessFactory.createFromImage(doc, image), 10, 10);
+					contentStream.beginText();
+					contentStream.setFont(PDType1Font.HELVETICA, 12);
+					contentStream.newLineAtOffset(100, 700);
+					contentStream.showText(text);
+					contentStream.endText();
+				}
+				page.getAnnotations().add(new PDAnnotationText());
+			}
+			doc.save(out);
+			return PDDocument.load(out.toByteArray());
+		}
+	}
+	
+	/**
+	 * Checks if identical streams and resources are replaced by a single object while the pages and annotations stay
+	 * distinct.
+	 *
+	 * @throws IOException If the document could not be created or deduplicated.
+	 */
+	@Test
+	void testDeduplicate() throws IOException {
+		try (var doc = createDocument()) {
+			final var expected = new PDFTextStripper().getText(doc);
+			final var first = doc.getPage(0);
+			final var second = doc.getPage(1);
+			final var third = doc.getPage(2);
+			final var image = COSName.getPDFName("Im1");
+			assertNotSame(first.getContents(), second.getContents());
+			assertNotSame(first.getResources().getXObject(image).getCOSObject(),
+						  second.getResources().getXObject(image).getCOSObject());
+			
+			final var saved = new Deduplicator().deduplicate(doc);
+			assertTrue(saved > 64 * 3);
+			assertSame(first.getCOSObject().getDictionaryObject(COSName.CONTENTS),
+					   second.getCOSObject().getDictionaryObject(COSName.CONTENTS));
+			assertNotSame(first.getCOSObject().getDictionaryObject(COSName.CONTENTS),
+						  third.getCOSObject().getDictionaryObject(COSName.CONTENTS));
+			// the identical resource dictionaries of all pages are merged as their images are
+			assertSame(first.getCOSObject().getDictionaryObject(COSName.RESOURCES),
+					   third.getCOSObject().getDictionaryObject(COSName.RESOURCES));
+			assertNotSame(first.getCOSObject(), second.getCOSObject());
+			assertNotSame(first.getAnnotations().get(0).getCOSObject(), second.getAnnotations().get(0).getCOSObject());
+			
+			final var out = new ByteArrayOutputStream();
+			new CompactWriter().write(doc, out);
+			try (var reread = PDDocument.load(out.toByteArray())) {
+				assertEquals(3, reread.getNumberOfPages());
+				assertEquals(expected, new PDFTextStripper().getText(reread));
+				assertEquals(3, reread.getDocument().getObjectsByType(COSName.ANNOT).size());
+			}
+			assertEquals(0, new Deduplicator().deduplicate(doc));
+		}
+	}
+	
+	/**
+	 * Checks if deduplicating makes the output smaller.
+	 *
+	 * @throws IOException If the document could not be created, deduplicated or saved.
+	 */
+	@Test
+	void testOutputSize() throws IOException {
+		try (var doc = createDocument()) {
+			final var original = new ByteArrayOutputStream();
+			doc.save(original);
+			new Deduplicator().deduplicate(doc);
+			final var deduplicated = new ByteArrayOutputStream();
+			doc.save(deduplicated);
+			assertTrue(deduplicated.size() < original.size());
+		}
+	}
+}
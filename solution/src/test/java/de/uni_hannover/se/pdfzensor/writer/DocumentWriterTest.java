@@ -0,0 +1,81 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import de.uni_hannover.se.pdfzensor.config.Settings;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.assertIsUtilityClass;
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** DocumentWriterTest should contain all unit-tests related to {@link DocumentWriter}. */
+class DocumentWriterTest {
+	/** Checks if DocumentWriter is a utility class. */
+	@Test
+	void testUtilityClass() {
+		assertIsUtilityClass(DocumentWriter.class);
+	}
+	
+	/**
+	 * Checks if a document is saved by PDFBox, compactly or linearized as specified by the settings.
+	 *
+	 * @param tempDir A temporary directory to save the documents in.
+	 * @throws IOException If the document could not be loaded or saved.
+	 */
+	@Test
+	void testSave(@TempDir Path tempDir) throws IOException {
+		final var input = getResource("/pdf-files/sample.pdf");
+		final var plain = tempDir.resolve("plain.pdf").toFile();
+		final var compact = tempDir.resolve("compact.pdf").toFile();
+		final var deduplicated = tempDir.resolve("deduplicated.pdf").toFile();
+		final var linearized = tempDir.resolve("linearized.pdf").toFile();
+		try (var doc = PDDocument.load(input)) {
+			DocumentWriter.save(doc, plain, new Settings.Builder().inputs(input).build());
+			DocumentWriter.save(doc, compact, new Settings.Builder().inputs(input).compact(true).build());
+			DocumentWriter.save(doc, deduplicated,
+								new Settings.Builder().inputs(input).compact(true).deduplicate(true).build());
+			DocumentWriter.save(doc, linearized, new Settings.Builder().inputs(input).linearized(true).build());
+			assertThrows(NullPointerException.class,
+						 () -> DocumentWriter.save(null, plain, new Settings.Builder().inputs(input).build()));
+		}
+		assertTrue(compact.length() < plain.length());
+		// sample.pdf embeds the same font program twice
+		assertTrue(deduplicated.length() < compact.length());
+		assertFalse(Files.readString(plain.toPath(), StandardCharsets.ISO_8859_1).contains("/ObjStm"));
+		assertTrue(Files.readString(compact.toPath(), StandardCharsets.ISO_8859_1).contains("/ObjStm"));
+		try (var doc = PDDocument.load(plain); var other = PDDocument.load(compact)) {
+			assertTrue(other.getDocument().isXRefStream());
+			assertEquals(doc.getNumberOfPages(), other.getNumberOfPages());
+		}
+		assertTrue(Files.readString(linearized.toPath(), StandardCharsets.ISO_8859_1).contains("/Linearized 1"));
+		try (var doc = PDDocument.load(plain); var other = PDDocument.load(linearized)) {
+			assertFalse(other.getDocument().isXRefStream());
+			assertEquals(doc.getNumberOfPages(), other.getNumberOfPages());
+		}
+	}
+	
+	/**
+	 * Checks if a document without pages, which can not be linearized, is saved by PDFBox instead.
+	 *
+	 * @param tempDir A temporary directory to save the document in.
+	 * @throws IOException If the document could not be saved or loaded.
+	 */
+	@Test
+	void testSaveWithoutPages(@TempDir Path tempDir) throws IOException {
+		final var input = getResource("/pdf-files/sample.pdf");
+		final var output = tempDir.resolve("empty.pdf").toFile();
+		try (var doc = new PDDocument()) {
+			DocumentWriter.save(doc, output, new Settings.Builder().inputs(input).linearized(true).build());
+		}
+		assertFalse(Files.readString(output.toPath(), StandardCharsets.ISO_8859_1).contains("/Linearized"));
+		try (var doc = PDDocument.load(output)) {
+			assertEquals(0, doc.getNumberOfPages());
+		}
+	}
+}
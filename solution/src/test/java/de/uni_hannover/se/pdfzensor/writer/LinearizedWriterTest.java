@@ -0,0 +1,242 @@
+package de.uni_hannover.se.pdfzensor.writer;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
+
+import static de.uni_hannover.se.pdfzensor.testing.TestUtility.getResource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** LinearizedWriterTest should contain all unit-tests related to {@link LinearizedWriter}. */
+class LinearizedWriterTest {
+	/** The linearization parameter dictionary as written at the beginning of the file. */
+	private static final Pattern LINEARIZATION = Pattern.compile(
+			"^%PDF-1\\.\\d\n%\\S+\n(\\d+) 0 obj\n<</Linearized 1/L (\\d+)/H\\[(\\d+) (\\d+)]/O (\\d+)/E (\\d+)" +
+			"/N (\\d+)/T (\\d+)>>\nendobj\nxref\n");
+	/** A subsection header of a cross-reference table. */
+	private static final Pattern SUBSECTION = Pattern.compile("xref\n(\\d+) (\\d+)\n");
+	
+	/**
+	 * Writes the document linearized.
+	 *
+	 * @param document the document that should be written.
+	 * @return the written document.
+	 * @throws IOException If the document could not be written.
+	 */
+	private static byte[] write(PDDocument document) throws IOException {
+		final var out = new ByteArrayOutputStream();
+		new LinearizedWriter().write(document, out);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Returns the offset of the object from the cross-reference table starting at the offset.
+	 *
+	 * @param text   the written document.
+	 * @param xref   the offset of the cross-reference table.
+	 * @param number the number of the object.
+	 * @return the offset of the object.
+	 */
+	private static int offsetOf(String text, int xref, int number) {
+		final var matcher = SUBSECTION.matcher(text);
+		assertTrue(matcher.find(xref));
+		assertEquals(xref, matcher.start());
+		final var first = Integer.parseInt(matcher.group(1));
+		assertTrue(number >= first && number < first + Integer.parseInt(matcher.group(2)));
+		final var entry = matcher.end() + 20 * (number - first);
+		assertEquals(" 00000 n\r\n", text.substring(entry + 10, entry + 20));
+		return Integer.parseInt(text.substring(entry, entry + 10));
+	}
+	
+	/**
+	 * Checks that the written document is linearized: The linearization parameter dictionary is correct, each entry
+	 * of both cross-reference tables points at its object and the hint stream is where it is specified and starts with
+	 * the page offset hint table of the pages.
+	 *
+	 * @param written the written document.
+	 * @param reread  the written document loaded again.
+	 * @throws IOException If the hint stream could not be decompressed.
+	 */
+	private static void assertLinearized(byte[] written, PDDocument reread) throws IOException {
+		final var text = new String(written, StandardCharsets.ISO_8859_1);
+		final var matcher = LINEARIZATION.matcher(text);
+		assertTrue(matcher.find(), text.substring(0, 200));
+		final var first = Integer.parseInt(matcher.group(1));
+		assertEquals(written.length, Long.parseLong(matcher.group(2)));
+		assertEquals(reread.getNumberOfPages(), Integer.parseInt(matcher.group(7)));
+		final var firstXref = matcher.end() - "xref\n".length();
+		final var prev = Pattern.compile("/Prev (\\d+)>>\nstartxref\n0\n%%EOF\n").matcher(text);
+		assertTrue(prev.find(firstXref));
+		final var mainXref = Integer.parseInt(prev.group(1));
+		assertTrue(text.startsWith("xref\n0 " + first + "\n0000000000 65535 f\r\n", mainXref));
+		assertEquals(mainXref + ("xref\n0 " + first).length(), Integer.parseInt(matcher.group(8)));
+		assertTrue(text.endsWith("startxref\n" + firstXref + "\n%%EOF\n"));
+		for (var number = 1; number < first; number++)
+			assertTrue(text.startsWith(number + " 0 obj\n", offsetOf(text, mainXref, number)));
+		final var trailer = Pattern.compile("trailer\n<</Size (\\d+)").matcher(text);
+		assertTrue(trailer.find(firstXref));
+		final var size = Integer.parseInt(trailer.group(1));
+		for (var number = first; number < size; number++)
+			assertTrue(text.startsWith(number + " 0 obj\n", offsetOf(text, firstXref, number)));
+		
+		// the first page, its objects and the hint stream precede the end of the first page, all others follow it
+		final var firstPage = Integer.parseInt(matcher.group(5));
+		final var firstPageEnd = Integer.parseInt(matcher.group(6));
+		assertEquals(first + 3, firstPage);
+		final var hintOffset = Integer.parseInt(matcher.group(3));
+		final var hintLength = Integer.parseInt(matcher.group(4));
+		assertEquals(offsetOf(text, firstXref, first + 2), hintOffset);
+		assertEquals(hintOffset + hintLength, offsetOf(text, firstXref, firstPage));
+		assertTrue(text.startsWith("endobj\n", hintOffset + hintLength - "endobj\n".length()));
+		assertTrue(size == firstPage + 1 || offsetOf(text, firstXref, size - 1) < firstPageEnd);
+		for (var number = 1; number < first; number++)
+			assertTrue(offsetOf(text, mainXref, number) >= firstPageEnd);
+		
+		final var hint = text.substring(hintOffset, hintOffset + hintLength);
+		assertTrue(hint.contains("/S "));
+		final var data = hint.substring(hint.indexOf("stream\n") + "stream\n".length(), hint.lastIndexOf("\nendstream"))
+							 .getBytes(StandardCharsets.ISO_8859_1);
+		final byte[] table;
+		try (var in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+			table = in.readAllBytes();
+		}
+		final var header = ByteBuffer.wrap(table);
+		assertTrue(header.getInt() > 0);
+		// the location of the first page is given as if there was no hint stream
+		assertEquals(offsetOf(text, firstXref, firstPage) - hintLength, header.getInt());
+		assertEquals(4, header.getShort(34));
+	}
+	
+	/**
+	 * Checks if the text of the page is its number.
+	 *
+	 * @param document the document containing the page.
+	 * @param page     the (1-based) number of the page.
+	 * @throws IOException If the text could not be extracted.
+	 */
+	private static void assertPageText(PDDocument document, int page) throws IOException {
+		final var stripper = new PDFTextStripper();
+		stripper.setStartPage(page);
+		stripper.setEndPage(page);
+		// the rotation of the pages may break the text into lines
+		assertEquals("Page" + page, stripper.getText(document).replaceAll("\\s", ""));
+	}
+	
+	/**
+	 * Checks if a pdf-file written linearized contains the same pages and text as if written by PDFBox.
+	 *
+	 * @param path the path of the pdf-file.
+	 * @throws IOException If the pdf-file could not be loaded or written.
+	 */
+	@ParameterizedTest(name = "Run {index}: {0}")
+	@ValueSource(strings = {"/pdf-files/sample.pdf", "/pdf-files/formAndTransparencyGroup.pdf",
+							"/pdf-files/XsAtSetPositionLinks.pdf", "/pdf-files/fullMetadata.pdf",
+							"/pdf-files/pdfinpdf.pdf"})
+	void testWrite(String path) throws IOException {
+		final var stripper = new PDFTextStripper();
+		try (var doc = PDDocument.load(getResource(path))) {
+			final var expected = new ByteArrayOutputStream();
+			doc.save(expected);
+			final var written = write(doc);
+			try (var original = PDDocument.load(expected.toByteArray()); var reread = PDDocument.load(written)) {
+				assertLinearized(written, reread);
+				assertFalse(reread.getDocument().isXRefStream());
+				assertEquals(original.getNumberOfPages(), reread.getNumberOfPages());
+				assertEquals(stripper.getText(original), stripper.getText(reread));
+				assertEquals(original.getDocumentInformation().getTitle(), reread.getDocumentInformation().getTitle());
+			}
+			assertArrayEquals(written, write(doc));
+		}
+	}
+	
+	/**
+	 * Checks if the objects of each page are placed after those of the previous pages, objects used by several pages
+	 * following the pages, and if attributes inherited from the page tree are set on the pages.
+	 *
+	 * @throws IOException If the document could not be created or written.
+	 */
+	@Test
+	void testPageOrder() throws IOException {
+		try (var doc = new PDDocument()) {
+			// all pages but the first one inherit their resources and thus the font from the page tree
+			doc.getPages().getCOSObject().setItem(COSName.RESOURCES, new PDResources());
+			doc.getPages().getCOSObject().setInt(COSName.ROTATE, 90);
+			for (var i = 1; i <= 4; i++) {
+				final var page = new PDPage(new PDRectangle(300 + 10 * i, 400));
+				doc.addPage(page);
+				if (i == 1)
+					page.setResources(new PDResources());
+				try (var contentStream = new PDPageContentStream(doc, page, AppendMode.OVERWRITE, false)) {
+					contentStream.beginText();
+					contentStream.setFont(i == 1 ? PDType1Font.TIMES_ROMAN : PDType1Font.HELVETICA, 12);
+					contentStream.showText("Page " + i);
+					contentStream.endText();
+				}
+			}
+			doc.getDocumentInformation().setTitle("Linearized");
+			final var written = write(doc);
+			final var text = new String(written, StandardCharsets.ISO_8859_1);
+			try (var reread = PDDocument.load(written)) {
+				assertLinearized(written, reread);
+				assertEquals("Linearized", reread.getDocumentInformation().getTitle());
+				var previous = -1;
+				for (var i = 1; i <= 4; i++) {
+					final var page = reread.getPage(i - 1);
+					assertEquals(300 + 10 * i, page.getMediaBox().getWidth());
+					assertEquals(90, page.getCOSObject().getInt(COSName.ROTATE));
+					final var contents = text.indexOf("Page " + i);
+					assertTrue(contents > previous, "Page " + i + " is misplaced");
+					previous = contents;
+					assertPageText(reread, i);
+				}
+				// the font of the first page is part of it, the font shared by the remaining pages follows them
+				assertTrue(text.indexOf("/Times-Roman") < text.indexOf("Page 2"));
+				assertTrue(text.indexOf("/Helvetica") > previous);
+			}
+		}
+	}
+	
+	/**
+	 * Checks if an encrypted document is only written once its security was removed and a document without pages is
+	 * rejected.
+	 *
+	 * @throws IOException If the document could not be loaded or written.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	void testInvalidDocuments() throws IOException {
+		final var writer = new LinearizedWriter();
+		try (var doc = new PDDocument()) {
+			assertThrows(IllegalArgumentException.class, () -> write(doc));
+			assertThrows(NullPointerException.class, () -> writer.write(null, new ByteArrayOutputStream()));
+		}
+		final var file = getResource("/encrypted-pdf-files/Cryptography_Sample_encrypted.pdf");
+		try (var doc = PDDocument.load(file, "testpassword")) {
+			assertThrows(IllegalArgumentException.class, () -> write(doc));
+			doc.setAllSecurityToBeRemoved(true);
+			final var written = write(doc);
+			try (var reread = PDDocument.load(written)) {
+				assertFalse(reread.isEncrypted());
+				assertLinearized(written, reread);
+				assertEquals(new PDFTextStripper().getText(doc), new PDFTextStripper().getText(reread));
+			}
+		}
+	}
+}